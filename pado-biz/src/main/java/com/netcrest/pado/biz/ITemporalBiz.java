@@ -17,6 +17,7 @@ package com.netcrest.pado.biz;
 
 import java.io.PrintStream;
 import java.text.SimpleDateFormat;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -147,6 +148,30 @@ public interface ITemporalBiz<K, V> extends IBiz, ITemporalBizLink<K, V>
 	@Override
 	TemporalEntry<K, V> getEntry(K identityKey, long validAtTime, long asOfTime);
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Map<K, V> getAll(Collection<K> identityKeys);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Map<K, V> getAll(Collection<K> identityKeys, long validAtTime, long asOfTime);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys, long validAtTime, long asOfTime);
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -320,6 +345,18 @@ public interface ITemporalBiz<K, V> extends IBiz, ITemporalBizLink<K, V>
 	@Override
 	ITemporalKey<K> getKey(K identityKey, long validAtTime, long asOfTime);
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys, long validAtTime, long asOfTime);
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -567,6 +604,33 @@ public interface ITemporalBiz<K, V> extends IBiz, ITemporalBizLink<K, V>
 	@Override
 	List<V> __getAttachments(long validAtTime, long asOfTime);
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@BizMethod
+	@OnPath
+	@WithGridCollector(gridCollectorClass = "com.netcrest.pado.biz.collector.MapCollector")
+	@Override
+	Map<K, V> __getAll(long validAtTime, long asOfTime);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@BizMethod
+	@OnPath
+	@WithGridCollector(gridCollectorClass = "com.netcrest.pado.biz.collector.MapCollector")
+	@Override
+	Map<K, TemporalEntry<K, V>> __getAllEntries(long validAtTime, long asOfTime);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@BizMethod
+	@OnPath
+	@WithGridCollector(gridCollectorClass = "com.netcrest.pado.biz.collector.MapCollector")
+	@Override
+	Map<K, ITemporalKey<K>> __getAllKeys(long validAtTime, long asOfTime);
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -585,6 +585,143 @@ public class TemporalBizImpl<K, V> implements ITemporalBiz<K, V>
 		return entry.getTemporalKey();
 	}
 
+	@Override
+	public Map<K, V> getAll(Collection<K> identityKeys)
+	{
+		// client only
+		return null;
+	}
+
+	@Override
+	public Map<K, V> getAll(Collection<K> identityKeys, long validAtTime, long asOfTime)
+	{
+		// client only
+		return null;
+	}
+
+	@Override
+	public Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys)
+	{
+		// client only
+		return null;
+	}
+
+	@Override
+	public Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys, long validAtTime, long asOfTime)
+	{
+		// client only
+		return null;
+	}
+
+	@Override
+	public Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys)
+	{
+		// client only
+		return null;
+	}
+
+	@Override
+	public Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys, long validAtTime, long asOfTime)
+	{
+		// client only
+		return null;
+	}
+
+	/**
+	 * Returns a map of the identity keys in the function filter and their
+	 * temporal entries that satisfy the specified valid-at and as-of times. The
+	 * filter contains only the routing keys that belong to this member's
+	 * buckets. It returns null if the temporal manager is not found.
+	 */
+	private Map<K, TemporalEntry<K, V>> getFilterEntryMap(long validAtTime, long asOfTime)
+	{
+		RegionFunctionContext rfc = ((IGemfireGridContextServer) (bizContext.getGridContextServer()))
+				.getRegionFunctionContext();
+		GemfireTemporalManager tm = (GemfireTemporalManager) TemporalManager
+				.getTemporalManager(rfc.getDataSet().getFullPath());
+		if (tm == null) {
+			return null;
+		}
+		Set filterSet = rfc.getFilter();
+		if (filterSet == null || filterSet.isEmpty()) {
+			return new HashMap(2);
+		}
+		return (Map) tm.getTemporalCacheListener().getAsOfTemporalEntryMap(filterSet, validAtTime, asOfTime);
+	}
+
+	/**
+	 * Resolves the KeyMap references of the specified entries if the client
+	 * has requested references via the additional arguments.
+	 */
+	private void resolveReferences(Collection<TemporalEntry<K, V>> entries, long validAtTime, long asOfTime)
+	{
+		Object args[] = bizContext.getGridContextServer().getAdditionalArguments();
+		boolean isReference = false;
+		int depth = -1;
+		if (args != null) {
+			if (args.length > 0) {
+				isReference = (Boolean) args[0];
+			}
+			if (args.length > 1) {
+				depth = (Integer) args[1];
+			}
+		}
+		if (isReference && depth != 0) {
+			ReferenceFinder finder = new ReferenceFinder();
+			finder.getCollectionReferences(entries, depth, validAtTime, asOfTime, getKeyMapReferenceId());
+		}
+	}
+
+	@BizMethod
+	@Override
+	public Map<K, V> __getAll(long validAtTime, long asOfTime)
+	{
+		Map<K, TemporalEntry<K, V>> entryMap = getFilterEntryMap(validAtTime, asOfTime);
+		if (entryMap == null) {
+			return null;
+		}
+		resolveReferences(entryMap.values(), validAtTime, asOfTime);
+		HashMap<K, V> map = new HashMap<K, V>(entryMap.size() * 4 / 3 + 1);
+		for (Map.Entry<K, TemporalEntry<K, V>> entry : entryMap.entrySet()) {
+			ITemporalData data = entry.getValue().getTemporalData();
+			Object value;
+			if (data instanceof GemfireTemporalData) {
+				value = ((GemfireTemporalData) data).getValue();
+			} else {
+				value = data;
+			}
+			map.put(entry.getKey(), (V) value);
+		}
+		return map;
+	}
+
+	@BizMethod
+	@Override
+	public Map<K, TemporalEntry<K, V>> __getAllEntries(long validAtTime, long asOfTime)
+	{
+		Map<K, TemporalEntry<K, V>> entryMap = getFilterEntryMap(validAtTime, asOfTime);
+		if (entryMap == null) {
+			return null;
+		}
+		resolveReferences(entryMap.values(), validAtTime, asOfTime);
+		return entryMap;
+	}
+
+	@BizMethod
+	@Override
+	public Map<K, ITemporalKey<K>> __getAllKeys(long validAtTime, long asOfTime)
+	{
+		Map<K, TemporalEntry<K, V>> entryMap = getFilterEntryMap(validAtTime, asOfTime);
+		if (entryMap == null) {
+			return null;
+		}
+		HashMap<K, ITemporalKey<K>> map = new HashMap<K, ITemporalKey<K>>(entryMap.size() * 4 / 3 + 1);
+		for (Map.Entry<K, TemporalEntry<K, V>> entry : entryMap.entrySet()) {
+			map.put(entry.getKey(), entry.getValue().getTemporalKey());
+		}
+		return map;
+	}
+
 	@BizMethod
 	@Override
 	public Set<ITemporalKey<K>> getKeySet(long validAtTime, long asOfTime)
@@ -1182,12 +1319,8 @@ public class TemporalBizImpl<K, V> implements ITemporalBiz<K, V>
 						if (list != null && depth != 0) {
 							// supports KeyMap only
 							VirtualPathEntityFinder finder = new VirtualPathEntityFinder();
-							// TODO: Support bulk reference
-							for (Object object : list) {
-								KeyMap keyMap = (KeyMap) object;
-								finder.getReferences(PadoServerManager.getPadoServerManager().getCatalog(), virtualPath,
-										keyMap, depth, validAtTime, asOfTime, null);
-							}
+							finder.getKeyMapCollectionReferences(PadoServerManager.getPadoServerManager().getCatalog(),
+									virtualPath, list, depth, validAtTime, asOfTime, null);
 						}
 						// } else if
 						// (PadoServerManager.getPadoServerManager().isMaster())
@@ -291,6 +291,70 @@ public class TemporalBizImplLocal<K, V> implements ITemporalBiz<K, V>, IBizLocal
 		return deserialize(biz.getEntry(identityKey, validAtTime, asOfTime));
 	}
 
+	/**
+	 * Sets the specified identity keys as the routing keys such that each
+	 * server receives only the identity keys that belong to its buckets.
+	 * Returns false if there are no identity keys to look up.
+	 */
+	private boolean setRoutingKeys(Collection<K> identityKeys)
+	{
+		if (identityKeys == null || identityKeys.isEmpty()) {
+			return false;
+		}
+		Set<K> routingKeys;
+		if (identityKeys instanceof Set) {
+			routingKeys = (Set<K>) identityKeys;
+		} else {
+			routingKeys = new HashSet<K>(identityKeys);
+		}
+		biz.getBizContext().reset();
+		biz.getBizContext().getGridContextClient().setRoutingKeys(routingKeys);
+		biz.getBizContext().getGridContextClient().setAdditionalArguments(isReference, depth, virtualEntityPath);
+		return true;
+	}
+
+	@Override
+	public Map<K, V> getAll(Collection<K> identityKeys)
+	{
+		return getAll(identityKeys, -1, -1);
+	}
+
+	@Override
+	public Map<K, V> getAll(Collection<K> identityKeys, long validAtTime, long asOfTime)
+	{
+		if (setRoutingKeys(identityKeys) == false) {
+			return new HashMap<K, V>(2);
+		}
+		Map<K, V> map = biz.__getAll(validAtTime, asOfTime);
+		if (map != null) {
+			for (V value : map.values()) {
+				deserialize(value);
+			}
+		}
+		return map;
+	}
+
+	@Override
+	public Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys)
+	{
+		return getAllEntries(identityKeys, -1, -1);
+	}
+
+	@Override
+	public Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys, long validAtTime, long asOfTime)
+	{
+		if (setRoutingKeys(identityKeys) == false) {
+			return new HashMap<K, TemporalEntry<K, V>>(2);
+		}
+		Map<K, TemporalEntry<K, V>> map = biz.__getAllEntries(validAtTime, asOfTime);
+		if (map != null) {
+			for (TemporalEntry<K, V> entry : map.values()) {
+				deserialize(entry);
+			}
+		}
+		return map;
+	}
+
 	private Map<ITemporalKey<K>, ITemporalData<K>> deserialize(Map<ITemporalKey<K>, ITemporalData<K>> map)
 	{
 		if (map != null) {
@@ -769,6 +833,21 @@ public class TemporalBizImplLocal<K, V> implements ITemporalBiz<K, V>, IBizLocal
 		return biz.getKey(identityKey, validAtTime, asOfTime);
 	}
 
+	@Override
+	public Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys)
+	{
+		return getAllKeys(identityKeys, -1, -1);
+	}
+
+	@Override
+	public Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys, long validAtTime, long asOfTime)
+	{
+		if (setRoutingKeys(identityKeys) == false) {
+			return new HashMap<K, ITemporalKey<K>>(2);
+		}
+		return biz.__getAllKeys(validAtTime, asOfTime);
+	}
+
 	private Set<V> deserialize(Set<V> valueSet)
 	{
 		if (valueSet != null) {
@@ -1331,6 +1410,33 @@ public class TemporalBizImplLocal<K, V> implements ITemporalBiz<K, V>, IBizLocal
 		return null;
 	}
 
+	/**
+	 * Never invoked
+	 */
+	@Override
+	public Map<K, V> __getAll(long validAtTime, long asOfTime)
+	{
+		return null;
+	}
+
+	/**
+	 * Never invoked
+	 */
+	@Override
+	public Map<K, TemporalEntry<K, V>> __getAllEntries(long validAtTime, long asOfTime)
+	{
+		return null;
+	}
+
+	/**
+	 * Never invoked
+	 */
+	@Override
+	public Map<K, ITemporalKey<K>> __getAllKeys(long validAtTime, long asOfTime)
+	{
+		return null;
+	}
+
 	/**
 	 * Never invoked
 	 */
@@ -54,12 +54,9 @@ public class VirtualPathBizImpl
 							depth = -1;
 						}
 						VirtualPathEntityFinder finder = new VirtualPathEntityFinder();
-						for (Object obj : results) {
-							KeyMap keyMap = (KeyMap) obj;
-							// Following returns the same keyMap.
-							finder.getReferences(PadoServerManager.getPadoServerManager().getCatalog(), virtualPath,
-									keyMap, depth, validAtTime, asOfTime, null);
-						}
+						// Following updates the same KeyMap objects.
+						finder.getKeyMapCollectionReferences(PadoServerManager.getPadoServerManager().getCatalog(),
+								virtualPath, results, depth, validAtTime, asOfTime, null);
 					}
 
 				}
@@ -84,12 +81,9 @@ public class VirtualPathBizImpl
 						depth = -1;
 					}
 					VirtualPathEntityFinder finder = new VirtualPathEntityFinder();
-					for (Object obj : results) {
-						KeyMap keyMap = (KeyMap) obj;
-						// Following returns the same keyMap.
-						finder.getReferences(PadoServerManager.getPadoServerManager().getCatalog(), virtualPath, keyMap,
-								depth, validAtTime, asOfTime, null);
-					}
+					// Following updates the same KeyMap objects.
+					finder.getKeyMapCollectionReferences(PadoServerManager.getPadoServerManager().getCatalog(),
+							virtualPath, results, depth, validAtTime, asOfTime, null);
 				}
 			}
 		}
@@ -110,12 +104,9 @@ public class VirtualPathBizImpl
 						depth = -1;
 					}
 					VirtualPathEntityFinder finder = new VirtualPathEntityFinder();
-					for (Object obj : results) {
-						KeyMap keyMap = (KeyMap) obj;
-						// Following returns the same keyMap.
-						finder.getReferences(PadoServerManager.getPadoServerManager().getCatalog(), vpd, keyMap,
-								depth, validAtTime, asOfTime, null);
-					}
+					// Following updates the same KeyMap objects.
+					finder.getKeyMapCollectionReferences(PadoServerManager.getPadoServerManager().getCatalog(), vpd,
+							results, depth, validAtTime, asOfTime, null);
 				}
 			}
 		}
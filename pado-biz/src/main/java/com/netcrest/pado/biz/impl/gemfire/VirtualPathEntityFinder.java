@@ -24,6 +24,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -34,7 +35,6 @@ import com.netcrest.pado.data.KeyMap;
 import com.netcrest.pado.log.Logger;
 import com.netcrest.pado.pql.CompiledUnit;
 import com.netcrest.pado.pql.VirtualCompiledUnit2;
-import com.netcrest.pado.server.PadoServerManager;
 import com.netcrest.pado.server.VirtualPathEngine;
 import com.netcrest.pado.temporal.AttachmentSet;
 import com.netcrest.pado.temporal.AttachmentSetFactory;
@@ -44,9 +44,176 @@ import com.netcrest.pado.temporal.ITemporalKey;
 import com.netcrest.pado.temporal.TemporalEntry;
 import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalData;
 
+/**
+ * VirtualPathEntityFinder resolves the references defined by virtual path
+ * arguments. The collection methods resolve references set-at-a-time, i.e.,
+ * the referenced identity keys of all KeyMap objects are collected and
+ * de-duplicated, fetched with a single bulk call per referenced path, and then
+ * joined back to the KeyMap objects. References are cached in the finder such
+ * that references repeated across the KeyMap objects are fetched only once.
+ * Create a finder per query; the cache is not invalidated.
+ */
 @SuppressWarnings({ "rawtypes", "unchecked" })
 public class VirtualPathEntityFinder<K, V>
 {
+	/**
+	 * Cached value of identity keys and queries that have no values
+	 */
+	private static final Object NULL_VALUE = new Object();
+
+	/**
+	 * Referenced values fetched by this finder. The outer map is keyed by grid
+	 * path, depth, valid-at and as-of times. The inner map is keyed by
+	 * identity key or by query statement.
+	 */
+	private final ConcurrentHashMap<String, ConcurrentHashMap<Object, Object>> referenceCache = new ConcurrentHashMap<String, ConcurrentHashMap<Object, Object>>();
+
+	private ConcurrentHashMap<Object, Object> getReferenceMap(String cacheName, int depth, long validAtTime,
+			long asOfTime)
+	{
+		String key = cacheName + ":" + depth + ":" + validAtTime + ":" + asOfTime;
+		ConcurrentHashMap<Object, Object> referenceMap = referenceCache.get(key);
+		if (referenceMap == null) {
+			referenceMap = new ConcurrentHashMap<Object, Object>();
+			ConcurrentHashMap<Object, Object> referenceMap2 = referenceCache.putIfAbsent(key, referenceMap);
+			if (referenceMap2 != null) {
+				referenceMap = referenceMap2;
+			}
+		}
+		return referenceMap;
+	}
+
+	/**
+	 * Returns a map of the specified identity keys and their values. The
+	 * identity keys not found in the reference cache are fetched with a single
+	 * {@link ITemporalBizLink#getAll(Collection, long, long)} call and added to
+	 * the cache. Identity keys with no values are not included in the returned
+	 * map.
+	 * 
+	 * @param fetchedValueList
+	 *            If not null, the values fetched by this call are added to
+	 *            this list. Values found in the cache are not added.
+	 */
+	private Map<Object, Object> getAll(ITemporalBizLink temporalBiz, String gridPath, int depth,
+			Collection identityKeys, long validAtTime, long asOfTime, List fetchedValueList)
+	{
+		ConcurrentHashMap<Object, Object> referenceMap = getReferenceMap(gridPath, depth, validAtTime, asOfTime);
+		HashMap<Object, Object> map = new HashMap<Object, Object>(identityKeys.size() * 4 / 3 + 1);
+		ArrayList<Object> missingKeyList = new ArrayList<Object>();
+		for (Object identityKey : identityKeys) {
+			Object value = referenceMap.get(identityKey);
+			if (value == null) {
+				missingKeyList.add(identityKey);
+			} else if (value != NULL_VALUE) {
+				map.put(identityKey, value);
+			}
+		}
+		if (missingKeyList.size() > 0) {
+			Map<Object, Object> fetchedMap = temporalBiz.getAll(missingKeyList, validAtTime, asOfTime);
+			for (Object identityKey : missingKeyList) {
+				Object value = fetchedMap == null ? null : fetchedMap.get(identityKey);
+				if (value == null) {
+					referenceMap.put(identityKey, NULL_VALUE);
+				} else {
+					referenceMap.put(identityKey, value);
+					map.put(identityKey, value);
+					if (fetchedValueList != null) {
+						fetchedValueList.add(value);
+					}
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Returns the value of the specified identity key from the reference
+	 * cache. If not cached, then it fetches the value and adds it to the
+	 * cache.
+	 */
+	private Object get(ITemporalBizLink temporalBiz, String gridPath, int depth, Object identityKey,
+			long validAtTime, long asOfTime)
+	{
+		if (identityKey == null) {
+			return null;
+		}
+		ConcurrentHashMap<Object, Object> referenceMap = getReferenceMap(gridPath, depth, validAtTime, asOfTime);
+		Object value = referenceMap.get(identityKey);
+		if (value == null) {
+			value = temporalBiz.get(identityKey, validAtTime, asOfTime);
+			referenceMap.put(identityKey, value == null ? NULL_VALUE : value);
+		} else if (value == NULL_VALUE) {
+			value = null;
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the query results of the specified query statement from the
+	 * reference cache. If not cached, then it executes the query and adds the
+	 * results to the cache.
+	 */
+	private List getQueryValues(ITemporalBizLink temporalBiz, String gridPath, int depth, String queryStatement,
+			long validAtTime, long asOfTime)
+	{
+		ConcurrentHashMap<Object, Object> referenceMap = getReferenceMap(gridPath + "?", depth, validAtTime,
+				asOfTime);
+		Object list = referenceMap.get(queryStatement);
+		if (list == null) {
+			list = temporalBiz.getQueryValues(queryStatement, validAtTime, asOfTime);
+			referenceMap.put(queryStatement, list == null ? NULL_VALUE : list);
+		} else if (list == NULL_VALUE) {
+			list = null;
+		}
+		return (List) list;
+	}
+
+	/**
+	 * Assigns the specified query results to the argument of the specified
+	 * KeyMap.
+	 */
+	private void putQueryValues(KeyMap keyMap, String argName, boolean isOne, List list)
+	{
+		if (isOne) {
+			if (list == null || list.size() == 0) {
+				keyMap.put(argName, null);
+			} else {
+				keyMap.put(argName, list.get(0));
+			}
+		} else {
+			keyMap.put(argName, list);
+		}
+	}
+
+	/**
+	 * Returns the PQL query that looks up the specified virtual path by the
+	 * Identity function arguments of the specified KeyMap.
+	 */
+	private String getIdentityQuery(CompiledUnit cu, String virtualPath, KeyMap keyMap)
+	{
+		Object attributes[] = (String[]) cu.getAttributes();
+		Object[] args = cu.getArgValues(keyMap);
+		String pql = virtualPath + "?";
+		if (args != null && args.length > 0) {
+			for (int i = 0; i < args.length; i++) {
+				pql += attributes[i] + ":(\"" + args[i].toString() + "\") ";
+			}
+		}
+		return pql;
+	}
+
+	/**
+	 * Returns a new collection of the same type as the specified collection.
+	 * It returns an ArrayList if the type cannot be instantiated.
+	 */
+	private Collection newCollection(Collection col)
+	{
+		try {
+			return col.getClass().newInstance();
+		} catch (Exception ex) {
+			return new ArrayList(col.size());
+		}
+	}
 	/**
 	 * Searches all references defined in KeyMap's KeyType.
 	 * 
@@ -156,6 +323,60 @@ public class VirtualPathEntityFinder<K, V>
 		return collection;
 	}
 
+	/**
+	 * Searches all references of the specified KeyMap objects set-at-a-time.
+	 * 
+	 * @param catalog
+	 *            Catalog
+	 * @param virtualPath
+	 *            Virtual path
+	 * @param keyMapCollection
+	 *            KeyMap objects of the virtual path
+	 * @param depth
+	 *            Reference depth -1, to start search from the beginning, 0 to
+	 *            stop search, >=1 to search depth.
+	 * @param validAtTime
+	 *            If -1 and asOfTime is -1, then eternal.
+	 * @param asOfTime
+	 *            If -1 and validAtTime is -1, then eternal.
+	 * @param keyMapReferenceId
+	 *            reference ID for identifying distributed queries
+	 */
+	public Collection<KeyMap> getKeyMapCollectionReferences(ICatalog catalog, String virtualPath,
+			Collection<KeyMap> keyMapCollection, int depth, long validAtTime, long asOfTime, Object keyMapReferenceId)
+	{
+		if (depth == 0) {
+			return keyMapCollection;
+		}
+		VirtualCompiledUnit2 vcu = VirtualPathEngine.getVirtualPathEngine().getVirtualCompiledUnit(virtualPath);
+		if (vcu == null) {
+			return keyMapCollection;
+		}
+		return getKeyMapCollectionReferences(catalog, vcu, keyMapCollection, depth, validAtTime, asOfTime,
+				keyMapReferenceId);
+	}
+
+	/**
+	 * Searches all references of the specified KeyMap objects set-at-a-time.
+	 * 
+	 * @param catalog
+	 *            Catalog
+	 * @param vpd
+	 *            Virtual path definition
+	 * @see #getKeyMapCollectionReferences(ICatalog, String, Collection, int,
+	 *      long, long, Object)
+	 */
+	public Collection<KeyMap> getKeyMapCollectionReferences(ICatalog catalog, KeyMap vpd,
+			Collection<KeyMap> keyMapCollection, int depth, long validAtTime, long asOfTime, Object keyMapReferenceId)
+	{
+		if (depth == 0) {
+			return keyMapCollection;
+		}
+		VirtualCompiledUnit2 vcu = new VirtualCompiledUnit2(vpd);
+		return getKeyMapCollectionReferences(catalog, vcu, keyMapCollection, depth, validAtTime, asOfTime,
+				keyMapReferenceId);
+	}
+
 	public Collection<KeyMap> getKeyMapCollectionReferences(ICatalog catalog, VirtualCompiledUnit2 vcu,
 			Collection<KeyMap> keyMapCollection, int depth, long validAtTime, long asOfTime, Object keyMapReferenceId)
 	{
@@ -248,54 +469,40 @@ public class VirtualPathEntityFinder<K, V>
 				if (id instanceof Collection) {
 					Collection col = (Collection) id;
 					if (col.isEmpty() == false) {
-						HashSet set = new HashSet(col);
-						AttachmentSetFactory factory = new AttachmentSetFactory();
-						AttachmentSet as = factory.createAttachmentSet(set);
-						as.setGridPath(gridPath);
-						List list = temporalBiz.getAttachments(as, validAtTime, asOfTime);
+						Map map = getAll(temporalBiz, gridPath, depth, new HashSet(col), validAtTime, asOfTime, null);
 						if (isOne) {
-							if (list != null && list.size() > 0) {
-								keyMap.put(argName, list.get(0));
-							} else {
-								keyMap.put(argName, null);
+							Object value = null;
+							for (Object id2 : col) {
+								value = map.get(id2);
+								if (value != null) {
+									break;
+								}
 							}
+							keyMap.put(argName, value);
 						} else {
+							List list = new ArrayList(map.size());
+							for (Object id2 : col) {
+								Object value = map.get(id2);
+								if (value != null) {
+									list.add(value);
+								}
+							}
 							keyMap.put(argName, list);
 						}
-						// keyMap.putReference(kt, list, keyMapReferenceId);
 					}
 				} else {
-					Object value = temporalBiz.get(id, validAtTime, asOfTime);
-					// keyMap.putReference(kt, value, keyMapReferenceId);
+					Object value = get(temporalBiz, gridPath, depth, id, validAtTime, asOfTime);
 					keyMap.put(argName, value);
 				}
 			} else if (cu.isFunction()) {
 				if ("Identity".equals(cu.getFunctionName())) {
 					if (VirtualPathEngine.getVirtualPathEngine().isVirtualPath(gridPath)) {
-						Object attributes[] = (String[])cu.getAttributes();
-						Object[] args = cu.getArgValues(keyMap);
-						String[] argValues = null;
-						String pql = gridPath + "?";
-						if (args != null && args.length > 0) {
-							argValues = new String[args.length];
-							for (int i = 0; i < argValues.length; i++) {
-								argValues[i] = args[i].toString();
-								pql += attributes[i] + ":(\"" + argValues[i] + "\") ";
-							}
-						}
-						List list = temporalBiz.getQueryValues(pql, validAtTime, asOfTime);
-						if (isOne) {
-							if (list == null || list.size() == 0) {
-								keyMap.put(argName, null);
-							} else {
-								keyMap.put(argName, list.get(0));
-							}
-						} else {
-							keyMap.put(argName, list);
-						}
+						String pql = getIdentityQuery(cu, gridPath, keyMap);
+						List list = getQueryValues(temporalBiz, gridPath, depth, pql, validAtTime, asOfTime);
+						putQueryValues(keyMap, argName, isOne, list);
 					} else {
 						String identityKey = cu.getQuery(keyMap);
-						Object value = temporalBiz.get(identityKey, validAtTime, asOfTime);
+						Object value = get(temporalBiz, gridPath, depth, identityKey, validAtTime, asOfTime);
 						if (isOne || value == null) {
 							keyMap.put(argName, value);
 						} else {
@@ -308,16 +515,9 @@ public class VirtualPathEntityFinder<K, V>
 				case LUCENE:
 				case OQL:
 					String identityKeyQueryStatement = cu.getTemporalIdentityQuery(keyMap, validAtTime, asOfTime);
-					List list = temporalBiz.getQueryValues(identityKeyQueryStatement, validAtTime, asOfTime);
-					if (isOne) {
-						if (list != null && list.size() > 0) {
-							keyMap.put(argName, list.get(0));
-						} else {
-							keyMap.put(argName, null);
-						}
-					} else {
-						keyMap.put(argName, list);
-					}
+					List list = getQueryValues(temporalBiz, gridPath, depth, identityKeyQueryStatement, validAtTime,
+							asOfTime);
+					putQueryValues(keyMap, argName, isOne, list);
 					break;
 
 				default:
@@ -445,75 +645,55 @@ public class VirtualPathEntityFinder<K, V>
 					return;
 				}
 				path = paths[0];
-				ITemporalBizLink temporalBiz = PadoServerManager.getPadoServerManager().getCatalog()
-						.newInstance(ITemporalBiz.class, path);
+				ITemporalBizLink temporalBiz = catalog.newInstance(ITemporalBiz.class, path);
 				temporalBiz.setDepth(depth);
 				temporalBiz.getBizContext().getGridContextClient().setTransientData(keyMapReferenceId);
+				String argName = arg.getArgName();
 
 				if (cu.isPathOnly()) {
-					Object id = keyMap.get(arg.getArgName());
+					Object id = keyMap.get(argName);
 					if (id instanceof Collection) {
 
 						// many child objects per parent (many-to-many),
 						// i.e., each position in Positions has child objects.
 
-						// Place all identity keys from each collection
-						// of keyMapList into one attachment set to
-						// perform a single look up.
-
-						// kmListMap holds all KeyMap objects out of
-						// the entire collections. set holds all of
-						// identity keys.
-						Map<Object, List> kmListMap = new HashMap();
+						// Collect the identity keys from all collections
+						// into one set to perform a single look up and then
+						// assign the results to individual KeyMap objects.
 						HashSet set = new HashSet();
 						for (KeyMap km : keyMapCollection) {
-							Collection col2 = (Collection) km.get(arg.getArgName());
-							for (Object id2 : col2) {
-								List kmList = kmListMap.get(id2);
-								if (kmList == null) {
-									kmList = new ArrayList();
-									kmListMap.put(id2, kmList);
-								}
-								kmList.add(km);
-								set.add(id2);
+							Collection col2 = (Collection) km.get(argName);
+							if (col2 != null) {
+								set.addAll(col2);
 							}
 						}
-
-						if (kmListMap.isEmpty() == false) {
-
-							// Get attachments with a single lookup and
-							// assign the results to individual KeyMap objects
-							// stored in kmListMap.
-							AttachmentSetFactory factory = new AttachmentSetFactory();
-							AttachmentSet as = factory.createAttachmentSet(set);
-							as.setGridPath(path);
-							Map<ITemporalKey<?>, ITemporalData<?>> map = temporalBiz.getAttachmentsEntries(as,
-									validAtTime, asOfTime);
-							Set<Map.Entry<ITemporalKey<?>, ITemporalData<?>>> mapSet = map.entrySet();
-							for (Map.Entry<ITemporalKey<?>, ITemporalData<?>> entry : mapSet) {
-								List<KeyMap> list = kmListMap.get(entry.getKey().getIdentityKey());
-								if (list != null) {
-									ITemporalData data = entry.getValue();
-									if (data instanceof GemfireTemporalData) {
-										for (KeyMap km : list) {
-											Collection refCol = (Collection) km.getReference(arg.getArgName());
-											if (refCol == null) {
-												refCol = (Collection) id.getClass().newInstance();
-												km.put(arg.getArgName(), refCol);
-											}
-											refCol.add(((GemfireTemporalData) data).getValue());
-										}
-									} else {
-										for (KeyMap km : list) {
-											Collection refCol = (Collection) km.getReference(arg.getArgName());
-											if (refCol == null) {
-												refCol = (Collection) id.getClass().newInstance();
-												km.put(arg.getArgName(), refCol);
-											}
-											refCol.add(data);
-										}
+						if (set.isEmpty()) {
+							return;
+						}
+						Map map = getAll(temporalBiz, path, depth, set, validAtTime, asOfTime, null);
+						for (KeyMap km : keyMapCollection) {
+							Collection col2 = (Collection) km.get(argName);
+							if (col2 == null) {
+								continue;
+							}
+							if (arg.isOne()) {
+								Object value = null;
+								for (Object id2 : col2) {
+									value = map.get(id2);
+									if (value != null) {
+										break;
 									}
 								}
+								km.put(argName, value);
+							} else {
+								Collection refCol = newCollection(col2);
+								for (Object id2 : col2) {
+									Object value = map.get(id2);
+									if (value != null) {
+										refCol.add(value);
+									}
+								}
+								km.put(argName, refCol);
 							}
 						}
 
@@ -521,50 +701,37 @@ public class VirtualPathEntityFinder<K, V>
 
 						// Single child per parent (one-to-many), i.e.,
 						// Portfolio has many Positions.
-
-						// kmListMap holds KeyMap objects so that
-						// they can be updated with the temporal
-						// results received.
-						Map<Object, KeyMap> kmListMap = new HashMap();
+						HashSet set = new HashSet();
 						for (KeyMap km : keyMapCollection) {
-							Object identityKey = km.get(arg.getArgName());
+							Object identityKey = km.get(argName);
 							if (identityKey != null) {
-								kmListMap.put(identityKey, km);
+								set.add(identityKey);
 							}
 						}
-						if (kmListMap.size() == 0) {
+						if (set.isEmpty()) {
 							return;
 						}
 
-						Set idSet = kmListMap.keySet();
-						AttachmentSetFactory factory = new AttachmentSetFactory();
-						AttachmentSet as = factory.createAttachmentSet(idSet);
-						as.setGridPath(path);
-						Map<ITemporalKey<?>, ITemporalData<?>> map = temporalBiz.getAttachmentsEntries(as, validAtTime,
-								asOfTime);
-						Set<Map.Entry<ITemporalKey<?>, ITemporalData<?>>> mapSet = map.entrySet();
-
-						List<KeyMap> keyMapList2 = new ArrayList<KeyMap>();
-						for (Map.Entry<ITemporalKey<?>, ITemporalData<?>> entry : mapSet) {
-							KeyMap km = kmListMap.get(entry.getKey().getIdentityKey());
-							if (km != null) {
-								ITemporalData data = entry.getValue();
-								Object value;
-								if (data instanceof GemfireTemporalData) {
-									value = ((GemfireTemporalData) data).getValue();
-									km.put(arg.getArgName(), value);
-								} else {
-									value = data;
-									km.put(arg.getArgName(), data);
-								}
-								if (depth > 0 && value instanceof KeyMap) {
-									keyMapList2.add((KeyMap) value);
-								}
+						// Only the fetched KeyMap objects need their nested
+						// references resolved. The cached ones have been
+						// resolved already.
+						List fetchedValueList = new ArrayList();
+						Map map = getAll(temporalBiz, path, depth, set, validAtTime, asOfTime, fetchedValueList);
+						for (KeyMap km : keyMapCollection) {
+							Object identityKey = km.get(argName);
+							if (identityKey != null) {
+								km.put(argName, map.get(identityKey));
 							}
 						}
 
 						// Handle nested KeyMap objects
-						if (depth > 0 && keyMapList2.size() > 0) {
+						if (depth > 0) {
+							List<KeyMap> keyMapList2 = new ArrayList<KeyMap>(fetchedValueList.size());
+							for (Object value : fetchedValueList) {
+								if (value instanceof KeyMap) {
+									keyMapList2.add((KeyMap) value);
+								}
+							}
 							getKeyMapCollectionReferences(catalog, vcu, keyMapList2, depth, validAtTime, asOfTime,
 									keyMapReferenceId);
 						}
@@ -572,39 +739,33 @@ public class VirtualPathEntityFinder<K, V>
 				} else if (cu.isFunction()) {
 					if ("Identity".equals(cu.getFunctionName())) {
 						if (VirtualPathEngine.getVirtualPathEngine().isVirtualPath(path)) {
+							// Each distinct query is executed once
 							for (KeyMap km : keyMapCollection) {
-								// TODO: Execute a single query that has all values
-								Object attributes[] = (String[])cu.getAttributes();
-								Object[] args = cu.getArgValues(km);
-								String[] argValues = null;
-								String pql = path + "?";
-								if (args != null && args.length > 0) {
-									argValues = new String[args.length];
-									for (int i = 0; i < argValues.length; i++) {
-										argValues[i] = args[i].toString();
-										pql += attributes[i] + ":(\"" + argValues[i] + "\") ";
-									}
-								}
-								List list = temporalBiz.getQueryValues(pql, validAtTime, asOfTime);
-								if (arg.isOne()) {
-									if (list == null || list.size() == 0) {
-										km.put(arg.getArgName(), null);
-									} else {
-										km.put(arg.getArgName(), list.get(0));
-									}
-								} else {
-									km.put(arg.getArgName(), list);
-								}
+								String pql = getIdentityQuery(cu, path, km);
+								List list = getQueryValues(temporalBiz, path, depth, pql, validAtTime, asOfTime);
+								putQueryValues(km, argName, arg.isOne(), list);
 							}
 						} else {
+							HashSet set = new HashSet();
 							for (KeyMap km : keyMapCollection) {
-								// TODO: Execute a single query that has all values
 								String identityKey = cu.getQuery(km);
-								Object value = temporalBiz.get(identityKey, validAtTime, asOfTime);
+								if (identityKey != null) {
+									set.add(identityKey);
+								}
+							}
+							Map map;
+							if (set.isEmpty()) {
+								map = Collections.emptyMap();
+							} else {
+								map = getAll(temporalBiz, path, depth, set, validAtTime, asOfTime, null);
+							}
+							for (KeyMap km : keyMapCollection) {
+								String identityKey = cu.getQuery(km);
+								Object value = identityKey == null ? null : map.get(identityKey);
 								if (arg.isOne() || value == null) {
-									km.put(arg.getArgName(), value);
+									km.put(argName, value);
 								} else {
-									km.put(arg.getArgName(), Collections.singletonList(value));
+									km.put(argName, Collections.singletonList(value));
 								}
 							}
 						}
@@ -613,19 +774,12 @@ public class VirtualPathEntityFinder<K, V>
 					switch (cu.getQueryLanguage()) {
 					case LUCENE:
 					case OQL:
+						// Each distinct query is executed once
 						for (KeyMap km : keyMapCollection) {
-							// TODO: Execute a single query that has all values
 							String identityKeyQueryStatement = cu.getTemporalIdentityQuery(km, validAtTime, asOfTime);
-							List list = temporalBiz.getQueryValues(identityKeyQueryStatement, validAtTime, asOfTime);
-							if (arg.isOne()) {
-								if (list == null || list.size() == 0) {
-									km.put(arg.getArgName(), null);
-								} else {
-									km.put(arg.getArgName(), list.get(0));
-								}
-							} else {
-								km.put(arg.getArgName(), list);
-							}
+							List list = getQueryValues(temporalBiz, path, depth, identityKeyQueryStatement,
+									validAtTime, asOfTime);
+							putQueryValues(km, argName, arg.isOne(), list);
 						}
 						break;
 
@@ -191,6 +191,67 @@ public interface Constants
 	// Lucene specifics
 	// Max number of clauses per query. Default is 1024.
 	public final static String PROP_LUCENE_MAX_CLAUSE_COUNT = "lucene.maxClauseCount";
+	// The following dynamic indexing properties can be set per temporal path
+	// by appending "." and the full path to the property name.
+	// true to index temporal events in a dedicated thread with group
+	// commits, false to index and commit each dispatched batch of events in
+	// the dispatcher thread. Default: true
+	public final static String PROP_LUCENE_DYNAMIC_ASYNC = "lucene.dynamic.async";
+	// Max number of dispatched event batches queued for asynchronous
+	// indexing. The dispatcher blocks when the queue is full. Default: 1000
+	public final static String PROP_LUCENE_DYNAMIC_QUEUE_SIZE = "lucene.dynamic.queueSize";
+	// Max time in msec between asynchronous indexing commits. Uncommitted
+	// documents are searchable but lost if the server stops. They are
+	// restored by rebuilding the indexes. Default: 1000
+	public final static String PROP_LUCENE_DYNAMIC_COMMIT_INTERVAL = "lucene.dynamic.commitInterval";
+	// Number of uncommitted documents that triggers an asynchronous indexing
+	// commit before the commit interval elapses. Default: 10000
+	public final static String PROP_LUCENE_DYNAMIC_COMMIT_SIZE = "lucene.dynamic.commitSize";
+	// Max time in msec before asynchronously indexed documents become
+	// searchable between commits. Default: 100
+	public final static String PROP_LUCENE_DYNAMIC_REFRESH_INTERVAL = "lucene.dynamic.refreshInterval";
+
+	// Temporal list specifics. The following properties can be set per
+	// temporal path by appending the full path to the property name, e.g.,
+	// "temporal.list.class./mygrid/position".
+	// Temporal list class. Default:
+	// com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalList
+	public final static String PROP_TEMPORAL_LIST_CLASS = "temporal.list.class";
+	// Max number of threads for building temporal lists in parallel during
+	// server startup. Default: number of available processors
+	public final static String PROP_TEMPORAL_INIT_PARALLELISM = "temporal.init.parallelism";
+	// Queue dispatcher multiplexer event buffer per tag (path). Append "."
+	// and the full path to override per path, e.g.,
+	// dispatcher.mode./mygrid/temporal.
+	// queue|ring. Default: queue
+	public final static String PROP_DISPATCHER_MODE = "dispatcher.mode";
+	// Ring buffer capacity rounded up to the power of 2. Default: 65536
+	public final static String PROP_DISPATCHER_RING_CAPACITY = "dispatcher.ring.capacity";
+	// Policy applied when the ring buffer is full. block|drop|spill. Default:
+	// spill
+	public final static String PROP_DISPATCHER_RING_BACKPRESSURE = "dispatcher.ring.backpressure";
+	// Number of temporal event dispatcher worker threads per temporal path.
+	// Events are partitioned by identity key. Append "." and the full path to
+	// override per path. Default: 1
+	public final static String PROP_TEMPORAL_DISPATCHER_WORKER_COUNT = "temporal.dispatcher.workerCount";
+	// Number of keys appended to a temporal list between delta chain
+	// checkpoints. 0 disables checkpoints. Append "." and the full path to
+	// override per path. Default: 0
+	public final static String PROP_TEMPORAL_DELTA_CHECKPOINT_SPACING = "temporal.delta.checkpointSpacing";
+	// Max number of threads shared by all paths for scanning temporal lists
+	// in bulk queries, e.g., as-of queries. Default: number of available
+	// processors
+	public final static String PROP_TEMPORAL_SCAN_PARALLELISM = "temporal.scan.parallelism";
+	// Minimum number of temporal lists for scanning them in parallel. Bulk
+	// queries on paths with fewer temporal lists are scanned on the calling
+	// thread. Append "." and the full path to override per path. Default:
+	// 50000
+	public final static String PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD = "temporal.scan.parallelThreshold";
+	// Written time interval in msec of each bucket of the written time
+	// secondary index used by written time range queries, e.g., 60000 for
+	// per-minute buckets. 0 disables the index. Append "." and the full path
+	// to override per path. Default: 0
+	public final static String PROP_TEMPORAL_WRITTEN_TIME_INDEX_BUCKET_SIZE = "temporal.writtenTimeIndex.bucketSize";
 
 	// Property to enable verbose (true/false). It logs data loader commands.
 	// Default: false.
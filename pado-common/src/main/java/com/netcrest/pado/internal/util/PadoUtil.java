@@ -299,6 +299,36 @@ public class PadoUtil
 		return value;
 	}
 
+	/**
+	 * Returns the path specific Pado property value. It first looks up the
+	 * property name appended with "." and the specified full path, e.g.,
+	 * "temporal.list.class./mygrid/position". If not found, then it returns
+	 * the value of the specified property, or the default value if neither is
+	 * defined.
+	 * 
+	 * @param prop
+	 *            Pado property
+	 * @param fullPath
+	 *            Full path of the grid path. If null, then only the specified
+	 *            property is looked up.
+	 * @param defaultValue
+	 *            The default property value
+	 */
+	public static String getPathProperty(String prop, String fullPath, String defaultValue)
+	{
+		if (prop == null) {
+			return null;
+		}
+		String value = null;
+		if (fullPath != null) {
+			value = getProperty(prop + "." + fullPath);
+		}
+		if (value == null) {
+			value = getProperty(prop, defaultValue);
+		}
+		return value;
+	}
+
 	/**
 	 * Loads and returns the class of the class name mapped by the specified
 	 * property.
@@ -15,6 +15,7 @@
  */
 package com.netcrest.pado;
 
+import java.util.Map;
 import java.util.Set;
 
 import com.netcrest.pado.annotation.BizType;
@@ -195,6 +196,75 @@ public interface IGridContextClient
 	 */
 	RouterType getRouterType();
 
+	/**
+	 * Sets the maximum time to wait for results from multiple grids. The IBiz
+	 * method is executed on all grids concurrently and returns when all grids
+	 * have returned results or the timeout has expired. If the timeout
+	 * expires, then the IBiz method throws BizException unless partial
+	 * results are enabled. This setting has no effect if a single grid is
+	 * invoked. {@link #reset()} clears this value.
+	 * 
+	 * @param timeout
+	 *            Timeout in msec. If &lt;= 0, then the IBiz method waits
+	 *            until all grids return results. The default is 0.
+	 * @see #setPartialResultsEnabled(boolean)
+	 */
+	void setTimeout(long timeout);
+
+	/**
+	 * Returns the timeout in msec set by {@link #setTimeout(long)}. The
+	 * default is 0. {@link #reset()} clears this value.
+	 */
+	long getTimeout();
+
+	/**
+	 * Sets the number of grids from which results must be received before the
+	 * IBiz method returns. The IBiz method is executed on all grids and returns
+	 * the results from the first grids that complete. The results from the
+	 * remaining grids are discarded. This setting has no effect if a single
+	 * grid is invoked. {@link #reset()} clears this value.
+	 * 
+	 * @param requiredGridCount
+	 *            Number of grids. If &lt;= 0 or greater than the number of
+	 *            grids, then all grids are required. The default is 0.
+	 */
+	void setRequiredGridCount(int requiredGridCount);
+
+	/**
+	 * Returns the number of grids set by {@link #setRequiredGridCount(int)}.
+	 * The default is 0. {@link #reset()} clears this value.
+	 */
+	int getRequiredGridCount();
+
+	/**
+	 * Enables or disables partial results. If enabled and the timeout set by
+	 * {@link #setTimeout(long)} expires, then the IBiz method returns the
+	 * results from the grids that have completed so far instead of throwing
+	 * BizException. {@link #getGridLatencies()} lists the grids that have
+	 * completed. {@link #reset()} clears this value.
+	 * 
+	 * @param partialResultsEnabled
+	 *            true to return partial results upon timeout. The default is
+	 *            false.
+	 */
+	void setPartialResultsEnabled(boolean partialResultsEnabled);
+
+	/**
+	 * Returns true if partial results are enabled. The default is false.
+	 * {@link #reset()} clears this value.
+	 */
+	boolean isPartialResultsEnabled();
+
+	/**
+	 * Returns the latencies in msec of the grids that returned results in the
+	 * last IBiz method call executed on multiple grids. The map is ordered by
+	 * the completion order. It returns null if no such call has been made.
+	 * {@link #reset()} clears this value.
+	 * 
+	 * @return &lt;gridId, latency in msec&gt;
+	 */
+	Map<String, Long> getGridLatencies();
+
 	/**
 	 * Resets to the default settings by clearing all attributes set by the
 	 * setter methods. As a best practice, this method should always be invoked
@@ -212,6 +282,10 @@ public interface IGridContextClient
 	 * @see #setRoutingKeys(Set)
 	 * @see #setPadoAsTarget(boolean)
 	 * @see #setTransientData(Object...)
+	 * @see #setTimeout(long)
+	 * @see #setRequiredGridCount(int)
+	 * @see #setPartialResultsEnabled(boolean)
+	 * @see #getGridLatencies()
 	 */
 	void reset();
 
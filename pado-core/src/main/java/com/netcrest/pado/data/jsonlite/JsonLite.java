@@ -16,11 +16,9 @@
 package com.netcrest.pado.data.jsonlite;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.Externalizable;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -45,7 +43,6 @@ import com.gemstone.gemfire.DataSerializable;
 import com.gemstone.gemfire.DataSerializer;
 import com.gemstone.gemfire.Delta;
 import com.gemstone.gemfire.InvalidDeltaException;
-import com.gemstone.gemfire.internal.HeapDataOutputStream;
 import com.netcrest.pado.data.InvalidKeyException;
 import com.netcrest.pado.data.KeyMap;
 import com.netcrest.pado.data.KeyType;
@@ -53,8 +50,8 @@ import com.netcrest.pado.data.KeyTypeManager;
 import com.netcrest.pado.data.jsonlite.JsonLiteSchemaManager.KeyInfo;
 import com.netcrest.pado.data.jsonlite.internal.JsonLiteHelper;
 import com.netcrest.pado.data.jsonlite.internal.JsonLiteSerializer;
+import com.netcrest.pado.data.jsonlite.internal.ReusableDataOutputStream;
 import com.netcrest.pado.exception.PadoException;
-import com.netcrest.pado.gemfire.factory.GemfireVersionSpecifics;
 import com.netcrest.pado.gemfire.util.DataSerializerEx;
 
 /**
@@ -198,6 +195,12 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 
 	private static final byte FLAG_KEY_TYPE = 0;
 
+	/**
+	 * Set if the serialized bytes end with the offset table of the
+	 * keep-serialized values. Prior versions leave this bit unset.
+	 */
+	private static final byte FLAG_OFFSET_TABLE = 1;
+
 	private static final int BIT_MASK_SIZE = 32; // int type
 
 	static {
@@ -230,6 +233,10 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 	// serialized values
 	private byte[] serializedBytes;
 
+	// keep-serialized values individually inflated from serializedBytes,
+	// guarded by this object along with serializedBytes during inflation
+	private int[] inflatedFlags;
+
 	/**
 	 * <font COLOR="#ff0000"><strong>The use of this constructor is strongly
 	 * discouraged. For best performance, always use {@link #JsonLite(KeyType)}
@@ -700,7 +707,7 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 		// }
 
 		if (keyType.isKeyKeepSerialized()) {
-			deserialize();
+			deserialize(keyType);
 		}
 		// KeyType translatedKeyType =
 		// KeyTypeManager.translateKeyTypeVersion(keyType, this.keyType);
@@ -1510,7 +1517,6 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 	 * @param flags
 	 *            The bit flags
 	 */
-	@SuppressWarnings("unused")
 	private boolean isDirty(int contiguousBit, int flags[])
 	{
 		int dirtyFlagsIndex = contiguousBit / BIT_MASK_SIZE;
@@ -1546,10 +1552,12 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 	/**
 	 * Deserializes (inflates) the serialized bytes if has not been done.
 	 */
-	void deserialize()
+	synchronized void deserialize()
 	{
 		byte[] byteArray = serializedBytes;
 		if (byteArray != null) {
+			// skip the values that have already been inflated individually
+			int[] flags = inflatedFlags;
 			KeyType[] keyTypeValues = keyType.getValues(keyVersion);
 			ByteArrayInputStream bais = new ByteArrayInputStream(byteArray);
 			DataInputStream dis = new DataInputStream(bais);
@@ -1561,7 +1569,10 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 						if (keyTypeValues[i].isKeyKeepSerialized()) {
 							// deserialized values
 							try {
-								values[i] = readValueGemfire(keyTypeValues, i, dis);
+								Object value = readValueGemfire(keyTypeValues, i, dis);
+								if (flags == null || isDirty(i, flags) == false) {
+									values[i] = value;
+								}
 							} catch (Exception ex) {
 								throw new RuntimeException(
 										"Desserialization error: [KeyTypeClass=" + keyTypeValues[i].getClass().getName()
@@ -1575,18 +1586,119 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 					for (int i = 0; i < keyTypeValues.length; i++) {
 						if (keyTypeValues[i].isKeyKeepSerialized()) {
 							// deserialized values
-							values[i] = readValue(keyTypeValues, i, dis);
+							Object value = readValue(keyTypeValues, i, dis);
+							if (flags == null || isDirty(i, flags) == false) {
+								values[i] = value;
+							}
 						}
 					}
 				}
 				dis.close();
 				serializedBytes = null;
+				inflatedFlags = null;
 			} catch (Exception e) {
 				throw new JsonLiteException("Deserialization failed: " + e.getMessage(), e);
 			}
 		}
 	}
 
+	/**
+	 * Deserializes (inflates) the value of the specified keep-serialized key
+	 * type only if it has not been done. The value is located by the offset
+	 * table appended to the serialized bytes. If the serialized bytes do not
+	 * have the offset table, i.e., serialized by a prior version, then all of
+	 * the keep-serialized values are deserialized. It holds the same lock as
+	 * {@link #deserialize()} such that concurrent readers never see a value
+	 * flagged as inflated before it is set.
+	 * 
+	 * @param keyType
+	 *            The keep-serialized key type to deserialize.
+	 */
+	private synchronized void deserialize(KeyType keyType)
+	{
+		byte[] byteArray = serializedBytes;
+		if (byteArray == null) {
+			return;
+		}
+		if (isBitDirty(internalFlag, FLAG_OFFSET_TABLE) == false) {
+			deserialize();
+			return;
+		}
+		int[] flags = inflatedFlags;
+		if (flags == null) {
+			flags = new int[dirtyFlags.length];
+			inflatedFlags = flags;
+		} else if (isBitDirty(keyType, flags)) {
+			return;
+		}
+
+		// The offset table has an entry for each keep-serialized value in key
+		// type order.
+		int index = keyType.getIndex();
+		KeyType[] keyTypeValues = this.keyType.getValues(keyVersion);
+		int ordinal = 0;
+		for (int i = 0; i < index; i++) {
+			if (keyTypeValues[i].isKeyKeepSerialized()) {
+				ordinal++;
+			}
+		}
+		int tableOffset = readInt(byteArray, byteArray.length - 4);
+		int offset = readInt(byteArray, tableOffset + ordinal * 4);
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(byteArray, offset, tableOffset - offset));
+		try {
+			if (isGemfire) {
+				values[index] = readValueGemfire(keyTypeValues, index, dis);
+			} else {
+				values[index] = readValue(keyTypeValues, index, dis);
+			}
+		} catch (Exception ex) {
+			throw new JsonLiteException("Deserialization failed: [KeyTypeClass="
+					+ keyTypeValues[index].getClass().getName() + ", keyType=" + keyTypeValues[index].getName()
+					+ ", index=" + index + "]", ex);
+		}
+		setDirty(index, flags);
+	}
+
+	/**
+	 * Reads a big-endian integer from the specified byte array.
+	 * 
+	 * @param bytes
+	 *            The byte array.
+	 * @param offset
+	 *            The position of the first byte of the integer.
+	 */
+	private static int readInt(byte[] bytes, int offset)
+	{
+		return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+				| (bytes[offset + 3] & 0xFF);
+	}
+
+	/**
+	 * Writes the offset table of the keep-serialized values. The table lists
+	 * the start position of each keep-serialized value followed by the start
+	 * position of the table itself. The table is appended after the values so
+	 * that prior versions, which read the values sequentially, ignore it.
+	 * 
+	 * @param offsets
+	 *            The start positions of the keep-serialized values.
+	 * @param count
+	 *            The number of keep-serialized values.
+	 * @param tableOffset
+	 *            The start position of the table.
+	 * @param output
+	 *            The output stream to which the values have been written.
+	 * @throws IOException
+	 *             Thrown if an IO error encountered.
+	 */
+	private static void writeOffsetTable(int[] offsets, int count, int tableOffset, DataOutput output)
+			throws IOException
+	{
+		for (int i = 0; i < count; i++) {
+			output.writeInt(offsets[i]);
+		}
+		output.writeInt(tableOffset);
+	}
+
 	/**
 	 * Reads the value at for the specified key type index.
 	 * 
@@ -1753,6 +1865,7 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 		int[] dirtyFlags = jsonLite.dirtyFlags;
 		byte flags = jsonLite.internalFlag;
 		byte[] serializedBytes = jsonLite.serializedBytes;
+		int[] inflatedFlags = jsonLite.inflatedFlags;
 
 		jsonLite.keyType = this.keyType;
 		jsonLite.keyVersion = this.keyVersion;
@@ -1761,6 +1874,7 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 		jsonLite.dirtyFlags = this.dirtyFlags;
 		jsonLite.internalFlag = this.internalFlag;
 		jsonLite.serializedBytes = this.serializedBytes;
+		jsonLite.inflatedFlags = this.inflatedFlags;
 
 		this.keyType = keyType;
 		this.keyVersion = keyVersion;
@@ -1769,6 +1883,7 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 		this.dirtyFlags = dirtyFlags;
 		this.internalFlag = flags;
 		this.serializedBytes = serializedBytes;
+		this.inflatedFlags = inflatedFlags;
 	}
 
 	/**
@@ -2213,9 +2328,15 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			jl = new JsonLite(this.valueMap);
 		} else {
 			jl = new JsonLite(keyType);
-			System.arraycopy(values, 0, jl.values, 0, values.length);
 			System.arraycopy(dirtyFlags, 0, jl.dirtyFlags, 0, dirtyFlags.length);
-			jl.serializedBytes = serializedBytes;
+			jl.internalFlag = internalFlag;
+			synchronized (this) {
+				System.arraycopy(values, 0, jl.values, 0, values.length);
+				jl.serializedBytes = serializedBytes;
+				if (inflatedFlags != null) {
+					jl.inflatedFlags = inflatedFlags.clone();
+				}
+			}
 			// if (serializedBytes != null) {
 			// System.arraycopy(serializedBytes, 0, jl.serializedBytes, 0,
 			// serializedBytes.length);
@@ -2260,6 +2381,7 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			if (keyType.isPayloadKeepSerialized()) {
 				// need not to lock since readData is invoked only once
 				serializedBytes = JsonLiteSerializer.readByteArray(input);
+				inflatedFlags = null;
 				byte[] deserializedBytes = JsonLiteSerializer.readByteArray(input);
 				ByteArrayInputStream bais = new ByteArrayInputStream(deserializedBytes);
 				DataInputStream dis = new DataInputStream(bais);
@@ -2427,6 +2549,17 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			JsonLiteSerializer.writeByte(internalFlag, output);
 			JsonLiteSerializer.writeHashMap((HashMap<String, ?>) valueMap, output);
 		} else {
+			// assign byteArray to serializedBytes beforehand to
+			// handle race condition
+			byte[] byteArray = serializedBytes;
+			if (byteArray != null && inflatedFlags != null) {
+				// the inflated values may have been modified in place
+				deserialize();
+				byteArray = null;
+			}
+			if (byteArray == null) {
+				internalFlag = (byte) setDirty(FLAG_OFFSET_TABLE, internalFlag);
+			}
 			internalFlag = (byte) setDirty(FLAG_KEY_TYPE, internalFlag);
 			JsonLiteSerializer.writeByte(internalFlag, output);
 			output.writeLong(((UUID) keyType.getId()).getMostSignificantBits());
@@ -2442,51 +2575,50 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			JsonLiteSerializer.writeHashMap((HashMap<String, Object>) refMap, output);
 			KeyType[] keyTypeValues = keyType.getValues(keyVersion);
 			if (keyType.isPayloadKeepSerialized()) {
-				// assign byteArray to serializedBytes beforehand to
-				// handle race condition
-				byte[] byteArray = serializedBytes;
+				// The arrays are built in the thread's reusable buffers and
+				// written without copying.
 				if (byteArray != null) {
 					JsonLiteSerializer.writeByteArray(byteArray, output);
-					// HeapDataOutputStream hdos2 = new HeapDataOutputStream();
-					ByteArrayOutputStream baos2 = new ByteArrayOutputStream();
-					DataOutputStream hdos2 = new DataOutputStream(baos2);
-					for (int i = 0; i < keyTypeValues.length; i++) {
-						if (keyTypeValues[i].isKeyKeepSerialized() == false) {
-							// keep it separate in deserialized array.
-							// this array is always deserialized
-							writeValue(keyTypeValues, i, hdos2);
+					ReusableDataOutputStream hdos2 = ReusableDataOutputStream.acquire();
+					try {
+						for (int i = 0; i < keyTypeValues.length; i++) {
+							if (keyTypeValues[i].isKeyKeepSerialized() == false) {
+								// keep it separate in deserialized array.
+								// this array is always deserialized
+								writeValue(keyTypeValues, i, hdos2);
+							}
 						}
+						JsonLiteSerializer.writeByteArray(hdos2.getBuffer(), hdos2.size(), output);
+					} finally {
+						ReusableDataOutputStream.release(hdos2);
 					}
-					hdos2.close();
-					JsonLiteSerializer.writeByteArray(baos2.toByteArray(), output);
 				} else {
-					// HeapDataOutputStream hdos = new HeapDataOutputStream();
-					// HeapDataOutputStream hdos2 = new HeapDataOutputStream();
-					ByteArrayOutputStream baos = new ByteArrayOutputStream();
-					ByteArrayOutputStream baos2 = new ByteArrayOutputStream();
-					DataOutputStream hdos = new DataOutputStream(baos);
-					DataOutputStream hdos2 = new DataOutputStream(baos2);
-
-					for (int i = 0; i < keyTypeValues.length; i++) {
-						if (keyTypeValues[i].isKeyKeepSerialized()) {
-							// serialize in the normal array
-							// the normal array is deserialized only when
-							// one of its keys is accessed.
-							writeValue(keyTypeValues, i, hdos);
-						} else {
-							// keep it separate in deserialized array.
-							// this array is always deserialized
-							writeValue(keyTypeValues, i, hdos2);
+					ReusableDataOutputStream hdos = ReusableDataOutputStream.acquire();
+					ReusableDataOutputStream hdos2 = ReusableDataOutputStream.acquire();
+					try {
+						int[] offsets = hdos.getIntArray(keyTypeValues.length);
+						int offsetCount = 0;
+
+						for (int i = 0; i < keyTypeValues.length; i++) {
+							if (keyTypeValues[i].isKeyKeepSerialized()) {
+								// serialize in the normal array
+								// the normal array is deserialized only when
+								// one of its keys is accessed.
+								offsets[offsetCount++] = hdos.size();
+								writeValue(keyTypeValues, i, hdos);
+							} else {
+								// keep it separate in deserialized array.
+								// this array is always deserialized
+								writeValue(keyTypeValues, i, hdos2);
+							}
 						}
+						writeOffsetTable(offsets, offsetCount, hdos.size(), hdos);
+						JsonLiteSerializer.writeByteArray(hdos.getBuffer(), hdos.size(), output);
+						JsonLiteSerializer.writeByteArray(hdos2.getBuffer(), hdos2.size(), output);
+					} finally {
+						ReusableDataOutputStream.release(hdos);
+						ReusableDataOutputStream.release(hdos2);
 					}
-					hdos.close();
-					hdos2.close();
-					// JsonLiteSerializer.writeByteArray(hdos.toByteArray(),
-					// output);
-					// JsonLiteSerializer.writeByteArray(hdos2.toByteArray(),
-					// output);
-					JsonLiteSerializer.writeByteArray(baos.toByteArray(), output);
-					JsonLiteSerializer.writeByteArray(baos2.toByteArray(), output);
 				}
 			} else {
 				for (int i = 0; i < keyTypeValues.length; i++) {
@@ -2681,6 +2813,17 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			DataSerializerEx.writeByte(internalFlag, output);
 			DataSerializer.writeHashMap((HashMap<String, V>) valueMap, output);
 		} else {
+			// assign byteArray to serializedBytes beforehand to
+			// handle race conditions
+			byte[] byteArray = serializedBytes;
+			if (byteArray != null && inflatedFlags != null) {
+				// the inflated values may have been modified in place
+				deserialize();
+				byteArray = null;
+			}
+			if (byteArray == null) {
+				internalFlag = (byte) setDirty(FLAG_OFFSET_TABLE, internalFlag);
+			}
 			internalFlag = (byte) setDirty(FLAG_KEY_TYPE, internalFlag);
 			DataSerializerEx.writeByte(internalFlag, output);
 			output.writeLong(((UUID) keyType.getId()).getMostSignificantBits());
@@ -2696,43 +2839,49 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			DataSerializer.writeHashMap((HashMap<String, Object>) refMap, output);
 			KeyType[] keyTypeValues = keyType.getValues(keyVersion);
 			if (keyType.isPayloadKeepSerialized()) {
-				// assign byteArray to serializedBytes beforehand to
-				// handle race conditions
-				byte[] byteArray = serializedBytes;
+				// The arrays are built in the thread's reusable buffers and
+				// written without copying.
 				if (byteArray != null) {
 					DataSerializer.writeByteArray(byteArray, output);
-					HeapDataOutputStream hdos2 = GemfireVersionSpecifics.getGemfireVersionSpecifics()
-							.createHeapDataOutpuStream();
-					for (int i = 0; i < keyTypeValues.length; i++) {
-						if (keyTypeValues[i].isKeyKeepSerialized() == false) {
-							// keep it separate in deserialized array.
-							// this array is always deserialized
-							writeValueGemfire(keyTypeValues, i, hdos2);
+					ReusableDataOutputStream hdos2 = ReusableDataOutputStream.acquire();
+					try {
+						for (int i = 0; i < keyTypeValues.length; i++) {
+							if (keyTypeValues[i].isKeyKeepSerialized() == false) {
+								// keep it separate in deserialized array.
+								// this array is always deserialized
+								writeValueGemfire(keyTypeValues, i, hdos2);
+							}
 						}
+						DataSerializer.writeByteArray(hdos2.getBuffer(), hdos2.size(), output);
+					} finally {
+						ReusableDataOutputStream.release(hdos2);
 					}
-					DataSerializer.writeByteArray(hdos2.toByteArray(), output);
-					hdos2.close();
 				} else {
-					HeapDataOutputStream hdos = GemfireVersionSpecifics.getGemfireVersionSpecifics()
-							.createHeapDataOutpuStream();
-					HeapDataOutputStream hdos2 = GemfireVersionSpecifics.getGemfireVersionSpecifics()
-							.createHeapDataOutpuStream();
-					for (int i = 0; i < keyTypeValues.length; i++) {
-						if (keyTypeValues[i].isKeyKeepSerialized()) {
-							// serialize in the normal array
-							// the normal array is deserialized only when the
-							// one of its keys is accessed.
-							writeValueGemfire(keyTypeValues, i, hdos);
-						} else {
-							// keep it separate in deserialized array.
-							// this array is always deserialized
-							writeValueGemfire(keyTypeValues, i, hdos2);
+					ReusableDataOutputStream hdos = ReusableDataOutputStream.acquire();
+					ReusableDataOutputStream hdos2 = ReusableDataOutputStream.acquire();
+					try {
+						int[] offsets = hdos.getIntArray(keyTypeValues.length);
+						int offsetCount = 0;
+						for (int i = 0; i < keyTypeValues.length; i++) {
+							if (keyTypeValues[i].isKeyKeepSerialized()) {
+								// serialize in the normal array
+								// the normal array is deserialized only when the
+								// one of its keys is accessed.
+								offsets[offsetCount++] = hdos.size();
+								writeValueGemfire(keyTypeValues, i, hdos);
+							} else {
+								// keep it separate in deserialized array.
+								// this array is always deserialized
+								writeValueGemfire(keyTypeValues, i, hdos2);
+							}
 						}
+						writeOffsetTable(offsets, offsetCount, hdos.size(), hdos);
+						DataSerializer.writeByteArray(hdos.getBuffer(), hdos.size(), output);
+						DataSerializer.writeByteArray(hdos2.getBuffer(), hdos2.size(), output);
+					} finally {
+						ReusableDataOutputStream.release(hdos);
+						ReusableDataOutputStream.release(hdos2);
 					}
-					DataSerializer.writeByteArray(hdos.toByteArray(), output);
-					DataSerializer.writeByteArray(hdos2.toByteArray(), output);
-					hdos.close();
-					hdos2.close();
 				}
 			} else {
 				for (int i = 0; i < keyTypeValues.length; i++) {
@@ -2766,6 +2915,7 @@ public class JsonLite<V> implements KeyMap<V>, Externalizable, Cloneable, DataSe
 			if (keyType.isPayloadKeepSerialized()) {
 				// need not to lock since readData is invoked only once
 				serializedBytes = DataSerializer.readByteArray(input);
+				inflatedFlags = null;
 				byte[] deserializedBytes = DataSerializer.readByteArray(input);
 				ByteArrayInputStream bais = new ByteArrayInputStream(deserializedBytes);
 				DataInputStream dis = new DataInputStream(bais);
@@ -0,0 +1,842 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.data.jsonlite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.netcrest.pado.data.KeyType;
+
+/**
+ * JsonLiteParser is a streaming JSON parser that decodes UTF-8 directly from a
+ * byte array, a {@link ByteBuffer} or an {@link InputStream}. Unlike
+ * {@link JsonLiteTokenizer}, it does not go through a character reader and it
+ * resolves field names to {@link KeyType} constants without creating
+ * intermediate strings.
+ * <p>
+ * The parser can be used in two ways:
+ * <ul>
+ * <li>Pull API: {@link #next()} returns the next {@link Event} and the
+ * accessor methods return the current field name or value.</li>
+ * <li>Object API: {@link #readJsonLite(KeyType)} returns the next top-level
+ * object as JsonLite populated by way of {@link JsonLite#JsonLite(KeyType)}
+ * and {@link JsonLite#put(KeyType, Object)}.</li>
+ * </ul>
+ * The input may contain more than one top-level value separated by white
+ * spaces, e.g., JSON lines, in which case each call to
+ * {@link #readJsonLite(KeyType)} returns the next record and null at the end
+ * of input.
+ * <p>
+ * The parser accepts standard JSON only. The JsonLite header (<code>__h</code>)
+ * and the non-standard forms accepted by {@link JsonLiteTokenizer}, such as
+ * single quotes and unquoted strings, are not supported. JsonLiteParser is
+ * not thread safe.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class JsonLiteParser
+{
+	/**
+	 * Pull parser events.
+	 */
+	public enum Event
+	{
+		START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, FIELD_NAME, VALUE_STRING, VALUE_NUMBER, VALUE_TRUE, VALUE_FALSE, VALUE_NULL
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final byte CONTEXT_OBJECT = 1;
+	private static final byte CONTEXT_ARRAY = 2;
+
+	// Expects a value
+	private static final int STATE_VALUE = 0;
+	// Expects a field name or '}' after '{'
+	private static final int STATE_FIELD_OR_END = 1;
+	// Expects a field name after ','
+	private static final int STATE_FIELD = 2;
+	// Expects a value or ']' after '['
+	private static final int STATE_VALUE_OR_END = 3;
+	// Expects ',' or the end of the enclosing object or array
+	private static final int STATE_AFTER_VALUE = 4;
+
+	/**
+	 * &lt;KeyType, FieldNameTable&gt; map. The key is the first constant of
+	 * the key type.
+	 */
+	private static final ConcurrentHashMap<KeyType, FieldNameTable> fieldNameTableMap = new ConcurrentHashMap<KeyType, FieldNameTable>();
+
+	private final InputStream inputStream;
+	private final ByteBuffer byteBuffer;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private long consumedByteCount;
+	private int line = 1;
+
+	private byte[] contextStack = new byte[16];
+	private int depth;
+	private int state = STATE_VALUE;
+
+	// The current field name, string value or number text
+	private char[] chars = new char[128];
+	private int charCount;
+	private boolean isInteger;
+
+	/**
+	 * Constructs a parser that reads the entire specified byte array.
+	 *
+	 * @param bytes
+	 *            UTF-8 encoded JSON
+	 */
+	public JsonLiteParser(byte[] bytes)
+	{
+		this(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Constructs a parser that reads the specified range of the byte array.
+	 *
+	 * @param bytes
+	 *            UTF-8 encoded JSON
+	 * @param offset
+	 *            Start position
+	 * @param length
+	 *            Number of bytes to read
+	 */
+	public JsonLiteParser(byte[] bytes, int offset, int length)
+	{
+		this.inputStream = null;
+		this.byteBuffer = null;
+		this.buffer = bytes;
+		this.position = offset;
+		this.limit = offset + length;
+		this.consumedByteCount = -offset;
+	}
+
+	/**
+	 * Constructs a parser that reads the remaining bytes of the specified
+	 * buffer. The buffer's position is advanced as the bytes are read.
+	 *
+	 * @param byteBuffer
+	 *            UTF-8 encoded JSON
+	 */
+	public JsonLiteParser(ByteBuffer byteBuffer)
+	{
+		this.inputStream = null;
+		if (byteBuffer.hasArray()) {
+			this.byteBuffer = null;
+			this.buffer = byteBuffer.array();
+			this.position = byteBuffer.arrayOffset() + byteBuffer.position();
+			this.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+			this.consumedByteCount = -position;
+			byteBuffer.position(byteBuffer.limit());
+		} else {
+			this.byteBuffer = byteBuffer;
+			this.buffer = new byte[BUFFER_SIZE];
+		}
+	}
+
+	/**
+	 * Constructs a parser that reads the specified input stream. The stream is
+	 * read in blocks and need not be buffered.
+	 *
+	 * @param inputStream
+	 *            UTF-8 encoded JSON
+	 */
+	public JsonLiteParser(InputStream inputStream)
+	{
+		this.inputStream = inputStream;
+		this.byteBuffer = null;
+		this.buffer = new byte[BUFFER_SIZE];
+	}
+
+	/**
+	 * Closes the input stream, if any.
+	 *
+	 * @throws IOException
+	 *             Thrown if the input stream cannot be closed.
+	 */
+	public void close() throws IOException
+	{
+		if (inputStream != null) {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Refills the buffer.
+	 *
+	 * @return false if the end of input is reached
+	 */
+	private boolean fill()
+	{
+		int count;
+		if (inputStream != null) {
+			try {
+				count = inputStream.read(buffer, 0, buffer.length);
+			} catch (IOException ex) {
+				throw new JsonLiteException(ex);
+			}
+		} else if (byteBuffer != null) {
+			count = Math.min(byteBuffer.remaining(), buffer.length);
+			byteBuffer.get(buffer, 0, count);
+		} else {
+			return false;
+		}
+		if (count <= 0) {
+			return false;
+		}
+		consumedByteCount += limit;
+		position = 0;
+		limit = count;
+		return true;
+	}
+
+	/**
+	 * Returns the next byte or -1 if the end of input is reached.
+	 */
+	private int read()
+	{
+		if (position == limit && fill() == false) {
+			return -1;
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	/**
+	 * Returns the next byte that is not a white space or -1 if the end of
+	 * input is reached.
+	 */
+	private int readClean()
+	{
+		for (;;) {
+			int b = read();
+			if (b == '\n') {
+				line++;
+			} else if (b != ' ' && b != '\t' && b != '\r') {
+				return b;
+			}
+		}
+	}
+
+	/**
+	 * Returns the next event or null if the end of input is reached.
+	 *
+	 * @throws JsonLiteException
+	 *             Thrown if the input is not valid JSON.
+	 */
+	public Event next() throws JsonLiteException
+	{
+		int b = readClean();
+		if (b == -1) {
+			if (depth == 0 && (state == STATE_VALUE || state == STATE_AFTER_VALUE)) {
+				return null;
+			}
+			throw syntaxError("Unexpected end of input");
+		}
+		switch (state) {
+		case STATE_AFTER_VALUE:
+			if (depth == 0) {
+				// next top-level value, e.g., JSON lines
+				return nextValue(b);
+			}
+			if (b == ',') {
+				if (contextStack[depth - 1] == CONTEXT_OBJECT) {
+					b = readClean();
+					if (b != '"') {
+						throw syntaxError("Expected a field name");
+					}
+					return nextFieldName();
+				}
+				return nextValue(readClean());
+			}
+			return nextEnd(b);
+		case STATE_FIELD_OR_END:
+			if (b == '}') {
+				return nextEnd(b);
+			}
+			// fall through
+		case STATE_FIELD:
+			if (b != '"') {
+				throw syntaxError("Expected a field name");
+			}
+			return nextFieldName();
+		case STATE_VALUE_OR_END:
+			if (b == ']') {
+				return nextEnd(b);
+			}
+			// fall through
+		default:
+			return nextValue(b);
+		}
+	}
+
+	private Event nextEnd(int b)
+	{
+		byte context = contextStack[depth - 1];
+		if (b == '}' && context == CONTEXT_OBJECT) {
+			depth--;
+			state = STATE_AFTER_VALUE;
+			return Event.END_OBJECT;
+		} else if (b == ']' && context == CONTEXT_ARRAY) {
+			depth--;
+			state = STATE_AFTER_VALUE;
+			return Event.END_ARRAY;
+		}
+		throw syntaxError(context == CONTEXT_OBJECT ? "Expected a ',' or '}'" : "Expected a ',' or ']'");
+	}
+
+	private Event nextFieldName()
+	{
+		readString();
+		if (readClean() != ':') {
+			throw syntaxError("Expected a ':' after a key");
+		}
+		state = STATE_VALUE;
+		return Event.FIELD_NAME;
+	}
+
+	private Event nextValue(int b)
+	{
+		state = STATE_AFTER_VALUE;
+		switch (b) {
+		case '{':
+			push(CONTEXT_OBJECT);
+			state = STATE_FIELD_OR_END;
+			return Event.START_OBJECT;
+		case '[':
+			push(CONTEXT_ARRAY);
+			state = STATE_VALUE_OR_END;
+			return Event.START_ARRAY;
+		case '"':
+			readString();
+			return Event.VALUE_STRING;
+		case 't':
+			readLiteral("rue");
+			return Event.VALUE_TRUE;
+		case 'f':
+			readLiteral("alse");
+			return Event.VALUE_FALSE;
+		case 'n':
+			readLiteral("ull");
+			return Event.VALUE_NULL;
+		case -1:
+			throw syntaxError("Missing value");
+		default:
+			if (b == '-' || (b >= '0' && b <= '9')) {
+				readNumber(b);
+				return Event.VALUE_NUMBER;
+			}
+			throw syntaxError("Unexpected character '" + (char) b + "'");
+		}
+	}
+
+	private void push(byte context)
+	{
+		if (depth == contextStack.length) {
+			byte[] newStack = new byte[depth * 2];
+			System.arraycopy(contextStack, 0, newStack, 0, depth);
+			contextStack = newStack;
+		}
+		contextStack[depth++] = context;
+	}
+
+	private void readLiteral(String rest)
+	{
+		for (int i = 0; i < rest.length(); i++) {
+			if (read() != rest.charAt(i)) {
+				throw syntaxError("Invalid literal");
+			}
+		}
+	}
+
+	private void appendChar(char c)
+	{
+		if (charCount == chars.length) {
+			char[] newChars = new char[charCount * 2];
+			System.arraycopy(chars, 0, newChars, 0, charCount);
+			chars = newChars;
+		}
+		chars[charCount++] = c;
+	}
+
+	/**
+	 * Reads the number text into the char buffer. The first byte has already
+	 * been read.
+	 */
+	private void readNumber(int b)
+	{
+		charCount = 0;
+		isInteger = true;
+		for (;;) {
+			appendChar((char) b);
+			if (position == limit && fill() == false) {
+				break;
+			}
+			b = buffer[position] & 0xFF;
+			if ((b >= '0' && b <= '9') || b == '-') {
+				position++;
+			} else if (b == '.' || b == 'e' || b == 'E' || b == '+') {
+				isInteger = false;
+				position++;
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Decodes the UTF-8 string up to the closing quote into the char buffer.
+	 * The opening quote has already been read.
+	 */
+	private void readString()
+	{
+		charCount = 0;
+		for (;;) {
+			int b = read();
+			if (b == '"') {
+				return;
+			}
+			if (b == -1 || b == '\n' || b == '\r') {
+				throw syntaxError("Unterminated string");
+			}
+			if (b == '\\') {
+				b = read();
+				switch (b) {
+				case 'b':
+					appendChar('\b');
+					break;
+				case 't':
+					appendChar('\t');
+					break;
+				case 'n':
+					appendChar('\n');
+					break;
+				case 'f':
+					appendChar('\f');
+					break;
+				case 'r':
+					appendChar('\r');
+					break;
+				case 'u':
+					int c = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = JsonLiteTokenizer.dehexchar((char) read());
+						if (digit == -1) {
+							throw syntaxError("Illegal escape.");
+						}
+						c = (c << 4) | digit;
+					}
+					appendChar((char) c);
+					break;
+				case '"':
+				case '\'':
+				case '\\':
+				case '/':
+					appendChar((char) b);
+					break;
+				default:
+					throw syntaxError("Illegal escape.");
+				}
+			} else if (b < 0x80) {
+				appendChar((char) b);
+			} else if ((b & 0xE0) == 0xC0) {
+				appendChar((char) (((b & 0x1F) << 6) | readContinuation()));
+			} else if ((b & 0xF0) == 0xE0) {
+				int c = ((b & 0x0F) << 12) | (readContinuation() << 6);
+				appendChar((char) (c | readContinuation()));
+			} else if ((b & 0xF8) == 0xF0) {
+				int c = ((b & 0x07) << 18) | (readContinuation() << 12);
+				c |= readContinuation() << 6;
+				c |= readContinuation();
+				appendChar(Character.highSurrogate(c));
+				appendChar(Character.lowSurrogate(c));
+			} else {
+				throw syntaxError("Invalid UTF-8 byte");
+			}
+		}
+	}
+
+	private int readContinuation()
+	{
+		int b = read();
+		if ((b & 0xC0) != 0x80) {
+			throw syntaxError("Invalid UTF-8 byte");
+		}
+		return b & 0x3F;
+	}
+
+	/**
+	 * Returns the current field name, string value or number text.
+	 */
+	public String getString()
+	{
+		return new String(chars, 0, charCount);
+	}
+
+	/**
+	 * Returns true if the current field name or string value equals the
+	 * specified string. It does not create a string.
+	 *
+	 * @param string
+	 *            String to compare
+	 */
+	public boolean isString(String string)
+	{
+		return equals(string, chars, charCount);
+	}
+
+	/**
+	 * Returns the current number value as Integer, Long or Double following
+	 * the same rules as {@link JsonLiteTokenizer#stringToValue(String, String)}.
+	 */
+	public Object getNumber()
+	{
+		if (isInteger && isPlainInteger()) {
+			long value = parseLong();
+			if (value == (int) value) {
+				return Integer.valueOf((int) value);
+			}
+			return Long.valueOf(value);
+		}
+		try {
+			return JsonLiteTokenizer.stringToValue(getString(), null);
+		} catch (ParseException ex) {
+			throw new JsonLiteException(ex);
+		}
+	}
+
+	/**
+	 * Returns true if the number text is an integer that fits in long and
+	 * has the canonical form, i.e., no leading zeros or "-0".
+	 */
+	private boolean isPlainInteger()
+	{
+		int start = chars[0] == '-' ? 1 : 0;
+		int digitCount = charCount - start;
+		if (digitCount == 0 || digitCount > 18 || (chars[start] == '0' && (digitCount > 1 || start == 1))) {
+			return false;
+		}
+		for (int i = start; i < charCount; i++) {
+			if (chars[i] < '0' || chars[i] > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long parseLong()
+	{
+		int start = chars[0] == '-' ? 1 : 0;
+		long value = 0;
+		for (int i = start; i < charCount; i++) {
+			value = value * 10 + (chars[i] - '0');
+		}
+		return start == 1 ? -value : value;
+	}
+
+	/**
+	 * Returns the key type of the current field name found in the specified
+	 * key type. It does not create a string.
+	 *
+	 * @param keyType
+	 *            Any key type constant of the target key type
+	 * @return null if the field name is not defined in the key type
+	 */
+	public KeyType getKeyType(KeyType keyType)
+	{
+		return getFieldNameTable(keyType).find(chars, charCount);
+	}
+
+	/**
+	 * Returns the next top-level object as JsonLite. The fields are mapped to
+	 * the specified key type. If the key type is null, then the fields are
+	 * kept by name.
+	 *
+	 * @param keyType
+	 *            Key type of the object. If null, the object has no key type.
+	 * @return null if the end of input is reached
+	 * @throws JsonLiteException
+	 *             Thrown if the input is not valid JSON, the next value is
+	 *             not an object, or it has a field not defined in the key
+	 *             type.
+	 */
+	public JsonLite readJsonLite(KeyType keyType) throws JsonLiteException
+	{
+		Event event = next();
+		if (event == null) {
+			return null;
+		}
+		if (event != Event.START_OBJECT) {
+			throw syntaxError("A JsonLite text must begin with '{'");
+		}
+		return readObject(keyType);
+	}
+
+	/**
+	 * Reads all of the remaining top-level objects, e.g., JSON lines.
+	 *
+	 * @param keyType
+	 *            Key type of the objects. If null, the objects have no key
+	 *            type.
+	 * @return List of JsonLite objects
+	 */
+	public List<JsonLite> readAll(KeyType keyType) throws JsonLiteException
+	{
+		List<JsonLite> list = new ArrayList<JsonLite>();
+		JsonLite jl;
+		while ((jl = readJsonLite(keyType)) != null) {
+			list.add(jl);
+		}
+		return list;
+	}
+
+	private JsonLite readObject(KeyType keyType)
+	{
+		JsonLite jl;
+		FieldNameTable fieldNameTable = null;
+		if (keyType == null) {
+			jl = new JsonLite();
+		} else {
+			jl = new JsonLite(keyType);
+			fieldNameTable = getFieldNameTable(keyType);
+		}
+		for (;;) {
+			Event event = next();
+			if (event == Event.END_OBJECT) {
+				return jl;
+			}
+			if (fieldNameTable == null) {
+				String key = getString();
+				jl.put(key, readValue(null));
+			} else {
+				KeyType kt = fieldNameTable.find(chars, charCount);
+				if (kt == null) {
+					throw new JsonLiteException("Invalid key: " + getString() + ". It does not exist in "
+							+ keyType.getClass().getCanonicalName());
+				}
+				jl.put(kt, readValue(kt.getType()));
+			}
+		}
+	}
+
+	/**
+	 * Reads the next value and converts it to the specified type.
+	 *
+	 * @param type
+	 *            Value type. If null or Object, the JSON type determines the
+	 *            value type.
+	 */
+	private Object readValue(Class type)
+	{
+		return readValue(type, next());
+	}
+
+	/**
+	 * Converts the value of the specified event that has just been returned
+	 * by {@link #next()} to the specified type.
+	 *
+	 * @param type
+	 *            Value type. If null or Object, the JSON type determines the
+	 *            value type.
+	 * @param event
+	 *            Current event
+	 */
+	private Object readValue(Class type, Event event)
+	{
+		switch (event) {
+		case START_OBJECT:
+			return readObject(null);
+		case START_ARRAY:
+			return readArray(type);
+		case VALUE_STRING:
+			if (type == null || type == String.class || type == Object.class) {
+				return getString();
+			}
+			return convert(type);
+		case VALUE_NUMBER:
+			if (type == null || type == Object.class || type == Number.class) {
+				return getNumber();
+			}
+			if (isInteger && isPlainInteger()) {
+				long value = parseLong();
+				if ((type == Integer.class || type == int.class) && value == (int) value) {
+					return Integer.valueOf((int) value);
+				} else if (type == Long.class || type == long.class) {
+					return Long.valueOf(value);
+				}
+			}
+			if (type == BigDecimal.class) {
+				return new BigDecimal(chars, 0, charCount);
+			}
+			return convert(type);
+		case VALUE_TRUE:
+			return type == String.class ? "true" : Boolean.TRUE;
+		case VALUE_FALSE:
+			return type == String.class ? "false" : Boolean.FALSE;
+		case VALUE_NULL:
+			return null;
+		default:
+			throw syntaxError("Missing value");
+		}
+	}
+
+	private Object convert(Class type)
+	{
+		try {
+			return JsonLiteTokenizer.stringToValue(getString(), JsonLiteTokenizer.getTypeName(type));
+		} catch (Exception ex) {
+			throw new JsonLiteException("Invalid value for " + type.getName() + ": " + getString(), ex);
+		}
+	}
+
+	private Object readArray(Class type)
+	{
+		Class componentType = null;
+		if (type != null && type.isArray()) {
+			componentType = type.getComponentType();
+		}
+		ArrayList list = new ArrayList();
+		for (;;) {
+			Event event = next();
+			if (event == Event.END_ARRAY) {
+				break;
+			}
+			list.add(readValue(componentType, event));
+		}
+		if (type != null && Collection.class.isAssignableFrom(type)) {
+			return list;
+		} else if (componentType != null && componentType != Object.class) {
+			Object array = Array.newInstance(componentType, list.size());
+			for (int i = 0; i < list.size(); i++) {
+				Array.set(array, i, list.get(i));
+			}
+			return array;
+		}
+		return list.toArray(new Object[list.size()]);
+	}
+
+	/**
+	 * Returns the position of the next byte to read from the beginning of the
+	 * input.
+	 */
+	public long getByteOffset()
+	{
+		return consumedByteCount + position;
+	}
+
+	/**
+	 * Returns the current line number starting from 1.
+	 */
+	public int getLine()
+	{
+		return line;
+	}
+
+	private JsonLiteException syntaxError(String message)
+	{
+		return new JsonLiteException(message + " at " + getByteOffset() + " [line " + line + "]");
+	}
+
+	private static boolean equals(String string, char[] chars, int charCount)
+	{
+		if (string.length() != charCount) {
+			return false;
+		}
+		for (int i = 0; i < charCount; i++) {
+			if (string.charAt(i) != chars[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static FieldNameTable getFieldNameTable(KeyType keyType)
+	{
+		KeyType[] values = keyType.getValues();
+		KeyType mainKeyType = values.length > 0 ? values[0] : keyType;
+		FieldNameTable table = fieldNameTableMap.get(mainKeyType);
+		if (table == null) {
+			table = new FieldNameTable(values);
+			FieldNameTable existingTable = fieldNameTableMap.putIfAbsent(mainKeyType, table);
+			if (existingTable != null) {
+				table = existingTable;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * FieldNameTable is an open addressing hash table of key type names that
+	 * is looked up by chars. The hash is the same as String.hashCode() so that
+	 * the names' cached hash codes are used to build the table.
+	 */
+	private static final class FieldNameTable
+	{
+		private final KeyType[] table;
+		private final int mask;
+
+		FieldNameTable(KeyType[] keyTypes)
+		{
+			int size = 16;
+			while (size < keyTypes.length * 2) {
+				size <<= 1;
+			}
+			table = new KeyType[size];
+			mask = size - 1;
+			for (KeyType keyType : keyTypes) {
+				int i = spread(keyType.getName().hashCode()) & mask;
+				while (table[i] != null) {
+					i = (i + 1) & mask;
+				}
+				table[i] = keyType;
+			}
+		}
+
+		private static int spread(int h)
+		{
+			return h ^ (h >>> 16);
+		}
+
+		KeyType find(char[] chars, int charCount)
+		{
+			int h = 0;
+			for (int i = 0; i < charCount; i++) {
+				h = 31 * h + chars[i];
+			}
+			int i = spread(h) & mask;
+			KeyType keyType;
+			while ((keyType = table[i]) != null) {
+				if (JsonLiteParser.equals(keyType.getName(), chars, charCount)) {
+					return keyType;
+				}
+				i = (i + 1) & mask;
+			}
+			return null;
+		}
+	}
+}
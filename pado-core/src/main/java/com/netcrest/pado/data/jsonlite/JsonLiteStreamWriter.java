@@ -0,0 +1,771 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.data.jsonlite;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.netcrest.pado.data.KeyType;
+import com.netcrest.pado.data.jsonlite.internal.JsonLiteHelper;
+
+/**
+ * JsonLiteStreamWriter writes JsonLite objects as raw (unindented) JSON text
+ * directly to an {@link OutputStream} in UTF-8 or to an {@link Appendable}
+ * without building the JSON string in memory. The output is identical to
+ * {@link JsonLite#toJsonString(boolean, boolean)}. Nested JsonLite objects,
+ * arrays, collections, maps and reference objects are written in the same
+ * manner.
+ * <p>
+ * The escaped field names and headers of each KeyType are built once and
+ * cached for all writers. Characters are accumulated in an internal buffer
+ * that is written out when it is full or when {@link #flush()} is invoked.
+ * JsonLiteStreamWriter is not thread safe.
+ * <p>
+ * Warning: This class assumes that the data structure is acyclical.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class JsonLiteStreamWriter implements Flushable, Closeable
+{
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final char[] NULL = "null".toCharArray();
+	private static final char[] TRUE = "true".toCharArray();
+	private static final char[] FALSE = "false".toCharArray();
+	private static final char[] HEADER_OPEN = "{\"__h\":{".toCharArray();
+
+	/**
+	 * &lt;KeyType, FieldNames&gt; cache of escaped field names.
+	 */
+	private static final ConcurrentHashMap<KeyType, FieldNames> fieldNamesMap = new ConcurrentHashMap<KeyType, FieldNames>();
+
+	/**
+	 * &lt;Class, Getter[]&gt; cache of the getters of non-JsonLite objects.
+	 */
+	private static final ConcurrentHashMap<Class, Getter[]> getterMap = new ConcurrentHashMap<Class, Getter[]>();
+
+	/**
+	 * FieldNames contains the escaped names of all KeyType fields followed by
+	 * ':' and the header of the KeyType.
+	 */
+	private static class FieldNames
+	{
+		final char[] header;
+		final char[][] names;
+
+		FieldNames(KeyType keyType)
+		{
+			header = ("{\"__h\":{\"c\":\"L" + keyType.getClass().getCanonicalName() + "\"}").toCharArray();
+			KeyType[] keyTypes = keyType.getValues();
+			names = new char[keyTypes.length][];
+			for (int i = 0; i < keyTypes.length; i++) {
+				names[i] = (JsonLiteHelper.quote(keyTypes[i].getName()) + ":").toCharArray();
+			}
+		}
+	}
+
+	/**
+	 * Getter contains a getter method and its escaped property name followed
+	 * by ':'.
+	 */
+	private static class Getter
+	{
+		final Method method;
+		final char[] name;
+
+		Getter(Method method, String propertyName)
+		{
+			this.method = method;
+			this.name = ("\"" + propertyName + "\":").toCharArray();
+		}
+	}
+
+	private final OutputStream outputStream;
+	private final Appendable appendable;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private byte[] byteBuffer;
+	private final char[] digits = new char[20];
+
+	/**
+	 * Key type of the last written JsonLite object. Headers of arrays,
+	 * collections and maps are written only if it is not null, as done by
+	 * {@link JsonLiteStringWriter}.
+	 */
+	private KeyType keyType;
+
+	/**
+	 * Constructs a writer that writes UTF-8 encoded JSON text to the specified
+	 * output stream.
+	 *
+	 * @param outputStream
+	 *            Output stream
+	 */
+	public JsonLiteStreamWriter(OutputStream outputStream)
+	{
+		this.outputStream = outputStream;
+		this.appendable = null;
+		this.byteBuffer = new byte[BUFFER_SIZE * 3];
+	}
+
+	/**
+	 * Constructs a writer that appends JSON text to the specified appendable,
+	 * e.g., {@link StringBuilder} or {@link Writer}.
+	 *
+	 * @param appendable
+	 *            Appendable
+	 */
+	public JsonLiteStreamWriter(Appendable appendable)
+	{
+		this.outputStream = null;
+		this.appendable = appendable;
+	}
+
+	/**
+	 * Writes the specified JsonLite object without references and header. This
+	 * call is equivalent to <code>write(jl, false, false);</code>
+	 *
+	 * @param jl
+	 *            JsonLite object. If null, then nothing is written.
+	 * @return This writer
+	 * @throws IOException
+	 *             Thrown if writing to the underlying stream fails
+	 * @throws JsonLiteException
+	 *             If the object contains an invalid number.
+	 */
+	public JsonLiteStreamWriter write(JsonLite jl) throws IOException, JsonLiteException
+	{
+		return write(jl, false, false);
+	}
+
+	/**
+	 * Writes the specified JsonLite object.
+	 *
+	 * @param jl
+	 *            JsonLite object. If null, then nothing is written.
+	 * @param isReference
+	 *            true to include reference objects.
+	 * @param isHeader
+	 *            true to include header, false to exclude header.
+	 * @return This writer
+	 * @throws IOException
+	 *             Thrown if writing to the underlying stream fails
+	 * @throws JsonLiteException
+	 *             If the object contains an invalid number.
+	 */
+	public JsonLiteStreamWriter write(JsonLite jl, boolean isReference, boolean isHeader) throws IOException,
+			JsonLiteException
+	{
+		if (jl == null) {
+			return this;
+		}
+		jl.deserialize();
+		writeJsonLite(jl, isReference, isHeader);
+		return this;
+	}
+
+	/**
+	 * Writes the line separator '\n'. Useful for writing JSON lines that can
+	 * be read by {@link JsonLiteParser#readAll(KeyType)}.
+	 *
+	 * @return This writer
+	 * @throws IOException
+	 *             Thrown if writing to the underlying stream fails
+	 */
+	public JsonLiteStreamWriter newLine() throws IOException
+	{
+		write('\n');
+		return this;
+	}
+
+	/**
+	 * Writes out the buffered characters and flushes the underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		flushBuffer(true);
+		if (outputStream != null) {
+			outputStream.flush();
+		} else if (appendable instanceof Flushable) {
+			((Flushable) appendable).flush();
+		}
+	}
+
+	/**
+	 * Flushes and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		flush();
+		if (outputStream != null) {
+			outputStream.close();
+		} else if (appendable instanceof Closeable) {
+			((Closeable) appendable).close();
+		}
+	}
+
+	private void writeJsonLite(JsonLite jl, boolean isReference, boolean isHeader) throws IOException
+	{
+		this.keyType = jl.getKeyType();
+		if (keyType == null) {
+			writeValueMap(jl, isReference, isHeader);
+		} else {
+			writeKeyType(jl, isReference, isHeader);
+		}
+	}
+
+	private void writeValueMap(JsonLite jl, boolean isReference, boolean isHeader) throws IOException
+	{
+		if (jl.valueMap == null || jl.valueMap.size() == 0) {
+			write('{');
+			write('}');
+			return;
+		}
+		Map<String, Object> valueMap = jl.valueMap;
+		write('{');
+		boolean commanate = false;
+		for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
+			if (commanate) {
+				write(',');
+			}
+			writeQuoted(entry.getKey());
+			write(':');
+			writeValue(entry.getValue(), isReference, isHeader);
+			commanate = true;
+		}
+		write('}');
+	}
+
+	private void writeKeyType(JsonLite jl, boolean isReference, boolean isHeader) throws IOException
+	{
+		KeyType jlKeyType = jl.getKeyType();
+		FieldNames fieldNames = fieldNamesMap.get(jlKeyType);
+		if (fieldNames == null) {
+			fieldNames = new FieldNames(jlKeyType);
+			fieldNamesMap.put(jlKeyType, fieldNames);
+		}
+		final int length = jl.size();
+		KeyType[] keyTypes = jlKeyType.getValues();
+
+		if (isHeader) {
+			write(fieldNames.header);
+		} else {
+			write('{');
+		}
+
+		if (length == 1) {
+			if (isHeader) {
+				write(',');
+			}
+			// Same as JsonLiteStringWriter, the first key's string
+			// representation is used for single-valued objects.
+			KeyType key = keyTypes[0];
+			writeQuoted(key.toString());
+			write(':');
+			writeValue(getValue(jl, key, isReference), isReference, isHeader);
+		} else if (length != 0) {
+			if (isHeader) {
+				write(',');
+			}
+			char[][] names = fieldNames.names;
+			for (int i = 0; i < keyTypes.length; i++) {
+				if (i > 0) {
+					write(',');
+				}
+				write(names[i]);
+				writeValue(getValue(jl, keyTypes[i], isReference), isReference, isHeader);
+			}
+		}
+		write('}');
+	}
+
+	private Object getValue(JsonLite jl, KeyType key, boolean isReference)
+	{
+		if (isReference && key.isReference()) {
+			Object value = jl.getReference(key);
+			if (value != null) {
+				return value;
+			}
+		}
+		return jl.get(key);
+	}
+
+	private void writeValue(Object value, boolean isReference, boolean isHeader) throws IOException
+	{
+		if (value == null || value.equals(null)) {
+			write(NULL);
+		} else if (value instanceof String) {
+			writeQuoted((String) value);
+		} else if (value instanceof JsonLite) {
+			JsonLite jl = (JsonLite) value;
+			jl.deserialize();
+			writeJsonLite(jl, isReference, isHeader);
+		} else if (value.getClass().isEnum()) {
+			writeQuoted(value.toString());
+		} else if (value instanceof Map) {
+			writeMap((Map) value, isReference, isHeader);
+		} else if (value instanceof Collection) {
+			writeCollection((Collection) value, isReference, isHeader);
+		} else if (value.getClass().isArray()) {
+			writeArray(value, isReference, isHeader);
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			writeLong(((Number) value).longValue());
+		} else if (value instanceof Number) {
+			write(JsonLiteHelper.numberToString((Number) value));
+		} else if (value instanceof Boolean) {
+			write(((Boolean) value).booleanValue() ? TRUE : FALSE);
+		} else if (value instanceof Date) {
+			writeQuoted(JsonLiteHelper.iso8601DateFormat.format((Date) value));
+		} else if (value instanceof IJsonString) {
+			Object o;
+			try {
+				o = ((IJsonString) value).toJsonString();
+			} catch (Exception e) {
+				throw new JsonLiteException(e);
+			}
+			if (o != null) {
+				write(o.toString());
+			} else {
+				writeQuoted(value.toString());
+			}
+		} else if (value instanceof Character) {
+			writeQuoted(value.toString());
+		} else {
+			writeObject(value, isReference, isHeader);
+		}
+	}
+
+	private void writeType(Class type) throws IOException
+	{
+		write('"');
+		if (type.isArray()) {
+			write('[');
+			type = type.getComponentType();
+		}
+		write(JsonLiteTokenizer.getTypeName(type));
+		write('"');
+	}
+
+	private void writeArray(Object array, boolean isReference, boolean isHeader) throws IOException
+	{
+		Object[] objectArray = array instanceof Object[] ? (Object[]) array : null;
+		int length = objectArray != null ? objectArray.length : Array.getLength(array);
+		boolean isArrayHeader = keyType != null && isHeader;
+
+		if (isArrayHeader) {
+			// {"__h":{"c":"[L","t":["Z","B",...],"d":[...]}}
+			write(HEADER_OPEN);
+			write("\"c\":");
+			writeType(array.getClass());
+			write(',');
+			if (array.getClass() == Object[].class) {
+				write("\"t\":[");
+				for (int i = 0; i < length; i++) {
+					if (i > 0) {
+						write(',');
+					}
+					writeType(objectArray[i].getClass());
+				}
+				write(']');
+				write(',');
+			}
+			write("\"d\":");
+		}
+
+		write('[');
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				write(',');
+			}
+			writeValue(objectArray != null ? objectArray[i] : Array.get(array, i), isReference, isHeader);
+		}
+		write(']');
+
+		if (isArrayHeader) {
+			write('}');
+			write('}');
+		}
+	}
+
+	private void writeCollection(Collection collection, boolean isReference, boolean isHeader) throws IOException
+	{
+		boolean isCollectionHeader = keyType != null && isHeader;
+
+		if (isCollectionHeader) {
+			// {"__h":{"c":"List<type>","t":["Z","B",...],"d":[...]}}
+			write(HEADER_OPEN);
+			write("\"c\":\"");
+			Class type = collection.getClass();
+			if (type == ArrayList.class) {
+				write("List");
+			} else {
+				write('L');
+				write(type.getCanonicalName());
+			}
+			String genericType = JsonLiteStringWriter.getGenericType(collection);
+			if (genericType != null) {
+				write('<');
+				write(genericType);
+				write('>');
+			}
+			write('"');
+			write(',');
+			if (genericType == null) {
+				write("\"t\":[");
+				boolean commanate = false;
+				for (Object value : collection) {
+					if (commanate) {
+						write(',');
+					}
+					writeType(value.getClass());
+					commanate = true;
+				}
+				write(']');
+				write(',');
+			}
+			write("\"d\":");
+		}
+
+		write('[');
+		boolean commanate = false;
+		for (Object value : collection) {
+			if (commanate) {
+				write(',');
+			}
+			writeValue(value, isReference, isHeader);
+			commanate = true;
+		}
+		write(']');
+
+		if (isCollectionHeader) {
+			write('}');
+			write('}');
+		}
+	}
+
+	private void writeMap(Map map, boolean isReference, boolean isHeader) throws IOException
+	{
+		final int length = map.size();
+
+		if (keyType != null && isHeader) {
+			// {"__h":{"c":"Map"},...}
+			write(HEADER_OPEN);
+			write("\"c\":\"");
+			Class type = map.getClass();
+			if (type == HashMap.class) {
+				write("Map");
+			} else {
+				write('L');
+				write(type.getCanonicalName());
+			}
+			write('"');
+			write('}');
+			if (length != 0) {
+				write(',');
+			}
+		} else {
+			write('{');
+		}
+
+		boolean commanate = false;
+		Iterator<Map.Entry> iterator = map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry entry = iterator.next();
+			if (commanate) {
+				write(',');
+			}
+			writeQuoted(entry.getKey().toString());
+			write(':');
+			writeValue(entry.getValue(), isReference, isHeader);
+			commanate = true;
+		}
+		write('}');
+	}
+
+	private void writeObject(Object object, boolean isReference, boolean isHeader) throws IOException
+	{
+		if (isHeader) {
+			// {"__h":{"c":"Lcom.netcrest.test.data.Foo"}
+			write(HEADER_OPEN);
+			write("\"c\":\"L");
+			if (object instanceof IJsonLiteWrapper) {
+				write(((IJsonLiteWrapper) object).toJsonLite().getKeyType().getClass().getCanonicalName());
+			} else {
+				write(object.getClass().getCanonicalName());
+			}
+			write('"');
+			write('}');
+		} else {
+			write('{');
+		}
+
+		Getter[] getters = getGetters(object.getClass());
+		for (int i = 0; i < getters.length; i++) {
+			if (isHeader || i > 0) {
+				write(',');
+			}
+			Object value;
+			try {
+				value = getters[i].method.invoke(object);
+			} catch (Exception e) {
+				throw new JsonLiteException(e);
+			}
+			write(getters[i].name);
+			writeValue(value, isReference, isHeader);
+		}
+		write('}');
+	}
+
+	/**
+	 * Returns the getters of the specified class in the order determined by
+	 * {@link Class#getMethods()} as done by {@link JsonLiteStringWriter}.
+	 */
+	private static Getter[] getGetters(Class clazz)
+	{
+		Getter[] getters = getterMap.get(clazz);
+		if (getters != null) {
+			return getters;
+		}
+		ArrayList<Getter> list = new ArrayList<Getter>();
+		for (Method method : clazz.getMethods()) {
+			String name = method.getName();
+			if (method.getParameterTypes().length == 0 && method.getReturnType() != void.class
+					&& (name.startsWith("get") || name.startsWith("is"))) {
+				if (name.equals("getClass")) {
+					continue;
+				}
+				list.add(new Getter(method, name.startsWith("get") ? name.substring(3) : name.substring(2)));
+			}
+		}
+		getters = list.toArray(new Getter[list.size()]);
+		getterMap.put(clazz, getters);
+		return getters;
+	}
+
+	/**
+	 * Writes the specified string in double quotes with the same escape
+	 * sequences as {@link JsonLiteHelper#quote(String)}.
+	 */
+	private void writeQuoted(String string) throws IOException
+	{
+		int len = string == null ? 0 : string.length();
+		ensureCapacity(2);
+		char[] buf = buffer;
+		buf[position++] = '"';
+		char b;
+		char c = 0;
+		for (int i = 0; i < len; i++) {
+			if (position + 6 > buf.length) {
+				flushBuffer(false);
+			}
+			b = c;
+			c = string.charAt(i);
+			switch (c) {
+			case '\\':
+			case '"':
+				buf[position++] = '\\';
+				buf[position++] = c;
+				break;
+			case '/':
+				if (b == '<') {
+					buf[position++] = '\\';
+				}
+				buf[position++] = c;
+				break;
+			case '\b':
+				buf[position++] = '\\';
+				buf[position++] = 'b';
+				break;
+			case '\t':
+				buf[position++] = '\\';
+				buf[position++] = 't';
+				break;
+			case '\n':
+				buf[position++] = '\\';
+				buf[position++] = 'n';
+				break;
+			case '\f':
+				buf[position++] = '\\';
+				buf[position++] = 'f';
+				break;
+			case '\r':
+				buf[position++] = '\\';
+				buf[position++] = 'r';
+				break;
+			default:
+				if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+					buf[position++] = '\\';
+					buf[position++] = 'u';
+					buf[position++] = HEX[(c >> 12) & 0xf];
+					buf[position++] = HEX[(c >> 8) & 0xf];
+					buf[position++] = HEX[(c >> 4) & 0xf];
+					buf[position++] = HEX[c & 0xf];
+				} else {
+					buf[position++] = c;
+				}
+			}
+		}
+		ensureCapacity(1);
+		buf[position++] = '"';
+	}
+
+	private void writeLong(long value) throws IOException
+	{
+		if (value == Long.MIN_VALUE) {
+			write(Long.toString(value));
+			return;
+		}
+		ensureCapacity(digits.length);
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+		int count = 0;
+		do {
+			digits[count++] = (char) ('0' + (value % 10));
+			value /= 10;
+		} while (value != 0);
+		while (count > 0) {
+			buffer[position++] = digits[--count];
+		}
+	}
+
+	private void write(char c) throws IOException
+	{
+		if (position == buffer.length) {
+			flushBuffer(false);
+		}
+		buffer[position++] = c;
+	}
+
+	private void write(char[] chars) throws IOException
+	{
+		if (position + chars.length > buffer.length) {
+			flushBuffer(false);
+			if (position + chars.length > buffer.length) {
+				write(new String(chars));
+				return;
+			}
+		}
+		System.arraycopy(chars, 0, buffer, position, chars.length);
+		position += chars.length;
+	}
+
+	private void write(String string) throws IOException
+	{
+		int len = string.length();
+		int offset = 0;
+		while (offset < len) {
+			if (position == buffer.length) {
+				flushBuffer(false);
+			}
+			int count = Math.min(len - offset, buffer.length - position);
+			string.getChars(offset, offset + count, buffer, position);
+			position += count;
+			offset += count;
+		}
+	}
+
+	private void ensureCapacity(int size) throws IOException
+	{
+		if (position + size > buffer.length) {
+			flushBuffer(false);
+		}
+	}
+
+	/**
+	 * Writes out the buffered characters to the underlying stream.
+	 *
+	 * @param isFinal
+	 *            false to keep a trailing high surrogate in the buffer so
+	 *            that surrogate pairs are encoded together.
+	 */
+	private void flushBuffer(boolean isFinal) throws IOException
+	{
+		if (position == 0) {
+			return;
+		}
+		if (appendable != null) {
+			if (appendable instanceof StringBuilder) {
+				((StringBuilder) appendable).append(buffer, 0, position);
+			} else if (appendable instanceof Writer) {
+				((Writer) appendable).write(buffer, 0, position);
+			} else {
+				appendable.append(CharBuffer.wrap(buffer, 0, position));
+			}
+			position = 0;
+			return;
+		}
+
+		int end = position;
+		if (isFinal == false && Character.isHighSurrogate(buffer[end - 1])) {
+			end--;
+		}
+		byte[] bytes = byteBuffer;
+		int count = 0;
+		for (int i = 0; i < end; i++) {
+			char c = buffer[i];
+			if (c < 0x80) {
+				bytes[count++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[count++] = (byte) (0xc0 | (c >> 6));
+				bytes[count++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(buffer[i + 1])) {
+					int codePoint = Character.toCodePoint(c, buffer[++i]);
+					bytes[count++] = (byte) (0xf0 | (codePoint >> 18));
+					bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					bytes[count++] = (byte) (0x80 | (codePoint & 0x3f));
+				} else {
+					// Malformed surrogate replaced as done by String.getBytes()
+					bytes[count++] = '?';
+				}
+			} else {
+				bytes[count++] = (byte) (0xe0 | (c >> 12));
+				bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				bytes[count++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		outputStream.write(bytes, 0, count);
+		if (end < position) {
+			buffer[0] = buffer[end];
+			position = 1;
+		} else {
+			position = 0;
+		}
+	}
+}
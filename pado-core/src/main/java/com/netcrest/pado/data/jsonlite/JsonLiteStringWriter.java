@@ -325,7 +325,7 @@ public class JsonLiteStringWriter<V>
 	}
 
 	@SuppressWarnings("rawtypes")
-	private String getGenericType(Collection collection)
+	static String getGenericType(Collection collection)
 	{
 		if (collection == null) {
 			return null;
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.data.jsonlite.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+
+/**
+ * ReusableDataOutputStream is an in-memory data output stream pooled per
+ * thread for serializing JsonLite payloads without allocating new buffers.
+ * The written bytes are accessed directly from {@link #getBuffer()} up to
+ * {@link #size()} instead of copying them. Each {@link #acquire()} must be
+ * paired with {@link #release(ReusableDataOutputStream)}. Nested acquires,
+ * e.g., serializing a JsonLite value of JsonLite, get separate streams.
+ *
+ * @author dpark
+ *
+ */
+public class ReusableDataOutputStream extends DataOutputStream
+{
+	private static final int INITIAL_SIZE = 1024;
+
+	/**
+	 * Streams that have grown larger than this size are not returned to the
+	 * pool so that an occasional large payload does not pin memory.
+	 */
+	private static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+	private static final ThreadLocal<ArrayList<ReusableDataOutputStream>> poolThreadLocal = new ThreadLocal<ArrayList<ReusableDataOutputStream>>() {
+		@Override
+		protected ArrayList<ReusableDataOutputStream> initialValue()
+		{
+			return new ArrayList<ReusableDataOutputStream>(4);
+		}
+	};
+
+	/**
+	 * ByteArrayOutputStream that exposes its buffer.
+	 */
+	private static class Buffer extends ByteArrayOutputStream
+	{
+		Buffer(int size)
+		{
+			super(size);
+		}
+
+		byte[] getBuffer()
+		{
+			return buf;
+		}
+	}
+
+	private final Buffer buffer;
+	private int[] intArray = new int[0];
+
+	private ReusableDataOutputStream()
+	{
+		super(new Buffer(INITIAL_SIZE));
+		buffer = (Buffer) out;
+	}
+
+	/**
+	 * Returns an empty stream from the current thread's pool.
+	 */
+	public static ReusableDataOutputStream acquire()
+	{
+		ArrayList<ReusableDataOutputStream> pool = poolThreadLocal.get();
+		int size = pool.size();
+		if (size == 0) {
+			return new ReusableDataOutputStream();
+		}
+		return pool.remove(size - 1);
+	}
+
+	/**
+	 * Resets and returns the specified stream to the current thread's pool.
+	 *
+	 * @param stream
+	 *            Stream acquired by {@link #acquire()}. If null, this call
+	 *            has no effect.
+	 */
+	public static void release(ReusableDataOutputStream stream)
+	{
+		if (stream == null || stream.buffer.getBuffer().length > MAX_POOLED_SIZE) {
+			return;
+		}
+		stream.buffer.reset();
+		stream.written = 0;
+		poolThreadLocal.get().add(stream);
+	}
+
+	/**
+	 * Returns the internal buffer. Only the first {@link #size()} bytes are
+	 * valid. The buffer is overwritten once this stream is released.
+	 */
+	public byte[] getBuffer()
+	{
+		return buffer.getBuffer();
+	}
+
+	/**
+	 * Returns a scratch int array of at least the specified length that is
+	 * reused along with this stream.
+	 *
+	 * @param length
+	 *            Minimum length
+	 */
+	public int[] getIntArray(int length)
+	{
+		if (intArray.length < length) {
+			intArray = new int[length];
+		}
+		return intArray;
+	}
+}
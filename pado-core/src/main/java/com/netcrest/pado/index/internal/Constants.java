@@ -27,6 +27,12 @@ public interface Constants {
 	
 	public static final String COMPARATOR_PROP_NAME = "ComparatorFactory";
 	
+	/**
+	 * If "true" (default), ordered query results are sorted lazily in pages on
+	 * each server instead of sorting the entire results up front.
+	 */
+	public static final String PROP_PARTIAL_SORT_ENABLED = "indexMatrixPartialSortEnabled";
+	
 	public static final int BEGINNING_OF_LIST = -1;
 	public static final int END_OF_LIST = -1;	
 	
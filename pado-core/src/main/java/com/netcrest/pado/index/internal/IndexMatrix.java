@@ -18,9 +18,10 @@ package com.netcrest.pado.index.internal;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.RandomAccess;
 
 import com.gemstone.gemfire.DataSerializable;
 import com.gemstone.gemfire.DataSerializer;
@@ -29,12 +30,23 @@ import com.gemstone.gemfire.InvalidDeltaException;
 import com.netcrest.pado.index.result.IGridResults;
 import com.netcrest.pado.index.result.ResultItem;
 
+/**
+ * IndexMatrix holds the start indexes of each bucket for each page of an
+ * aggregated result set such that a page can be retrieved from the servers
+ * without re-running the query. The start indexes are kept in
+ * {@link StartIndexMatrix} in a compact encoding. Once serialized, an
+ * IndexMatrix is sent as a delta that contains only the pages added since then.
+ */
 public class IndexMatrix implements DataSerializable, Delta
 {
 	private static final long serialVersionUID = 1L;
-	private List<int[]> startIndexList;
-	private List<int[]> batchList;
-	private transient int[] deltaStartIndexes;
+	private StartIndexMatrix startIndexMatrix;
+	/**
+	 * The number of pages that the delta receivers already have. -1 if this
+	 * object has not been serialized or deserialized. Deltas are not
+	 * supported until then.
+	 */
+	private transient int deltaPageCount = -1;
 	private int[] bucketIds;
 	// pageSize is always set with GridQuery.getAggregationPageSize() during
 	// query
@@ -42,7 +54,6 @@ public class IndexMatrix implements DataSerializable, Delta
 	private int currentSize;
 	private int totalSize;
 	private boolean isComplete;
-	private boolean hasDelta = false;
 	private boolean isInProgress = true;
 
 	public IndexMatrix()
@@ -55,17 +66,12 @@ public class IndexMatrix implements DataSerializable, Delta
 		this.totalSize = totalSize;
 	}
 
-	private List<int[]> getBatchList()
+	private synchronized StartIndexMatrix getStartIndexMatrix()
 	{
-		if (batchList == null) {
-			batchList = new ArrayList<int[]>(2);
+		if (startIndexMatrix == null) {
+			startIndexMatrix = new StartIndexMatrix(bucketIds == null ? 0 : bucketIds.length);
 		}
-		return batchList;
-	}
-
-	private int[] getDeltaStartIndexes()
-	{
-		return deltaStartIndexes;
+		return startIndexMatrix;
 	}
 
 	public int getPageSize()
@@ -122,22 +128,42 @@ public class IndexMatrix implements DataSerializable, Delta
 		return bucketIds;
 	}
 
+	/**
+	 * Returns a read-only list of start indexes of all pages. Each call to
+	 * get() decodes the start indexes of the page. Use
+	 * {@link #getStartIndexes(int)} and {@link #getPageCount()} instead.
+	 */
 	public List<int[]> getIndexList()
 	{
-		if (startIndexList == null) {
-			startIndexList = new ArrayList<int[]>(10);
-		}
-		return startIndexList;
+		return new StartIndexList();
 	}
 
+	/**
+	 * Returns the number of pages that have start indexes.
+	 */
+	public int getPageCount()
+	{
+		return getStartIndexMatrix().size();
+	}
+
+	/**
+	 * Returns the start indexes of the specified page. It returns null if the
+	 * page index is out of range.
+	 * 
+	 * @param pageIndex
+	 *            Page index
+	 */
 	public int[] getStartIndexes(int pageIndex)
 	{
-		int[] startIndexes = null;
-		List<int[]> startIndexList = getIndexList();
-		if (0 <= pageIndex && pageIndex < startIndexList.size()) {
-			startIndexes = startIndexList.get(pageIndex);
-		}
-		return startIndexes;
+		return getStartIndexMatrix().get(pageIndex);
+	}
+
+	/**
+	 * Returns the number of bytes taken by the encoded start indexes.
+	 */
+	public int getEncodedSize()
+	{
+		return getStartIndexMatrix().getEncodedSize();
 	}
 
 	public boolean isInProgress()
@@ -174,8 +200,6 @@ public class IndexMatrix implements DataSerializable, Delta
 		// System.out.println("IndexMatrix.begin(): deltaList.size()=" +
 		// getDeltaList().size() + ", indexList.size()=" +
 		// getIndexList().size());
-		getBatchList().clear();
-		deltaStartIndexes = null;
 	}
 
 	// public void add(int[] indexInfo)
@@ -192,9 +216,9 @@ public class IndexMatrix implements DataSerializable, Delta
 
 	public void addStartIndexes(int[] startIndexes)
 	{
-		List<int[]> startIndexList = getIndexList();
-		startIndexList.add(startIndexes);
-		currentSize = startIndexList.size() * pageSize;
+		StartIndexMatrix startIndexMatrix = getStartIndexMatrix();
+		startIndexMatrix.add(startIndexes);
+		currentSize = startIndexMatrix.size() * pageSize;
 		if (currentSize > totalSize) {
 			currentSize = totalSize;
 		}
@@ -202,15 +226,6 @@ public class IndexMatrix implements DataSerializable, Delta
 
 	public void commit(boolean isComplete, final IGridResults<ResultItem<Object>> gridResults)
 	{
-		if (deltaStartIndexes != null) {
-			hasDelta = true;
-		}
-		if (batchList != null) {
-			List<int[]> indexList = getIndexList();
-			indexList.addAll(batchList);
-			batchList.clear();
-		}
-
 		setComplete(isComplete);
 
 		// If complete, then wrap up the start indexes. Note that there
@@ -287,10 +302,10 @@ public class IndexMatrix implements DataSerializable, Delta
 		}
 		System.out.println();
 		// Rows: start indexes
-		for (int i = 0; i < startIndexList.size(); i++) {
-			int[] indexes = startIndexList.get(9);
+		for (int i = 0; i < getPageCount(); i++) {
+			int[] indexes = getStartIndexes(i);
 			System.out.print(i + 1 + ". ");
-			for (int j = 0; i < indexes.length; i++) {
+			for (int j = 0; j < indexes.length; j++) {
 				System.out.print(indexes[j] + "  ");
 			}
 			System.out.println();
@@ -312,8 +327,9 @@ public class IndexMatrix implements DataSerializable, Delta
 		totalSize = DataSerializer.readPrimitiveInt(input);
 		isComplete = DataSerializer.readPrimitiveBoolean(input);
 		isInProgress = DataSerializer.readPrimitiveBoolean(input);
-		startIndexList = DataSerializer.readObject(input);
 		bucketIds = DataSerializer.readIntArray(input);
+		startIndexMatrix = StartIndexMatrix.readData(input);
+		deltaPageCount = startIndexMatrix.size();
 	}
 
 	/**
@@ -328,28 +344,84 @@ public class IndexMatrix implements DataSerializable, Delta
 		DataSerializer.writePrimitiveInt(totalSize, output);
 		DataSerializer.writePrimitiveBoolean(isComplete, output);
 		DataSerializer.writePrimitiveBoolean(isInProgress, output);
-		DataSerializer.writeObject(startIndexList, output);
 		DataSerializer.writeIntArray(bucketIds, output);
-
+		StartIndexMatrix startIndexMatrix = getStartIndexMatrix();
+		startIndexMatrix.writeData(output);
+		deltaPageCount = startIndexMatrix.size();
 	}
 
+	/**
+	 * Returns true if this object has been serialized or deserialized. The
+	 * delta contains the pages added since then.
+	 */
 	public boolean hasDelta()
 	{
-		return hasDelta;
+		return deltaPageCount >= 0;
 	}
 
+	/**
+	 * Writes the state and the pages added since the last serialization.
+	 * The receiver rejects the delta with InvalidDeltaException if it does
+	 * not have the same number of pages, in which case the entire object is
+	 * sent instead.
+	 */
 	public synchronized void toDelta(DataOutput out) throws IOException
 	{
+		StartIndexMatrix startIndexMatrix = getStartIndexMatrix();
+		DataSerializer.writePrimitiveInt(pageSize, out);
+		DataSerializer.writePrimitiveInt(currentSize, out);
+		DataSerializer.writePrimitiveInt(totalSize, out);
 		DataSerializer.writePrimitiveBoolean(isComplete, out);
-		DataSerializer.writeIntArray(deltaStartIndexes, out);
-		deltaStartIndexes = null;
+		DataSerializer.writePrimitiveBoolean(isInProgress, out);
+		DataSerializer.writePrimitiveInt(startIndexMatrix.getColumnCount(), out);
+		DataSerializer.writePrimitiveInt(deltaPageCount, out);
+		startIndexMatrix.writeRows(out, deltaPageCount);
+		deltaPageCount = startIndexMatrix.size();
 	}
 
 	public synchronized void fromDelta(DataInput in) throws IOException, InvalidDeltaException
 	{
-		isComplete = DataSerializer.readPrimitiveBoolean(in);
-		int nextStartIndex = DataSerializer.readPrimitiveInt(in);
-		int[] startIndexes = DataSerializer.readIntArray(in);
-		addStartIndexes(startIndexes);
+		int pageSize = DataSerializer.readPrimitiveInt(in);
+		int currentSize = DataSerializer.readPrimitiveInt(in);
+		int totalSize = DataSerializer.readPrimitiveInt(in);
+		boolean isComplete = DataSerializer.readPrimitiveBoolean(in);
+		boolean isInProgress = DataSerializer.readPrimitiveBoolean(in);
+		int columnCount = DataSerializer.readPrimitiveInt(in);
+		int fromPageIndex = DataSerializer.readPrimitiveInt(in);
+		StartIndexMatrix startIndexMatrix = getStartIndexMatrix();
+		if (columnCount != startIndexMatrix.getColumnCount() || fromPageIndex != startIndexMatrix.size()) {
+			throw new InvalidDeltaException("IndexMatrix delta mismatch: [bucketCount=" + columnCount
+					+ ", fromPageIndex=" + fromPageIndex + "], expected: [bucketCount="
+					+ startIndexMatrix.getColumnCount() + ", fromPageIndex=" + startIndexMatrix.size() + "]");
+		}
+		startIndexMatrix.readRows(in);
+		this.pageSize = pageSize;
+		this.currentSize = currentSize;
+		this.totalSize = totalSize;
+		this.isComplete = isComplete;
+		this.isInProgress = isInProgress;
+		deltaPageCount = startIndexMatrix.size();
+	}
+
+	/**
+	 * StartIndexList is a read-only view of the start indexes of all pages.
+	 */
+	private class StartIndexList extends AbstractList<int[]> implements RandomAccess
+	{
+		@Override
+		public int[] get(int index)
+		{
+			int[] startIndexes = getStartIndexes(index);
+			if (startIndexes == null) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			return startIndexes;
+		}
+
+		@Override
+		public int size()
+		{
+			return getPageCount();
+		}
 	}
 }
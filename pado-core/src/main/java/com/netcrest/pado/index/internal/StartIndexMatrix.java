@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.index.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * StartIndexMatrix is an append-only matrix of start indexes that holds one
+ * row per page and one column per bucket in a compact byte encoding. Each
+ * start index is encoded as a variable-length difference from the start index
+ * of the same bucket in the previous page. Since start indexes of a bucket
+ * increase page by page by about the page size divided by the number of
+ * buckets, most values take a single byte instead of four. -1, i.e., no
+ * results from the bucket in the page, takes a single byte also.
+ * <p>
+ * Rows are grouped into blocks of {@link #BLOCK_SIZE} rows that are encoded
+ * independently such that a random row is decoded from the beginning of its
+ * block only. This class is thread safe.
+ *
+ * @author dpark
+ *
+ */
+public class StartIndexMatrix
+{
+	/**
+	 * Number of rows in each independently encoded block.
+	 */
+	public static final int BLOCK_SIZE = 16;
+
+	private final int columnCount;
+	private int rowCount;
+
+	private byte[] data;
+	private int length;
+
+	/**
+	 * Offsets of blocks in data
+	 */
+	private int[] blockOffsets;
+
+	/**
+	 * The last start indexes other than -1 in the current block. A column is 0
+	 * if it has no start index in the block yet.
+	 */
+	private final int[] prevRow;
+
+	/**
+	 * Constructs an empty matrix.
+	 *
+	 * @param columnCount
+	 *            Number of columns, i.e., the number of buckets.
+	 */
+	public StartIndexMatrix(int columnCount)
+	{
+		this.columnCount = columnCount;
+		this.data = new byte[Math.max(16, columnCount * 4)];
+		this.blockOffsets = new int[4];
+		this.prevRow = new int[columnCount];
+	}
+
+	/**
+	 * Returns the number of columns.
+	 */
+	public int getColumnCount()
+	{
+		return columnCount;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 */
+	public synchronized int size()
+	{
+		return rowCount;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the encoded rows.
+	 */
+	public synchronized int getEncodedSize()
+	{
+		return length;
+	}
+
+	/**
+	 * Appends the specified start indexes as the last row.
+	 *
+	 * @param startIndexes
+	 *            Start indexes. The array length must be the same as the
+	 *            column count. -1 indicates no start index.
+	 */
+	public synchronized void add(int[] startIndexes)
+	{
+		if (startIndexes.length != columnCount) {
+			throw new IllegalArgumentException("Invalid start indexes length: " + startIndexes.length
+					+ ". Expected: " + columnCount);
+		}
+		if (rowCount % BLOCK_SIZE == 0) {
+			int block = rowCount / BLOCK_SIZE;
+			if (block == blockOffsets.length) {
+				blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+			}
+			blockOffsets[block] = length;
+			Arrays.fill(prevRow, 0);
+		}
+		// Each value takes at most 5 bytes
+		ensureCapacity(length + columnCount * 5);
+		for (int i = 0; i < columnCount; i++) {
+			int startIndex = startIndexes[i];
+			if (startIndex == -1) {
+				data[length++] = 0;
+			} else {
+				int delta = startIndex - prevRow[i];
+				writeUnsignedVarInt(((delta << 1) ^ (delta >> 31)) + 1);
+				prevRow[i] = startIndex;
+			}
+		}
+		rowCount++;
+	}
+
+	/**
+	 * Returns the start indexes of the specified row. It returns null if the
+	 * row index is out of range.
+	 *
+	 * @param rowIndex
+	 *            Row index, i.e., page index.
+	 */
+	public synchronized int[] get(int rowIndex)
+	{
+		if (rowIndex < 0 || rowIndex >= rowCount) {
+			return null;
+		}
+		int row = rowIndex - rowIndex % BLOCK_SIZE;
+		int position = blockOffsets[row / BLOCK_SIZE];
+		int[] prev = new int[columnCount];
+		int[] startIndexes = new int[columnCount];
+		for (; row <= rowIndex; row++) {
+			position = readRow(data, position, prev, startIndexes);
+		}
+		return startIndexes;
+	}
+
+	/**
+	 * Returns the byte offset of the specified row. The row may be equal to
+	 * the row count in which case the end of data is returned.
+	 */
+	private int getOffset(int rowIndex)
+	{
+		if (rowIndex == rowCount) {
+			return length;
+		}
+		int row = rowIndex - rowIndex % BLOCK_SIZE;
+		int position = blockOffsets[row / BLOCK_SIZE];
+		int[] prev = new int[columnCount];
+		int[] startIndexes = new int[columnCount];
+		for (; row < rowIndex; row++) {
+			position = readRow(data, position, prev, startIndexes);
+		}
+		return position;
+	}
+
+	/**
+	 * Decodes the row at the specified position into the specified start
+	 * indexes.
+	 *
+	 * @param prev
+	 *            The last start indexes other than -1 in the same block or 0's
+	 *            if none. Updated with the decoded row.
+	 * @return The position of the next row
+	 */
+	private int readRow(byte[] buffer, int position, int[] prev, int[] startIndexes)
+	{
+		for (int i = 0; i < columnCount; i++) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = buffer[position++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			if (value == 0) {
+				startIndexes[i] = -1;
+			} else {
+				value--;
+				prev[i] += (value >>> 1) ^ -(value & 1);
+				startIndexes[i] = prev[i];
+			}
+		}
+		return position;
+	}
+
+	private void writeUnsignedVarInt(int value)
+	{
+		while ((value & ~0x7f) != 0) {
+			data[length++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		data[length++] = (byte) value;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity > data.length) {
+			data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+		}
+	}
+
+	/**
+	 * Writes the entire matrix to the specified output.
+	 */
+	public synchronized void writeData(DataOutput output) throws IOException
+	{
+		output.writeInt(columnCount);
+		output.writeInt(rowCount);
+		output.writeInt(length);
+		output.write(data, 0, length);
+	}
+
+	/**
+	 * Reads the entire matrix written by {@link #writeData(DataOutput)}.
+	 */
+	public static StartIndexMatrix readData(DataInput input) throws IOException
+	{
+		StartIndexMatrix matrix = new StartIndexMatrix(input.readInt());
+		int rowCount = input.readInt();
+		byte[] buffer = new byte[input.readInt()];
+		input.readFully(buffer);
+		matrix.addRows(buffer, rowCount);
+		return matrix;
+	}
+
+	/**
+	 * Writes the rows starting from the specified row index to the specified
+	 * output. The rows are appended to a matrix with the same rows up to the
+	 * specified row index by {@link #readRows(DataInput)}.
+	 *
+	 * @param output
+	 *            Data output
+	 * @param fromRowIndex
+	 *            Index of the first row to write
+	 */
+	public synchronized void writeRows(DataOutput output, int fromRowIndex) throws IOException
+	{
+		int offset = getOffset(fromRowIndex);
+		output.writeInt(rowCount - fromRowIndex);
+		output.writeInt(length - offset);
+		output.write(data, offset, length - offset);
+	}
+
+	/**
+	 * Appends the rows written by {@link #writeRows(DataOutput, int)}.
+	 */
+	public synchronized void readRows(DataInput input) throws IOException
+	{
+		int count = input.readInt();
+		byte[] buffer = new byte[input.readInt()];
+		input.readFully(buffer);
+		addRows(buffer, count);
+	}
+
+	/**
+	 * Decodes and appends the specified number of encoded rows. The encoding
+	 * is deterministic such that the appended bytes are identical to the
+	 * specified buffer.
+	 */
+	private void addRows(byte[] buffer, int count)
+	{
+		int[] prev = new int[columnCount];
+		int[] startIndexes = new int[columnCount];
+		int position = 0;
+		for (int i = 0; i < count; i++) {
+			if (rowCount % BLOCK_SIZE == 0) {
+				Arrays.fill(prev, 0);
+			} else {
+				System.arraycopy(prevRow, 0, prev, 0, columnCount);
+			}
+			position = readRow(buffer, position, prev, startIndexes);
+			add(startIndexes);
+		}
+	}
+}
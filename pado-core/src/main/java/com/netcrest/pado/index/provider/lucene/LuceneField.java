@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StoredField;
@@ -33,6 +34,19 @@ import com.netcrest.pado.temporal.ITemporalKey;
 
 public class LuceneField
 {
+	/**
+	 * Stored field that holds the serialized temporal key
+	 */
+	public static final String TEMPORAL_KEY_FIELD = "TemporalKey";
+
+	/**
+	 * Binary doc values field that holds the serialized temporal key. Doc
+	 * values are stored per segment in a column separate from the stored
+	 * fields so that the keys of the matching documents can be retrieved
+	 * without loading the documents.
+	 */
+	public static final String TEMPORAL_KEY_DOC_VALUES_FIELD = "__tk";
+
 	public LuceneField()
 	{
 	}
@@ -179,6 +193,21 @@ public class LuceneField
 		return field;
 	}
 
+	/**
+	 * Adds the specified serialized temporal key to the specified document as
+	 * both a stored field and a binary doc values field.
+	 * 
+	 * @param doc
+	 *            Lucene document
+	 * @param blob
+	 *            Serialized temporal key
+	 */
+	public void addTemporalKey(Document doc, byte[] blob)
+	{
+		doc.add(new StoredField(TEMPORAL_KEY_FIELD, blob));
+		doc.add(new BinaryDocValuesField(TEMPORAL_KEY_DOC_VALUES_FIELD, new BytesRef(blob)));
+	}
+
 	public void addField(Document doc, IndexableField field)
 	{
 		doc.add(field);
@@ -190,7 +219,7 @@ public class LuceneField
 		if (doc == null) {
 			return null;
 		}
-		IndexableField field = doc.getField("TemporalKey");
+		IndexableField field = doc.getField(TEMPORAL_KEY_FIELD);
 		if (field == null) {
 			return null;
 		}
@@ -210,4 +239,33 @@ public class LuceneField
 		
 		return temporalKey;
 	}
+
+	/**
+	 * Returns the temporal key deserialized from the specified doc values
+	 * bytes. Returns null if the bytes are empty, i.e., the document has no
+	 * doc values.
+	 * 
+	 * @param br
+	 *            Bytes read from {@link #TEMPORAL_KEY_DOC_VALUES_FIELD}
+	 */
+	@SuppressWarnings("rawtypes")
+	public ITemporalKey getTemporalKey(BytesRef br)
+	{
+		if (br == null || br.length == 0) {
+			return null;
+		}
+		byte[] blob;
+		if (br.offset == 0 && br.length == br.bytes.length) {
+			blob = br.bytes;
+		} else {
+			blob = new byte[br.length];
+			System.arraycopy(br.bytes, br.offset, blob, 0, br.length);
+		}
+		try {
+			return (ITemporalKey) BlobHelper.deserializeBlob(blob);
+		} catch (Exception ex) {
+			Logger.warning("TemporalKey key deserialization error", ex);
+			return null;
+		}
+	}
 }
@@ -15,7 +15,6 @@
  */
 package com.netcrest.pado.index.provider.lucene;
 
-import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -28,16 +27,10 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
-import org.apache.lucene.document.Document;
-import org.apache.lucene.index.CorruptIndexException;
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Version;
 
@@ -50,7 +43,6 @@ import com.netcrest.pado.index.internal.Constants;
 import com.netcrest.pado.index.internal.IndexMatrixUtil;
 import com.netcrest.pado.index.provider.ITextSearchProvider;
 import com.netcrest.pado.index.service.GridQuery;
-import com.netcrest.pado.log.Logger;
 import com.netcrest.pado.pql.PqlParser;
 import com.netcrest.pado.server.PadoServerManager;
 import com.netcrest.pado.temporal.AttachmentSet;
@@ -75,6 +67,17 @@ public class LuceneSearch implements ITextSearchProvider
 	 */
 	private final static Map<String, LuceneSearch> luceneSearchMap = new HashMap<String, LuceneSearch>();
 
+	/**
+	 * Query parser per thread
+	 */
+	private final static ThreadLocal<StandardQueryParser> queryParserThreadLocal = new ThreadLocal<StandardQueryParser>() {
+		@Override
+		protected StandardQueryParser initialValue()
+		{
+			return new StandardQueryParser(new StandardAnalyzer(LUCENE_VERSION));
+		}
+	};
+
 	private static final DateTool.Resolution TIME_RESOLUTION = DateTool.Resolution.DAY;
 
 	public static final String MIN_DATE = "19700101";
@@ -217,121 +220,72 @@ public class LuceneSearch implements ITextSearchProvider
 	 *            Index matrix query criteria
 	 */
 	public Set getIdentityKeySet(String fullPath, String queryString, int limit)
+	{
+		LuceneSearcherManager manager = null;
+		IndexSearcher searcher = null;
+		try {
+			do {
+				manager = getSearcherManager(fullPath);
+				if (manager == null) {
+					return Collections.emptySet();
+				}
+				searcher = manager.acquire();
+			} while (searcher == null);
+			return getIdentityKeySet(queryString, searcher, limit);
+		} catch (IOException e) {
+			throw new IndexMatrixException("Lucene index directory error. [query=" + queryString + ", fullPath="
+					+ fullPath + "] " + e.getMessage(), e);
+		} finally {
+			if (manager != null) {
+				manager.release(searcher);
+			}
+		}
+	}
+
+	/**
+	 * Returns the shared searcher manager of the specified path. The RAM
+	 * directory in the Lucene region takes precedence over the file system
+	 * index.
+	 * 
+	 * @param fullPath
+	 *            Full path
+	 * @return null if the path has no index
+	 */
+	private LuceneSearcherManager getSearcherManager(String fullPath) throws IOException
 	{
 		Cache cache = CacheFactory.getAnyInstance();
 		Region<String, RAMDirectory> region = cache
 				.getRegion(IndexMatrixUtil.getProperty(Constants.PROP_REGION_LUCENE));
-
 		Directory directory = region.get(fullPath);
-		Set identityKeySet;
-		if (directory == null) {
-			File file = new File("lucene" + fullPath);
-			if (file.exists() == false) {
-				return Collections.emptySet();
-			}
-			try {
-				directory = new MMapDirectory(file);
-				identityKeySet = getIdentityKeySet(queryString, directory, limit);
-			} catch (IOException e) {
-				throw new IndexMatrixException("Lucene index directory error. [query=" + queryString + ", fullPath="
-						+ fullPath + "] " + e.getMessage(), e);
-			} finally {
-				if (directory != null) {
-					try {
-						directory.close();
-					} catch (IOException e) {
-						Logger.error(e);
-					}
-				}
-			}
-		} else {
-			identityKeySet = getIdentityKeySet(queryString, directory, limit);
-		}
-		return identityKeySet;
+		return LuceneSearcherManager.getSearcherManager(fullPath, directory);
 	}
 
-	protected Set<Object> getIdentityKeySet(String queryString, Directory dir, int limit)
+	/**
+	 * Returns the query parser of the current thread. StandardQueryParser is
+	 * not thread safe but can be reused by the same thread.
+	 */
+	private static StandardQueryParser getQueryParser()
 	{
-		Set<Object> identityKeySet = new HashSet<Object>();
-		DirectoryReader reader;
-		try {
-			reader = DirectoryReader.open(dir);
-		} catch (CorruptIndexException e1) {
-			e1.printStackTrace();
-			throw new RuntimeException(e1);
-		} catch (IOException e1) {
-			e1.printStackTrace();
-			throw new RuntimeException(e1);
-		}
+		return queryParserThreadLocal.get();
+	}
 
+	protected Set<Object> getIdentityKeySet(String queryString, IndexSearcher searcher, int limit)
+	{
+		Set<Object> identityKeySet = new HashSet<Object>();
 		Query query;
 		try {
-			StandardQueryParser parser = new StandardQueryParser(new StandardAnalyzer(LUCENE_VERSION));
-			query = parser.parse(queryString.replaceAll("\\-", "\\\\-"), "__doc");
+			query = getQueryParser().parse(queryString.replaceAll("\\-", "\\\\-"), "__doc");
 		} catch (Exception ex) {
 			// Lucene bug. Unable to serialize exception. Log the message and
 			// throw a new exception with the string message.
 			ex.printStackTrace();
 			throw new PadoException(ex.getMessage());
 		}
-		IndexSearcher searcher = new IndexSearcher(reader);
-		TopDocs results;
 		try {
-			if (limit < 0) {
-				limit = Integer.MAX_VALUE;
-			}
-			results = searcher.search(query, null, Integer.MAX_VALUE);
-
-			for (ScoreDoc hit : results.scoreDocs) {
-				Document doc;
-				try {
-					doc = searcher.doc(hit.doc);
-				} catch (CorruptIndexException e) {
-					e.printStackTrace();
-					throw new RuntimeException(e);
-				} catch (IOException e) {
-					e.printStackTrace();
-					throw new RuntimeException(e);
-				}
-				// IndexableField field = doc.getField("IdentityKey");
-				// if (field == null) {
-				// continue;
-				// }
-				// Object identityKey = field.stringValue();
-				// if (identityKey == null) {
-				// identityKey = field.numericValue();
-				// }
-				// if (identityKey == null) {
-				// BytesRef br = field.binaryValue();
-				// if (br != null) {
-				// byte[] blob = br.bytes;
-				// try {
-				// identityKey = BlobHelper.deserializeBlob(blob);
-				// identityKeySet.add(identityKey);
-				// } catch (Exception ex) {
-				// Logger.warning("Identity key deserialization error", ex);
-				// }
-				// } else {
-				// identityKey = field.toString();
-				// }
-				// }
-				LuceneField luceneField = new LuceneField();
-				ITemporalKey temporalKey = luceneField.getTemporalKey(doc);
-				if (temporalKey != null) {
-					identityKeySet.add(temporalKey.getIdentityKey());
-				}
-			}
+			new TemporalKeyCollector(identityKeySet, limit, true).search(searcher, query);
 		} catch (IOException e1) {
 			e1.printStackTrace();
 			throw new RuntimeException(e1);
-		} finally {
-			if (reader != null) {
-				try {
-					reader.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
 		}
 		return identityKeySet;
 	}
@@ -358,40 +312,28 @@ public class LuceneSearch implements ITextSearchProvider
 	
 	public Collection<ITemporalKey> getTemporalKeyCollection(String fullPath, String queryString, int limit, boolean isSet)
 	{
-		Cache cache = CacheFactory.getAnyInstance();
-		Region<String, RAMDirectory> region = cache
-				.getRegion(IndexMatrixUtil.getProperty(Constants.PROP_REGION_LUCENE));
-
-		Directory directory = region.get(fullPath);
-		Collection<ITemporalKey> temporalKeySet;
-		if (directory == null) {
-			File file = new File("lucene" + fullPath);
-			if (file.exists() == false) {
-				return Collections.emptySet();
-			}
-			try {
-				directory = new MMapDirectory(file);
-				temporalKeySet = getTemporalKeyCollection(queryString, directory, limit, isSet);
-			} catch (IOException e) {
-				throw new IndexMatrixException("Lucene index directory error. [query=" + queryString + ", fullPath="
-						+ fullPath + "] " + e.getMessage(), e);
-			} finally {
-				if (directory != null) {
-					try {
-						directory.close();
-					} catch (IOException e) {
-						Logger.error(e);
-					}
+		LuceneSearcherManager manager = null;
+		IndexSearcher searcher = null;
+		try {
+			do {
+				manager = getSearcherManager(fullPath);
+				if (manager == null) {
+					return Collections.emptySet();
 				}
+				searcher = manager.acquire();
+			} while (searcher == null);
+			return getTemporalKeyCollection(queryString, searcher, limit, isSet);
+		} catch (IOException e) {
+			throw new IndexMatrixException("Lucene index directory error. [query=" + queryString + ", fullPath="
+					+ fullPath + "] " + e.getMessage(), e);
+		} finally {
+			if (manager != null) {
+				manager.release(searcher);
 			}
-		} else {
-			temporalKeySet = getTemporalKeyCollection(queryString, directory, limit, isSet);
-
 		}
-		return temporalKeySet;
 	}
 	
-	protected Collection<ITemporalKey> getTemporalKeyCollection(String queryString, Directory dir, int limit, boolean isSet)
+	protected Collection<ITemporalKey> getTemporalKeyCollection(String queryString, IndexSearcher searcher, int limit, boolean isSet)
 	{
 		Collection<ITemporalKey> temporalKeyCollection;
 		if (isSet) {
@@ -400,51 +342,17 @@ public class LuceneSearch implements ITextSearchProvider
 			temporalKeyCollection = new ArrayList<ITemporalKey>();
 		}
 		
-		DirectoryReader reader;
-		try {
-			reader = DirectoryReader.open(dir);
-		} catch (CorruptIndexException e1) {
-			e1.printStackTrace();
-			throw new RuntimeException(e1);
-		} catch (IOException e1) {
-			e1.printStackTrace();
-			throw new RuntimeException(e1);
-		}
 		Query query;
 		try {
-			StandardQueryParser parser = new StandardQueryParser(new StandardAnalyzer(LUCENE_VERSION));
-			query = parser.parse(queryString.replaceAll("\\-", "\\\\-"), "__doc");
+			query = getQueryParser().parse(queryString.replaceAll("\\-", "\\\\-"), "__doc");
 		} catch (Exception ex) {
 			// Lucene 4.7 bug, internal message not serializable
 			// Send message instead of nesting the cause.
 			throw new RuntimeException(ex.getMessage());
 		}
 
-		IndexSearcher searcher = new IndexSearcher(reader);
-		TopDocs results;
 		try {
-			if (limit < 0) {
-				limit = Integer.MAX_VALUE;
-			}
-			results = searcher.search(query, null, limit);
-
-			for (ScoreDoc hit : results.scoreDocs) {
-				Document doc;
-				try {
-					doc = searcher.doc(hit.doc);
-				} catch (CorruptIndexException e) {
-					e.printStackTrace();
-					throw new RuntimeException(e);
-				} catch (IOException e) {
-					e.printStackTrace();
-					throw new RuntimeException(e);
-				}
-				LuceneField luceneField = new LuceneField();
-				ITemporalKey temporalKey = luceneField.getTemporalKey(doc);
-				if (temporalKey != null) {
-					temporalKeyCollection.add(temporalKey);
-				}
-			}
+			new TemporalKeyCollector(temporalKeyCollection, limit, false).search(searcher, query);
 		} catch (IOException e1) {
 			e1.printStackTrace();
 			throw new RuntimeException(e1);
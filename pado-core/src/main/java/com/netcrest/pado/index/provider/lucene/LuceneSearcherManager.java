@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.index.provider.lucene;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+
+import com.netcrest.pado.log.Logger;
+
+/**
+ * LuceneSearcherManager keeps the index searcher of a single path open and
+ * shares it among concurrent queries. Searchers are reference counted. Each
+ * {@link #acquire()} must be paired with {@link #release(IndexSearcher)}.
+ * <p>
+ * There are two kinds of managers:
+ * <ul>
+ * <li>Near-real-time managers are registered by the index writer of the path
+ * via {@link #register(String, IndexWriter)}. They are refreshed by the
+ * writer by invoking {@link #refresh()} after each commit.</li>
+ * <li>Directory managers are created on demand for paths without a
+ * registered writer, i.e., RAM directories in the Lucene region or indexes
+ * built in the file system by LuceneBuilder. They are refreshed on acquire if
+ * the directory has a new commit.</li>
+ * </ul>
+ *
+ * @author dpark
+ *
+ */
+public class LuceneSearcherManager
+{
+	/**
+	 * &lt;fullPath, LuceneSearcherManager&gt; map
+	 */
+	private final static ConcurrentHashMap<String, LuceneSearcherManager> managerMap = new ConcurrentHashMap<String, LuceneSearcherManager>();
+
+	private final String fullPath;
+	private final SearcherManager searcherManager;
+
+	/**
+	 * Index writer if near-real-time, null otherwise.
+	 */
+	private final IndexWriter writer;
+
+	/**
+	 * Directory searched by this manager if not near-real-time.
+	 */
+	private final Directory directory;
+
+	/**
+	 * true if the directory is closed by this manager.
+	 */
+	private final boolean isDirectoryOwner;
+
+	private final AtomicLong openCount = new AtomicLong();
+	private final AtomicLong refreshCount = new AtomicLong();
+	private final AtomicLong acquireCount = new AtomicLong();
+
+	private LuceneSearcherManager(String fullPath, IndexWriter writer, Directory directory, boolean isDirectoryOwner)
+			throws IOException
+	{
+		this.fullPath = fullPath;
+		this.writer = writer;
+		this.directory = directory;
+		this.isDirectoryOwner = isDirectoryOwner;
+		SearcherFactory searcherFactory = new SearcherFactory() {
+			@Override
+			public IndexSearcher newSearcher(IndexReader reader) throws IOException
+			{
+				openCount.incrementAndGet();
+				return super.newSearcher(reader);
+			}
+		};
+		if (writer != null) {
+			searcherManager = new SearcherManager(writer, true, searcherFactory);
+		} else {
+			searcherManager = new SearcherManager(directory, searcherFactory);
+		}
+	}
+
+	/**
+	 * Registers a near-real-time searcher manager for the specified index
+	 * writer. The previous manager of the path, if any, is closed.
+	 *
+	 * @param fullPath
+	 *            Full path
+	 * @param writer
+	 *            Index writer of the path
+	 * @return Registered manager
+	 * @throws IOException
+	 *             Thrown if the index reader cannot be opened
+	 */
+	public static LuceneSearcherManager register(String fullPath, IndexWriter writer) throws IOException
+	{
+		LuceneSearcherManager manager = new LuceneSearcherManager(fullPath, writer, null, false);
+		LuceneSearcherManager oldManager = managerMap.put(fullPath, manager);
+		if (oldManager != null) {
+			oldManager.close();
+		}
+		return manager;
+	}
+
+	/**
+	 * Unregisters and closes the near-real-time searcher manager of the
+	 * specified index writer. It has no effect if the path's manager does not
+	 * belong to the writer.
+	 *
+	 * @param fullPath
+	 *            Full path
+	 * @param writer
+	 *            Index writer of the path
+	 */
+	public static void unregister(String fullPath, IndexWriter writer)
+	{
+		LuceneSearcherManager manager = managerMap.get(fullPath);
+		if (manager != null && manager.writer == writer && managerMap.remove(fullPath, manager)) {
+			manager.close();
+		}
+	}
+
+	/**
+	 * Returns the searcher manager of the specified path. The returned manager
+	 * may be closed concurrently, in which case {@link #acquire()} returns null
+	 * and this method should be invoked again.
+	 *
+	 * @param fullPath
+	 *            Full path
+	 * @param ramDirectory
+	 *            RAM directory of the path in the Lucene region. If null, then
+	 *            the near-real-time manager or the file system directory of
+	 *            the path is used.
+	 * @return null if the path has no index
+	 * @throws IOException
+	 *             Thrown if the index reader cannot be opened
+	 */
+	public static LuceneSearcherManager getSearcherManager(String fullPath, Directory ramDirectory)
+			throws IOException
+	{
+		LuceneSearcherManager manager = managerMap.get(fullPath);
+		if (ramDirectory != null) {
+			if (manager != null && manager.directory == ramDirectory) {
+				return manager;
+			}
+		} else if (manager != null && (manager.writer != null || manager.isDirectoryOwner)) {
+			return manager;
+		}
+
+		synchronized (managerMap) {
+			manager = managerMap.get(fullPath);
+			if (ramDirectory != null) {
+				if (manager != null && manager.directory == ramDirectory) {
+					return manager;
+				}
+				manager = new LuceneSearcherManager(fullPath, null, ramDirectory, false);
+			} else {
+				if (manager != null && (manager.writer != null || manager.isDirectoryOwner)) {
+					return manager;
+				}
+				File file = new File("lucene" + fullPath);
+				if (file.exists() == false) {
+					return null;
+				}
+				MMapDirectory directory = new MMapDirectory(file);
+				try {
+					manager = new LuceneSearcherManager(fullPath, null, directory, true);
+				} catch (IOException ex) {
+					directory.close();
+					throw ex;
+				}
+			}
+			LuceneSearcherManager oldManager = managerMap.put(fullPath, manager);
+			if (oldManager != null) {
+				oldManager.close();
+			}
+			return manager;
+		}
+	}
+
+	/**
+	 * Returns the searcher manager of the specified path if it exists. Unlike
+	 * {@link #getSearcherManager(String, Directory)}, it does not create a new
+	 * manager.
+	 *
+	 * @param fullPath
+	 *            Full path
+	 */
+	public static LuceneSearcherManager getExistingSearcherManager(String fullPath)
+	{
+		return managerMap.get(fullPath);
+	}
+
+	/**
+	 * Returns the full path.
+	 */
+	public String getFullPath()
+	{
+		return fullPath;
+	}
+
+	/**
+	 * Returns true if this manager is refreshed near-real-time by the index
+	 * writer.
+	 */
+	public boolean isNearRealTime()
+	{
+		return writer != null;
+	}
+
+	/**
+	 * Acquires the current searcher. Directory managers check for a new commit
+	 * first. The returned searcher must be released by invoking
+	 * {@link #release(IndexSearcher)}.
+	 *
+	 * @return null if this manager has been closed
+	 * @throws IOException
+	 *             Thrown if refreshing fails
+	 */
+	public IndexSearcher acquire() throws IOException
+	{
+		try {
+			if (writer == null) {
+				refreshCount.incrementAndGet();
+				searcherManager.maybeRefresh();
+			}
+			IndexSearcher searcher = searcherManager.acquire();
+			acquireCount.incrementAndGet();
+			return searcher;
+		} catch (AlreadyClosedException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Releases the specified searcher acquired by {@link #acquire()}.
+	 *
+	 * @param searcher
+	 *            Index searcher. If null, this call has no effect.
+	 */
+	public void release(IndexSearcher searcher)
+	{
+		if (searcher == null) {
+			return;
+		}
+		try {
+			searcherManager.release(searcher);
+		} catch (IOException ex) {
+			Logger.warning(fullPath + " - Error releasing Lucene searcher", ex);
+		}
+	}
+
+	/**
+	 * Refreshes the searcher to make the changes made by the index writer
+	 * visible to subsequent queries. Blocks if another thread is refreshing.
+	 */
+	public void refresh()
+	{
+		try {
+			refreshCount.incrementAndGet();
+			searcherManager.maybeRefreshBlocking();
+		} catch (AlreadyClosedException ex) {
+			// ignore
+		} catch (IOException ex) {
+			Logger.warning(fullPath + " - Error refreshing Lucene searcher", ex);
+		}
+	}
+
+	/**
+	 * Closes this manager. The searchers that have already been acquired
+	 * remain usable until released.
+	 */
+	public void close()
+	{
+		try {
+			searcherManager.close();
+			if (isDirectoryOwner) {
+				directory.close();
+			}
+		} catch (IOException ex) {
+			Logger.warning(fullPath + " - Error closing Lucene searcher manager", ex);
+		}
+	}
+
+	/**
+	 * Returns the number of index readers opened, including the initial
+	 * reader and the readers reopened by refreshes.
+	 */
+	public long getOpenCount()
+	{
+		return openCount.get();
+	}
+
+	/**
+	 * Returns the number of refresh attempts.
+	 */
+	public long getRefreshCount()
+	{
+		return refreshCount.get();
+	}
+
+	/**
+	 * Returns the number of searchers acquired by queries.
+	 */
+	public long getAcquireCount()
+	{
+		return acquireCount.get();
+	}
+}
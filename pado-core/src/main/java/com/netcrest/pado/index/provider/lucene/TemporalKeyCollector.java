@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.index.provider.lucene;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.BytesRef;
+
+import com.netcrest.pado.temporal.ITemporalKey;
+
+/**
+ * TemporalKeyCollector collects the temporal keys or identity keys of the
+ * matching documents without scoring or sorting. The keys are read from the
+ * temporal key doc values column of each segment. Documents indexed before
+ * the doc values field was introduced fall back to loading the temporal key
+ * stored field only. The search terminates as soon as the limit is reached.
+ * <p>
+ * The hits are collected in index order. Temporal queries are filters, i.e.,
+ * all matching documents are equally relevant.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TemporalKeyCollector extends Collector
+{
+	private static final Set<String> TEMPORAL_KEY_FIELD_SET = Collections.singleton(LuceneField.TEMPORAL_KEY_FIELD);
+
+	/**
+	 * Thrown to terminate the search once the limit is reached.
+	 */
+	private static final class LimitReachedException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public synchronized Throwable fillInStackTrace()
+		{
+			return this;
+		}
+	}
+
+	private static final LimitReachedException LIMIT_REACHED = new LimitReachedException();
+
+	private final Collection collection;
+	private final int limit;
+	private final boolean isIdentityKey;
+	private final LuceneField luceneField = new LuceneField();
+	private final BytesRef bytesRef = new BytesRef();
+
+	private AtomicReader reader;
+	private BinaryDocValues docValues;
+	private int storedFieldCount;
+
+	/**
+	 * Constructs a collector that adds the keys to the specified collection.
+	 *
+	 * @param collection
+	 *            Collection to which the keys are added. A set collects
+	 *            distinct keys.
+	 * @param limit
+	 *            Max number of keys in the collection. -1 for no limit.
+	 * @param isIdentityKey
+	 *            true to collect identity keys, false to collect temporal
+	 *            keys.
+	 */
+	public TemporalKeyCollector(Collection collection, int limit, boolean isIdentityKey)
+	{
+		this.collection = collection;
+		this.limit = limit < 0 ? Integer.MAX_VALUE : limit;
+		this.isIdentityKey = isIdentityKey;
+	}
+
+	/**
+	 * Searches the specified query and collects the keys of the matching
+	 * documents until the limit is reached.
+	 *
+	 * @param searcher
+	 *            Index searcher
+	 * @param query
+	 *            Query
+	 * @return Collection of keys passed in to the constructor
+	 * @throws IOException
+	 *             Thrown if the index cannot be read
+	 */
+	public Collection search(IndexSearcher searcher, Query query) throws IOException
+	{
+		if (collection.size() >= limit) {
+			return collection;
+		}
+		try {
+			searcher.search(query, this);
+		} catch (LimitReachedException ex) {
+			// Done
+		}
+		return collection;
+	}
+
+	/**
+	 * Returns the number of documents whose temporal keys were loaded from the
+	 * stored field due to missing doc values.
+	 */
+	public int getStoredFieldCount()
+	{
+		return storedFieldCount;
+	}
+
+	@Override
+	public void setScorer(Scorer scorer) throws IOException
+	{
+		// Scores are not used
+	}
+
+	@Override
+	public void collect(int doc) throws IOException
+	{
+		ITemporalKey temporalKey = null;
+		if (docValues != null) {
+			docValues.get(doc, bytesRef);
+			temporalKey = luceneField.getTemporalKey(bytesRef);
+		}
+		if (temporalKey == null) {
+			Document document = reader.document(doc, TEMPORAL_KEY_FIELD_SET);
+			temporalKey = luceneField.getTemporalKey(document);
+			storedFieldCount++;
+		}
+		if (temporalKey != null) {
+			if (isIdentityKey) {
+				collection.add(temporalKey.getIdentityKey());
+			} else {
+				collection.add(temporalKey);
+			}
+			if (collection.size() >= limit) {
+				throw LIMIT_REACHED;
+			}
+		}
+	}
+
+	@Override
+	public void setNextReader(AtomicReaderContext context) throws IOException
+	{
+		reader = context.reader();
+		docValues = reader.getBinaryDocValues(LuceneField.TEMPORAL_KEY_DOC_VALUES_FIELD);
+	}
+
+	@Override
+	public boolean acceptsDocsOutOfOrder()
+	{
+		return true;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.internal.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * InstanceFactory creates instances of the class with the specified name
+ * loaded by the current thread's context class loader. The class and its
+ * default constructor are looked up once per context class loader and reused
+ * by subsequent calls made with the same class loader. This class is thread
+ * safe.
+ *
+ * @author dpark
+ *
+ * @param <T>
+ *            Instance type
+ */
+public class InstanceFactory<T>
+{
+	private final String className;
+
+	/**
+	 * The class loader and constructor of the last lookup, replaced together
+	 */
+	private volatile Entry<T> entry;
+
+	private static class Entry<T>
+	{
+		final ClassLoader classLoader;
+		final Constructor<T> constructor;
+
+		Entry(ClassLoader classLoader, Constructor<T> constructor)
+		{
+			this.classLoader = classLoader;
+			this.constructor = constructor;
+		}
+	}
+
+	/**
+	 * Constructs an InstanceFactory for the specified class name.
+	 *
+	 * @param className
+	 *            Fully qualified name of the class with the default
+	 *            constructor.
+	 */
+	public InstanceFactory(String className)
+	{
+		this.className = className;
+	}
+
+	/**
+	 * Returns the class name.
+	 */
+	public String getClassName()
+	{
+		return className;
+	}
+
+	/**
+	 * Returns a new instance of the class loaded by the current thread's
+	 * context class loader.
+	 *
+	 * @throws ClassNotFoundException
+	 *             Thrown if the class is not found
+	 * @throws InstantiationException
+	 *             Thrown if the class is abstract or the constructor fails
+	 * @throws IllegalAccessException
+	 *             Thrown if the default constructor is not accessible
+	 */
+	@SuppressWarnings("unchecked")
+	public T newInstance() throws ClassNotFoundException, InstantiationException, IllegalAccessException
+	{
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		Entry<T> entry = this.entry;
+		if (entry == null || entry.classLoader != classLoader) {
+			Class<T> clazz = (Class<T>) classLoader.loadClass(className);
+			Constructor<T> constructor;
+			try {
+				constructor = clazz.getConstructor();
+			} catch (NoSuchMethodException ex) {
+				throw new InstantiationException(className + ": " + ex.getMessage());
+			}
+			entry = new Entry<T>(classLoader, constructor);
+			this.entry = entry;
+		}
+		try {
+			return entry.constructor.newInstance();
+		} catch (InvocationTargetException ex) {
+			InstantiationException ie = new InstantiationException(className + ": " + ex.getCause());
+			ie.initCause(ex.getCause());
+			throw ie;
+		}
+	}
+}
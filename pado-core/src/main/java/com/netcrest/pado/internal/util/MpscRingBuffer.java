@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.internal.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MpscRingBuffer is a bounded lock-free ring buffer for multiple producers and
+ * a single consumer. Producers claim slots by advancing the tail sequence and
+ * publish each slot by setting its sequence number. The consumer drains the
+ * published slots in order into the caller's array. Unlike
+ * ConcurrentLinkedQueue, {@link #size()} is O(1) and the buffer does not
+ * allocate per element.
+ * <p>
+ * Only one thread at a time may invoke the consumer methods
+ * {@link #drainTo(Object[], int, int)} and {@link #clear()}.
+ *
+ * @author dpark
+ *
+ */
+public class MpscRingBuffer
+{
+	private final Object[] buffer;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final int capacity;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	/**
+	 * Constructs a ring buffer with the specified capacity rounded up to the
+	 * next power of 2.
+	 *
+	 * @param capacity
+	 *            Minimum capacity. Must be greater than 0.
+	 */
+	public MpscRingBuffer(int capacity)
+	{
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.capacity = size;
+		this.mask = size - 1;
+		this.buffer = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Returns the capacity of this buffer.
+	 */
+	public int capacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of elements in this buffer. The returned value is
+	 * approximate while producers and the consumer are active.
+	 */
+	public int size()
+	{
+		long size = tail.get() - head;
+		if (size < 0) {
+			return 0;
+		}
+		return size > capacity ? capacity : (int) size;
+	}
+
+	/**
+	 * Returns true if this buffer has no elements.
+	 */
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	/**
+	 * Inserts the specified element if space is available.
+	 *
+	 * @param element
+	 *            Non-null element
+	 * @return false if the buffer is full
+	 */
+	public boolean offer(Object element)
+	{
+		if (element == null) {
+			throw new NullPointerException("null element not allowed");
+		}
+		long pos;
+		int index;
+		while (true) {
+			pos = tail.get();
+			index = (int) (pos & mask);
+			long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+			} else if (diff < 0) {
+				// The slot has not been consumed yet
+				return false;
+			}
+			// Another producer claimed the slot. Retry.
+		}
+		buffer[index] = element;
+		sequences.lazySet(index, pos + 1);
+		return true;
+	}
+
+	/**
+	 * Removes published elements in order and places them in the specified
+	 * array starting at the specified offset. Consumer only.
+	 *
+	 * @param array
+	 *            Array into which the elements are placed
+	 * @param offset
+	 *            Start index of the array
+	 * @param maxCount
+	 *            Max number of elements to drain
+	 * @return Number of elements drained
+	 */
+	public int drainTo(Object[] array, int offset, int maxCount)
+	{
+		long h = head;
+		int count = 0;
+		while (count < maxCount) {
+			int index = (int) (h & mask);
+			if (sequences.get(index) != h + 1) {
+				// Not yet published or empty
+				break;
+			}
+			array[offset + count] = buffer[index];
+			buffer[index] = null;
+			sequences.lazySet(index, h + capacity);
+			h++;
+			count++;
+		}
+		head = h;
+		return count;
+	}
+
+	/**
+	 * Removes all published elements. Consumer only.
+	 *
+	 * @return Number of elements removed
+	 */
+	public int clear()
+	{
+		long h = head;
+		int count = 0;
+		while (true) {
+			int index = (int) (h & mask);
+			if (sequences.get(index) != h + 1) {
+				break;
+			}
+			buffer[index] = null;
+			sequences.lazySet(index, h + capacity);
+			h++;
+			count++;
+		}
+		head = h;
+		return count;
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.internal.util;
+
+/**
+ * PartitionedQueueDispatcher dispatches the events of a single tag using one
+ * or more worker partitions. Each partition is served by its own
+ * {@link QueueDispatcherMultiplexer} thread and has its own listener. Events
+ * are assigned to partitions by hashing their partition keys such that all
+ * events with the same partition key are dispatched in order by the same
+ * partition. Events with different partition keys may be dispatched
+ * concurrently.
+ * <p>
+ * PartitionedQueueDispatcher is created by
+ * {@link QueueDispatcherMultiplexerPool#addPartitionedQueueDispatcherListener(String, QueueDispatcherListener[])}.
+ *
+ * @author dpark
+ *
+ */
+public class PartitionedQueueDispatcher
+{
+	private final String tag;
+	private final String[] partitionTags;
+	private final QueueDispatcherMultiplexer[] multiplexers;
+
+	PartitionedQueueDispatcher(String tag, String[] partitionTags, QueueDispatcherMultiplexer[] multiplexers)
+	{
+		this.tag = tag;
+		this.partitionTags = partitionTags;
+		this.multiplexers = multiplexers;
+	}
+
+	/**
+	 * Returns the tag of this dispatcher.
+	 */
+	public String getTag()
+	{
+		return tag;
+	}
+
+	/**
+	 * Returns the number of partitions.
+	 */
+	public int getPartitionCount()
+	{
+		return partitionTags.length;
+	}
+
+	/**
+	 * Returns the tag that identifies the specified partition in its
+	 * multiplexer.
+	 *
+	 * @param partition
+	 *            Partition index
+	 */
+	public String getPartitionTag(int partition)
+	{
+		return partitionTags[partition];
+	}
+
+	/**
+	 * Returns the multiplexer that serves the specified partition.
+	 *
+	 * @param partition
+	 *            Partition index
+	 */
+	public QueueDispatcherMultiplexer getMultiplexer(int partition)
+	{
+		return multiplexers[partition];
+	}
+
+	/**
+	 * Returns the partition index of the specified partition key.
+	 *
+	 * @param partitionKey
+	 *            Partition key. If null, then 0 is returned.
+	 */
+	public int getPartition(Object partitionKey)
+	{
+		if (partitionKey == null || partitionTags.length == 1) {
+			return 0;
+		}
+		int h = partitionKey.hashCode();
+		h ^= (h >>> 16);
+		return (h & 0x7fffffff) % partitionTags.length;
+	}
+
+	/**
+	 * Enqueues the specified event to the partition of the specified partition
+	 * key.
+	 *
+	 * @param partitionKey
+	 *            Partition key, e.g., identity key
+	 * @param event
+	 *            Event
+	 */
+	public void enqueue(Object partitionKey, Object event)
+	{
+		int partition = getPartition(partitionKey);
+		multiplexers[partition].enqueue(partitionTags[partition], event);
+	}
+
+	/**
+	 * Sets the batch size of all multiplexers serving this dispatcher.
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		for (QueueDispatcherMultiplexer multiplexer : multiplexers) {
+			multiplexer.setBatchSize(batchSize);
+		}
+	}
+
+	/**
+	 * Sets the time interval of all multiplexers serving this dispatcher.
+	 */
+	public void setTimeInterval(long timeIntervalInMsec)
+	{
+		for (QueueDispatcherMultiplexer multiplexer : multiplexers) {
+			multiplexer.setTimeInterval(timeIntervalInMsec);
+		}
+	}
+
+	public void pause()
+	{
+		for (int i = 0; i < multiplexers.length; i++) {
+			multiplexers[i].pause(partitionTags[i]);
+		}
+	}
+
+	public void resume()
+	{
+		for (int i = 0; i < multiplexers.length; i++) {
+			multiplexers[i].resume(partitionTags[i]);
+		}
+	}
+
+	public boolean isPaused()
+	{
+		return multiplexers[0].isPaused(partitionTags[0]);
+	}
+
+	/**
+	 * Dispatches all pending events of all partitions.
+	 */
+	public void flush()
+	{
+		for (int i = 0; i < multiplexers.length; i++) {
+			multiplexers[i].flush(partitionTags[i]);
+		}
+	}
+
+	/**
+	 * Discards all pending events of all partitions.
+	 */
+	public void clear()
+	{
+		for (int i = 0; i < multiplexers.length; i++) {
+			multiplexers[i].clear(partitionTags[i]);
+		}
+	}
+
+	/**
+	 * Returns the number of events waiting to be dispatched by the specified
+	 * partition.
+	 *
+	 * @param partition
+	 *            Partition index
+	 */
+	public int getBacklog(int partition)
+	{
+		return multiplexers[partition].getBacklog(partitionTags[partition]);
+	}
+
+	/**
+	 * Returns the total number of events waiting to be dispatched.
+	 */
+	public int getBacklog()
+	{
+		int backlog = 0;
+		for (int i = 0; i < multiplexers.length; i++) {
+			backlog += getBacklog(i);
+		}
+		return backlog;
+	}
+
+	/**
+	 * Returns the approximate time in msec that the oldest pending event of the
+	 * specified partition has been waiting.
+	 *
+	 * @param partition
+	 *            Partition index
+	 */
+	public long getLag(int partition)
+	{
+		return multiplexers[partition].getLag(partitionTags[partition]);
+	}
+
+	/**
+	 * Returns the approximate time in msec that the oldest event of the last
+	 * batch dispatched by the specified partition waited.
+	 *
+	 * @param partition
+	 *            Partition index
+	 */
+	public long getLastDispatchLag(int partition)
+	{
+		return multiplexers[partition].getLastDispatchLag(partitionTags[partition]);
+	}
+
+	/**
+	 * Returns the number of events dropped by the specified partition.
+	 *
+	 * @param partition
+	 *            Partition index
+	 */
+	public long getDroppedCount(int partition)
+	{
+		return multiplexers[partition].getDroppedCount(partitionTags[partition]);
+	}
+}
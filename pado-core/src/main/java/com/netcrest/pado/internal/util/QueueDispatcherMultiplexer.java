@@ -1,6 +1,6 @@
 /*
  * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
@@ -15,23 +15,87 @@
  */
 package com.netcrest.pado.internal.util;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.log.Logger;
 
+/**
+ * QueueDispatcherMultiplexer consumes the events of one or more tags in a
+ * single thread and dispatches them in batches to the tags' listeners. Each
+ * tag has its own buffer which is one of the following {@link DispatchMode}s.
+ * <ul>
+ * <li>{@link DispatchMode#QUEUE} - Unbounded ConcurrentLinkedQueue. Default.</li>
+ * <li>{@link DispatchMode#RING} - Bounded {@link MpscRingBuffer}. Batches are
+ * drained into a reusable array and the {@link Backpressure} policy is applied
+ * when the buffer is full. The list passed to
+ * {@link QueueDispatcherListener#objectDispatched(Object)} is reused and
+ * therefore must not be retained by the listener.</li>
+ * </ul>
+ * The mode is configured per tag by the properties
+ * {@link Constants#PROP_DISPATCHER_MODE},
+ * {@link Constants#PROP_DISPATCHER_RING_CAPACITY}, and
+ * {@link Constants#PROP_DISPATCHER_RING_BACKPRESSURE}. The tag (path) can be
+ * appended to each property name to override it per tag.
+ *
+ * @author dpark
+ *
+ */
 public class QueueDispatcherMultiplexer extends Thread
-{	
+{
+	/**
+	 * Event buffer types
+	 */
+	public enum DispatchMode
+	{
+		QUEUE, RING
+	}
+
+	/**
+	 * Policies applied when a ring buffer is full.
+	 */
+	public enum Backpressure
+	{
+		/**
+		 * Blocks the producer until space is available. Events are spilled
+		 * instead while the tag is paused to avoid blocking the producers for
+		 * the entire pause period.
+		 */
+		BLOCK,
+		/**
+		 * Drops the event and increments the dropped count.
+		 */
+		DROP,
+		/**
+		 * Spills the event to an unbounded overflow queue which is drained
+		 * after the ring buffer. Events are spilled till the overflow queue is
+		 * empty to preserve the order.
+		 */
+		SPILL
+	}
+
+	/**
+	 * Default ring buffer capacity
+	 */
+	public static final int DEFAULT_RING_CAPACITY = 65536;
+
 	private Map<Object, TemporalThreadState> stateMap = new ConcurrentHashMap<Object, TemporalThreadState>();
 	private int batchSize = 500;
 	private long timeIntervalInMsec = 500;
 	private boolean shouldRun = true;
 	private boolean terminated = false;
-	
+
 	private Object lock = new Object();
 
 	public QueueDispatcherMultiplexer(ThreadGroup group, String name)
@@ -39,43 +103,116 @@ public class QueueDispatcherMultiplexer extends Thread
 		super(group, name);
 		setDaemon(true);
 	}
-	
-	public void setBatchSize(int batchSize)  
+
+	public void setBatchSize(int batchSize)
 	{
 		this.batchSize = batchSize;
 	}
-	
+
 	public int getBatchSize()
 	{
 		return this.batchSize;
 	}
-	
+
 	public void setTimeInterval(long timeIntervalInMsec)
 	{
 		this.timeIntervalInMsec = timeIntervalInMsec;
 	}
-	
+
 	public long getTimeInterval()
 	{
 		return this.timeIntervalInMsec;
 	}
-	
+
 	public int getQueueSize()
 	{
 		return stateMap.size();
 	}
-	
+
+	private static String getTagProperty(String prop, Object tag, String defaultValue)
+	{
+		if (tag instanceof String) {
+			return PadoUtil.getPathProperty(prop, (String) tag, defaultValue);
+		} else {
+			return PadoUtil.getProperty(prop, defaultValue);
+		}
+	}
+
+	/**
+	 * Adds the specified listener for the specified tag. The dispatch mode is
+	 * determined by the dispatcher properties.
+	 *
+	 * @param tag
+	 *            Unique tag representing the specified listener
+	 * @param listener
+	 *            Queue dispatcher listener
+	 */
 	public void addQueueDispatcherListener(Object tag, QueueDispatcherListener listener)
+	{
+		addQueueDispatcherListener(tag, tag, listener);
+	}
+
+	/**
+	 * Adds the specified listener for the specified tag. The dispatch mode is
+	 * determined by the dispatcher properties of the specified property tag.
+	 *
+	 * @param tag
+	 *            Unique tag representing the specified listener
+	 * @param propertyTag
+	 *            Tag (path) used to look up the dispatcher properties
+	 * @param listener
+	 *            Queue dispatcher listener
+	 */
+	void addQueueDispatcherListener(Object tag, Object propertyTag, QueueDispatcherListener listener)
+	{
+		DispatchMode mode = DispatchMode.QUEUE;
+		int ringCapacity = DEFAULT_RING_CAPACITY;
+		Backpressure backpressure = Backpressure.SPILL;
+		try {
+			mode = DispatchMode.valueOf(getTagProperty(Constants.PROP_DISPATCHER_MODE, propertyTag, mode.name())
+					.toUpperCase());
+			ringCapacity = Integer.parseInt(getTagProperty(Constants.PROP_DISPATCHER_RING_CAPACITY, propertyTag,
+					Integer.toString(ringCapacity)));
+			backpressure = Backpressure.valueOf(getTagProperty(Constants.PROP_DISPATCHER_RING_BACKPRESSURE,
+					propertyTag, backpressure.name()).toUpperCase());
+		} catch (IllegalArgumentException ex) {
+			Logger.warning("Invalid dispatcher property for " + tag + ". Using mode=" + mode + ", capacity="
+					+ ringCapacity + ", backpressure=" + backpressure, ex);
+		}
+		addQueueDispatcherListener(tag, listener, mode, ringCapacity, backpressure);
+	}
+
+	/**
+	 * Adds the specified listener for the specified tag with the specified
+	 * dispatch mode.
+	 *
+	 * @param tag
+	 *            Unique tag representing the specified listener
+	 * @param listener
+	 *            Queue dispatcher listener
+	 * @param mode
+	 *            Dispatch mode
+	 * @param ringCapacity
+	 *            Ring buffer capacity. Ignored if the mode is not RING.
+	 * @param backpressure
+	 *            Ring buffer backpressure policy. Ignored if the mode is not
+	 *            RING.
+	 */
+	public void addQueueDispatcherListener(Object tag, QueueDispatcherListener listener, DispatchMode mode,
+			int ringCapacity, Backpressure backpressure)
 	{
 		TemporalThreadState state = stateMap.get(tag);
 		if (state == null) {
-			state = new TemporalThreadState();
-			state.batch = new ConcurrentLinkedQueue<Object>();
+			if (mode == DispatchMode.RING) {
+				state = new RingThreadState(tag, ringCapacity, backpressure);
+			} else {
+				state = new QueueThreadState();
+			}
 			state.listener = listener;
 			stateMap.put(tag, state);
 		}
 	}
-	
+
 	public QueueDispatcherListener removeQueueDispatcherListener(Object tag)
 	{
 		TemporalThreadState state = stateMap.remove(tag);
@@ -88,22 +225,33 @@ public class QueueDispatcherMultiplexer extends Thread
 		if (state == null) {
 			return;
 		}
-		state.batch.add(event);
-		if (state.paused == false && state.batch.size() >= batchSize) {
-			synchronized (lock) {
-				lock.notify();
-			}
+		state.add(event);
+		if (state.pendingSinceTime.get() == 0) {
+			state.pendingSinceTime.compareAndSet(0, System.currentTimeMillis());
+		}
+		if (state.paused == false && state.size() >= batchSize) {
+			wakeup();
+		}
+	}
+
+	private void wakeup()
+	{
+		synchronized (lock) {
+			lock.notify();
 		}
 	}
-	
+
 	public void clear(Object tag)
 	{
 		TemporalThreadState state = stateMap.get(tag);
 		if (state != null) {
-			state.batch.clear();
+			synchronized (state) {
+				state.clear();
+				state.pendingSinceTime.set(0);
+			}
 		}
 	}
-	
+
 	public void pause(Object tag)
 	{
 		TemporalThreadState state = stateMap.get(tag);
@@ -111,7 +259,7 @@ public class QueueDispatcherMultiplexer extends Thread
 			state.paused = true;
 		}
 	}
-	
+
 	public boolean isPaused(Object tag)
 	{
 		TemporalThreadState state = stateMap.get(tag);
@@ -121,7 +269,7 @@ public class QueueDispatcherMultiplexer extends Thread
 			return state.paused;
 		}
 	}
-	
+
 	public void resume(Object tag)
 	{
 		TemporalThreadState state = stateMap.get(tag);
@@ -129,72 +277,417 @@ public class QueueDispatcherMultiplexer extends Thread
 			state.paused = false;
 		}
 	}
-	
+
+	/**
+	 * Returns the number of events waiting to be dispatched for the specified
+	 * tag. This call is O(1).
+	 *
+	 * @param tag
+	 *            Unique tag representing the listener
+	 */
+	public int getBacklog(Object tag)
+	{
+		TemporalThreadState state = stateMap.get(tag);
+		return state == null ? 0 : state.size();
+	}
+
+	/**
+	 * Returns the approximate time in msec that the oldest pending event of the
+	 * specified tag has been waiting to be dispatched. Returns 0 if there are
+	 * no pending events.
+	 *
+	 * @param tag
+	 *            Unique tag representing the listener
+	 */
+	public long getLag(Object tag)
+	{
+		TemporalThreadState state = stateMap.get(tag);
+		if (state == null) {
+			return 0;
+		}
+		long since = state.pendingSinceTime.get();
+		return since == 0 ? 0 : Math.max(0, System.currentTimeMillis() - since);
+	}
+
+	/**
+	 * Returns the approximate time in msec that the oldest event of the last
+	 * dispatched batch of the specified tag waited to be dispatched.
+	 *
+	 * @param tag
+	 *            Unique tag representing the listener
+	 */
+	public long getLastDispatchLag(Object tag)
+	{
+		TemporalThreadState state = stateMap.get(tag);
+		return state == null ? 0 : state.lastDispatchLag;
+	}
+
+	/**
+	 * Returns the number of events dropped for the specified tag due to the
+	 * {@link Backpressure#DROP} policy.
+	 *
+	 * @param tag
+	 *            Unique tag representing the listener
+	 */
+	public long getDroppedCount(Object tag)
+	{
+		TemporalThreadState state = stateMap.get(tag);
+		if (state instanceof RingThreadState) {
+			return ((RingThreadState) state).droppedCount.get();
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of events currently spilled to the overflow queue of
+	 * the specified tag.
+	 *
+	 * @param tag
+	 *            Unique tag representing the listener
+	 */
+	public int getSpillCount(Object tag)
+	{
+		TemporalThreadState state = stateMap.get(tag);
+		if (state instanceof RingThreadState) {
+			return ((RingThreadState) state).spillCount.get();
+		}
+		return 0;
+	}
+
+	/**
+	 * Drains the specified state and dispatches the batches to its listener.
+	 *
+	 * @param state
+	 *            Tag state
+	 * @param ignorePaused
+	 *            true to dispatch even if the state is paused
+	 */
+	private void dispatch(TemporalThreadState state, boolean ignorePaused)
+	{
+		synchronized (state) {
+			while (ignorePaused || state.paused == false) {
+				List<Object> batch = state.drain();
+				if (batch == null) {
+					break;
+				}
+				updateLag(state);
+				int count = batch.size();
+				try {
+					state.listener.objectDispatched(batch);
+				} finally {
+					state.release(batch);
+				}
+				if (count < state.getMaxBatchSize()) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the lag of the batch just drained and restarts the lag clock for
+	 * the events left behind. The producers set the clock only if it is not
+	 * running, so the lag is approximate.
+	 */
+	private void updateLag(TemporalThreadState state)
+	{
+		long now = System.currentTimeMillis();
+		long since = state.pendingSinceTime.get();
+		state.lastDispatchLag = since == 0 ? 0 : Math.max(0, now - since);
+		state.pendingSinceTime.compareAndSet(since, state.size() > 0 ? now : 0);
+	}
+
 	private void dispatch()
 	{
 		Set<Map.Entry<Object, TemporalThreadState>> set = stateMap.entrySet();
 		for (Map.Entry<Object, TemporalThreadState> entry : set) {
 			TemporalThreadState state = entry.getValue();
-			int count = state.batch.size();
-			if (state.paused || count == 0) {
+			if (state.paused || state.size() == 0) {
 				continue;
 			}
-			List<Object> batch = new ArrayList<Object>(count);
-			Iterator<Object> iterator = state.batch.iterator();
-			int i = 1;
-			while (i <= count && iterator.hasNext()) {
-				batch.add(iterator.next());
-				iterator.remove();
-				i++;
-			}
-			state.listener.objectDispatched(batch);	
+			dispatch(state, false);
 		}
 	}
-	
+
 	public void flush(Object tag)
 	{
 		TemporalThreadState state = stateMap.get(tag);
 		if (state != null) {
-			int count = state.batch.size();
-			if (count > 0) {
-				List<Object> batch = new ArrayList<Object>(count);
-				Iterator<Object> iterator = state.batch.iterator();
-				int i = 1;
-				while (i <= count && iterator.hasNext()) {
-					batch.add(iterator.next());
-					iterator.remove();
-					i++;
-				}
-				state.listener.objectDispatched(batch);
-			}
+			dispatch(state, true);
 		}
 	}
-	
+
 	public boolean isTerminated()
 	{
 		return terminated;
 	}
-	
+
 	public void run()
 	{
 		while (shouldRun) {
+			// Dispatch outside of the lock so that enqueue() does not block
+			// while the listeners are busy.
 			synchronized (lock) {
 				try {
 					lock.wait(timeIntervalInMsec);
-					dispatch();
 				} catch (InterruptedException e) {
 					// ignore
 				}
 			}
+			dispatch();
 		}
 		dispatch();
 		terminated = true;
 	}
-	
-	class TemporalThreadState
+
+	/**
+	 * Per tag state. The consumer methods, i.e., drain(), release(), and
+	 * clear(), must be invoked while holding the state lock.
+	 */
+	abstract class TemporalThreadState
 	{
-		ConcurrentLinkedQueue<Object> batch;
 		QueueDispatcherListener listener;
-		boolean paused;
+		volatile boolean paused;
+		final AtomicLong pendingSinceTime = new AtomicLong();
+		volatile long lastDispatchLag;
+
+		abstract void add(Object event);
+
+		abstract int size();
+
+		/**
+		 * Returns the max number of events returned by {@link #drain()}.
+		 */
+		abstract int getMaxBatchSize();
+
+		/**
+		 * Removes and returns the next batch of events. Returns null if empty.
+		 */
+		abstract List<Object> drain();
+
+		/**
+		 * Releases the specified batch returned by {@link #drain()} after it
+		 * has been dispatched.
+		 */
+		void release(List<Object> batch)
+		{
+		}
+
+		abstract void clear();
+	}
+
+	/**
+	 * ConcurrentLinkedQueue state. The size is tracked separately as
+	 * ConcurrentLinkedQueue.size() is O(n).
+	 */
+	class QueueThreadState extends TemporalThreadState
+	{
+		final ConcurrentLinkedQueue<Object> batch = new ConcurrentLinkedQueue<Object>();
+		final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		void add(Object event)
+		{
+			batch.add(event);
+			count.incrementAndGet();
+		}
+
+		@Override
+		int size()
+		{
+			return count.get();
+		}
+
+		@Override
+		int getMaxBatchSize()
+		{
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		List<Object> drain()
+		{
+			int n = count.get();
+			if (n <= 0) {
+				return null;
+			}
+			List<Object> list = new ArrayList<Object>(n);
+			Object event;
+			while (list.size() < n && (event = batch.poll()) != null) {
+				list.add(event);
+			}
+			count.addAndGet(-list.size());
+			return list.size() == 0 ? null : list;
+		}
+
+		@Override
+		void clear()
+		{
+			int n = 0;
+			while (batch.poll() != null) {
+				n++;
+			}
+			count.addAndGet(-n);
+		}
+	}
+
+	/**
+	 * MpscRingBuffer state.
+	 */
+	class RingThreadState extends TemporalThreadState
+	{
+		final Object tag;
+		final MpscRingBuffer ring;
+		final Backpressure backpressure;
+		final ConcurrentLinkedQueue<Object> spill = new ConcurrentLinkedQueue<Object>();
+		final AtomicInteger spillCount = new AtomicInteger();
+		final AtomicLong droppedCount = new AtomicLong();
+		final BatchList batchList = new BatchList();
+		Object[] drainArray;
+
+		RingThreadState(Object tag, int capacity, Backpressure backpressure)
+		{
+			this.tag = tag;
+			this.ring = new MpscRingBuffer(capacity);
+			this.backpressure = backpressure;
+			this.drainArray = new Object[Math.min(ring.capacity(), Math.max(16, batchSize))];
+		}
+
+		@Override
+		void add(Object event)
+		{
+			// Keep spilling while spilled events remain to preserve the order
+			if (spillCount.get() > 0) {
+				spill(event);
+				return;
+			}
+			if (ring.offer(event)) {
+				return;
+			}
+			switch (backpressure) {
+			case DROP:
+				long dropped = droppedCount.incrementAndGet();
+				if (dropped == 1 || dropped % 100000 == 0) {
+					Logger.warning(tag + " - Dispatcher ring buffer full. Events dropped: " + dropped);
+				}
+				break;
+			case BLOCK:
+				while (ring.offer(event) == false) {
+					if (paused || shouldRun == false) {
+						spill(event);
+						break;
+					}
+					wakeup();
+					LockSupport.parkNanos(100000);
+				}
+				break;
+			case SPILL:
+			default:
+				spill(event);
+				break;
+			}
+		}
+
+		private void spill(Object event)
+		{
+			// Increment first so that the consumer does not see an empty
+			// spill queue with spilled events in flight
+			spillCount.incrementAndGet();
+			spill.offer(event);
+		}
+
+		@Override
+		int size()
+		{
+			return ring.size() + spillCount.get();
+		}
+
+		@Override
+		int getMaxBatchSize()
+		{
+			return ring.capacity();
+		}
+
+		@Override
+		List<Object> drain()
+		{
+			int available = size();
+			if (available == 0) {
+				return null;
+			}
+			int max = Math.min(available, ring.capacity());
+			if (drainArray.length < max) {
+				int length = drainArray.length;
+				while (length < max) {
+					length <<= 1;
+				}
+				drainArray = new Object[Math.min(length, ring.capacity())];
+			}
+
+			// Drain the ring buffer first. Spilled events are newer.
+			int n = ring.drainTo(drainArray, 0, max);
+			while (n < max && spillCount.get() > 0) {
+				Object event = spill.poll();
+				if (event == null) {
+					break;
+				}
+				drainArray[n++] = event;
+				spillCount.decrementAndGet();
+			}
+			if (n == 0) {
+				return null;
+			}
+			batchList.reset(drainArray, n);
+			return batchList;
+		}
+
+		@Override
+		void release(List<Object> batch)
+		{
+			// Let go of the dispatched events
+			Arrays.fill(drainArray, 0, batchList.size(), null);
+			batchList.reset(null, 0);
+		}
+
+		@Override
+		void clear()
+		{
+			ring.clear();
+			int n = 0;
+			while (spill.poll() != null) {
+				n++;
+			}
+			spillCount.addAndGet(-n);
+		}
+	}
+
+	/**
+	 * Reusable list view of the drain array.
+	 */
+	static class BatchList extends AbstractList<Object> implements RandomAccess
+	{
+		private Object[] array;
+		private int size;
+
+		void reset(Object[] array, int size)
+		{
+			this.array = array;
+			this.size = size;
+		}
+
+		@Override
+		public Object get(int index)
+		{
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+			}
+			return array[index];
+		}
+
+		@Override
+		public int size()
+		{
+			return size;
+		}
 	}
 }
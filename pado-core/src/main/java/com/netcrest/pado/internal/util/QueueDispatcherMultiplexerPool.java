@@ -27,6 +27,11 @@ import java.util.Map;
  * to consume and dispatch events. It must first be initialized with the maximum
  * number of threads by invoking {@link #initialize(int)}, which is typically
  * done at the server startup time.
+ * <p>
+ * A tag is normally served by a single multiplexer thread. A tag added by
+ * {@link #addPartitionedQueueDispatcherListener(String, QueueDispatcherListener[])}
+ * is split into partitions, each served by a different multiplexer thread when
+ * possible.
  * 
  * @author dpark
  * 
@@ -37,6 +42,7 @@ public class QueueDispatcherMultiplexerPool
 
 	private int maxThreadCount = (int) (Runtime.getRuntime().availableProcessors() * 2);
 	private Map<Object, QueueDispatcherMultiplexer> multiplexerMap = new HashMap<Object, QueueDispatcherMultiplexer>(20);
+	private Map<Object, PartitionedQueueDispatcher> partitionedMap = new HashMap<Object, PartitionedQueueDispatcher>(20);
 	private List<QueueDispatcherMultiplexer> multiplexerList = new ArrayList<QueueDispatcherMultiplexer>(20);
 	private ThreadGroup threadGroup = new ThreadGroup("QueueDispatcherMultiplexers");
 
@@ -84,13 +90,72 @@ public class QueueDispatcherMultiplexerPool
 	 * @return {@link QueueDispatcherMultiplexer} object responsible for
 	 *         consuming and dispatching lists of events.
 	 */
-	public QueueDispatcherMultiplexer addQueueDispatcherListener(Object tag, QueueDispatcherListener listener)
+	public synchronized QueueDispatcherMultiplexer addQueueDispatcherListener(Object tag,
+			QueueDispatcherListener listener)
 	{
 		QueueDispatcherMultiplexer multiplexer = createMultiplexerIfNotExist(tag);
 		multiplexer.addQueueDispatcherListener(tag, listener);
 		return multiplexer;
 	}
 
+	/**
+	 * Adds the specified listeners as the partitions of the specified tag. Each
+	 * listener serves one partition and receives {@link List} of events that
+	 * belong to its partition. The partitions are assigned to distinct
+	 * multiplexers unless the number of partitions exceeds the max number of
+	 * threads. The dispatcher properties, e.g.,
+	 * {@link com.netcrest.pado.internal.Constants#PROP_DISPATCHER_MODE}, are
+	 * looked up by the specified tag.
+	 * 
+	 * @param tag
+	 *            Unique tag representing the specified listeners
+	 * @param listeners
+	 *            Queue dispatcher listeners, one per partition. If there is
+	 *            only one listener, then the tag is served in the same way as
+	 *            {@link #addQueueDispatcherListener(Object, QueueDispatcherListener)}.
+	 * @return Partitioned dispatcher responsible for enqueuing events to the
+	 *         partitions
+	 */
+	public synchronized PartitionedQueueDispatcher addPartitionedQueueDispatcherListener(String tag,
+			QueueDispatcherListener[] listeners)
+	{
+		PartitionedQueueDispatcher dispatcher = partitionedMap.get(tag);
+		if (dispatcher != null) {
+			return dispatcher;
+		}
+		String[] partitionTags = new String[listeners.length];
+		QueueDispatcherMultiplexer[] multiplexers = new QueueDispatcherMultiplexer[listeners.length];
+		if (listeners.length == 1) {
+			partitionTags[0] = tag;
+			multiplexers[0] = addQueueDispatcherListener(tag, listeners[0]);
+		} else {
+			List<QueueDispatcherMultiplexer> assignedList = new ArrayList<QueueDispatcherMultiplexer>(
+					listeners.length);
+			for (int i = 0; i < listeners.length; i++) {
+				partitionTags[i] = tag + "#" + i;
+				multiplexers[i] = createMultiplexerIfNotExist(partitionTags[i], assignedList);
+				multiplexers[i].addQueueDispatcherListener(partitionTags[i], tag, listeners[i]);
+				assignedList.add(multiplexers[i]);
+			}
+		}
+		dispatcher = new PartitionedQueueDispatcher(tag, partitionTags, multiplexers);
+		partitionedMap.put(tag, dispatcher);
+		return dispatcher;
+	}
+
+	/**
+	 * Returns the partitioned dispatcher responsible for the specified tag.
+	 * 
+	 * @param tag
+	 *            Unique tag representing the listeners
+	 * @return null if the specified tag was not added by invoking
+	 *         {@link #addPartitionedQueueDispatcherListener(String, QueueDispatcherListener[])}
+	 */
+	public synchronized PartitionedQueueDispatcher getPartitionedQueueDispatcher(Object tag)
+	{
+		return partitionedMap.get(tag);
+	}
+
 	/**
 	 * Returns the multiplexer responsible for the specified tag.
 	 * 
@@ -99,7 +164,7 @@ public class QueueDispatcherMultiplexerPool
 	 * @return null if the specified tag was not added by invoking
 	 *         {@link #addQueueDispatcherListener(String, QueueDispatcherListener)}
 	 */
-	public QueueDispatcherMultiplexer getMultiplexer(Object tag)
+	public synchronized QueueDispatcherMultiplexer getMultiplexer(Object tag)
 	{
 		return multiplexerMap.get(tag);
 	}
@@ -113,17 +178,45 @@ public class QueueDispatcherMultiplexerPool
 	 *            Unique tag representing the specified listener
 	 */
 	private QueueDispatcherMultiplexer createMultiplexerIfNotExist(Object tag)
+	{
+		return createMultiplexerIfNotExist(tag, null);
+	}
+
+	/**
+	 * Returns the QueueDispatcherMultiplexer object that owns the specified
+	 * tag. It creates a new QueueDispatcherMultiplexer object if it does not
+	 * exist, avoiding the specified multiplexers if possible.
+	 * 
+	 * @param tag
+	 *            Unique tag representing the specified listener
+	 * @param excludeList
+	 *            Multiplexers to avoid, i.e., the multiplexers already
+	 *            serving the other partitions of the same tag. May be null.
+	 */
+	private QueueDispatcherMultiplexer createMultiplexerIfNotExist(Object tag,
+			List<QueueDispatcherMultiplexer> excludeList)
 	{
 		QueueDispatcherMultiplexer multiplexer = multiplexerMap.get(tag);
 		if (multiplexer == null) {
-			if (multiplexerList.size() < maxThreadCount) {
+			// Pick the least loaded multiplexer not in the exclude list. Create
+			// a new one if none available and the max is not reached.
+			int smallestSize = Integer.MAX_VALUE;
+			for (QueueDispatcherMultiplexer tt : multiplexerList) {
+				if (excludeList != null && excludeList.contains(tt)) {
+					continue;
+				}
+				if (tt.getQueueSize() < smallestSize) {
+					smallestSize = tt.getQueueSize();
+					multiplexer = tt;
+				}
+			}
+			if (multiplexerList.size() < maxThreadCount && (multiplexer == null || smallestSize > 0)) {
 				multiplexer = new QueueDispatcherMultiplexer(threadGroup, "Pado-QueueDispatcherMultiplexer-"
 						+ (multiplexerList.size() + 1));
 				multiplexer.start();
 				multiplexerList.add(multiplexer);
 
-			} else {
-				int smallestSize = Integer.MAX_VALUE;
+			} else if (multiplexer == null) {
 				for (QueueDispatcherMultiplexer tt : multiplexerList) {
 					if (tt.getQueueSize() < smallestSize) {
 						smallestSize = tt.getQueueSize();
@@ -147,8 +240,21 @@ public class QueueDispatcherMultiplexerPool
 	 *            Unique tag representing the specified listener
 	 * @return Removed listener if exists; null otherwise.
 	 */
-	public QueueDispatcherListener removeQueueDispatcherListener(Object tag)
+	public synchronized QueueDispatcherListener removeQueueDispatcherListener(Object tag)
 	{
+		PartitionedQueueDispatcher dispatcher = partitionedMap.remove(tag);
+		if (dispatcher != null && dispatcher.getPartitionCount() > 1) {
+			QueueDispatcherListener listener = null;
+			for (int i = 0; i < dispatcher.getPartitionCount(); i++) {
+				String partitionTag = dispatcher.getPartitionTag(i);
+				multiplexerMap.remove(partitionTag);
+				QueueDispatcherListener l = dispatcher.getMultiplexer(i).removeQueueDispatcherListener(partitionTag);
+				if (listener == null) {
+					listener = l;
+				}
+			}
+			return listener;
+		}
 		QueueDispatcherMultiplexer multiplexer = getMultiplexer(tag);
 		if (multiplexer == null) {
 			return null;
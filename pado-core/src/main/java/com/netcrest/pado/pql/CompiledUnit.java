@@ -20,8 +20,8 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.netcrest.pado.data.KeyMap;
 import com.netcrest.pado.data.KeyType;
@@ -611,46 +611,9 @@ public class CompiledUnit
 				List list = results[ai.toResultIndex];
 				if (list != null && list.size() > 0) {
 					// Collect unique values only
-					HashSet<String> set = new HashSet<String>(list.size(), 1f);
-					for (Object result : list) {
-						if (result instanceof KeyMap) {
-							Object val = ((KeyMap) result).get(ai.toAttributeName);
-							if (val != null) {
-								if (val instanceof Collection) {
-									Collection col = (Collection) val;
-									for (Object item : col) {
-										if (item != null) {
-											String strVal = item.toString().trim();
-											if (strVal.length() > 0) {
-												set.add(strVal);
-											}
-										}
-									}
-								} else {
-									String strVal = val.toString().trim();
-									if (strVal.length() > 0) {
-										set.add(strVal);
-									}
-								}
-							}
-						}
-					}
-
-					// Build attribute value list separated by space
+					Set<String> set = HashJoin.getDistinctValues(list, ai.toAttributeName);
 					if (set.size() > 0) {
-						StringBuffer buffer = new StringBuffer();
-						buffer.append("(");
-						for (String val : set) {
-							buffer.append(val.toString());
-							buffer.append(" ");
-						}
-						buffer.append(")");
-						String attributeValues = buffer.toString();
-						if (attributeValues.length() > 0) {
-							args[i] = attributeValues;
-						} else {
-							return false;
-						}
+						args[i] = toQueryValues(set, true);
 					} else {
 						return false;
 					}
@@ -703,35 +666,10 @@ public class CompiledUnit
 			} else {
 				List list = results[ai.toResultIndex];
 				if (list != null) {
-					StringBuffer buffer = new StringBuffer();
-					for (Object result : list) {
-						if (result instanceof KeyMap) {
-							Object val = ((KeyMap) result).get(ai.toAttributeName);
-							if (val != null) {
-								if (val instanceof Collection) {
-									Collection col = (Collection) val;
-									for (Object item : col) {
-										if (item != null) {
-											String strVal = item.toString().trim();
-											if (strVal.length() > 0) {
-												buffer.append(strVal);
-												buffer.append(" ");
-											}
-										}
-									}
-								} else {
-									String strVal = val.toString().trim();
-									if (strVal.length() > 0) {
-										buffer.append(val);
-									}
-								}
-								buffer.append(" ");
-							}
-						}
-					}
-					String attributeValues = buffer.toString().trim();
-					if (attributeValues.length() > 0) {
-						args[i] = attributeValues;
+					// Push down unique values only
+					Set<String> set = HashJoin.getDistinctValues(list, ai.toAttributeName);
+					if (set.size() > 0) {
+						args[i] = toQueryValues(set, false);
 					} else {
 						return false;
 					}
@@ -741,6 +679,97 @@ public class CompiledUnit
 		return true;
 	}
 
+	/**
+	 * Returns the specified attribute values separated by space.
+	 * 
+	 * @param values
+	 *            Attribute values
+	 * @param isEnclosed
+	 *            true to enclose the values in parentheses
+	 */
+	private String toQueryValues(Collection<String> values, boolean isEnclosed)
+	{
+		StringBuilder buffer = new StringBuilder(values.size() * 8);
+		if (isEnclosed) {
+			buffer.append("(");
+		}
+		for (String val : values) {
+			buffer.append(val);
+			buffer.append(" ");
+		}
+		if (isEnclosed) {
+			buffer.append(")");
+		} else {
+			buffer.setLength(buffer.length() - 1);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns the executable (final) queries that together return the same
+	 * results as {@link #getQuery(Object, List[])}. Only the distinct values of
+	 * the result attributes are pushed down. If the result attribute with the
+	 * most distinct values has more than the specified batch size of values
+	 * then its values are split into batches, one query per batch, to bound
+	 * the query string size.
+	 * 
+	 * @param input
+	 *            KeyMap or primitive input
+	 * @param results
+	 *            Results of the previous queries
+	 * @param batchSize
+	 *            Max number of distinct values per query. If <= 0 then all
+	 *            values are put in a single query.
+	 * @return null if queries cannot be built due to unavailable data. This
+	 *         means the queries return no results.
+	 */
+	public List<String> getQueries(Object input, List[] results, int batchSize)
+	{
+		if (input == null) {
+			return null;
+		}
+		boolean isKeyMap = input instanceof KeyMap;
+		Object args[] = new Object[attributes.length];
+		int batchIndex = -1;
+		List<String> batchValueList = null;
+		for (int i = 0; i < attributes.length; i++) {
+			AttributeIndex ai = (AttributeIndex) attributes[i];
+			if (ai.toResultIndex == -1) {
+				Object attributeValue = isKeyMap ? ((KeyMap) input).get(ai.toAttributeName) : input;
+				if (attributeValue == null) {
+					return null;
+				}
+				args[i] = attributeValue.toString();
+			} else {
+				List list = results[ai.toResultIndex];
+				if (list == null) {
+					return null;
+				}
+				Set<String> set = HashJoin.getDistinctValues(list, ai.toAttributeName);
+				if (set.size() == 0) {
+					return null;
+				}
+				if (batchValueList == null || set.size() > batchValueList.size()) {
+					batchIndex = i;
+					batchValueList = new ArrayList<String>(set);
+				}
+				args[i] = toQueryValues(set, isKeyMap == false);
+			}
+		}
+		if (batchIndex == -1 || batchSize <= 0 || batchValueList.size() <= batchSize) {
+			List<String> queryList = new ArrayList<String>(1);
+			queryList.add(String.format(compiledQuery, args));
+			return queryList;
+		}
+		List<String> queryList = new ArrayList<String>(batchValueList.size() / batchSize + 1);
+		for (int i = 0; i < batchValueList.size(); i += batchSize) {
+			List<String> batch = batchValueList.subList(i, Math.min(i + batchSize, batchValueList.size()));
+			args[batchIndex] = toQueryValues(batch, isKeyMap == false);
+			queryList.add(String.format(compiledQuery, args));
+		}
+		return queryList;
+	}
+
 	/**
 	 * Returns the executable (final) query.
 	 * 
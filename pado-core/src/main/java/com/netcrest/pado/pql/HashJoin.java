@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.pql;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.netcrest.pado.data.KeyMap;
+
+/**
+ * HashJoin is the join operator of virtual paths. It joins a source result
+ * list with a joining result list on the values of the specified join
+ * attributes by building a hash table on the smaller list and probing it with
+ * the other such that each list is scanned only once. Each source record is
+ * paired with all of its matching joining records, i.e., the joining records
+ * are nested in the source record. Joined records are handed to
+ * {@link JoinHandler} in the source list order as they are produced.
+ * <p>
+ * HashJoin also collects the distinct join attribute values of result lists,
+ * which are pushed down to the grid as bulk filter queries by
+ * {@link CompiledUnit}.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class HashJoin
+{
+	/**
+	 * JoinHandler receives joined records.
+	 */
+	public interface JoinHandler
+	{
+		/**
+		 * Invoked for each source record that has one or more matching
+		 * joining records.
+		 *
+		 * @param sourceKeyMap
+		 *            Source record
+		 * @param joiningList
+		 *            Matching joining records in the joining list order
+		 */
+		void joined(KeyMap sourceKeyMap, List<KeyMap> joiningList);
+	}
+
+	/**
+	 * Joins the specified source list with the specified joining list. Source
+	 * and joining records match if the values of the source keys are equal
+	 * to the values of the joining keys in the same positions. A missing value
+	 * matches only a missing value in the same position. Records with none of
+	 * the key values are never joined. The hash table is built on the smaller of the two
+	 * lists.
+	 *
+	 * @param sourceList
+	 *            Source records
+	 * @param sourceKeys
+	 *            Join attribute names of source records
+	 * @param joiningList
+	 *            Joining records
+	 * @param joiningKeys
+	 *            Join attribute names of joining records
+	 * @param handler
+	 *            Handler that receives joined records
+	 * @return Number of joined source records
+	 */
+	public static int join(List<KeyMap> sourceList, String[] sourceKeys, List<KeyMap> joiningList,
+			String[] joiningKeys, JoinHandler handler)
+	{
+		if (sourceList == null || joiningList == null) {
+			return 0;
+		}
+		int count = 0;
+		if (joiningList.size() <= sourceList.size()) {
+			// Build on the joining list and probe with source records
+			Map<List<Object>, List<KeyMap>> joiningTable = createHashTable(joiningList, joiningKeys);
+			for (KeyMap sourceKeyMap : sourceList) {
+				List<KeyMap> list = joiningTable.get(createKeyList(sourceKeyMap, sourceKeys));
+				if (list != null) {
+					handler.joined(sourceKeyMap, list);
+					count++;
+				}
+			}
+		} else {
+			// Build on the source list and probe with joining records. Nest
+			// the matches by source position to retain the source order.
+			Map<List<Object>, List<Integer>> sourceTable = new HashMap<List<Object>, List<Integer>>(
+					sourceList.size() * 4 / 3 + 1);
+			for (int i = 0; i < sourceList.size(); i++) {
+				List<Object> keyList = createKeyList(sourceList.get(i), sourceKeys);
+				if (keyList.size() > 0) {
+					List<Integer> list = sourceTable.get(keyList);
+					if (list == null) {
+						list = new ArrayList<Integer>(2);
+						sourceTable.put(keyList, list);
+					}
+					list.add(i);
+				}
+			}
+			List<KeyMap> nestedLists[] = new List[sourceList.size()];
+			for (KeyMap joiningKeyMap : joiningList) {
+				List<Integer> list = sourceTable.get(createKeyList(joiningKeyMap, joiningKeys));
+				if (list != null) {
+					for (Integer index : list) {
+						if (nestedLists[index] == null) {
+							nestedLists[index] = new ArrayList<KeyMap>(2);
+						}
+						nestedLists[index].add(joiningKeyMap);
+					}
+				}
+			}
+			for (int i = 0; i < nestedLists.length; i++) {
+				if (nestedLists[i] != null) {
+					handler.joined(sourceList.get(i), nestedLists[i]);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the hash table of the specified records keyed by the values of
+	 * the specified keys. Records with none of the key values are excluded.
+	 *
+	 * @param resultList
+	 *            Records
+	 * @param keys
+	 *            Join attribute names
+	 */
+	public static Map<List<Object>, List<KeyMap>> createHashTable(List<KeyMap> resultList, String[] keys)
+	{
+		HashMap<List<Object>, List<KeyMap>> map = new HashMap<List<Object>, List<KeyMap>>(
+				resultList.size() * 4 / 3 + 1);
+		for (KeyMap keyMap : resultList) {
+			List<Object> keyList = createKeyList(keyMap, keys);
+			if (keyList.size() > 0) {
+				List<KeyMap> list = map.get(keyList);
+				if (list == null) {
+					list = new ArrayList<KeyMap>(2);
+					map.put(keyList, list);
+				}
+				list.add(keyMap);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Returns the list of the values of the specified keys in the key order.
+	 * Missing values are kept as null in their positions so that values of
+	 * different keys never match. Returns an empty list if all of the values
+	 * are missing.
+	 *
+	 * @param keyMap
+	 *            Record
+	 * @param keys
+	 *            Join attribute names
+	 */
+	public static List<Object> createKeyList(KeyMap keyMap, String[] keys)
+	{
+		List<Object> keyList = new ArrayList(keys.length);
+		boolean found = false;
+		for (String key : keys) {
+			Object value = keyMap.get(key);
+			if (value != null) {
+				found = true;
+			}
+			keyList.add(value);
+		}
+		if (found == false) {
+			return Collections.emptyList();
+		}
+		return keyList;
+	}
+
+	/**
+	 * Returns the distinct string values of the specified attribute in the
+	 * specified results in the order of their first occurrence. Collection
+	 * values are flattened. Values are trimmed and empty values are excluded.
+	 *
+	 * @param resultList
+	 *            Results. Only KeyMap objects are scanned.
+	 * @param attributeName
+	 *            Attribute name
+	 */
+	public static Set<String> getDistinctValues(List resultList, String attributeName)
+	{
+		Set<String> set = new LinkedHashSet<String>(resultList.size() * 4 / 3 + 1);
+		for (Object result : resultList) {
+			if (result instanceof KeyMap) {
+				Object val = ((KeyMap) result).get(attributeName);
+				if (val instanceof Collection) {
+					for (Object item : (Collection) val) {
+						addValue(set, item);
+					}
+				} else {
+					addValue(set, val);
+				}
+			}
+		}
+		return set;
+	}
+
+	private static void addValue(Set<String> set, Object value)
+	{
+		if (value != null) {
+			String strVal = value.toString().trim();
+			if (strVal.length() > 0) {
+				set.add(strVal);
+			}
+		}
+	}
+}
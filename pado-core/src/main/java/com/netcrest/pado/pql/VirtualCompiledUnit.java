@@ -370,10 +370,20 @@ abstract class VirtualCompiledUnit
 		return new JsonLite(map);
 	}
 
+	/**
+	 * Joins the specified source and joining result lists by hash join. Each
+	 * joined key map includes the content of the source key map and an entry
+	 * with the key "[sourceKeys]" and the list of matching joining key maps.
+	 * 
+	 * @param handler
+	 *            Handler that receives the joined key maps. If null, the joined
+	 *            key maps are returned.
+	 * @return Joined key maps or null if the handler is specified
+	 */
 	List<KeyMap> joinResultLists(List<KeyMap> sourceResultList, String[] sourceKeys,
-			Map<List<Object>, List<KeyMap>> joiningMap)
+			List<KeyMap> joiningResultList, String[] joiningKeys, final JoinedKeyMapHandler handler)
 	{
-		List joinedList = new ArrayList();
+		final List<KeyMap> joinedList = handler == null ? new ArrayList<KeyMap>() : null;
 		String key = "";
 		for (String sourceKey : sourceKeys) {
 			if (key.length() > 0) {
@@ -381,26 +391,36 @@ abstract class VirtualCompiledUnit
 			}
 			key += sourceKey;
 		}
-		key = "[" + key + "]";
-		for (KeyMap sourceKeyMap : sourceResultList) {
-			List<Object> keyList = createKeyList(sourceKeyMap, sourceKeys);
-			List<KeyMap> joiningResultList = joiningMap.get(keyList);
-			if (joiningResultList != null) {
-				// Create a joined key map that includes content of sourceKeyMap
-				// and an entry with key and joiningResultList
-				KeyMap joinedKeyMap = createResultKeyMap(sourceKeyMap, key, joiningResultList);
-				joinedList.add(joinedKeyMap);
+		final String joinedKey = "[" + key + "]";
+		HashJoin.join(sourceResultList, sourceKeys, joiningResultList, joiningKeys, new HashJoin.JoinHandler() {
+			@Override
+			public void joined(KeyMap sourceKeyMap, List<KeyMap> joiningList)
+			{
+				KeyMap joinedKeyMap = createResultKeyMap(sourceKeyMap, joinedKey, joiningList);
+				if (handler == null) {
+					joinedList.add(joinedKeyMap);
+				} else {
+					handler.joined(joinedKeyMap);
+				}
 			}
-		}
+		});
 		return joinedList;
 	}
 
+	/**
+	 * JoinedKeyMapHandler receives joined key maps as they are produced.
+	 */
+	interface JoinedKeyMapHandler
+	{
+		void joined(KeyMap joinedKeyMap);
+	}
+
 	List<KeyMap> joinResultLists_old(List<KeyMap> sourceResultList, String[] sourceKeys,
 			Map<List<Object>, List<KeyMap>> joiningMap)
 	{
 		List joinedList = new ArrayList();
 		for (KeyMap sourceKeyMap : sourceResultList) {
-			List<Object> keyList = createKeyList(sourceKeyMap, sourceKeys);
+			List<Object> keyList = HashJoin.createKeyList(sourceKeyMap, sourceKeys);
 			List<KeyMap> joiningResultList = joiningMap.get(keyList);
 			if (joiningResultList != null) {
 				// Create joined records by combining the record and joining map
@@ -421,35 +441,6 @@ abstract class VirtualCompiledUnit
 		return new JsonLite(map);
 	}
 
-	List<Object> createKeyList(KeyMap keyMap, String[] keys)
-	{
-		List<Object> keyList = new ArrayList(keys.length);
-		for (String key : keys) {
-			Object value = keyMap.get(key);
-			if (value != null) {
-				keyList.add(value);
-			}
-		}
-		return keyList;
-	}
-
-	Map<List<Object>, List<KeyMap>> createJoiningMap(List<KeyMap> resultList, String[] keys)
-	{
-		HashMap<List<Object>, List<KeyMap>> map = new HashMap<List<Object>, List<KeyMap>>();
-		for (KeyMap keyMap : resultList) {
-			List<Object> keyList = createKeyList(keyMap, keys);
-			if (keyList.size() > 0) {
-				List<KeyMap> list = map.get(keyList);
-				if (list == null) {
-					list = new ArrayList<KeyMap>();
-					map.put(keyList, list);
-				}
-				list.add(keyMap);
-			}
-		}
-		return map;
-	}
-
 	protected List fillFlat(KeyMap inputKeyMap, List[] results)
 	{
 		// Reverse the order of joins. First, pair up the order of
@@ -482,6 +473,31 @@ abstract class VirtualCompiledUnit
 			return null;
 		}
 
+		// The last join streams its joined key maps directly to the reference
+		// records instead of collecting them.
+		int lastJoinIndex = -1;
+		for (int i = 0; i <= lastReferencedVariableIndex; i++) {
+			if (variables[i] != -1 && results[i] != null) {
+				lastJoinIndex = i;
+				break;
+			}
+		}
+		final List<KeyMap> refList;
+		JoinedKeyMapHandler refHandler = null;
+		if (referenceCUMap.size() > 0 && lastJoinIndex != -1) {
+			refList = new ArrayList<KeyMap>();
+			buildReferenceInfos();
+			refHandler = new JoinedKeyMapHandler() {
+				@Override
+				public void joined(KeyMap joinedKeyMap)
+				{
+					addReferenceRecord(joinedKeyMap, refList);
+				}
+			};
+		} else {
+			refList = null;
+		}
+
 		// Join results in reverse order
 		List[] joinedResultLists = new List[results.length]; // debug
 		List<KeyMap> joinedList = null;
@@ -506,8 +522,6 @@ abstract class VirtualCompiledUnit
 				if (joiningList == null) {
 					joiningList = results[i];
 				}
-				Map<List<Object>, List<KeyMap>> joiningMap = createJoiningMap(joiningList, fromKeys);
-
 				List<KeyMap> sourceList = joinedResultLists[variable];
 				if (sourceList == null) {
 					sourceList = results[variable];
@@ -516,8 +530,12 @@ abstract class VirtualCompiledUnit
 				// toKeys are for resultList
 				// TODO: This implementation expects toKeys are keys from the
 				// same result list. Handle keys from multiple result lists.
-				joinedList = joinResultLists(sourceList, toKeys, joiningMap);
-				joinedResultLists[variable] = joinedList; // debug
+				if (i == lastJoinIndex && refHandler != null) {
+					joinResultLists(sourceList, toKeys, joiningList, fromKeys, refHandler);
+				} else {
+					joinedList = joinResultLists(sourceList, toKeys, joiningList, fromKeys, null);
+					joinedResultLists[variable] = joinedList; // debug
+				}
 			}
 		}
 
@@ -554,6 +572,8 @@ abstract class VirtualCompiledUnit
 		Set<Map.Entry<String, CompiledUnit>> refSet = referenceCUMap.entrySet();
 		if (refSet.size() == 0) {
 			outputList = joinedList;
+		} else if (refList != null) {
+			outputList = refList;
 		} else if (results.length > 0) {
 
 			outputList = createReferenceRecords(joinedList);
@@ -586,29 +606,35 @@ abstract class VirtualCompiledUnit
 	{
 		List<KeyMap> refList = new ArrayList<KeyMap>();
 		buildReferenceInfos();
-		KeyMap inputKeyMap = null;
-		Set<Map.Entry<String, CompiledUnit>> refSet = referenceCUMap.entrySet();
-
 		for (KeyMap joinedKeyMap : joinedList) {
-			JsonLite jl = new JsonLite();
-			for (int i = 0; i < inputReferenceInfo.inputKeyList.size(); i++) {
-				Object value = inputReferenceInfo.getValue(i);
-				if (value != null) {
-					jl.put(inputReferenceInfo.getReferenceKey(i), value);
-				} else {
-					String inputKey = inputReferenceInfo.getInputKey(i);
-					if (inputKey != null) {
-						// jl.put(inputReferenceInfo.getKey(i),
-						// inputKeyMap.get(inputKey));
-					}
+			addReferenceRecord(joinedKeyMap, refList);
+		}
+		return refList;
+	}
+
+	/**
+	 * Adds the reference record of the specified joined key map to the
+	 * specified reference list. {@link #buildReferenceInfos()} must be invoked
+	 * first.
+	 */
+	private void addReferenceRecord(KeyMap joinedKeyMap, List<KeyMap> refList)
+	{
+		JsonLite jl = new JsonLite();
+		for (int i = 0; i < inputReferenceInfo.inputKeyList.size(); i++) {
+			Object value = inputReferenceInfo.getValue(i);
+			if (value != null) {
+				jl.put(inputReferenceInfo.getReferenceKey(i), value);
+			} else {
+				String inputKey = inputReferenceInfo.getInputKey(i);
+				if (inputKey != null) {
+					// jl.put(inputReferenceInfo.getKey(i),
+					// inputKeyMap.get(inputKey));
 				}
 			}
-			refList.add(jl);
-			addReferenceValues(joinedKeyMap, refList, 1, true);
-			// addReferenceValues_nested(joinedKeyMap, jl, 1, true);
-
 		}
-		return refList;
+		refList.add(jl);
+		addReferenceValues(joinedKeyMap, refList, 1, true);
+		// addReferenceValues_nested(joinedKeyMap, jl, 1, true);
 	}
 
 	// List<KeyMap> addReferenceValues(KeyMap joinedKeyMap, List<KeyMap>
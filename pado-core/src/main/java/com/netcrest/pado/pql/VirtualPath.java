@@ -16,7 +16,10 @@
 package com.netcrest.pado.pql;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,6 +32,7 @@ import com.netcrest.pado.IPado;
 import com.netcrest.pado.IVirtualPath;
 import com.netcrest.pado.data.KeyMap;
 import com.netcrest.pado.exception.PadoException;
+import com.netcrest.pado.internal.util.PadoUtil;
 import com.netcrest.pado.temporal.ITemporalBizLink;
 import com.netcrest.pado.util.GridUtil;
 
@@ -42,6 +46,12 @@ import com.netcrest.pado.util.GridUtil;
 @SuppressWarnings("rawtypes")
 public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<T>
 {
+	/**
+	 * Max number of distinct join attribute values pushed down per query.
+	 * Queries with more values are split into batches executed in parallel.
+	 */
+	private final static int JOIN_BATCH_SIZE = PadoUtil.getInteger("vp.join.batchSize", 1000);
+
 	private ICatalog catalog;
 	private LinkedBlockingQueue<ITemporalBizLink> temporalBizPool = new LinkedBlockingQueue<ITemporalBizLink>();
 	private ExecutorService es = null;
@@ -158,6 +168,19 @@ public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<
 		}
 	}
 
+	/**
+	 * Returns true if any of the specified CUOrders has no results.
+	 */
+	private boolean isEmpty(CUOrder cuOrder[], List[] results)
+	{
+		for (CUOrder cuo : cuOrder) {
+			if (results[cuo.index] == null || results[cuo.index].size() == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Returns the thread pool size. The returned value may be different from
 	 * the constructor-specified value. VirtualPath may determine the
@@ -224,15 +247,22 @@ public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<
 		// First, execute all input queries in parallel
 		results = execute(inputCUOrders, input, results, validAtTime, asOfTime);
 
-		// Execute the remaining query attributes
+		if (isEmpty(inputCUOrders, results)) {
+			return new ArrayList<T>(0);
+		}
+
+		// Execute the remaining query attributes. Results must not be empty.
+		// Stop as soon as a stage returns no results since the subsequent
+		// stages cannot be joined.
 		for (int i = 0; i < parallelCUOrders.length; i++) {
 			results = execute(parallelCUOrders[i], input, results, validAtTime, asOfTime);
+			if (isEmpty(parallelCUOrders[i], results)) {
+				return new ArrayList<T>(0);
+			}
 		}
-		
-		// Results must not be empty
 		for (List list : results) {
 			if (list == null || list.size() == 0) {
-				return new ArrayList<T>(0); 
+				return new ArrayList<T>(0);
 			}
 		}
 
@@ -243,64 +273,45 @@ public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<
 		}
 	}
 
+	/**
+	 * Executes the specified CUOrders and sets their results in the specified
+	 * results. Each query pushes down only the distinct join attribute values
+	 * of the previous results and is split into batches of
+	 * {@link #JOIN_BATCH_SIZE} values. The batches of all CUOrders are
+	 * executed in parallel if the thread pool is defined.
+	 * 
+	 * @return The specified results
+	 */
 	protected List[] execute(CUOrder cuOrder[], Object input, List[] results, long validAtTime, long asOfTime)
 	{
-		if (cuOrder.length == 1) {
-			
-			// Execute in the current thread if only one CUOrder
-			CompiledUnit cu = cuOrder[0].cu;
-			String executableQuery = cu.getQuery(input, results);
-			
-			if (cuOrder[0].index != 0 && (executableQuery == null || executableQuery.length() == 0)) {
+		ArrayList<TemporalTask> taskList = new ArrayList<TemporalTask>(cuOrder.length);
+		for (CUOrder cuo : cuOrder) {
+			CompiledUnit cu = cuo.cu;
+			List<String> queryList = cu.getQueries(input, results, JOIN_BATCH_SIZE);
+			results[cuo.index] = null;
+			if (queryList == null || (cuo.index != 0 && queryList.get(0).length() == 0)) {
 				// Sub-queries cannot be empty which returns all of data.
-				results[cuOrder[0].index] = null;
-			} else {
-				String path = cu.getPaths()[0];
-				TemporalTask temporalTask = new TemporalTask(path, executableQuery, validAtTime, asOfTime);
-				results[cuOrder[0].index] = temporalTask.call();
+				continue;
 			}
-
-		} else if (es == null) {
-
-			// Execute all in the current thread if the pool is not defined.
-			for (CUOrder cuo : cuOrder) {
-				CompiledUnit cu = cuo.cu;
-				String executableQuery = cu.getQuery(input, results);
-				if (cuOrder[0].index != 0 && (executableQuery == null || executableQuery.length() == 0)) {
-					// Sub-queries cannot be empty which returns all of data.
-					results[cuOrder[0].index] = null;
-				} else  {
-					String path = cu.getPaths()[0];
-					TemporalTask temporalTask = new TemporalTask(path, executableQuery, validAtTime, asOfTime);
-					results[cuOrder[0].index] = temporalTask.call();
-				}
+			String path = cu.getPaths()[0];
+			for (String executableQuery : queryList) {
+				taskList.add(new TemporalTask(cuo.index, path, executableQuery, validAtTime, asOfTime));
 			}
+		}
 
-		} else {
-
-			// Execute in parallel if more than one CUOrder
-			ArrayList<TemporalTask> taskList = new ArrayList<TemporalTask>(cuOrder.length);
-			for (CUOrder cuo : cuOrder) {
-				CompiledUnit cu = cuo.cu;
-				String executableQuery = cu.getQuery(input, results);
-				if (cuOrder[0].index != 0 && (executableQuery == null || executableQuery.length() == 0)) {
-					// Sub-queries cannot be empty which returns all of data.
-					results[cuOrder[0].index] = null;
-				} else {
-					String path = cu.getPaths()[0];
-					TemporalTask temporalTask = new TemporalTask(path, executableQuery, validAtTime, asOfTime);
-					taskList.add(temporalTask);
-				}
+		HashMap<Integer, HashSet> batchSetMap = new HashMap<Integer, HashSet>(4);
+		if (taskList.size() == 1 || es == null) {
+			// Execute in the current thread if only one query or the pool is
+			// not defined.
+			for (TemporalTask task : taskList) {
+				addResult(results, task.index, task.call(), batchSetMap);
 			}
-
-			List<Future<List>> futureList;
+		} else {
+			// Execute in parallel if more than one query
 			try {
-				futureList = es.invokeAll(taskList);
+				List<Future<List>> futureList = es.invokeAll(taskList);
 				for (int i = 0; i < futureList.size(); i++) {
-					Future<List> future = futureList.get(i);
-					List result = future.get();
-					CUOrder cuo = cuOrder[i];
-					results[cuo.index] = result;
+					addResult(results, taskList.get(i).index, futureList.get(i).get(), batchSetMap);
 				}
 			} catch (Exception ex) {
 				throw new PadoException(ex);
@@ -308,7 +319,40 @@ public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<
 		}
 		return results;
 	}
-	
+
+	/**
+	 * Adds the specified batch result to the results at the specified index.
+	 * Records already returned by the previous batches of the same query are
+	 * dropped.
+	 * 
+	 * @param batchSetMap
+	 *            Records of the merged batches by result index
+	 */
+	@SuppressWarnings("unchecked")
+	private void addResult(List[] results, int index, List result, Map<Integer, HashSet> batchSetMap)
+	{
+		if (result == null) {
+			return;
+		}
+		List list = results[index];
+		if (list == null) {
+			results[index] = result;
+			return;
+		}
+		HashSet set = batchSetMap.get(index);
+		if (set == null) {
+			set = new HashSet(list);
+			list = new ArrayList(list);
+			results[index] = list;
+			batchSetMap.put(index, set);
+		}
+		for (Object obj : result) {
+			if (set.add(obj)) {
+				list.add(obj);
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -344,13 +388,15 @@ public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<
 
 	class TemporalTask implements Callable<List>
 	{
+		int index;
 		String executableQuery;
 		String path;
 		long validAtTime;
 		long asOfTime;
 
-		TemporalTask(String path, String executableQuery, long validAtTime, long asOfTime)
+		TemporalTask(int index, String path, String executableQuery, long validAtTime, long asOfTime)
 		{
+			this.index = index;
 			this.path = path;
 			this.executableQuery = executableQuery;
 			this.validAtTime = validAtTime;
@@ -361,12 +407,14 @@ public class VirtualPath<T> extends VirtualCompiledUnit implements IVirtualPath<
 		public List call()
 		{
 			ITemporalBizLink temporalBiz = pollTemporalBiz();
-			String gridIds[] = temporalBiz.getBizContext().getGridService().getGridIds(path);
-			temporalBiz.getBizContext().getGridContextClient().setGridIds(gridIds);
-			temporalBiz.setGridPath(path);
-			List resultList = temporalBiz.getQueryValues(path + "?" + executableQuery, validAtTime, asOfTime);
-			putTemporalBiz(temporalBiz);
-			return resultList;
+			try {
+				String gridIds[] = temporalBiz.getBizContext().getGridService().getGridIds(path);
+				temporalBiz.getBizContext().getGridContextClient().setGridIds(gridIds);
+				temporalBiz.setGridPath(path);
+				return temporalBiz.getQueryValues(path + "?" + executableQuery, validAtTime, asOfTime);
+			} finally {
+				putTemporalBiz(temporalBiz);
+			}
 		}
 
 	}
@@ -17,6 +17,7 @@ package com.netcrest.pado.temporal;
 
 import java.io.PrintStream;
 import java.text.SimpleDateFormat;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -231,6 +232,59 @@ public interface ITemporalBizLink<K, V> extends IBiz
 	 */
 	TemporalEntry<K, V> getEntry(K identityKey, long validAtTime, long asOfTime);
 
+	/**
+	 * Returns a map of the specified identity keys and their latest values as
+	 * of now. Unlike {@link #get(Object)}, which makes a network round trip per
+	 * identity key, the identity keys are routed to the servers that own them
+	 * and each server resolves all of its identity keys in a single call.
+	 * Identity keys with no values are not included in the returned map.
+	 * 
+	 * @param identityKeys
+	 *            The identity keys that identify the values in search.
+	 */
+	Map<K, V> getAll(Collection<K> identityKeys);
+
+	/**
+	 * Returns a map of the specified identity keys and their values that
+	 * satisfy the specified valid-at and as-of times. Identity keys with no
+	 * values are not included in the returned map.
+	 * 
+	 * @param identityKeys
+	 *            The identity keys that identify the values in search.
+	 * @param validAtTime
+	 *            The time at which the value is valid.
+	 * @param asOfTime
+	 *            The as-of time compared against the written times.
+	 * @see #getAll(Collection)
+	 */
+	Map<K, V> getAll(Collection<K> identityKeys, long validAtTime, long asOfTime);
+
+	/**
+	 * Returns a map of the specified identity keys and their latest temporal
+	 * entries as of now. Identity keys with no entries are not included in the
+	 * returned map.
+	 * 
+	 * @param identityKeys
+	 *            The identity keys that identify the entries in search.
+	 * @see #getAll(Collection)
+	 */
+	Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys);
+
+	/**
+	 * Returns a map of the specified identity keys and their temporal entries
+	 * that satisfy the specified valid-at and as-of times. Identity keys with
+	 * no entries are not included in the returned map.
+	 * 
+	 * @param identityKeys
+	 *            The identity keys that identify the entries in search.
+	 * @param validAtTime
+	 *            The time at which the value is valid.
+	 * @param asOfTime
+	 *            The as-of time compared against the written times.
+	 * @see #getAll(Collection)
+	 */
+	Map<K, TemporalEntry<K, V>> getAllEntries(Collection<K> identityKeys, long validAtTime, long asOfTime);
+
 	/**
 	 * Returns the temporal entries that satisfy the specified valid-at time.
 	 * Note that it does not take the identity key. It returns null if the entry
@@ -786,6 +840,32 @@ public interface ITemporalBizLink<K, V> extends IBiz
 	 */
 	ITemporalKey<K> getKey(K identityKey, long validAtTime, long asOfTime);
 
+	/**
+	 * Returns a map of the specified identity keys and their latest temporal
+	 * keys as of now. Identity keys with no entries are not included in the
+	 * returned map.
+	 * 
+	 * @param identityKeys
+	 *            The identity keys that identify the keys in search.
+	 * @see #getAll(Collection)
+	 */
+	Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys);
+
+	/**
+	 * Returns a map of the specified identity keys and their temporal keys
+	 * that satisfy the specified valid-at and as-of times. Identity keys with
+	 * no entries are not included in the returned map.
+	 * 
+	 * @param identityKeys
+	 *            The identity keys that identify the keys in search.
+	 * @param validAtTime
+	 *            The time at which the value is valid.
+	 * @param asOfTime
+	 *            The as-of time compared against the written times.
+	 * @see #getAll(Collection)
+	 */
+	Map<K, ITemporalKey<K>> getAllKeys(Collection<K> identityKeys, long validAtTime, long asOfTime);
+
 	/**
 	 * Returns the temporal keys that satisfy the specified valid-at time. Note
 	 * that this method does not take the identity key. It returns null if the
@@ -1298,6 +1378,45 @@ public interface ITemporalBizLink<K, V> extends IBiz
 	 */
 	List<V> __getAttachments(long validAtTime, long asOfTime);
 
+	/**
+	 * <b>This is a private method that must not be invoked by applications.</b>
+	 * 
+	 * @param validAtTime
+	 *            The time at which the value is valid.
+	 * @param asOfTime
+	 *            The as-of time compared against the written times.
+	 * @return Returns a map of the routing identity keys and their values that
+	 *         satisfy the specified valid-at and as-of times.
+	 * @see #getAll(Collection, long, long)
+	 */
+	Map<K, V> __getAll(long validAtTime, long asOfTime);
+
+	/**
+	 * <b>This is a private method that must not be invoked by applications.</b>
+	 * 
+	 * @param validAtTime
+	 *            The time at which the value is valid.
+	 * @param asOfTime
+	 *            The as-of time compared against the written times.
+	 * @return Returns a map of the routing identity keys and their temporal
+	 *         entries that satisfy the specified valid-at and as-of times.
+	 * @see #getAllEntries(Collection, long, long)
+	 */
+	Map<K, TemporalEntry<K, V>> __getAllEntries(long validAtTime, long asOfTime);
+
+	/**
+	 * <b>This is a private method that must not be invoked by applications.</b>
+	 * 
+	 * @param validAtTime
+	 *            The time at which the value is valid.
+	 * @param asOfTime
+	 *            The as-of time compared against the written times.
+	 * @return Returns a map of the routing identity keys and their temporal
+	 *         keys that satisfy the specified valid-at and as-of times.
+	 * @see #getAllKeys(Collection, long, long)
+	 */
+	Map<K, ITemporalKey<K>> __getAllKeys(long validAtTime, long asOfTime);
+
 	/**
 	 * Returns the latest attachment values as of now mapped by the identity
 	 * keys in the specified attachment set. Returns null if not found.
@@ -15,6 +15,7 @@
  */
 package com.netcrest.pado.temporal;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -53,6 +54,12 @@ public class TemporalClientFactory<K, V>
 	 */
 	protected Class<?> temporalKeyClass;
 
+	/**
+	 * Temporal key constructor looked up once to avoid repeated reflection in
+	 * {@link #createTemporalKey(Object, long, long, long, String)}
+	 */
+	private Constructor<?> temporalKeyConstructor;
+
 	/**
 	 * Temporal value class that implements ITemporalValue
 	 */
@@ -161,6 +168,13 @@ public class TemporalClientFactory<K, V>
 
 		// ITemporalKey
 		temporalKeyClass = Class.forName(temporalKeyClassName);
+		try {
+			temporalKeyConstructor = temporalKeyClass.getConstructor(Object.class, long.class, long.class,
+					long.class, String.class);
+		} catch (NoSuchMethodException ex) {
+			// createTemporalKey() reports the missing constructor
+			temporalKeyConstructor = null;
+		}
 		// ITemporalValue
 		temporalValueClass = Class.forName(temporalValueClassName);
 		// ITemporalData
@@ -213,8 +227,13 @@ public class TemporalClientFactory<K, V>
 			String username) throws InstantiationException, IllegalAccessException, IllegalArgumentException,
 			SecurityException, InvocationTargetException, NoSuchMethodException
 	{
-		return (ITemporalKey<K>) temporalKeyClass.getConstructor(Object.class, long.class, long.class, long.class,
-				String.class).newInstance(identityKey, startValidTime, endValidTime, writtenTime, username);
+		Constructor<?> constructor = temporalKeyConstructor;
+		if (constructor == null) {
+			constructor = temporalKeyClass.getConstructor(Object.class, long.class, long.class, long.class,
+					String.class);
+		}
+		return (ITemporalKey<K>) constructor.newInstance(identityKey, startValidTime, endValidTime, writtenTime,
+				username);
 	}
 
 	/**
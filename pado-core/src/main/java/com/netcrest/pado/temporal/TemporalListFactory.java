@@ -15,7 +15,10 @@
  */
 package com.netcrest.pado.temporal;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * TemporalListFactory extends {@link TemporalClientFactory}
@@ -33,6 +36,25 @@ public class TemporalListFactory extends TemporalClientFactory
 	 */
 	private Class temporalListClass;
 
+	/**
+	 * Temporal list constructor of the default temporal list class
+	 */
+	private Constructor temporalListConstructor;
+
+	/**
+	 * &lt;fullPath, Constructor&gt; map of temporal list classes that override
+	 * the default temporal list class per temporal path
+	 */
+	private final ConcurrentHashMap<String, Constructor> pathConstructorMap = new ConcurrentHashMap<String, Constructor>(
+			5);
+
+	/**
+	 * &lt;fullPath, Properties&gt; map of temporal list properties configured
+	 * per temporal path
+	 */
+	private final ConcurrentHashMap<String, Properties> pathPropertiesMap = new ConcurrentHashMap<String, Properties>(
+			5);
+
 	/**
 	 * Returns the TemporalListFactory object initialized with the default data
 	 * grid.
@@ -135,11 +157,100 @@ public class TemporalListFactory extends TemporalClientFactory
 		// ITemporalList
 		temporalListClass = Class.forName(temporalListClassName);
 		// check to see if the default constructor exists
-		temporalListClass.getConstructor(String.class, Object.class, String.class);
+		temporalListConstructor = temporalListClass.getConstructor(String.class, Object.class, String.class);
+	}
+
+	/**
+	 * Sets the temporal list class for the specified temporal path. The
+	 * specified class overrides the default temporal list class of this
+	 * factory for the path. This allows temporal paths sharing the same
+	 * temporal name to use different {@link ITemporalList} implementations,
+	 * e.g., the default object-based list for small paths and a columnar list
+	 * for paths with deep histories.
+	 * 
+	 * @param fullPath
+	 *            Temporal path
+	 * @param temporalListClassName
+	 *            Fully-qualified temporal list class name. If null, then the
+	 *            path reverts to the default temporal list class.
+	 * @throws ClassNotFoundException
+	 *             Thrown if the specified class name is undefined
+	 * @throws NoSuchMethodException
+	 *             Thrown if the class does not have the temporal list
+	 *             constructor
+	 */
+	public void setTemporalListClass(String fullPath, String temporalListClassName) throws ClassNotFoundException,
+			NoSuchMethodException
+	{
+		if (fullPath == null) {
+			return;
+		}
+		if (temporalListClassName == null || temporalListClassName.equals(temporalListClass.getName())) {
+			pathConstructorMap.remove(fullPath);
+		} else {
+			Class clazz = Class.forName(temporalListClassName);
+			pathConstructorMap.put(fullPath, clazz.getConstructor(String.class, Object.class, String.class));
+		}
+	}
+
+	/**
+	 * Returns the temporal list class used for the specified temporal path.
+	 * 
+	 * @param fullPath
+	 *            Temporal path
+	 */
+	public Class getTemporalListClass(String fullPath)
+	{
+		Constructor constructor = fullPath == null ? null : pathConstructorMap.get(fullPath);
+		if (constructor == null) {
+			return temporalListClass;
+		}
+		return constructor.getDeclaringClass();
+	}
+
+	/**
+	 * Sets the temporal list properties for the specified temporal path.
+	 * Temporal list implementations read their path specific settings from
+	 * these properties.
+	 * 
+	 * @param fullPath
+	 *            Temporal path
+	 * @param props
+	 *            Temporal list properties. If null, then the path properties
+	 *            are removed.
+	 */
+	public void setTemporalListProperties(String fullPath, Properties props)
+	{
+		if (fullPath == null) {
+			return;
+		}
+		if (props == null) {
+			pathPropertiesMap.remove(fullPath);
+		} else {
+			pathPropertiesMap.put(fullPath, props);
+		}
+	}
+
+	/**
+	 * Returns the temporal list properties of the specified temporal path.
+	 * Returns null if undefined.
+	 * 
+	 * @param fullPath
+	 *            Temporal path
+	 */
+	public Properties getTemporalListProperties(String fullPath)
+	{
+		if (fullPath == null) {
+			return null;
+		}
+		return pathPropertiesMap.get(fullPath);
 	}
 
 	/**
 	 * Constructs a new ITemporalList instance with the specified parameters.
+	 * The temporal list class set for the specified full path by
+	 * {@link #setTemporalListClass(String, String)} is used if defined,
+	 * otherwise, the default temporal list class is used.
 	 * 
 	 * @param temporalName
 	 *            Temporal name
@@ -169,7 +280,10 @@ public class TemporalListFactory extends TemporalClientFactory
 			throws InstantiationException, IllegalAccessException, IllegalArgumentException, SecurityException,
 			InvocationTargetException, NoSuchMethodException
 	{
-		return (ITemporalList) temporalListClass.getConstructor(String.class, Object.class, String.class).newInstance(
-				temporalName, identityKey, fullPath);
+		Constructor constructor = fullPath == null ? null : pathConstructorMap.get(fullPath);
+		if (constructor == null) {
+			constructor = temporalListConstructor;
+		}
+		return (ITemporalList) constructor.newInstance(temporalName, identityKey, fullPath);
 	}
 }
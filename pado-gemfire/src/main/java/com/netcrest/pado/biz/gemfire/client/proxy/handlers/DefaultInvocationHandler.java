@@ -78,11 +78,10 @@ public class DefaultInvocationHandler<T> extends GemfireClientBizInvocationHandl
 			return bizContext;
 		}
 		
-		String functionId = GemfireBizUtil.getGemfireFunctionId(targetClass, method);
-		if (functionId == null) {
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(method);
+		if (methodAnnotations == null && GemfireBizUtil.getGemfireFunctionId(targetClass, method) == null) {
 			throw new BizException("Non-IBiz method invoked. Make sure the method is annotated with @BizMethod and implmented in the server side: " + method);
 		}
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(functionId);
 		if (methodAnnotations == null || methodAnnotations.routingAnnotation == null) {
 			throw new BizException("Could not find routing annotations for gfe function ["
 					+ GemfireBizUtil.getGemfireFunctionId(targetClass, method) + "]");
@@ -22,14 +22,22 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -56,11 +64,14 @@ import com.netcrest.pado.biz.gemfire.client.proxy.functionrouters.OnServerFuncti
 import com.netcrest.pado.biz.gemfire.proxy.GemfireBizUtil;
 import com.netcrest.pado.biz.gemfire.proxy.functions.BizArguments;
 import com.netcrest.pado.biz.gemfire.proxy.functions.BizContextClientImpl;
+import com.netcrest.pado.biz.gemfire.proxy.functions.GridContextClientImpl;
 import com.netcrest.pado.exception.BizException;
 import com.netcrest.pado.exception.PadoException;
 import com.netcrest.pado.info.AppInfo;
 import com.netcrest.pado.internal.impl.GridService;
 import com.netcrest.pado.internal.impl.PadoClientManager;
+import com.netcrest.pado.internal.util.InstanceFactory;
+import com.netcrest.pado.log.Logger;
 
 /**
  * Abstract base class for Gemfire IBiz invocation handlers.
@@ -73,6 +84,17 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	protected Class<T> futureClass;
 
 	protected ConcurrentHashMap<String, MethodAnnotationEntry> methodAnnotationCache;
+
+	/**
+	 * &lt;IBiz method, MethodAnnotationEntry&gt; for looking up the cached
+	 * method information without building the function ID per call.
+	 */
+	protected ConcurrentHashMap<Method, MethodAnnotationEntry> methodEntryMap;
+
+	/**
+	 * GemFire function ID of the target class.
+	 */
+	protected String bizFunctionId;
 	private ResultCollector rcInstance = null;
 
 	protected IBizContextClient bizContext;
@@ -88,24 +110,56 @@ public abstract class GemfireClientBizInvocationHandler<T>
 
 	private static LogWriter logger = CacheFactory.getAnyInstance().getLogger();
 
+	/**
+	 * Executes IBiz methods on multiple grids concurrently. GemFire client
+	 * function executions block until the results are received; hence, each
+	 * grid is executed in its own thread.
+	 */
+	private final static ExecutorService gridExecutorService = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "Pado-BizInvocationMany");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
 	protected class MethodAnnotationEntry
 	{
-		final Annotation methodAnnotation;
+		final String functionId;
+		final String methodName;
+		final BizMethod methodAnnotation;
 		final Annotation routingAnnotation;
 		final Annotation collectorAnnotation;
 		final Annotation gridCollectorAnnotation;
 		final FunctionRouter functionRouter;
 		final BizType bizType;
+		final InstanceFactory<ResultCollector> resultCollectorFactory;
+		final InstanceFactory<IGridCollector> gridCollectorFactory;
 
-		public MethodAnnotationEntry(BizMethod methodAnnotation, Annotation routingAnnotation,
-				Annotation collectorAnnotation, Annotation gridCollectorAnnotation) throws ClassNotFoundException,
-				InstantiationException, IllegalAccessException
+		public MethodAnnotationEntry(String functionId, String methodName, BizMethod methodAnnotation,
+				Annotation routingAnnotation, Annotation collectorAnnotation, Annotation gridCollectorAnnotation)
+				throws ClassNotFoundException, InstantiationException, IllegalAccessException
 		{
 			super();
+			this.functionId = functionId;
+			this.methodName = methodName;
 			this.methodAnnotation = methodAnnotation;
 			this.collectorAnnotation = collectorAnnotation;
 			this.gridCollectorAnnotation = gridCollectorAnnotation;
 			this.routingAnnotation = routingAnnotation;
+			if (collectorAnnotation != null) {
+				resultCollectorFactory = new InstanceFactory<ResultCollector>(
+						((WithResultCollector) collectorAnnotation).resultCollectorClass());
+			} else {
+				resultCollectorFactory = null;
+			}
+			if (gridCollectorAnnotation != null) {
+				gridCollectorFactory = new InstanceFactory<IGridCollector>(
+						((WithGridCollector) gridCollectorAnnotation).gridCollectorClass());
+			} else {
+				gridCollectorFactory = null;
+			}
 
 			// Supports OnPath and OnServer
 			if (routingAnnotation.annotationType() == OnPath.class) {
@@ -154,7 +208,9 @@ public abstract class GemfireClientBizInvocationHandler<T>
 		this.bizType = GemfireBizUtil.getBizType(this.targetClass);
 		this.defaultGridPath = GemfireBizUtil.getPath(this.targetClass);
 		this.bizContext = new BizContextClientImpl(gridService, bizStats);
+		this.methodEntryMap = new ConcurrentHashMap<Method, MethodAnnotationEntry>();
 		this.methodAnnotationCache = createAnnotationCache(this.targetClass);
+		this.bizFunctionId = GemfireBizUtil.getGemfireFunctionId(this.targetClass);
 		
 		this.bizStats = BizStatisticsManager.getBizStatistics(targetClass, targetClass.getSimpleName(), "");
 	}
@@ -163,7 +219,8 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	 * This method uses reflection on the service interface definition to
 	 * determine the type of IBiz methods that have been configured. As it finds
 	 * valid IBiz declarations it caches as much of the information as it can so
-	 * to avoid further reflection at runtime
+	 * to avoid further reflection at runtime. It also populates
+	 * {@link #methodEntryMap} with the same entries mapped by method.
 	 * 
 	 * @param targetClass
 	 *            Annotated service interface
@@ -202,8 +259,11 @@ public abstract class GemfireClientBizInvocationHandler<T>
 					throw new PadoException("Routing annotation undeclared. @OnPath or @OnServer is mandatory. " + m);
 				}
 				try {
-					retval.put(functionId, new MethodAnnotationEntry((BizMethod) forMethod, forRouting, forCollector,
-							forGridCollector));
+					MethodAnnotationEntry entry = new MethodAnnotationEntry(functionId,
+							GemfireBizUtil.getMethodName(m), (BizMethod) forMethod, forRouting, forCollector,
+							forGridCollector);
+					retval.put(functionId, entry);
+					methodEntryMap.put(m, entry);
 				} catch (ClassNotFoundException e) {
 					throw new BizException(e);
 				} catch (InstantiationException e) {
@@ -223,6 +283,28 @@ public abstract class GemfireClientBizInvocationHandler<T>
 		return targetClass;
 	}
 
+	/**
+	 * Returns the cached annotation entry of the specified IBiz method. It
+	 * returns null if the method is not an IBiz method.
+	 * 
+	 * @param method
+	 *            IBiz method
+	 */
+	protected MethodAnnotationEntry getMethodAnnotationEntry(Method method)
+	{
+		MethodAnnotationEntry entry = methodEntryMap.get(method);
+		if (entry == null) {
+			String functionId = GemfireBizUtil.getGemfireFunctionId(targetClass, method);
+			if (functionId != null) {
+				entry = methodAnnotationCache.get(functionId);
+				if (entry != null) {
+					methodEntryMap.put(method, entry);
+				}
+			}
+		}
+		return entry;
+	}
+
 	/**
 	 * This method configures a Gemfire Execution context with routing
 	 * information from annotations that have been added to the invoked
@@ -244,8 +326,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 			IllegalAccessException
 	{
 
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, targetMethod));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(targetMethod);
 
 		if (methodAnnotations == null || methodAnnotations.routingAnnotation == null) {
 			throw new BizException("Could not find routing annotations for gfe function ["
@@ -265,8 +346,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 
 	protected boolean isOnPath(final Method targetMethod)
 	{
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, targetMethod));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(targetMethod);
 		if (methodAnnotations == null || methodAnnotations.routingAnnotation == null) {
 			throw new BizException("Could not find routing annotations for gfe function ["
 					+ GemfireBizUtil.getGemfireFunctionId(targetClass, targetMethod) + "]");
@@ -283,8 +363,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	 */
 	protected boolean isOnServerBroadcast(final Method targetMethod)
 	{
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, targetMethod));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(targetMethod);
 		if (methodAnnotations == null || methodAnnotations.routingAnnotation == null) {
 			throw new BizException("Could not find routing annotations for gfe function ["
 					+ GemfireBizUtil.getGemfireFunctionId(targetClass, targetMethod) + "]");
@@ -304,8 +383,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 			return gridPath;
 		}
 
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, targetMethod));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(targetMethod);
 
 		if (methodAnnotations == null || methodAnnotations.routingAnnotation == null) {
 			throw new BizException("Could not find routing annotations for GemFire function ["
@@ -352,8 +430,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 			return null;
 		}
 
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, targetMethod));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(targetMethod);
 
 		if (methodAnnotations == null || methodAnnotations.routingAnnotation == null) {
 			throw new BizException("Could not find routing annotations for gfe function ["
@@ -395,8 +472,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 			return appInfo.getPadoId();
 		}
 
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, targetMethod));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(targetMethod);
 		if (methodAnnotations == null) {
 			throw new BizException("Could not find method annotations for gfe function ["
 					+ GemfireBizUtil.getGemfireFunctionId(targetClass, targetMethod) + "]");
@@ -468,15 +544,12 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	protected ResultCollector createResultCollectorToExecutionContext(Method m) throws ClassNotFoundException,
 			InstantiationException, IllegalAccessException
 	{
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, m));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(m);
 
 		// add the routing info to the execution context
-		WithResultCollector rc = (WithResultCollector) methodAnnotations.collectorAnnotation;
 		ResultCollector rcInstance = null;
-		if (rc != null) {
-			Class<?> c = Thread.currentThread().getContextClassLoader().loadClass(rc.resultCollectorClass());
-			rcInstance = (ResultCollector) c.newInstance();
+		if (methodAnnotations.resultCollectorFactory != null) {
+			rcInstance = methodAnnotations.resultCollectorFactory.newInstance();
 		}
 		return rcInstance;
 	}
@@ -484,15 +557,12 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	protected IGridCollector createGridCollectorToExecutionContext(Method m) throws ClassNotFoundException,
 			InstantiationException, IllegalAccessException
 	{
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, m));
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(m);
 
 		// add the routing info to the execution context
-		WithGridCollector rc = (WithGridCollector) methodAnnotations.gridCollectorAnnotation;
 		IGridCollector gridCollector = null;
-		if (rc != null) {
-			Class<?> c = Thread.currentThread().getContextClassLoader().loadClass(rc.gridCollectorClass());
-			gridCollector = (IGridCollector) c.newInstance();
+		if (methodAnnotations.gridCollectorFactory != null) {
+			gridCollector = methodAnnotations.gridCollectorFactory.newInstance();
 		}
 		return gridCollector;
 	}
@@ -514,10 +584,8 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	protected ResultCollector[] createManyResultCollectorToExecutionContext(Method m) throws ClassNotFoundException,
 			InstantiationException, IllegalAccessException
 	{
-		MethodAnnotationEntry methodAnnotations = methodAnnotationCache.get(GemfireBizUtil.getGemfireFunctionId(
-				targetClass, m));
-		WithResultCollector rc = (WithResultCollector) methodAnnotations.collectorAnnotation;
-		if (rc == null) {
+		MethodAnnotationEntry methodAnnotations = getMethodAnnotationEntry(m);
+		if (methodAnnotations.resultCollectorFactory == null) {
 			return null;
 		}
 
@@ -530,9 +598,8 @@ public abstract class GemfireClientBizInvocationHandler<T>
 			rcInstances = new ResultCollector[1];
 		}
 
-		for (ResultCollector rcInstance : rcInstances) {
-			Class<?> c = Thread.currentThread().getContextClassLoader().loadClass(rc.resultCollectorClass());
-			rcInstance = (ResultCollector) c.newInstance();
+		for (int i = 0; i < rcInstances.length; i++) {
+			rcInstances[i] = methodAnnotations.resultCollectorFactory.newInstance();
 		}
 
 		return rcInstances;
@@ -554,7 +621,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 
 		// add the args
 		// exec = addArgsToExecutionContext(exec, args);
-		exec = exec.withArgs(new BizArguments(GemfireBizUtil.getMethodName( method), bizContext, args,
+		exec = exec.withArgs(new BizArguments(getMethodAnnotationEntry(method).methodName, bizContext, args,
 				bizContext.getGridContextClient().getAttionalArguments(), bizContext.getGridContextClient().getTransientData()));
 
 		// add the result collector. returned value is the instance that
@@ -572,7 +639,7 @@ public abstract class GemfireClientBizInvocationHandler<T>
 		// Do not invoke rcInstance.getResult().
 		try {
 
-			ResultCollector rc = exec.execute(GemfireBizUtil.getGemfireFunctionId(targetClass));
+			ResultCollector rc = exec.execute(bizFunctionId);
 			if (!method.getReturnType().equals(void.class)) {
 
 				if (method.getReturnType().equals(Future.class)) {
@@ -663,11 +730,11 @@ public abstract class GemfireClientBizInvocationHandler<T>
 	{
 		Object retval = null;
 
-		BizArguments bizArgs = new BizArguments(GemfireBizUtil.getMethodName(method), bizContext, args,
+		BizArguments bizArgs = new BizArguments(getMethodAnnotationEntry(method).methodName, bizContext, args,
 				bizContext.getGridContextClient().getAttionalArguments(), bizContext.getGridContextClient().getTransientData());
 
 		// function id
-		String functionId = GemfireBizUtil.getGemfireFunctionId(targetClass);
+		String functionId = bizFunctionId;
 
 		// Add result arguments and collector to all Execution objects
 		IGridCollector gridCollector = bizContext.getGridContextClient().getGridCollector();
@@ -712,51 +779,221 @@ public abstract class GemfireClientBizInvocationHandler<T>
 					}
 				}
 			} else {
-				for (int i = 0; i < execPairs.length; i++) {
-					Execution exec = execPairs[i].exec.withArgs(bizArgs);
-					// add the result collector. returned value is the instance
-					// that collects results, if specified via
-					// @WithResultCollector.
-					ResultCollector clientRC = createResultCollectorToExecutionContext(method);
-					if (clientRC != null) {
-						exec.withCollector(clientRC);
-					}
-					ResultCollector rc = exec.execute(functionId);
-					if (rc != null) {
-						Object result = rc.getResult();
-						if (gridCollector == null) {
-							// Use the first result as the returned value if the
-							// grid collector is not provided.
-							if (i == 0) {
-								retval = result;
-							}
-						} else {
-							gridCollector.addResult(execPairs[i].gridId, result);
-						}
-					}
-				}
-				if (gridCollector != null) {
-					gridCollector.endResults();
-					retval = gridCollector.getResult();
+				ScatterGather scatterGather = new ScatterGather(execPairs, bizArgs, functionId, method, gridCollector);
+				try {
+					retval = scatterGather.gather(scatterGather.timeout);
+				} catch (TimeoutException ex) {
+					scatterGather.cancel();
+					throw new BizException(ex.getMessage(), ex);
 				}
 			}
 		} else {
+			futureMany.scatterGather = new ScatterGather(execPairs, bizArgs, functionId, method, gridCollector);
+			retval = futureMany;
+		}
+
+		return retval;
+	}
+
+	/**
+	 * GridResult holds the results returned by a single grid.
+	 */
+	static class GridResult
+	{
+		final int index;
+		final String gridId;
+		final Object result;
+		final long latency;
+
+		GridResult(int index, String gridId, Object result, long latency)
+		{
+			this.index = index;
+			this.gridId = gridId;
+			this.result = result;
+			this.latency = latency;
+		}
+	}
+
+	/**
+	 * ScatterGather executes an IBiz method on multiple grids concurrently and
+	 * feeds the results to the grid collector in the order the grids complete.
+	 * The latency of each grid is recorded in the grid context client.
+	 */
+	class ScatterGather
+	{
+		final ExecutionPair[] execPairs;
+		final IGridCollector gridCollector;
+		final String methodName;
+		final long timeout;
+		final int requiredGridCount;
+		final boolean isPartialResultsEnabled;
+		final CompletionService<GridResult> completionService;
+		final List<Future<GridResult>> futureList;
+		final Map<String, Long> gridLatencyMap;
+
+		int receivedCount = 0;
+		int firstResultIndex = -1;
+		Object firstResult;
+		boolean isDone = false;
+		Object retval;
 
-			for (ExecutionPair execPair : execPairs) {
-				Execution exec = execPair.exec.withArgs(bizArgs);
+		ScatterGather(ExecutionPair[] execPairs, final BizArguments bizArgs, final String functionId, Method method,
+				IGridCollector gridCollector) throws ClassNotFoundException, InstantiationException,
+				IllegalAccessException
+		{
+			this.execPairs = execPairs;
+			this.gridCollector = gridCollector;
+			this.methodName = method.getName();
+			this.timeout = bizContext.getGridContextClient().getTimeout();
+			int requiredGridCount = bizContext.getGridContextClient().getRequiredGridCount();
+			if (requiredGridCount <= 0 || requiredGridCount > execPairs.length) {
+				requiredGridCount = execPairs.length;
+			}
+			this.requiredGridCount = requiredGridCount;
+			this.isPartialResultsEnabled = bizContext.getGridContextClient().isPartialResultsEnabled();
+			this.completionService = new ExecutorCompletionService<GridResult>(gridExecutorService);
+			this.futureList = new ArrayList<Future<GridResult>>(execPairs.length);
+			this.gridLatencyMap = new LinkedHashMap<String, Long>(execPairs.length * 2);
+
+			final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			final long startTime = System.nanoTime();
+			for (int i = 0; i < execPairs.length; i++) {
+				final int index = i;
+				final String gridId = execPairs[i].gridId;
+				Execution exec = execPairs[i].exec.withArgs(bizArgs);
 				// add the result collector. returned value is the instance
-				// that collects results, if specified via @WithResultCollector.
+				// that collects results, if specified via
+				// @WithResultCollector.
 				ResultCollector clientRC = createResultCollectorToExecutionContext(method);
 				if (clientRC != null) {
 					exec.withCollector(clientRC);
 				}
-				ResultCollector rc = exec.execute(functionId);
-				futureMany.addResultCollector(execPair.gridId, rc);
+				final Execution gridExec = exec;
+				futureList.add(completionService.submit(new Callable<GridResult>() {
+					public GridResult call() throws Exception
+					{
+						Thread thread = Thread.currentThread();
+						ClassLoader threadClassLoader = thread.getContextClassLoader();
+						thread.setContextClassLoader(classLoader);
+						try {
+							ResultCollector rc = gridExec.execute(functionId);
+							Object result = null;
+							if (rc != null) {
+								result = rc.getResult();
+							}
+							return new GridResult(index, gridId, result, TimeUnit.NANOSECONDS.toMillis(System
+									.nanoTime() - startTime));
+						} finally {
+							thread.setContextClassLoader(threadClassLoader);
+						}
+					}
+				}));
 			}
-			retval = futureMany;
 		}
 
-		return retval;
+		/**
+		 * Waits for the results from the required number of grids and returns
+		 * the aggregated results. If the grid collector is not provided, then
+		 * it returns the results of the first grid in the execution order that
+		 * has completed.
+		 * 
+		 * @param timeout
+		 *            Timeout in msec. If &lt;= 0, then waits until the required
+		 *            grids have completed.
+		 * @throws TimeoutException
+		 *             Thrown if the timeout expires and partial results are
+		 *             not enabled.
+		 * @throws Exception
+		 *             The exception thrown by the first grid that failed.
+		 */
+		synchronized Object gather(long timeout) throws Exception
+		{
+			if (isDone) {
+				return retval;
+			}
+			long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+			try {
+				while (receivedCount < requiredGridCount) {
+					Future<GridResult> future;
+					if (deadline == 0) {
+						future = completionService.take();
+					} else {
+						future = completionService.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+						if (future == null) {
+							if (isPartialResultsEnabled) {
+								break;
+							}
+							throw new TimeoutException("Timed out after " + timeout + " msec while executing "
+									+ methodName + "(). Results received from " + gridLatencyMap.keySet() + ", "
+									+ receivedCount + " of " + requiredGridCount + " grids.");
+						}
+					}
+					GridResult gridResult;
+					try {
+						gridResult = future.get();
+					} catch (ExecutionException ex) {
+						Throwable cause = ex.getCause();
+						if (cause instanceof Exception) {
+							throw (Exception) cause;
+						}
+						throw ex;
+					}
+					receivedCount++;
+					gridLatencyMap.put(gridResult.gridId, gridResult.latency);
+					if (gridCollector == null) {
+						// Use the first result as the returned value if the
+						// grid collector is not provided.
+						if (firstResultIndex == -1 || gridResult.index < firstResultIndex) {
+							firstResultIndex = gridResult.index;
+							firstResult = gridResult.result;
+						}
+					} else {
+						gridCollector.addResult(gridResult.gridId, gridResult.result);
+					}
+				}
+			} catch (TimeoutException ex) {
+				throw ex;
+			} catch (Exception ex) {
+				// Discard the remaining grids
+				cancel();
+				throw ex;
+			}
+
+			// Discard the remaining grids if the required grids or the
+			// partial results have been received
+			cancel();
+			if (bizContext.getGridContextClient() instanceof GridContextClientImpl) {
+				((GridContextClientImpl) bizContext.getGridContextClient()).setGridLatencies(gridLatencyMap);
+			}
+			if (Logger.isFineEnabled()) {
+				Logger.fine(targetClass.getSimpleName() + "." + methodName + "() grid latencies (msec): "
+						+ gridLatencyMap + ", " + receivedCount + " of " + execPairs.length + " grids");
+			}
+			if (gridCollector == null) {
+				retval = firstResult;
+			} else {
+				gridCollector.endResults();
+				retval = gridCollector.getResult();
+			}
+			isDone = true;
+			return retval;
+		}
+
+		/**
+		 * Cancels the grid executions that have not started. The executions
+		 * in progress run to completion and their results are discarded.
+		 */
+		void cancel()
+		{
+			for (Future<GridResult> future : futureList) {
+				future.cancel(false);
+			}
+		}
+
+		boolean isDone()
+		{
+			return isDone;
+		}
 	}
 
 	class ExecutionPair<T>
@@ -773,21 +1010,14 @@ public abstract class GemfireClientBizInvocationHandler<T>
 
 	class FutureMany implements Future
 	{
-		Map<String, ResultCollector> resultCollectorMap;
+		ScatterGather scatterGather;
 		IGridCollector gridCollector;
-		boolean isDone = false;
 
 		FutureMany(IGridCollector gridCollector)
 		{
-			this.resultCollectorMap = new HashMap<String, ResultCollector>(4);
 			this.gridCollector = gridCollector;
 		}
 
-		void addResultCollector(String gridId, ResultCollector rc)
-		{
-			resultCollectorMap.put(gridId, rc);
-		}
-
 		@Override
 		public boolean cancel(boolean mayInterruptIfRunning)
 		{
@@ -803,36 +1033,21 @@ public abstract class GemfireClientBizInvocationHandler<T>
 		@Override
 		public boolean isDone()
 		{
-			return isDone;
+			return scatterGather.isDone();
 		}
 
+		/**
+		 * Waits for the results within the timeout set by
+		 * {@link com.netcrest.pado.IGridContextClient#setTimeout(long)} when
+		 * the IBiz method was invoked.
+		 */
 		@Override
 		public Object get() throws InterruptedException, ExecutionException
 		{
 			try {
-				Object retval = null;
-				int i = 0;
-				for (Map.Entry<String, ResultCollector> entry : resultCollectorMap.entrySet()) {
-					String gridId = entry.getKey();
-					ResultCollector rc = entry.getValue();
-					Object result = rc.getResult();
-					if (gridCollector == null) {
-						// Use the first result as the returned value if the
-						// grid collector is not provided.
-						if (i == 0) {
-							retval = result;
-						}
-						i++;
-					} else {
-						gridCollector.addResult(gridId, result);
-					}
-				}
-				if (gridCollector != null) {
-					gridCollector.endResults();
-					retval = gridCollector.getResult();
-				}
-				isDone = true;
-				return retval;
+				return scatterGather.gather(scatterGather.timeout);
+			} catch (InterruptedException ex) {
+				throw ex;
 			} catch (FunctionException ex) {
 				throw new ExecutionException(ex);
 			} catch (Exception ex) {
@@ -845,29 +1060,12 @@ public abstract class GemfireClientBizInvocationHandler<T>
 				TimeoutException
 		{
 			try {
-				Object retval = null;
-				int i = 0;
-				for (Map.Entry<String, ResultCollector> entry : resultCollectorMap.entrySet()) {
-					String gridId = entry.getKey();
-					ResultCollector rc = entry.getValue();
-					Object result = rc.getResult(timeout, unit);
-					if (gridCollector == null) {
-						// Use the first result as the returned value if the
-						// grid collector is not provided.
-						if (i == 0) {
-							retval = result;
-						}
-						i++;
-					} else {
-						gridCollector.addResult(gridId, result);
-					}
-				}
-				if (gridCollector != null) {
-					gridCollector.endResults();
-					retval = gridCollector.getResult();
-				}
-				isDone = true;
-				return retval;
+				// Wait at least 1 msec since 0 means no timeout
+				return scatterGather.gather(Math.max(1, unit.toMillis(timeout)));
+			} catch (InterruptedException ex) {
+				throw ex;
+			} catch (TimeoutException ex) {
+				throw ex;
 			} catch (FunctionException ex) {
 				throw new ExecutionException(ex);
 			} catch (Exception ex) {
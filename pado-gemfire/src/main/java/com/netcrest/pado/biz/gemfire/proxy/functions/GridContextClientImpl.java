@@ -15,6 +15,7 @@
  */
 package com.netcrest.pado.biz.gemfire.proxy.functions;
 
+import java.util.Map;
 import java.util.Set;
 
 import com.netcrest.pado.IGridCollector;
@@ -34,6 +35,10 @@ public class GridContextClientImpl implements IGridContextClient
 	private Object[] additionalArgs;
 	private transient Object[] transientData;
 	private Object productData;
+	private long timeout;
+	private int requiredGridCount;
+	private boolean partialResultsEnabled;
+	private Map<String, Long> gridLatencies;
 	
 	public GridContextClientImpl()
 	{}
@@ -146,6 +151,59 @@ public class GridContextClientImpl implements IGridContextClient
 		return this.transientData;
 	}
 	
+	@Override
+	public void setTimeout(long timeout)
+	{
+		this.timeout = timeout;
+	}
+
+	@Override
+	public long getTimeout()
+	{
+		return timeout;
+	}
+
+	@Override
+	public void setRequiredGridCount(int requiredGridCount)
+	{
+		this.requiredGridCount = requiredGridCount;
+	}
+
+	@Override
+	public int getRequiredGridCount()
+	{
+		return requiredGridCount;
+	}
+
+	@Override
+	public void setPartialResultsEnabled(boolean partialResultsEnabled)
+	{
+		this.partialResultsEnabled = partialResultsEnabled;
+	}
+
+	@Override
+	public boolean isPartialResultsEnabled()
+	{
+		return partialResultsEnabled;
+	}
+
+	@Override
+	public Map<String, Long> getGridLatencies()
+	{
+		return gridLatencies;
+	}
+
+	/**
+	 * Sets the grid latencies of the last invocation on multiple grids.
+	 * 
+	 * @param gridLatencies
+	 *            &lt;gridId, latency in msec&gt;
+	 */
+	public void setGridLatencies(Map<String, Long> gridLatencies)
+	{
+		this.gridLatencies = gridLatencies;
+	}
+
 	@Override
 	public void reset()
 	{
@@ -158,6 +216,10 @@ public class GridContextClientImpl implements IGridContextClient
 		setRoutingKeys(null);
 		setPadoAsTarget(false);
 		setTransientData();
+		setTimeout(0);
+		setRequiredGridCount(0);
+		setPartialResultsEnabled(false);
+		setGridLatencies(null);
 	}
 
 	@Override
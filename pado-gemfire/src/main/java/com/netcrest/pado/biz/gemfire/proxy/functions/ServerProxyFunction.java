@@ -92,6 +92,8 @@ public class ServerProxyFunction extends ProxyFunction
 			String methodId = entry.getKey();
 			Method implMethod = bizImplMap.get(methodId);
 			if (implMethod != null) {
+				// Skip the access check per invocation
+				implMethod.setAccessible(true);
 				methodMap.put(methodId, implMethod);
 				// iBizMethodMap.put(methodId, entry.getValue());
 			}
@@ -41,6 +41,7 @@ import com.netcrest.pado.index.helper.BaseComparatorFactory;
 import com.netcrest.pado.index.internal.Constants;
 import com.netcrest.pado.index.internal.IndexMatrix;
 import com.netcrest.pado.index.internal.IndexMatrixUtil;
+import com.netcrest.pado.index.internal.PartiallySortedList;
 import com.netcrest.pado.index.internal.SearchResults;
 import com.netcrest.pado.index.internal.db.LocalResultsDb;
 import com.netcrest.pado.index.internal.db.RecordHeader;
@@ -63,6 +64,9 @@ public abstract class AbstractEntitySearchFunction implements IEntitySearchFunct
 
 	protected static final boolean preferSerialized = Boolean.getBoolean("gemfire.PREFER_SERIALIZED");
 
+	protected static final boolean partialSortEnabled = !"false".equalsIgnoreCase(IndexMatrixUtil
+			.getProperty(Constants.PROP_PARTIAL_SORT_ENABLED));
+
 	// public static int pageSize = 10000;
 
 	@Override
@@ -128,7 +132,7 @@ public abstract class AbstractEntitySearchFunction implements IEntitySearchFunct
 				resultList = new ArrayList();
 			}
 			bucketId = getBucketId(context);
-			sort(criteria, resultList);
+			resultList = sortResults(criteria, resultList);
 
 			// // DEBUG
 			// SimpleDateFormat dataFormat = new SimpleDateFormat("yyyyMMdd");
@@ -156,6 +160,39 @@ public abstract class AbstractEntitySearchFunction implements IEntitySearchFunct
 		context.getResultSender().lastResult(memResults);
 	}
 
+	/**
+	 * Returns the sorted results of the specified list. If partial sort is
+	 * enabled and the query is ordered, then it returns a
+	 * {@link PartiallySortedList} that sorts the results one page at a time as
+	 * they are retrieved. Otherwise, it sorts the specified list by invoking
+	 * {@link #sort(GridQuery, List)} and returns it. Partial sort is not
+	 * applied if the results are written to the file system, i.e.,
+	 * gemfire.PREFER_SERIALIZED is true.
+	 * 
+	 * @param criteria
+	 *            Grid query
+	 * @param resultList
+	 *            Unsorted results
+	 * @throws GridQueryException
+	 */
+	protected List sortResults(GridQuery criteria, List resultList) throws GridQueryException
+	{
+		if (partialSortEnabled == false || preferSerialized || criteria.isOrdered() == false
+				|| criteria.getSortField() == null || resultList.size() <= criteria.getAggregationPageSize()) {
+			sort(criteria, resultList);
+			return resultList;
+		}
+		Object obj = getNonNullValueObject(criteria, resultList);
+		if (obj == null) {
+			return resultList;
+		}
+		Comparator comparator = getComparator(criteria, obj);
+		if (comparator == null && obj instanceof Comparable == false) {
+			return resultList;
+		}
+		return new PartiallySortedList(resultList, comparator, criteria.getAggregationPageSize());
+	}
+
 	/**
 	 * Auxiliary method for sorting the entities in the list using specified
 	 * field <code>com.netcrest.grid.index.helper.ComparatorFactory</code>
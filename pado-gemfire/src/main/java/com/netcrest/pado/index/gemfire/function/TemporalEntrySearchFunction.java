@@ -34,7 +34,6 @@ import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.internal.cache.LocalDataSet;
 import com.gemstone.gemfire.pdx.internal.PdxInstanceEnum;
 import com.netcrest.pado.ICatalog;
-import com.netcrest.pado.data.KeyMap;
 import com.netcrest.pado.gemfire.util.GemfireGridUtil;
 import com.netcrest.pado.index.exception.GridQueryException;
 import com.netcrest.pado.index.helper.IndexMatrixOperationUtility;
@@ -137,14 +136,10 @@ public class TemporalEntrySearchFunction extends AbstractEntitySearchFunction
 						Method method;
 						switch (type) {
 						case VALUE:
-							// TODO: Support bulk reference
-							method = finder.getClass().getMethod("getReferences", ICatalog.class, String.class,
-									KeyMap.class, int.class, long.class, long.class, Object.class);
-							for (Object object : resultList) {
-								KeyMap keyMap = (KeyMap) object;
-								method.invoke(finder, PadoServerManager.getPadoServerManager().getCatalog(), virtualPath, keyMap,
-										depth, validAtTime, asOfTime, null);
-							}
+							method = finder.getClass().getMethod("getKeyMapCollectionReferences", ICatalog.class,
+									String.class, Collection.class, int.class, long.class, long.class, Object.class);
+							method.invoke(finder, PadoServerManager.getPadoServerManager().getCatalog(), virtualPath,
+									resultList, depth, validAtTime, asOfTime, null);
 							break;
 
 						case TEMPORAL_ENTRY:
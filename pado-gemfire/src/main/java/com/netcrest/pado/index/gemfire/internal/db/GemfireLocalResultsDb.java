@@ -1,27 +1,21 @@
 package com.netcrest.pado.index.gemfire.internal.db;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.List;
-
 import com.netcrest.pado.index.internal.db.LocalResultsDb;
 import com.netcrest.pado.index.internal.db.RecordFile;
-import com.netcrest.pado.index.internal.db.RecordHeader;
-import com.netcrest.pado.index.service.GridQuery;
 
 public class GemfireLocalResultsDb extends LocalResultsDb
 {
 	private final static GemfireLocalResultsDb db = new GemfireLocalResultsDb();
-	
+
 	public GemfireLocalResultsDb()
 	{
 	}
-	
+
 	public static LocalResultsDb getLocalResultsDb()
 	{
 		return db;
 	}
-	
+
 	private static String getValidFileName(String id)
 	{
 		// TODO: This is not unique. Need more than the id.
@@ -29,23 +23,16 @@ public class GemfireLocalResultsDb extends LocalResultsDb
 		// hash upon idle.
 		return id.replaceAll("[\\{\\}\\+\\/\\,\\*:\"\\?'^&%\\$#@!\\\\(\\)\\[\\]]", "_");
 	}
-	
-	public List<RecordHeader> writeResults(GridQuery criteria, List<?> resultsList) throws IOException
+
+	@Override
+	protected String getFileName(String resultId)
 	{
-		RecordFile rf = new GemfireRecordFile();
-		File file = createFile(getValidFileName(criteria.getId()));
-		return rf.writeRecords(file, resultsList);
+		return getValidFileName(resultId);
 	}
-	
-	public List<byte[]> getSerializedResults(List<RecordHeader> recordHeaderList, GridQuery criteria) throws IOException
+
+	@Override
+	protected RecordFile createRecordFile()
 	{
-		if (recordHeaderList == null) {
-			return null;
-		}
-		RecordFile rf = new GemfireRecordFile();
-		File file = createFile(getValidFileName(criteria.getId()));
-		List<byte[]> serializedRecordList = rf.readSerializedRecords(file, recordHeaderList, criteria.getStartIndex(), criteria.getStartIndex() + criteria.getAggregationPageSize() - 1);
-		
-		return serializedRecordList;
+		return new GemfireRecordFile();
 	}
 }
\ No newline at end of file
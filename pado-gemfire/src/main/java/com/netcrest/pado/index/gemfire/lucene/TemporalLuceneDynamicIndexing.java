@@ -20,9 +20,14 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -41,15 +46,31 @@ import com.netcrest.pado.index.provider.lucene.DateTool;
 import com.netcrest.pado.index.provider.lucene.LuceneBuilder;
 import com.netcrest.pado.index.provider.lucene.LuceneField;
 import com.netcrest.pado.index.provider.lucene.LuceneSearch;
+import com.netcrest.pado.index.provider.lucene.LuceneSearcherManager;
 import com.netcrest.pado.index.provider.lucene.ReflectionHelper;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.internal.util.PadoUtil;
 import com.netcrest.pado.log.Logger;
 import com.netcrest.pado.temporal.ITemporalData;
 import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalManager;
 import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalData;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalStatistics;
 
 /**
  * LuceneDynamicIndexing dynamically appends Lucene indexes for {@link #CacheListener}
  * events for a single path.
+ * <p>
+ * By default, the dispatched event batches are queued and indexed by a
+ * dedicated indexer thread so that the temporal event dispatcher does not wait
+ * for Lucene. The indexer commits every
+ * {@link Constants#PROP_LUCENE_DYNAMIC_COMMIT_INTERVAL} msec or
+ * {@link Constants#PROP_LUCENE_DYNAMIC_COMMIT_SIZE} documents, whichever comes
+ * first, and makes the uncommitted documents searchable in between every
+ * {@link Constants#PROP_LUCENE_DYNAMIC_REFRESH_INTERVAL} msec by refreshing
+ * the near-real-time searcher. Setting {@link Constants#PROP_LUCENE_DYNAMIC_ASYNC}
+ * to false indexes and commits each batch in the dispatcher thread instead.
  * 
  * @author dpark
  * 
@@ -62,18 +83,83 @@ public class TemporalLuceneDynamicIndexing
 	private IndexWriter writer;
 	private LuceneSearch luceneSearch;
 	private StandardQueryParser parser;
+	private LuceneSearcherManager searcherManager;
 	private boolean isClosed;
 
+	private final boolean isAsync;
+	private final long commitIntervalInNano;
+	private final int commitSize;
+	private final long refreshIntervalInNano;
+	private final BlockingQueue<EventBatch> eventQueue;
+	private volatile Thread indexerThread;
+	private boolean isShutdown;
+
+	// Guarded by this object's lock. The indexer is busy from the time it
+	// starts polling the queue until the polled batch has been indexed.
+	// Rebuild and flush pause the indexer and wait until it is no longer busy
+	// so that the batch it may be holding is indexed first. The pause count
+	// is the number of threads that are pausing the indexer.
+	private boolean isIndexerBusy;
+	private int indexerPauseCount;
+
+	// The following fields are guarded by this object's lock. They track the
+	// batches that have been added to the writer but are not yet searchable
+	// or committed.
+	private int unrefreshedBatchCount;
+	private long unrefreshedDispatchTimeSum;
+	private long oldestUnrefreshedDispatchTime;
+	private int uncommittedDocCount;
+	private long oldestUncommittedTime;
+
+	/**
+	 * Batch of dispatched events queued for indexing.
+	 */
+	private static final class EventBatch
+	{
+		final List<EntryEvent<ITemporalKey, ITemporalData>> events;
+		final long dispatchTime;
+
+		EventBatch(List<EntryEvent<ITemporalKey, ITemporalData>> events, long dispatchTime)
+		{
+			this.events = events;
+			this.dispatchTime = dispatchTime;
+		}
+	}
+
+	/**
+	 * Empty batch queued to wake up the indexer thread polling the queue.
+	 */
+	private static final EventBatch WAKE_UP_BATCH = new EventBatch(
+			Collections.<EntryEvent<ITemporalKey, ITemporalData>> emptyList(), 0);
+
 	public TemporalLuceneDynamicIndexing(String fullPath)
 	{
 		this.fullPath = fullPath;
+		this.isAsync = Boolean.valueOf(PadoUtil.getPathProperty(Constants.PROP_LUCENE_DYNAMIC_ASYNC, fullPath, "true"));
+		this.commitIntervalInNano = TimeUnit.MILLISECONDS.toNanos(getIntProperty(
+				Constants.PROP_LUCENE_DYNAMIC_COMMIT_INTERVAL, 1000));
+		this.commitSize = getIntProperty(Constants.PROP_LUCENE_DYNAMIC_COMMIT_SIZE, 10000);
+		this.refreshIntervalInNano = TimeUnit.MILLISECONDS.toNanos(getIntProperty(
+				Constants.PROP_LUCENE_DYNAMIC_REFRESH_INTERVAL, 100));
+		this.eventQueue = new LinkedBlockingQueue<EventBatch>(Math.max(1, getIntProperty(
+				Constants.PROP_LUCENE_DYNAMIC_QUEUE_SIZE, 1000)));
 		resetWriter();
 	}
 
+	private int getIntProperty(String prop, int defaultValue)
+	{
+		try {
+			return Integer.parseInt(PadoUtil.getPathProperty(prop, fullPath, Integer.toString(defaultValue)));
+		} catch (NumberFormatException ex) {
+			Logger.warning(fullPath + " - Invalid " + prop + ". Using the default value " + defaultValue + ".", ex);
+			return defaultValue;
+		}
+	}
+
 	/**
 	 * Resets the writer that writes to the file system.
 	 */
-	private void resetWriter()
+	private synchronized void resetWriter()
 	{
 		close();
 
@@ -87,9 +173,11 @@ public class TemporalLuceneDynamicIndexing
 		try {
 			MMapDirectory directory = new MMapDirectory(file);
 			writer = new IndexWriter(directory, iwc);
+			searcherManager = LuceneSearcherManager.register(fullPath, writer);
 			luceneSearch = LuceneSearch.getLuceneSearch(fullPath);
 			parser = luceneSearch.createParser();
 			isClosed = false;
+			notifyAll();
 		} catch (IOException e) {
 			Logger.error(e);
 		}
@@ -102,6 +190,11 @@ public class TemporalLuceneDynamicIndexing
 	public synchronized void close()
 	{
 		if (writer != null) {
+			if (isClosed == false) {
+				flush();
+			}
+			LuceneSearcherManager.unregister(fullPath, writer);
+			searcherManager = null;
 			try {
 				writer.close();
 				if (writer.getDirectory() != null) {
@@ -137,6 +230,133 @@ public class TemporalLuceneDynamicIndexing
 		}
 	}
 
+	/**
+	 * Rebuilds the Lucene indexes of this path from the specified temporal
+	 * lists without closing the index. The documents are replaced in parallel
+	 * by this object's writer and committed once at the end. Searches continue
+	 * to be served from the previous commit during the rebuild and see the new
+	 * index atomically once committed. If the rebuild fails, the writer is
+	 * rolled back and reopened, and the previous index remains.
+	 * <p>
+	 * Events are not indexed during the rebuild. The indexer thread is paused
+	 * once it has indexed the batch it may have already dequeued, and the
+	 * queued batches are discarded. The caller should pause the temporal event
+	 * dispatcher before invoking this method so that the events received
+	 * during the rebuild are indexed afterwards.
+	 * 
+	 * @param temporalLists
+	 *            All temporal lists of this path
+	 * @return Number of documents indexed, or -1 if the rebuild failed.
+	 */
+	public synchronized int rebuild(Collection<ITemporalList> temporalLists)
+	{
+		open();
+		if (writer == null) {
+			return -1;
+		}
+		long startTime = System.nanoTime();
+
+		// Wait for the indexer to index the batch it may be holding so that it
+		// does not write the batch after the documents are replaced.
+		int docCount;
+		try {
+			pauseIndexer();
+			if (isClosed || isShutdown) {
+				return -1;
+			}
+
+			// All queued and uncommitted events have already been applied to
+			// the temporal lists and are indexed by the rebuild.
+			eventQueue.clear();
+			resetPendingBatches();
+
+			docCount = LuceneBuilder.getLuceneBuilder().rebuildTemporalIndexes(writer, fullPath, temporalLists);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			Logger.warning(fullPath + " - Interrupted while pausing Lucene dynamic indexing. Index not rebuilt.");
+			return -1;
+		} catch (IOException ex) {
+			Logger.error(fullPath + " - Lucene index rebuild failed. Previous index retained.", ex);
+			try {
+				writer.rollback();
+				writer.getDirectory().close();
+			} catch (IOException ex2) {
+				Logger.error(ex2);
+			} finally {
+				LuceneSearcherManager.unregister(fullPath, writer);
+				searcherManager = null;
+				writer = null;
+				isClosed = true;
+			}
+			open();
+			return -1;
+		} finally {
+			resumeIndexer();
+		}
+		refreshSearcher();
+		long elapsedTime = System.nanoTime() - startTime;
+		TemporalStatistics stats = GemfireTemporalManager.getTemporalStatistics(fullPath);
+		if (stats != null) {
+			stats.endLuceneRebuild(docCount, elapsedTime);
+		}
+		if (isVerbose) {
+			Logger.info("Lucene Indexes Rebuilt: " + fullPath + " [docs=" + docCount + ", msec="
+					+ elapsedTime / 1000000 + "]");
+		}
+		return docCount;
+	}
+
+	/**
+	 * Pauses the indexer and waits until it has indexed the batch it may have
+	 * already dequeued. Must be invoked with this object's lock held and
+	 * followed by {@link #resumeIndexer()}.
+	 * 
+	 * @throws InterruptedException
+	 *             Thrown if interrupted while waiting
+	 */
+	private void pauseIndexer() throws InterruptedException
+	{
+		indexerPauseCount++;
+		if (isIndexerBusy) {
+			// Wake up the indexer if it is waiting for a batch. The queue is
+			// not empty if the offer fails.
+			eventQueue.offer(WAKE_UP_BATCH);
+		}
+		while (isIndexerBusy && isShutdown == false) {
+			wait();
+		}
+	}
+
+	/**
+	 * Resumes the indexer paused by {@link #pauseIndexer()}. Must be invoked
+	 * with this object's lock held.
+	 */
+	private void resumeIndexer()
+	{
+		indexerPauseCount--;
+		notifyAll();
+	}
+
+	/**
+	 * Makes the committed changes visible to the queries sharing this path's
+	 * searcher manager.
+	 */
+	private void refreshSearcher()
+	{
+		if (searcherManager != null) {
+			searcherManager.refresh();
+		}
+	}
+
+	/**
+	 * Returns the near-real-time searcher manager of this path. null if
+	 * closed.
+	 */
+	public synchronized LuceneSearcherManager getSearcherManager()
+	{
+		return searcherManager;
+	}
+
 	/**
 	 * Sets the verbose flag. If true, then additional information is logged.
 	 * Default: false.
@@ -169,6 +389,7 @@ public class TemporalLuceneDynamicIndexing
 		try {
 			buildTemporalEntry(parser, event, writer);
 			writer.commit();
+			refreshSearcher();
 		} catch (IOException ex) {
 			Logger.error(ex);
 		}
@@ -194,18 +415,224 @@ public class TemporalLuceneDynamicIndexing
 	 * @param events
 	 *            List of CacheListener temporal events
 	 */
-	public synchronized void processEvents(List<EntryEvent<ITemporalKey, ITemporalData>> events)
+	public void processEvents(List<EntryEvent<ITemporalKey, ITemporalData>> events)
 	{
+		if (events.isEmpty()) {
+			return;
+		}
+		if (isAsync == false) {
+			synchronized (this) {
+				indexBatch(new EventBatch(events, System.nanoTime()));
+				commitOrRefresh(true);
+			}
+			return;
+		}
+
+		// The dispatcher may reuse the list. Blocks if the queue is full.
+		EventBatch batch = new EventBatch(new ArrayList<EntryEvent<ITemporalKey, ITemporalData>>(events),
+				System.nanoTime());
 		try {
-			buildTemporalEntries(parser, events, writer);
-			writer.commit();
-		} catch (IOException ex) {
-			Logger.error(ex);
+			eventQueue.put(batch);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			Logger.warning(fullPath + " - Interrupted while queueing events for Lucene indexing. Events not indexed: "
+					+ events.size());
+			return;
 		}
+		if (indexerThread == null) {
+			startIndexer();
+		}
+	}
+
+	/**
+	 * Indexes all of the queued events, including the batch the indexer thread
+	 * may have already dequeued, and commits. This call has no effect if this
+	 * object is closed.
+	 */
+	public synchronized void flush()
+	{
+		if (isClosed || writer == null) {
+			return;
+		}
+		try {
+			pauseIndexer();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			Logger.warning(fullPath
+					+ " - Interrupted while pausing Lucene dynamic indexing. Flushing queued events only.");
+		}
+		try {
+			if (isClosed || writer == null) {
+				return;
+			}
+			EventBatch batch;
+			while ((batch = eventQueue.poll()) != null) {
+				if (batch != WAKE_UP_BATCH) {
+					indexBatch(batch);
+				}
+			}
+			commitOrRefresh(true);
+		} finally {
+			resumeIndexer();
+		}
+	}
+
+	/**
+	 * Closes this object and stops the indexer thread. Unlike {@link #close()},
+	 * this object cannot be reopened.
+	 */
+	public synchronized void shutdown()
+	{
+		close();
+		isShutdown = true;
+		eventQueue.clear();
+		if (indexerThread != null) {
+			indexerThread.interrupt();
+			indexerThread = null;
+		}
+		notifyAll();
+	}
+
+	private synchronized void startIndexer()
+	{
+		if (indexerThread != null || isShutdown) {
+			return;
+		}
+		indexerThread = new Thread(new Runnable() {
+			public void run()
+			{
+				runIndexer();
+			}
+		}, "Pado-TemporalLuceneDynamicIndexing" + fullPath);
+		indexerThread.setDaemon(true);
+		indexerThread.start();
+	}
+
+	/**
+	 * Indexes the queued batches until shutdown. The indexer waits while this
+	 * object is closed, i.e., during pause, and resumes once reopened. It does
+	 * not dequeue batches while paused by {@link #rebuild(Collection)} or
+	 * {@link #flush()}.
+	 */
+	private void runIndexer()
+	{
+		long pollTimeoutInNano = Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+				Math.min(refreshIntervalInNano, commitIntervalInNano));
+		try {
+			while (true) {
+				synchronized (this) {
+					while (indexerPauseCount > 0 && isShutdown == false) {
+						wait();
+					}
+					if (isShutdown) {
+						return;
+					}
+					isIndexerBusy = true;
+				}
+				try {
+					EventBatch batch = eventQueue.poll(pollTimeoutInNano, TimeUnit.NANOSECONDS);
+					synchronized (this) {
+						while (isClosed && isShutdown == false) {
+							wait();
+						}
+						if (isShutdown) {
+							return;
+						}
+						try {
+							while (batch != null) {
+								if (batch != WAKE_UP_BATCH) {
+									indexBatch(batch);
+									commitOrRefresh(false);
+								}
+								batch = eventQueue.poll();
+							}
+							commitOrRefresh(false);
+						} catch (Exception ex) {
+							Logger.error(fullPath + " - Lucene dynamic indexing error", ex);
+						}
+						TemporalStatistics stats = GemfireTemporalManager.getTemporalStatistics(fullPath);
+						if (stats != null) {
+							stats.setLuceneIndexQueueSize(eventQueue.size());
+						}
+					}
+				} finally {
+					synchronized (this) {
+						isIndexerBusy = false;
+						notifyAll();
+					}
+				}
+			}
+		} catch (InterruptedException ex) {
+			// Shutdown
+		}
+	}
+
+	/**
+	 * Adds the documents of the specified batch to the writer without
+	 * committing. Must be invoked with this object's lock held.
+	 */
+	private void indexBatch(EventBatch batch)
+	{
+		buildTemporalEntries(parser, batch.events, writer);
+		if (unrefreshedBatchCount == 0) {
+			oldestUnrefreshedDispatchTime = batch.dispatchTime;
+		}
+		unrefreshedBatchCount++;
+		unrefreshedDispatchTimeSum += batch.dispatchTime;
+		if (uncommittedDocCount == 0) {
+			oldestUncommittedTime = batch.dispatchTime;
+		}
+		uncommittedDocCount += batch.events.size();
 
 		if (isVerbose) {
-			Logger.info("Lucene Dynamic Indexes Added: " + events.size());
+			Logger.info("Lucene Dynamic Indexes Added: " + batch.events.size());
+		}
+	}
+
+	/**
+	 * Commits if forced or if the commit size or interval has been reached, and
+	 * otherwise refreshes the searcher if the refresh interval has been
+	 * reached. Must be invoked with this object's lock held.
+	 * 
+	 * @param isForceCommit
+	 *            true to commit regardless of the commit policy
+	 */
+	private void commitOrRefresh(boolean isForceCommit)
+	{
+		if (unrefreshedBatchCount == 0 && uncommittedDocCount == 0) {
+			return;
 		}
+		long now = System.nanoTime();
+		boolean isCommit = uncommittedDocCount > 0
+				&& (isForceCommit || uncommittedDocCount >= commitSize || now - oldestUncommittedTime >= commitIntervalInNano);
+		boolean isRefresh = isCommit || unrefreshedBatchCount > 0
+				&& now - oldestUnrefreshedDispatchTime >= refreshIntervalInNano;
+		if (isCommit) {
+			try {
+				writer.commit();
+			} catch (IOException ex) {
+				Logger.error(fullPath + " - Lucene dynamic indexing commit failed", ex);
+			}
+			uncommittedDocCount = 0;
+		}
+		if (isRefresh) {
+			refreshSearcher();
+			now = System.nanoTime();
+			TemporalStatistics stats = GemfireTemporalManager.getTemporalStatistics(fullPath);
+			if (stats != null && unrefreshedBatchCount > 0) {
+				stats.endLuceneIndexRefresh(unrefreshedBatchCount, unrefreshedBatchCount * now
+						- unrefreshedDispatchTimeSum, now - oldestUnrefreshedDispatchTime, isCommit);
+			}
+			unrefreshedBatchCount = 0;
+			unrefreshedDispatchTimeSum = 0;
+		}
+	}
+
+	private void resetPendingBatches()
+	{
+		unrefreshedBatchCount = 0;
+		unrefreshedDispatchTimeSum = 0;
+		uncommittedDocCount = 0;
 	}
 
 	/**
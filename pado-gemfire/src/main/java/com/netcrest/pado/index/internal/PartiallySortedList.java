@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.index.internal;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * PartiallySortedList is a read-only list that sorts its elements lazily in
+ * chunks as they are accessed. Only the sorted prefix of the list is ordered.
+ * Accessing an element beyond the sorted prefix selects the next chunk of the
+ * smallest remaining elements with quickselect and sorts that chunk only. Paging
+ * through the first pages of <i>n</i> results therefore costs O(<i>n</i> + <i>k</i>
+ * log <i>k</i>) instead of O(<i>n</i> log <i>n</i>) for sorting the entire list.
+ * Elements in the sorted prefix never move, so their indexes remain valid as
+ * the list is sorted further.
+ * <p>
+ * Unlike {@link java.util.Collections#sort(List)}, the order of equal elements
+ * is not preserved. This class is thread safe.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class PartiallySortedList extends AbstractList implements RandomAccess, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Ranges smaller than this size are sorted instead of partitioned.
+	 */
+	private static final int SELECT_THRESHOLD = 16;
+
+	private static final Comparator NATURAL_ORDER = new Comparator() {
+		public int compare(Object o1, Object o2)
+		{
+			return ((Comparable) o1).compareTo(o2);
+		}
+	};
+
+	private final Object[] elements;
+	private final transient Comparator comparator;
+	private final int chunkSize;
+
+	/**
+	 * Number of elements in the sorted prefix. Elements below this index are
+	 * final.
+	 */
+	private volatile int sortedCount;
+
+	/**
+	 * Constructs a PartiallySortedList containing the elements of the specified
+	 * list. The specified list is not modified.
+	 *
+	 * @param list
+	 *            Unsorted elements
+	 * @param comparator
+	 *            Comparator. If null, then the elements must implement
+	 *            {@link Comparable}.
+	 * @param chunkSize
+	 *            Minimum number of elements to sort at a time, typically the
+	 *            page size.
+	 */
+	public PartiallySortedList(List list, Comparator comparator, int chunkSize)
+	{
+		this.elements = list.toArray();
+		this.comparator = comparator == null ? NATURAL_ORDER : comparator;
+		this.chunkSize = chunkSize < 1 ? 1 : chunkSize;
+	}
+
+	@Override
+	public Object get(int index)
+	{
+		if (index < 0 || index >= elements.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + elements.length);
+		}
+		if (index >= sortedCount) {
+			sortTo(index + 1);
+		}
+		return elements[index];
+	}
+
+	@Override
+	public int size()
+	{
+		return elements.length;
+	}
+
+	/**
+	 * Returns the number of elements sorted so far.
+	 */
+	public int getSortedCount()
+	{
+		return sortedCount;
+	}
+
+	/**
+	 * Sorts the elements up to the specified count. At least the chunk size
+	 * number of elements are sorted if this call extends the sorted prefix.
+	 *
+	 * @param count
+	 *            Number of elements that must be in the sorted prefix.
+	 */
+	public synchronized void sortTo(int count)
+	{
+		int start = sortedCount;
+		if (count <= start) {
+			return;
+		}
+		int end = Math.max(count, start + chunkSize);
+		if (end > elements.length) {
+			end = elements.length;
+		}
+		if (end < elements.length) {
+			select(start, elements.length - 1, end - 1);
+		}
+		Arrays.sort(elements, start, end, comparator);
+		sortedCount = end;
+	}
+
+	/**
+	 * Partially orders the specified range such that the element at index k is
+	 * in its sorted position, all elements before it are less than or equal to
+	 * it and all elements after it are greater than or equal to it.
+	 */
+	private void select(int left, int right, int k)
+	{
+		while (right - left >= SELECT_THRESHOLD) {
+			Object pivot = medianOfThree(left, (left + right) >>> 1, right);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (i <= right && comparator.compare(elements[i], pivot) < 0) {
+					i++;
+				}
+				while (j >= left && comparator.compare(elements[j], pivot) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					Object tmp = elements[i];
+					elements[i] = elements[j];
+					elements[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				// Elements between j and i are equal to the pivot
+				return;
+			}
+		}
+		Arrays.sort(elements, left, right + 1, comparator);
+	}
+
+	private Object medianOfThree(int a, int b, int c)
+	{
+		Object x = elements[a];
+		Object y = elements[b];
+		Object z = elements[c];
+		if (comparator.compare(x, y) < 0) {
+			if (comparator.compare(y, z) < 0) {
+				return y;
+			}
+			return comparator.compare(x, z) < 0 ? z : x;
+		}
+		if (comparator.compare(x, z) < 0) {
+			return x;
+		}
+		return comparator.compare(y, z) < 0 ? z : y;
+	}
+
+	/**
+	 * Serializes the fully sorted elements as ArrayList.
+	 */
+	private Object writeReplace()
+	{
+		sortTo(elements.length);
+		return new ArrayList(Arrays.asList(elements));
+	}
+}
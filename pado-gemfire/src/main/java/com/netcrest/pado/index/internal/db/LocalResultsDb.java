@@ -1,8 +1,19 @@
 package com.netcrest.pado.index.internal.db;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.netcrest.pado.index.service.GridQuery;
 import com.netcrest.pado.internal.Constants;
@@ -12,7 +23,16 @@ import com.netcrest.pado.log.Logger;
 /**
  * LocalResultsDb off-loads query results to the server file system to reduce
  * the memory footprint.
- * 
+ * <p>
+ * Each result set has its own read/write lock such that queries on different
+ * result sets never block each other and pages of the same result set are read
+ * concurrently. Pages are read with positional reads from a file channel that
+ * is kept open for the result set until it is idle for the sweep interval.
+ * Result files are deleted in the background by a daemon thread that also
+ * periodically deletes expired files, i.e., result sets that have not been
+ * accessed for the expiration time because they were never removed, and files
+ * left over by prior runs or failed deletions.
+ *
  * @author dpark
  *
  */
@@ -22,6 +42,27 @@ public class LocalResultsDb
 
 	private static String LOCAL_RESULTS_DB_DIR = PadoUtil.getProperty("index.local.results.dir", "db/index");
 
+	/**
+	 * Interval in seconds at which idle file channels are closed and orphaned
+	 * files are deleted. Default: 300
+	 */
+	private static int SWEEP_INTERVAL_IN_SEC = PadoUtil.getInteger("index.local.results.sweepInterval", 300);
+
+	/**
+	 * Idle time in seconds after which result files are deleted. Default: 3600
+	 */
+	private static int EXPIRATION_IN_SEC = PadoUtil.getInteger("index.local.results.expiration", 3600);
+
+	private final static ScheduledExecutorService executorService = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "Pado-LocalResultsDb");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
 	static {
 		try {
 			Class<?> clazz = PadoUtil.getClass(Constants.PROP_CLASS_LOCAL_RESULTS_DB,
@@ -34,8 +75,76 @@ public class LocalResultsDb
 		if (dir.exists() == false) {
 			dir.mkdirs();
 		}
+		if (db != null) {
+			executorService.scheduleWithFixedDelay(new Runnable() {
+				public void run()
+				{
+					db.sweep();
+				}
+			}, SWEEP_INTERVAL_IN_SEC, SWEEP_INTERVAL_IN_SEC, TimeUnit.SECONDS);
+		}
 	}
 
+	/**
+	 * ResultFile holds the state of a single result set file.
+	 */
+	private static class ResultFile
+	{
+		final File file;
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+		/**
+		 * Incremented by each write. A pending removal is discarded if the
+		 * file has been rewritten since it was requested.
+		 */
+		volatile int version;
+
+		/**
+		 * Open while the result set is being read. Guarded by this object for
+		 * opening and by the write lock for closing.
+		 */
+		FileChannel channel;
+
+		volatile long lastAccessTime = System.currentTimeMillis();
+
+		ResultFile(File file)
+		{
+			this.file = file;
+		}
+
+		FileChannel getChannel() throws IOException
+		{
+			synchronized (this) {
+				if (channel == null) {
+					channel = new FileInputStream(file).getChannel();
+				}
+				return channel;
+			}
+		}
+
+		/**
+		 * Closes the channel. The caller must hold the write lock.
+		 */
+		void closeChannel()
+		{
+			synchronized (this) {
+				if (channel != null) {
+					try {
+						channel.close();
+					} catch (IOException ex) {
+						// ignore
+					}
+					channel = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * &lt;file name, ResultFile&gt;
+	 */
+	private final ConcurrentHashMap<String, ResultFile> resultFileMap = new ConcurrentHashMap<String, ResultFile>();
+
 	protected LocalResultsDb()
 	{
 	}
@@ -45,32 +154,98 @@ public class LocalResultsDb
 		return db;
 	}
 
+	/**
+	 * Returns the file name of the specified result ID. This method replaces
+	 * '/' with '_'.
+	 *
+	 * @param resultId
+	 *            Result ID that uniquely identifies its result set.
+	 */
+	protected String getFileName(String resultId)
+	{
+		return resultId.replaceAll("\\/", "_");
+	}
+
+	/**
+	 * Returns a new RecordFile object for writing and reading result files.
+	 */
+	protected RecordFile createRecordFile()
+	{
+		return new RecordFile();
+	}
+
 	protected File createFile(String resultId)
 	{
-		String fileName;
-		fileName = resultId.replaceAll("\\/", "_");
+		String fileName = getFileName(resultId);
 		File file = new File(LOCAL_RESULTS_DB_DIR, fileName);
 		return file;
 	}
 
+	/**
+	 * Returns the ResultFile object of the specified file name.
+	 *
+	 * @param fileName
+	 *            Result file name
+	 * @param isExistingOnly
+	 *            true to return null if the file does not exist and is not
+	 *            managed yet.
+	 */
+	private ResultFile getResultFile(String fileName, boolean isExistingOnly)
+	{
+		ResultFile resultFile = resultFileMap.get(fileName);
+		if (resultFile == null) {
+			File file = new File(LOCAL_RESULTS_DB_DIR, fileName);
+			if (isExistingOnly && file.exists() == false) {
+				return null;
+			}
+			resultFile = new ResultFile(file);
+			ResultFile existing = resultFileMap.putIfAbsent(fileName, resultFile);
+			if (existing != null) {
+				resultFile = existing;
+			}
+		}
+		return resultFile;
+	}
+
 	/**
 	 * Deletes the result file associated with the specified result ID if
-	 * exists.
-	 * 
+	 * exists. The file is deleted in the background. The deletion is
+	 * discarded if the results are written again before the deletion.
+	 *
 	 * @param resultId
 	 *            Result ID that uniquely identifies its result set.
 	 */
-	public synchronized void removeFile(String resultId)
+	public void removeFile(String resultId)
 	{
-		File file = createFile(resultId);
-		if (file.exists()) {
-			file.delete();
+		final String fileName = getFileName(resultId);
+		final ResultFile resultFile = getResultFile(fileName, true);
+		if (resultFile == null) {
+			return;
 		}
+		final int version = resultFile.version;
+		executorService.execute(new Runnable() {
+			public void run()
+			{
+				resultFile.lock.writeLock().lock();
+				try {
+					if (resultFile.version != version) {
+						return;
+					}
+					resultFile.closeChannel();
+					if (resultFile.file.exists()) {
+						resultFile.file.delete();
+					}
+					resultFileMap.remove(fileName, resultFile);
+				} finally {
+					resultFile.lock.writeLock().unlock();
+				}
+			}
+		});
 	}
 
 	/**
 	 * Writes the specified results to the file system.
-	 * 
+	 *
 	 * @param criteria
 	 *            Grid criteria
 	 * @param resultsList
@@ -79,16 +254,33 @@ public class LocalResultsDb
 	 * @throws IOException
 	 *             Thrown if IO error occurs
 	 */
-	public synchronized List<RecordHeader> writeResults(GridQuery criteria, List<?> resultsList) throws IOException
+	public List<RecordHeader> writeResults(GridQuery criteria, List<?> resultsList) throws IOException
 	{
-		RecordFile rf = new RecordFile();
-		File file = createFile(criteria.getId());
-		return rf.writeRecords(file, resultsList);
+		String fileName = getFileName(criteria.getId());
+		ResultFile resultFile;
+		while (true) {
+			resultFile = getResultFile(fileName, false);
+			resultFile.lock.writeLock().lock();
+			// Retry if removed from the map while waiting for the lock
+			if (resultFileMap.get(fileName) == resultFile) {
+				break;
+			}
+			resultFile.lock.writeLock().unlock();
+		}
+		try {
+			resultFile.version++;
+			resultFile.closeChannel();
+			resultFile.lastAccessTime = System.currentTimeMillis();
+			RecordFile rf = createRecordFile();
+			return rf.writeRecords(resultFile.file, resultsList);
+		} finally {
+			resultFile.lock.writeLock().unlock();
+		}
 	}
 
 	/**
 	 * Returns serialized results read from the files system.
-	 * 
+	 *
 	 * @param recordHeaderList
 	 *            Record header list that contains all of record headers.
 	 * @param id
@@ -106,16 +298,23 @@ public class LocalResultsDb
 		if (recordHeaderList == null) {
 			return null;
 		}
-		RecordFile rf = new RecordFile();
-		File file = createFile(id);
-		List<byte[]> serializedRecordList = rf.readSerializedRecords(file, recordHeaderList, startIndex, endIndex);
-
-		return serializedRecordList;
+		ResultFile resultFile = getResultFile(getFileName(id), true);
+		if (resultFile == null) {
+			throw new FileNotFoundException(createFile(id).getPath());
+		}
+		resultFile.lock.readLock().lock();
+		try {
+			resultFile.lastAccessTime = System.currentTimeMillis();
+			RecordFile rf = createRecordFile();
+			return rf.readSerializedRecords(resultFile.getChannel(), recordHeaderList, startIndex, endIndex);
+		} finally {
+			resultFile.lock.readLock().unlock();
+		}
 	}
 
 	/**
 	 * Returns serialized results read from the file system.
-	 * 
+	 *
 	 * @param recordHeaderList
 	 *            Record header list that contains all of record headers.
 	 * @param criteria
@@ -128,4 +327,67 @@ public class LocalResultsDb
 		return getSerializedResults(recordHeaderList, criteria.getId(), criteria.getStartIndex(),
 				criteria.getStartIndex() + criteria.getAggregationPageSize() - 1);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Closes the file channels that have been idle for the sweep interval and
+	 * deletes the result files that have been idle for the expiration time.
+	 * Invoked periodically by the background thread.
+	 */
+	protected void sweep()
+	{
+		sweep(System.currentTimeMillis(), TimeUnit.SECONDS.toMillis(SWEEP_INTERVAL_IN_SEC),
+				TimeUnit.SECONDS.toMillis(EXPIRATION_IN_SEC));
+	}
+
+	/**
+	 * Closes the file channels that have been idle for the specified idle time
+	 * and deletes the result files that have been idle for the specified
+	 * expiration time.
+	 *
+	 * @param now
+	 *            Current time in msec
+	 * @param idleTimeInMsec
+	 *            Idle time in msec after which file channels are closed
+	 * @param expirationInMsec
+	 *            Idle time in msec after which result files are deleted
+	 */
+	protected void sweep(long now, long idleTimeInMsec, long expirationInMsec)
+	{
+		try {
+			long idleTime = now - idleTimeInMsec;
+			long expirationTime = now - expirationInMsec;
+			Iterator<Map.Entry<String, ResultFile>> iterator = resultFileMap.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, ResultFile> entry = iterator.next();
+				ResultFile resultFile = entry.getValue();
+				if (resultFile.lastAccessTime < idleTime && resultFile.lock.writeLock().tryLock()) {
+					try {
+						resultFile.closeChannel();
+						// Expire the result set if it was never removed
+						if (resultFile.lastAccessTime < expirationTime) {
+							if (resultFile.file.exists()) {
+								resultFile.file.delete();
+							}
+							resultFileMap.remove(entry.getKey(), resultFile);
+						}
+					} finally {
+						resultFile.lock.writeLock().unlock();
+					}
+				}
+			}
+
+			File[] files = new File(LOCAL_RESULTS_DB_DIR).listFiles();
+			if (files == null) {
+				return;
+			}
+			for (File file : files) {
+				if (file.isFile() && file.lastModified() < expirationTime
+						&& resultFileMap.containsKey(file.getName()) == false) {
+					file.delete();
+				}
+			}
+		} catch (Exception ex) {
+			Logger.warning("Error occurred while sweeping local results files.", ex);
+		}
+	}
+}
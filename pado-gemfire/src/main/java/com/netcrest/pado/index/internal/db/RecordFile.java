@@ -1,81 +1,74 @@
 package com.netcrest.pado.index.internal.db;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.netcrest.pado.io.ObjectSerializer;
 
 /**
- * RecordFile writes to or reads from the specified query results file.
- * 
+ * RecordFile writes to or reads from the specified query results file. The
+ * file begins with the header followed by the serialized records stored
+ * contiguously. The record positions are returned as a {@link RecordHeaderList}
+ * when the records are written.
+ *
  * @author dpark
  *
  */
 public class RecordFile
 {
-	private long recordStartPosition;
+	/**
+	 * Header size, i.e., the record count (int) followed by the data start
+	 * pointer (long). The records start immediately after the header.
+	 */
+	public final static int HEADER_SIZE = 12;
+
+	private final static int BUFFER_SIZE = 64 * 1024;
 
 	public RecordFile()
 	{
 	}
 
 	/**
-	 * Writes the header information to the file.
-	 * 
-	 * @param raf
-	 *            RandomAccessFile object
+	 * Writes the header information to the specified output stream.
+	 *
+	 * @param output
+	 *            Output stream positioned at the beginning of the file
 	 * @param resultsList
 	 *            Results
 	 * @throws IOException
 	 *             Thrown if IO error occurs
 	 */
-	protected void writeHeader(RandomAccessFile raf, List<?> resultsList) throws IOException
+	protected void writeHeader(DataOutputStream output, List<?> resultsList) throws IOException
 	{
-		raf.seek(0);
-		int numRecords = resultsList.size();
-		long dataStartPointer = 4 + numRecords * RecordHeader.RECORD_HEADER_SIZE;
-		raf.writeInt(numRecords);
-		raf.writeLong(dataStartPointer);
-		recordStartPosition = raf.getFilePointer();
+		output.writeInt(resultsList.size());
+		output.writeLong(HEADER_SIZE);
 	}
 
 	/**
-	 * Writes the specified record header to the file.
-	 * 
-	 * @param raf
-	 *            RandomAccessFile object
-	 * @param recordHeader
-	 *            RecordHeader object to be written
+	 * Returns the serialized form of the specified object.
+	 *
+	 * @param object
+	 *            Object to serialize
 	 * @throws IOException
-	 *             Thrown if IO error occurs
+	 *             Thrown if serialization fails
 	 */
-	protected void writeRecordHeader(RandomAccessFile raf, RecordHeader recordHeader) throws IOException
+	protected byte[] serialize(Object object) throws IOException
 	{
-		raf.writeInt(recordHeader.getIndex());
-		raf.writeLong(recordHeader.getFilePosition());
-		raf.writeInt(recordHeader.getNumBytes());
-		recordStartPosition = raf.getFilePointer();
-	}
-
-	protected void writeRecord(RandomAccessFile raf, byte[] serializedRecord) throws IOException
-	{
-		raf.write(serializedRecord);
-	}
-
-	/**
-	 * Returns the record data start position.
-	 */
-	protected long getRecordStartPosition()
-	{
-		return recordStartPosition;
+		return ObjectSerializer.serialize(object);
 	}
 
 	/**
 	 * Writes the specified results to the specifies file.
-	 * 
+	 *
 	 * @param file
 	 *            File to write to
 	 * @param resultsList
@@ -86,36 +79,29 @@ public class RecordFile
 	 */
 	public List<RecordHeader> writeRecords(File file, List<?> resultsList) throws IOException
 	{
-		ArrayList<RecordHeader> recordHeaderList = null;
-		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		long[] positions = new long[resultsList.size() + 1];
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+				BUFFER_SIZE));
 		try {
-			writeHeader(raf, resultsList);
+			writeHeader(output, resultsList);
 			int index = 0;
-			long filePosition = raf.length();
-			recordHeaderList = new ArrayList<RecordHeader>(resultsList.size());
+			long filePosition = output.size();
 			for (Object object : resultsList) {
-				byte[] serializedRecord = ObjectSerializer.serialize(object);
-				RecordHeader recordHeader = new RecordHeader(index, filePosition, serializedRecord.length);
-				// If writeRcordHeader is invoked then file position must be
-				// added in both
-				// writeRecordHeader() and writeRecord()
-				// writeRecordHeader(raf, recordHeader);
-				writeRecord(raf, serializedRecord);
-				recordHeaderList.add(recordHeader);
-				index++;
+				byte[] serializedRecord = serialize(object);
+				positions[index++] = filePosition;
+				output.write(serializedRecord);
 				filePosition += serializedRecord.length;
 			}
+			positions[index] = filePosition;
 		} finally {
-			if (raf != null) {
-				raf.close();
-			}
+			output.close();
 		}
-		return recordHeaderList;
+		return new RecordHeaderList(positions);
 	}
 
 	/**
 	 * Reads the serialized results from the specified file.
-	 * 
+	 *
 	 * @param file
 	 *            File to read
 	 * @param recordHeaderList
@@ -131,32 +117,85 @@ public class RecordFile
 	public List<byte[]> readSerializedRecords(File file, List<RecordHeader> recordHeaderList, int startIndex,
 			int endIndex) throws IOException
 	{
-		ArrayList<byte[]> recordList = null;
-		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		FileInputStream fis = new FileInputStream(file);
 		try {
-			raf.seek(0);
-			int numRecords = raf.readInt();
-			// long dataStartPointer = raf.readLong();
+			return readSerializedRecords(fis.getChannel(), recordHeaderList, startIndex, endIndex);
+		} finally {
+			fis.close();
+		}
+	}
 
-			if (startIndex < 0) {
-				startIndex = 0;
-			}
-			if (endIndex >= numRecords) {
-				endIndex = numRecords - 1;
+	/**
+	 * Reads the serialized results from the specified file channel. The records
+	 * in the index range are read with a single positional read which does not
+	 * change the channel's position. This method is thread safe.
+	 *
+	 * @param channel
+	 *            File channel to read
+	 * @param recordHeaderList
+	 *            List of RecordHeader objects containing file offset
+	 *            information
+	 * @param startIndex
+	 *            Start index
+	 * @param endIndex
+	 *            End index
+	 * @return List of serialized objects read from the file.
+	 * @throws IOException
+	 *             Thrown if IO error occurs
+	 */
+	public List<byte[]> readSerializedRecords(FileChannel channel, List<RecordHeader> recordHeaderList,
+			int startIndex, int endIndex) throws IOException
+	{
+		int numRecords = recordHeaderList.size();
+		if (startIndex < 0) {
+			startIndex = 0;
+		}
+		if (endIndex >= numRecords) {
+			endIndex = numRecords - 1;
+		}
+		if (startIndex > endIndex) {
+			return new ArrayList<byte[]>(0);
+		}
+
+		RecordHeaderList compactList = null;
+		long startPosition;
+		long endPosition;
+		if (recordHeaderList instanceof RecordHeaderList) {
+			compactList = (RecordHeaderList) recordHeaderList;
+			startPosition = compactList.getFilePosition(startIndex);
+			endPosition = compactList.getFilePosition(endIndex) + compactList.getNumBytes(endIndex);
+		} else {
+			startPosition = recordHeaderList.get(startIndex).getFilePosition();
+			RecordHeader endHeader = recordHeaderList.get(endIndex);
+			endPosition = endHeader.getFilePosition() + endHeader.getNumBytes();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) (endPosition - startPosition));
+		long position = startPosition;
+		while (buffer.hasRemaining()) {
+			int count = channel.read(buffer, position);
+			if (count < 0) {
+				throw new EOFException("Unexpected end of file at position " + position);
 			}
+			position += count;
+		}
 
-			recordList = new ArrayList<byte[]>(endIndex - startIndex + 1);
-			for (int i = startIndex; i <= endIndex; i++) {
+		byte[] bytes = buffer.array();
+		ArrayList<byte[]> recordList = new ArrayList<byte[]>(endIndex - startIndex + 1);
+		for (int i = startIndex; i <= endIndex; i++) {
+			long filePosition;
+			int numBytes;
+			if (compactList != null) {
+				filePosition = compactList.getFilePosition(i);
+				numBytes = compactList.getNumBytes(i);
+			} else {
 				RecordHeader recordHeader = recordHeaderList.get(i);
-				raf.seek(recordHeader.getFilePosition());
-				byte[] serializedRecord = new byte[recordHeader.getNumBytes()];
-				raf.read(serializedRecord);
-				recordList.add(serializedRecord);
-			}
-		} finally {
-			if (raf != null) {
-				raf.close();
+				filePosition = recordHeader.getFilePosition();
+				numBytes = recordHeader.getNumBytes();
 			}
+			byte[] serializedRecord = new byte[numBytes];
+			System.arraycopy(bytes, (int) (filePosition - startPosition), serializedRecord, 0, numBytes);
+			recordList.add(serializedRecord);
 		}
 		return recordList;
 	}
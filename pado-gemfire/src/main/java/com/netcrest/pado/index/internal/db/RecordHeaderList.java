@@ -0,0 +1,72 @@
+package com.netcrest.pado.index.internal.db;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * RecordHeaderList is a read-only list of RecordHeader objects backed by a
+ * primitive array of record file positions. Records are stored contiguously,
+ * so the size of a record is the difference between its position and the next
+ * record's position. RecordHeader objects are created on demand by
+ * {@link #get(int)}.
+ *
+ * @author dpark
+ *
+ */
+public class RecordHeaderList extends AbstractList<RecordHeader> implements RandomAccess
+{
+	/**
+	 * Record file positions. The last element is the end position of the last
+	 * record.
+	 */
+	private final long[] positions;
+
+	/**
+	 * Constructs a RecordHeaderList.
+	 *
+	 * @param positions
+	 *            Record file positions in ascending order followed by the end
+	 *            position of the last record. The array is not copied.
+	 */
+	public RecordHeaderList(long[] positions)
+	{
+		this.positions = positions;
+	}
+
+	@Override
+	public RecordHeader get(int index)
+	{
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		return new RecordHeader(index, positions[index], getNumBytes(index));
+	}
+
+	@Override
+	public int size()
+	{
+		return positions.length - 1;
+	}
+
+	/**
+	 * Returns the file position of the specified record.
+	 *
+	 * @param index
+	 *            Record index
+	 */
+	public long getFilePosition(int index)
+	{
+		return positions[index];
+	}
+
+	/**
+	 * Returns the serialized size of the specified record.
+	 *
+	 * @param index
+	 *            Record index
+	 */
+	public int getNumBytes(int index)
+	{
+		return (int) (positions[index + 1] - positions[index]);
+	}
+}
@@ -317,7 +317,7 @@ public abstract class AbstractIndexMatrixProvider implements IIndexMatrixProvide
 			}
 			indexMatrix.commit(complete, gridResults);
 			System.out.println("IndexMatrixProviderListener.onBatchArrived(): indexMatrix.indexList.size()="
-					+ indexMatrix.getIndexList().size() + ", complete=" + complete);
+					+ indexMatrix.getPageCount() + ", complete=" + complete);
 			getIndexMatrixRegion().put(criteria.getId(), indexMatrix);
 		}
 
@@ -22,14 +22,17 @@ import java.lang.reflect.Method;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.io.FileUtils;
@@ -83,6 +86,8 @@ public class LuceneBuilder
 	private final static int PRECISION_STEP = 8;
 	private final static boolean isRamDirectory = PadoUtil.getBoolean("lucene.ramDirectory", false);
 	private final static int INDEX_BATCH_SIZE = PadoUtil.getInteger("lucene.builder.batch.size", 10000);
+	private final static int REBUILD_PARALLELISM = PadoUtil.getInteger("lucene.builder.parallelism", Runtime
+			.getRuntime().availableProcessors());
 	
 	private final static LuceneBuilder builder = new LuceneBuilder();
 	
@@ -96,6 +101,15 @@ public class LuceneBuilder
 		return builder;
 	}
 
+	/**
+	 * Returns true if Lucene indexes are kept in RAM directories stored in the
+	 * Lucene region rather than in the file system.
+	 */
+	public static boolean isRamDirectory()
+	{
+		return isRamDirectory;
+	}
+
 	private LuceneBuilder()
 	{
 		executorService = Executors.newCachedThreadPool(new ThreadFactory() {
@@ -791,7 +805,7 @@ public class LuceneBuilder
 
 		try {
 			byte[] blob = BlobHelper.serializeToBlob(tk);
-			doc.add(luceneField.createField("TemporalKey", blob));
+			luceneField.addTemporalKey(doc, blob);
 		} catch (IOException e) {
 			Logger.warning(e);
 		}
@@ -847,7 +861,7 @@ public class LuceneBuilder
 		doc.add(luceneField.createField("Username", tk.getUsername().toLowerCase()));
 		try {
 			byte[] blob = BlobHelper.serializeToBlob(tk);
-			doc.add(luceneField.createField("TemporalKey", blob));
+			luceneField.addTemporalKey(doc, blob);
 		} catch (IOException e) {
 			Logger.warning(e);
 		}
@@ -919,7 +933,7 @@ public class LuceneBuilder
 		doc.add(luceneField.createField("Username", tk.getUsername()));
 		try {
 			byte[] blob = BlobHelper.serializeToBlob(tk);
-			doc.add(luceneField.createField("TemporalKey", blob));
+			luceneField.addTemporalKey(doc, blob);
 		} catch (IOException e) {
 			Logger.warning(e);
 		}
@@ -959,7 +973,7 @@ public class LuceneBuilder
 		doc.add(luceneField.createField("Username", tk.getUsername()));
 		try {
 			byte[] blob = BlobHelper.serializeToBlob(tk);
-			doc.add(luceneField.createField("TemporalKey", blob));
+			luceneField.addTemporalKey(doc, blob);
 		} catch (IOException e) {
 			Logger.warning(e);
 		}
@@ -1057,6 +1071,199 @@ public class LuceneBuilder
 		writer.addDocument(doc);
 	}
 
+	/**
+	 * Rebuilds the Lucene indexes of the specified temporal lists by replacing
+	 * all of the documents in the specified writer. The temporal lists are
+	 * split into ranges that are indexed in parallel, each range flushed by
+	 * the writer into its own segments. Nothing is committed until all ranges
+	 * are done, so that the readers continue to search the previous commit
+	 * until the single commit at the end atomically replaces it. The caller is
+	 * responsible for rolling back the writer if this method throws an
+	 * exception, in which case the previous commit remains intact.
+	 * <p>
+	 * The number of threads is bounded by the property
+	 * "lucene.builder.parallelism", which defaults to the number of
+	 * processors.
+	 * 
+	 * @param writer
+	 *            Index writer of the temporal path
+	 * @param fullPath
+	 *            Temporal path
+	 * @param temporalLists
+	 *            Temporal lists to index
+	 * @return Number of documents indexed
+	 * @throws IOException
+	 *             Thrown if indexing fails
+	 */
+	public int rebuildTemporalIndexes(IndexWriter writer, String fullPath, Collection<ITemporalList> temporalLists)
+			throws IOException
+	{
+		// Deleted documents remain visible to readers until committed.
+		writer.deleteAll();
+
+		ITemporalList[] lists = temporalLists.toArray(new ITemporalList[temporalLists.size()]);
+		TemporalDocumentFactory factory = null;
+		for (ITemporalList tl : lists) {
+			TemporalEntry entry = tl.getLastEntry();
+			if (entry != null) {
+				factory = new TemporalDocumentFactory(fullPath, entry);
+				break;
+			}
+		}
+
+		int docCount = 0;
+		if (factory != null && factory.isIndexable()) {
+			int rangeCount = Math.max(1, Math.min(REBUILD_PARALLELISM, lists.length / INDEX_BATCH_SIZE + 1));
+			int rangeSize = (lists.length + rangeCount - 1) / rangeCount;
+			List<RebuildTask> taskList = new ArrayList<RebuildTask>(rangeCount);
+			for (int from = 0; from < lists.length; from += rangeSize) {
+				taskList.add(new RebuildTask(writer, factory, lists, from, Math.min(from + rangeSize, lists.length)));
+			}
+			try {
+				List<Future<Integer>> futureList = executorService.invokeAll(taskList);
+				for (Future<Integer> future : futureList) {
+					docCount += future.get();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException(fullPath + " - Lucene index rebuild interrupted", ex);
+			} catch (ExecutionException ex) {
+				throw new IOException(fullPath + " - Lucene index rebuild failed", ex.getCause());
+			}
+		}
+
+		// Atomically replace the previous commit
+		writer.commit();
+		return docCount;
+	}
+
+	/**
+	 * TemporalDocumentFactory creates Lucene documents for the temporal lists
+	 * of a single path. The document type, i.e., KeyMap, Map or POJO, is
+	 * determined by the first entry as in {@link TemporalBuilderTask}.
+	 */
+	private class TemporalDocumentFactory
+	{
+		final String fullPath;
+		KeyType keyType;
+		Set<Object> keySet;
+		Method[] attributeGetters;
+		boolean isIdentityKeyPrimitive;
+
+		TemporalDocumentFactory(String fullPath, TemporalEntry firstEntry)
+		{
+			this.fullPath = fullPath;
+			ITemporalData data = firstEntry.getTemporalData();
+			Object firstDataObject;
+			if (data instanceof GemfireTemporalData) {
+				firstDataObject = ((GemfireTemporalData) data).getValue();
+			} else {
+				firstDataObject = data;
+			}
+			if (firstDataObject instanceof KeyMap) {
+				keyType = ((KeyMap) firstDataObject).getKeyType();
+				if (keyType == null) {
+					keySet = ((Map) firstDataObject).keySet();
+				}
+			} else if (firstDataObject instanceof Map) {
+				keySet = ((Map) firstDataObject).keySet();
+			} else {
+				attributeGetters = ReflectionHelper.getAttributeGetters(data.getClass());
+			}
+			isIdentityKeyPrimitive = ReflectionHelper.isPrimitiveWrapper(firstEntry.getTemporalKey().getIdentityKey()
+					.getClass());
+		}
+
+		boolean isIndexable()
+		{
+			return keyType != null || keySet != null || (attributeGetters != null && attributeGetters.length > 0);
+		}
+
+		/**
+		 * Adds the documents of the specified temporal list to the specified
+		 * document list. KeyMap and Map objects are indexed for all entries
+		 * whereas POJOs are indexed for the last entry only.
+		 */
+		void addDocuments(StandardQueryParser parser, IndexWriter writer, ITemporalList tl, LuceneField luceneField,
+				SimpleDateFormat format, List<Document> docList) throws Exception
+		{
+			if (keyType != null || keySet != null) {
+				List<TemporalEntry> list = tl.getTemporalDataList().getTemporalList();
+				for (TemporalEntry entry : list) {
+					ITemporalData data = entry.getTemporalData();
+					Object value;
+					if (data instanceof GemfireTemporalData) {
+						value = ((GemfireTemporalData) data).getValue();
+					} else {
+						value = data;
+					}
+					if (keyType != null) {
+						KeyMap keyMap = (KeyMap) value;
+						KeyType kt = keyMap.getKeyType();
+						docList.add(createKeyMapDocument(parser, writer, entry.getTemporalKey(), data, -1, luceneField,
+								kt, keyMap, kt.getNameSet(), isIdentityKeyPrimitive, true, format));
+					} else {
+						docList.add(createMapDocument(parser, writer, entry.getTemporalKey(), data, luceneField,
+								(Map) value, keySet, isIdentityKeyPrimitive, format));
+					}
+				}
+			} else {
+				TemporalEntry entry = tl.getLastEntry();
+				if (entry != null) {
+					docList.add(createPojoDocument(parser, writer, entry.getTemporalKey(), entry.getTemporalData(),
+							-1, luceneField, attributeGetters, isIdentityKeyPrimitive, true, format));
+				}
+			}
+		}
+	}
+
+	/**
+	 * RebuildTask indexes a range of temporal lists without committing.
+	 * IndexWriter is thread safe and flushes the documents added by each
+	 * thread into separate segments.
+	 */
+	private class RebuildTask implements Callable<Integer>
+	{
+		final IndexWriter writer;
+		final TemporalDocumentFactory factory;
+		final ITemporalList[] lists;
+		final int fromIndex;
+		final int toIndex;
+
+		RebuildTask(IndexWriter writer, TemporalDocumentFactory factory, ITemporalList[] lists, int fromIndex,
+				int toIndex)
+		{
+			this.writer = writer;
+			this.factory = factory;
+			this.lists = lists;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		@Override
+		public Integer call() throws Exception
+		{
+			StandardQueryParser parser = LuceneSearch.getLuceneSearch(factory.fullPath).createParser();
+			LuceneField luceneField = new LuceneField();
+			SimpleDateFormat format = (SimpleDateFormat) DateTool.Resolution.DAY.format.clone();
+			List<Document> docList = new ArrayList<Document>(INDEX_BATCH_SIZE);
+			int docCount = 0;
+			for (int i = fromIndex; i < toIndex; i++) {
+				factory.addDocuments(parser, writer, lists[i], luceneField, format, docList);
+				if (docList.size() >= INDEX_BATCH_SIZE) {
+					writer.addDocuments(docList);
+					docCount += docList.size();
+					docList.clear();
+				}
+			}
+			if (docList.isEmpty() == false) {
+				writer.addDocuments(docList);
+				docCount += docList.size();
+			}
+			return docCount;
+		}
+	}
+
 	public void buildAll()
 	{
 		Logger.info("LuceneBuilder.buildAll() started");
@@ -22,6 +22,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -323,44 +324,33 @@ public class BaseMemberResultCollector implements IMemberResultCollector
 //			}
 //			System.out.println();
 			
-			long prevStartValidTime = -1;
-			for (int i = 0; i < returnSize; i++) {
-				Object lowestValue = null;
-				int lowestValueBucketId = -1;
-				// <bucketId, List>
-				for (Map.Entry<Integer, List> mapEntry : memberResultItemList.entrySet()) {
-					int cursor = cursors.get(mapEntry.getKey());
-					if (mapEntry.getValue().isEmpty() || mapEntry.getValue().size() <= cursor) {
-						continue;
-					}
-					Object element = mapEntry.getValue().get(cursor);
-					
-					// Internal comparators handles the sort order such that
-					// the following compare() call returns > if lowestValue 
-					// < element and sort order is descending.
-					if (lowestValue == null || compare(lowestValue, element) > 0) {
-						lowestValue = element;
-						lowestValueBucketId = mapEntry.getKey();
-					}
+			// k-way merge of the members' sorted runs. The heap contains
+			// the bucket IDs of the runs that have remaining elements ordered
+			// by their cursor elements.
+			final Map<Integer, Integer> heapCursors = cursors;
+			PriorityQueue<Integer> heap = new PriorityQueue<Integer>(Math.max(1, memberResultItemList.size()),
+					new Comparator<Integer>() {
+						public int compare(Integer bucketId1, Integer bucketId2)
+						{
+							Object element1 = memberResultItemList.get(bucketId1).get(heapCursors.get(bucketId1));
+							Object element2 = memberResultItemList.get(bucketId2).get(heapCursors.get(bucketId2));
+							return BaseMemberResultCollector.this.compare(element1, element2);
+						}
+					});
+			for (Map.Entry<Integer, List> mapEntry : memberResultItemList.entrySet()) {
+				if (mapEntry.getValue().isEmpty() == false) {
+					heap.add(mapEntry.getKey());
 				}
-				if (lowestValue == null) {
-					break;
-				} else {
-					int cursor = cursors.get(lowestValueBucketId);
-					cursors.put(lowestValueBucketId, ++cursor);
+			}
+			for (int i = 0; i < returnSize && heap.isEmpty() == false; i++) {
+				Integer bucketId = heap.poll();
+				List list = memberResultItemList.get(bucketId);
+				int cursor = cursors.get(bucketId);
+				sortedResults.add(list.get(cursor));
+				cursors.put(bucketId, ++cursor);
+				if (cursor < list.size()) {
+					heap.add(bucketId);
 				}
-				
-				// Debug only
-//				ResultItem ri = (ResultItem)lowestValue;
-//				ValueInfo vi = (ValueInfo)ri.getItem();
-//				TemporalEntry te = (TemporalEntry)vi.getValue();
-//				long startValidTime = te.getTemporalKey().getStartValidTime();
-//				if (prevStartValidTime != -1 && prevStartValidTime > startValidTime) {
-//					System.out.println(i + ". Error (while sorting) Previous: " + prevStartValidTime + ", Current: " + startValidTime);
-//				}
-//				prevStartValidTime = startValidTime;
-				
-				sortedResults.add(lowestValue);
 			}
 		}
 		mergedResults = sortedResults;
@@ -310,13 +310,13 @@ public class ClientResults<T> implements Serializable, IScrollableResultSet<T>
 			}
 		}
 		// IndexMatrix is complete or data is ready
-		if (indexMatrix.isComplete() || endIndex < indexMatrix.getIndexList().size()) {
+		if (indexMatrix.isComplete() || endIndex < indexMatrix.getPageCount()) {
 			return true;
 		} else {
 			if (!indexMatrix.isComplete()) {
 				getLogger().warning(
 						"IndexMatrix for :" + id + " incomplete: " + indexMatrix.isComplete()
-								+ ". The indexMatrix total size is : " + indexMatrix.getIndexList().size());
+								+ ". The indexMatrix total size is : " + indexMatrix.getPageCount());
 				return false;
 			} else
 				return true;
@@ -266,6 +266,14 @@ public class GemfireTemporalManager extends TemporalManager
 		Properties props = new Properties();
 		props.setProperty("fullPath", fullPath);
 		props.setProperty("luceneEnabled", Boolean.toString(isLuceneDynamic));
+		String temporalListClassName = PadoUtil.getPathProperty(Constants.PROP_TEMPORAL_LIST_CLASS, fullPath, null);
+		if (temporalListClassName != null) {
+			props.setProperty("temporalList.class", temporalListClassName);
+		}
+		props.setProperty("dispatcherWorkerCount",
+				PadoUtil.getPathProperty(Constants.PROP_TEMPORAL_DISPATCHER_WORKER_COUNT, fullPath, "1"));
+		props.setProperty("writtenTimeIndexBucketSize",
+				PadoUtil.getPathProperty(Constants.PROP_TEMPORAL_WRITTEN_TIME_INDEX_BUCKET_SIZE, fullPath, "0"));
 		temporalCacheListener.init(props);
 		rf.addCacheListener(temporalCacheListener);
 		paf.setPartitionResolver(new IdentityKeyPartitionResolver());
@@ -469,6 +477,23 @@ public class GemfireTemporalManager extends TemporalManager
 		return stats;
 	}
 
+	/**
+	 * Non-synchronized method for quick access to the temporal statistics.
+	 * 
+	 * @param fullPath
+	 *            The region path
+	 * @return Returns null if statistics are disabled or the TemporalManager
+	 *         is not registered for the specified region.
+	 */
+	public static TemporalStatistics getTemporalStatistics(String fullPath)
+	{
+		GemfireTemporalManager manager = (GemfireTemporalManager) managerMap.get(fullPath);
+		if (manager == null) {
+			return null;
+		}
+		return manager.stats;
+	}
+
 	public boolean isStatisticsEnabled()
 	{
 		return statsEnabled;
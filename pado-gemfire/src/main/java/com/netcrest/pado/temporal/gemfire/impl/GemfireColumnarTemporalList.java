@@ -0,0 +1,1070 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.cache.BucketRegion;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.internal.util.PadoUtil;
+import com.netcrest.pado.log.Logger;
+import com.netcrest.pado.temporal.ITemporalData;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.TemporalClientFactory;
+import com.netcrest.pado.temporal.TemporalDataList;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.TemporalInternalFactory;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.TemporalListFactory;
+import com.netcrest.pado.temporal.TemporalUtil;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalManager;
+
+/**
+ * GemfireColumnarTemporalList is a memory optimized alternative to
+ * {@link GemfireTemporalList}. Instead of keeping every version as an
+ * ITemporalKey object, it stores the version times in parallel primitive
+ * columns ({@link TemporalKeyColumns}) and materializes ITemporalKey objects
+ * only when they are returned or needed to look up the region. Binary searches
+ * read the times directly from the columns.
+ * <p>
+ * This class is selected per temporal path by setting the TemporalCacheListener
+ * property "temporalList.class" to the fully-qualified name of this class.
+ * <p>
+ * Like GemfireTemporalList, reads are lock-free. Readers search the
+ * columns snapshot they read from the volatile field while writers, serialized
+ * per temporal list, publish a new snapshot.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class GemfireColumnarTemporalList implements ITemporalList
+{
+	private static final int NOT_FOUND = TemporalKeyColumns.NOT_FOUND;
+
+	private String temporalName;
+	protected Region<ITemporalKey, ITemporalData> region;
+	protected Object identityKey;
+	private TemporalListFactory temporalListFactory;
+	private volatile ITemporalKey removedKey;
+
+	/**
+	 * lastKey is the last valid key in the temporal list. It is not
+	 * necessarily now-relative. See {@link GemfireTemporalList#lastKey}.
+	 */
+	protected volatile ITemporalKey lastKey;
+
+	/**
+	 * Snapshot of temporal key times in the temporal list order. A published
+	 * snapshot is never modified. All updates, including appends, are made to
+	 * a copy which is then published. Readers must read this field once per
+	 * operation.
+	 */
+	protected volatile TemporalKeyColumns columns;
+
+	/**
+	 * Delta chain checkpoints. null if disabled.
+	 */
+	private final TemporalDeltaCheckpoints checkpoints;
+
+	/**
+	 * Materialized entry of the last key. See
+	 * {@link GemfireTemporalList#getNowRelativeEntry()}.
+	 */
+	private volatile TemporalEntry nowRelativeEntry;
+
+	/**
+	 * Statistics of this list's path. Valid only if statsResolved is true.
+	 */
+	private TemporalStatistics stats;
+	private volatile boolean statsResolved;
+
+	public GemfireColumnarTemporalList(String temporalName, Object identityKey, String fullPath)
+	{
+		this.temporalName = temporalName;
+		this.identityKey = identityKey;
+		this.region = CacheFactory.getAnyInstance().getRegion(fullPath);
+		temporalListFactory = TemporalListFactory.getTemporalListFactory(this);
+		columns = new TemporalKeyColumns(1);
+		checkpoints = TemporalDeltaCheckpoints.create(fullPath);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName()
+	{
+		return temporalName;
+	}
+
+	/**
+	 * Returns a new temporal key materialized from the specified row.
+	 *
+	 * @param cols
+	 *            Columns snapshot
+	 * @param index
+	 *            Row index
+	 */
+	private ITemporalKey toTemporalKey(TemporalKeyColumns cols, int index)
+	{
+		try {
+			ITemporalKey tk = temporalListFactory.createTemporalKey(identityKey, cols.getStartValidTime(index),
+					cols.getEndValidTime(index), cols.getWrittenTime(index), cols.getUsername(index));
+			if (tk instanceof TemporalKey) {
+				((TemporalKey) tk).setEndWrittenTime(cols.getEndWrittenTime(index));
+			}
+			return tk;
+		} catch (Exception ex) {
+			Logger.error(ex);
+			return null;
+		}
+	}
+
+	private static boolean isSameTimes(TemporalKeyColumns cols, int index, ITemporalKey tkey)
+	{
+		return cols.getStartValidTime(index) == tkey.getStartValidTime()
+				&& cols.getEndValidTime(index) == tkey.getEndValidTime()
+				&& cols.getWrittenTime(index) == tkey.getWrittenTime();
+	}
+
+	/**
+	 * Returns a copy of the specified snapshot with room for one more row.
+	 * Appends are also copied as they would otherwise change the size and the
+	 * last row's end written time seen by the readers of the snapshot. The
+	 * copy is sized exactly to keep the per-list footprint small. Must be
+	 * invoked while holding the list lock.
+	 *
+	 * @param cols
+	 *            Current columns snapshot
+	 */
+	private static TemporalKeyColumns getWritableColumns(TemporalKeyColumns cols)
+	{
+		return cols.copy(cols.size() + 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int add(ITemporalKey tkey)
+	{
+		synchronized (this) {
+
+			// handle removed key or request
+			if (removedKey != null) {
+				return -1;
+			} else {
+				if (tkey.getStartValidTime() == -1 && tkey.getEndValidTime() == -1) {
+					return remove(tkey);
+				}
+			}
+
+			TemporalKeyColumns cols = this.columns;
+			int previousSize = cols.size();
+			int index;
+			if (cols.size() == 0) {
+				index = 0;
+				cols = getWritableColumns(cols);
+				cols.add(tkey.getStartValidTime(), tkey.getEndValidTime(), tkey.getWrittenTime(),
+						TemporalUtil.MAX_TIME, tkey.getUsername());
+			} else {
+				index = cols.binarySearchAddKey(tkey.getStartValidTime(), tkey.getWrittenTime());
+				if (index == NOT_FOUND) {
+					index = 0;
+					cols = getWritableColumns(cols);
+					cols.insert(index, tkey.getStartValidTime(), tkey.getEndValidTime(), tkey.getWrittenTime(),
+							TemporalUtil.MAX_TIME, tkey.getUsername());
+				} else {
+					int foundIndex = index;
+
+					// If the found key's written time is larger then the
+					// new key must be added above the found key.
+					if (cols.getStartValidTime(foundIndex) == tkey.getStartValidTime()) {
+						if (cols.getWrittenTime(foundIndex) > tkey.getWrittenTime()) {
+							index--;
+							foundIndex = index;
+						}
+					}
+					// If all of the times are same then replace. Duplicates can
+					// occur when class versions are changed (KeyMap) or simply
+					// user inputs keys with the same times.
+					if (foundIndex >= 0 && isSameTimes(cols, foundIndex, tkey)) {
+						cols = cols.copy(cols.capacity());
+						cols.set(index, tkey.getStartValidTime(), tkey.getEndValidTime(), tkey.getWrittenTime(),
+								cols.getEndWrittenTime(index), tkey.getUsername());
+					} else {
+						index++;
+						cols = getWritableColumns(cols);
+						cols.insert(index, tkey.getStartValidTime(), tkey.getEndValidTime(),
+								tkey.getWrittenTime(), TemporalUtil.MAX_TIME, tkey.getUsername());
+					}
+				}
+			}
+
+			// Update the previous and next end written times before publishing
+			int size = cols.size();
+			if (index > 0) {
+				cols.setEndWrittenTime(index - 1, tkey.getWrittenTime());
+			}
+			long endWrittenTime;
+			if (index + 1 < size) {
+				endWrittenTime = cols.getWrittenTime(index + 1);
+			} else {
+				endWrittenTime = TemporalUtil.MAX_TIME;
+			}
+			cols.setEndWrittenTime(index, endWrittenTime);
+			((TemporalKey) tkey).setEndWrittenTime(endWrittenTime);
+			if (index == size - 1) {
+				this.lastKey = tkey;
+			}
+			this.columns = cols;
+
+			// Appends keep the existing delta chains intact
+			if (checkpoints != null) {
+				if (size > previousSize && index == size - 1) {
+					checkpoints.appended(region, temporalListFactory, new KeyView(cols));
+				} else {
+					checkpoints.clear();
+				}
+			}
+			updateNowRelativeEntry();
+
+			return index;
+		}
+	}
+
+	/**
+	 * Rebuilds the now-relative entry if it has been read and the last key
+	 * has changed. Must be invoked by the writer while holding the list lock.
+	 */
+	private void updateNowRelativeEntry()
+	{
+		TemporalEntry entry = nowRelativeEntry;
+		if (entry == null || entry.getTemporalKey() == lastKey) {
+			return;
+		}
+		nowRelativeEntry = getLastEntry();
+		TemporalStatistics stats = getStatistics();
+		if (stats != null) {
+			stats.incNowRelativeCacheRebuildCount();
+		}
+	}
+
+	/**
+	 * Returns the statistics of this list's path or null if disabled. The
+	 * statistics are looked up until the temporal manager of the path has been
+	 * created.
+	 */
+	private TemporalStatistics getStatistics()
+	{
+		if (statsResolved == false) {
+			stats = GemfireTemporalManager.getTemporalStatistics(region.getFullPath());
+			statsResolved = stats != null || PadoUtil.isProperty(Constants.PROP_STATISTICS_ENABLED) == false;
+		}
+		return stats;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean contains(ITemporalKey tkey)
+	{
+		return getIndex(tkey) != NOT_FOUND;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIndex(ITemporalKey tkey)
+	{
+		return indexOf(this.columns, tkey);
+	}
+
+	private static int indexOf(TemporalKeyColumns cols, ITemporalKey tkey)
+	{
+		if (tkey == null) {
+			return NOT_FOUND;
+		}
+		return cols.indexOf(tkey.getStartValidTime(), tkey.getEndValidTime(), tkey.getWrittenTime());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getEndWrittenTime(ITemporalKey tkey)
+	{
+		TemporalKeyColumns cols = this.columns;
+		int index = indexOf(cols, tkey);
+		if (index == NOT_FOUND) {
+			return -1;
+		}
+		index++;
+		if (index >= cols.size()) {
+			return TemporalUtil.MAX_TIME;
+		}
+		return cols.getWrittenTime(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITemporalKey getTemporalKey(int index)
+	{
+		TemporalKeyColumns cols = this.columns;
+		if (index < 0 || index >= cols.size()) {
+			return null;
+		}
+		return toTemporalKey(cols, index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITemporalData getTemporalData(int index)
+	{
+		TemporalEntry entry = getTemporalEntry(index);
+		if (entry == null) {
+			return null;
+		}
+		return entry.getTemporalData();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry getTemporalEntry(int index)
+	{
+		TemporalKeyColumns cols = this.columns;
+		if (index < 0 || index >= cols.size()) {
+			return null;
+		}
+		ITemporalKey tk = toTemporalKey(cols, index);
+		if (tk == null) {
+			return null;
+		}
+		return createTemporalEntry(cols, tk, index);
+	}
+
+	/**
+	 * Returns the temporal entry of the specified key found at the specified
+	 * index. It applies deltas if the data is delta. Returns null if the data
+	 * is not found.
+	 */
+	private TemporalEntry createTemporalEntry(TemporalKeyColumns cols, ITemporalKey tk, int index)
+	{
+		ITemporalData data = region.get(tk);
+		if (data == null) {
+			return null;
+		}
+		ITemporalData base;
+		LinkedList<byte[]> deltaList = null;
+		if (data.__getTemporalValue().isDelta()) {
+			deltaList = new LinkedList<byte[]>();
+			deltaList.addFirst(data.__getTemporalValue().getSerializedData());
+			base = collectDeltas(cols, index - 1, deltaList);
+		} else {
+			base = data;
+			base.__getTemporalValue().setTemporalKey(tk);
+		}
+		if (base == null) {
+			return null;
+		}
+		try {
+			return TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(tk,
+					temporalListFactory.createTemporalData(base, deltaList));
+		} catch (Exception ex) {
+			Logger.error(ex);
+			return null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size()
+	{
+		return columns.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int addNowRelative(ITemporalKey tkey, String username)
+	{
+		try {
+			long writtenTime = System.currentTimeMillis();
+			ITemporalKey newKey = temporalListFactory.createTemporalKey(tkey.getIdentityKey(), tkey.getStartValidTime(),
+					tkey.getEndValidTime(), writtenTime, username);
+			return add(newKey);
+		} catch (Exception ex) {
+			Logger.error(ex);
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry getNowRelativeEntry()
+	{
+		if (removedKey != null) {
+			return null;
+		}
+		// Validate and build from the same key and snapshot. The writer
+		// publishes lastKey before columns, so the columns read after the key
+		// contain the key unless it has since been removed.
+		ITemporalKey key = lastKey;
+		if (key == null) {
+			return null;
+		}
+		TemporalKeyColumns cols = this.columns;
+		long currentTime = System.currentTimeMillis();
+		if (key.getStartValidTime() > currentTime || currentTime >= key.getEndValidTime()
+				|| currentTime <= key.getWrittenTime()) {
+			return null;
+		}
+		TemporalEntry entry = nowRelativeEntry;
+		TemporalStatistics stats = getStatistics();
+		if (entry != null && entry.getTemporalKey() == key) {
+			if (stats != null) {
+				stats.incNowRelativeCacheHitCount();
+			}
+			return entry;
+		}
+		entry = createEntry(cols, key);
+		if (entry != null) {
+			nowRelativeEntry = entry;
+		}
+		if (stats != null) {
+			stats.incNowRelativeCacheMissCount();
+		}
+		return entry;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry getFirstEntry()
+	{
+		TemporalKeyColumns cols = this.columns;
+		if (lastKey == null || cols.size() == 0) {
+			return null;
+		}
+		ITemporalKey firstKey = toTemporalKey(cols, 0);
+		if (firstKey == null) {
+			return null;
+		}
+		ITemporalData data = region.get(firstKey);
+		return TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(firstKey, data);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry getLastEntry()
+	{
+		ITemporalKey key = lastKey;
+		if (key == null) {
+			return null;
+		}
+		return createEntry(this.columns, key);
+	}
+
+	/**
+	 * Returns the entry of the specified key found in the specified snapshot.
+	 * Returns null if the key is not in the snapshot or has no data.
+	 *
+	 * @param cols
+	 *            Columns snapshot
+	 * @param key
+	 *            Temporal key
+	 */
+	private TemporalEntry createEntry(TemporalKeyColumns cols, ITemporalKey key)
+	{
+		int index = indexOf(cols, key);
+		if (index == NOT_FOUND) {
+			return null;
+		}
+		return createTemporalEntry(cols, key, index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry getValidAt(long validAtTime)
+	{
+		return getAsOf(validAtTime, -1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry<ITemporalKey, ITemporalData> getAsOf(long validAtTime, long asOfTime)
+	{
+		if (validAtTime == -1 && asOfTime == -1) {
+			return getNowRelativeEntry();
+		}
+		if (removedKey != null) {
+			return null;
+		}
+
+		TemporalKeyColumns cols = this.columns;
+		int size = cols.size();
+		if (size == 0) {
+			return null;
+		}
+		int asOfIndex;
+		if (asOfTime == -1) {
+			asOfIndex = cols.binarySearchValidAt(validAtTime);
+			asOfTime = System.currentTimeMillis();
+		} else {
+			asOfIndex = cols.binarySearchAsOf(validAtTime, asOfTime);
+		}
+		if (asOfIndex == NOT_FOUND) {
+			return null;
+		}
+
+		// Iterate the temporal list bottom-up to find the first valid record
+		for (int index = asOfIndex; index >= 0; index--) {
+
+			// if validAtTime is less than the start valid time then
+			// there are no valid records. break immediately.
+			if (cols.getStartValidTime(index) > validAtTime) {
+				break;
+			}
+
+			// find the first record that is valid and break
+			if (validAtTime < cols.getEndValidTime(index)) {
+				// asOfTime must fall in between this and next record
+				boolean found;
+				long writtenTime = cols.getWrittenTime(index);
+				if (index < size - 1) {
+					found = writtenTime <= asOfTime && asOfTime < cols.getWrittenTime(index + 1);
+				} else {
+					// last item
+					found = writtenTime < asOfTime;
+				}
+				if (found) {
+					ITemporalKey tk = toTemporalKey(cols, index);
+					if (tk == null) {
+						return null;
+					}
+					return createTemporalEntry(cols, tk, index);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TemporalEntry<ITemporalKey, ITemporalData> getWrttenTimeRange(long validAtTime, long fromWrittenTime,
+			long toWrittenTime)
+	{
+		if (validAtTime == -1 && fromWrittenTime == -1 && toWrittenTime == -1) {
+			return getNowRelativeEntry();
+		}
+		if (removedKey != null) {
+			return null;
+		}
+
+		if (fromWrittenTime == -1) {
+			fromWrittenTime = System.currentTimeMillis();
+		}
+		if (toWrittenTime == -1) {
+			toWrittenTime = System.currentTimeMillis();
+		}
+		TemporalKeyColumns cols = this.columns;
+		if (cols.size() == 0) {
+			return null;
+		}
+		int asOfIndex = cols.binarySearchWrittenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
+		if (asOfIndex == NOT_FOUND) {
+			return null;
+		}
+
+		// Iterate the temporal list bottom-up to find the first valid record
+		for (int index = asOfIndex; index >= 0; index--) {
+			if (cols.getStartValidTime(index) <= validAtTime) {
+				long writtenTime = cols.getWrittenTime(index);
+				if (validAtTime < cols.getEndValidTime(index) && fromWrittenTime <= writtenTime
+						&& writtenTime < toWrittenTime) {
+					ITemporalKey tk = toTemporalKey(cols, index);
+					if (tk != null) {
+						return createTemporalEntry(cols, tk, index);
+					}
+				}
+				break;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<TemporalEntry<ITemporalKey, ITemporalData>> getHistoryWrttenTimeRange(long validAtTime,
+			long fromWrittenTime, long toWrittenTime)
+	{
+		if (validAtTime == -1 && fromWrittenTime == -1 && toWrittenTime == -1) {
+			TemporalEntry<ITemporalKey, ITemporalData> te = getNowRelativeEntry();
+			if (te == null) {
+				return null;
+			} else {
+				return Collections.singletonList(te);
+			}
+		}
+		if (removedKey != null) {
+			return null;
+		}
+
+		if (fromWrittenTime == -1) {
+			fromWrittenTime = System.currentTimeMillis();
+		}
+		if (toWrittenTime == -1) {
+			toWrittenTime = System.currentTimeMillis();
+		}
+		TemporalKeyColumns cols = this.columns;
+		if (cols.size() == 0) {
+			return null;
+		}
+		int asOfIndex = cols.binarySearchWrittenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
+		if (asOfIndex == NOT_FOUND) {
+			return null;
+		}
+
+		// Iterate the temporal list bottom-up to find all valid records
+		List<TemporalEntry<ITemporalKey, ITemporalData>> list = new ArrayList<TemporalEntry<ITemporalKey, ITemporalData>>();
+		for (int index = asOfIndex; index >= 0; index--) {
+			long writtenTime = cols.getWrittenTime(index);
+			if (cols.getStartValidTime(index) <= validAtTime && validAtTime < cols.getEndValidTime(index)
+					&& fromWrittenTime <= writtenTime && writtenTime < toWrittenTime) {
+				ITemporalKey tk = toTemporalKey(cols, index);
+				if (tk == null) {
+					return null;
+				}
+				TemporalEntry entry = createTemporalEntry(cols, tk, index);
+				if (entry != null) {
+					list.add(entry);
+				}
+			} else {
+				break;
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<ITemporalKey, ITemporalData> getAllValidAt(long validAtTime)
+	{
+		if (removedKey != null) {
+			return null;
+		}
+		// startValidTime <= validAt < endValidTime
+		if (validAtTime < 0) {
+			validAtTime = System.currentTimeMillis();
+		}
+		TemporalKeyColumns cols = this.columns;
+		int size = cols.size();
+		HashMap<ITemporalKey, ITemporalData> map = new HashMap<ITemporalKey, ITemporalData>(size);
+		for (int i = 0; i < size; i++) {
+			if (cols.getStartValidTime(i) <= validAtTime && validAtTime < cols.getEndValidTime(i)) {
+				ITemporalKey key = toTemporalKey(cols, i);
+				if (key != null) {
+					map.put(key, region.get(key));
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Set<TemporalEntry<ITemporalKey, ITemporalData>> getAllAsOfEntrySet(long validAtTime, long asOfTime)
+	{
+		if (removedKey != null) {
+			return null;
+		}
+		// startValidTime <= validAt < endValidTime
+		if (validAtTime < 0) {
+			validAtTime = System.currentTimeMillis();
+		}
+		if (asOfTime < 0) {
+			asOfTime = System.currentTimeMillis();
+		}
+		TemporalKeyColumns cols = this.columns;
+		int size = cols.size();
+		TreeSet<TemporalEntry<ITemporalKey, ITemporalData>> set = new TreeSet();
+		for (int i = 0; i < size; i++) {
+			if (cols.getStartValidTime(i) <= validAtTime && validAtTime < cols.getEndValidTime(i)
+					&& asOfTime >= cols.getWrittenTime(i)) {
+				ITemporalKey key = toTemporalKey(cols, i);
+				if (key != null) {
+					set.add(TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(key,
+							region.get(key)));
+				}
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Returns the base object and fills the specified linked list with the
+	 * delta objects found above the base object starting from the specified
+	 * index. The returned base object is the actual reference to the base
+	 * object in the cache and therefore in-place modification must NOT be
+	 * performed. The walk stops at the nearest delta checkpoint if enabled.
+	 *
+	 * @param cols
+	 *            Columns snapshot
+	 * @param index
+	 *            Index of the first row to search for the base object
+	 * @param deltaList
+	 *            Delta list to which the deltas are prepended
+	 */
+	private ITemporalData collectDeltas(TemporalKeyColumns cols, int index, LinkedList<byte[]> deltaList)
+	{
+		return TemporalDeltaCheckpoints.collectDeltas(region, new KeyView(cols), index, deltaList, checkpoints);
+	}
+
+	/**
+	 * Read-only list view of the temporal keys of a columns snapshot. Keys are
+	 * materialized on access.
+	 */
+	private class KeyView extends AbstractList<ITemporalKey> implements RandomAccess
+	{
+		private final TemporalKeyColumns cols;
+
+		KeyView(TemporalKeyColumns cols)
+		{
+			this.cols = cols;
+		}
+
+		@Override
+		public ITemporalKey get(int index)
+		{
+			return toTemporalKey(cols, index);
+		}
+
+		@Override
+		public int size()
+		{
+			return cols.size();
+		}
+	}
+
+	public ITemporalKey invalidate(long endValidTime, long writtenTime, String username)
+	{
+		if (removedKey != null) {
+			return null;
+		}
+
+		synchronized (this) {
+
+			// If the temporal list is empty then nothing to invalidate. Return
+			// immediately.
+			TemporalKeyColumns cols = this.columns;
+			long startValidTime = 0;
+			int lastIndex = cols.size() - 1;
+			if (lastIndex < 0) {
+				return null;
+			}
+
+			// Find the last record in the temporal list
+			for (int index = lastIndex; index >= 0; index--) {
+				if (cols.getStartValidTime(index) <= endValidTime && endValidTime <= cols.getEndValidTime(index)
+						&& cols.getWrittenTime(index) <= writtenTime) {
+					startValidTime = cols.getStartValidTime(index);
+					break;
+				}
+			}
+
+			ITemporalKey tk = null;
+			try {
+				tk = temporalListFactory.createTemporalKey(identityKey, startValidTime, endValidTime, writtenTime,
+						username);
+				region.put(tk, TemporalClientFactory.getTemporalClientFactory().createTemporalData(tk, null));
+			} catch (Exception ex) {
+				Logger.error(ex);
+			}
+			return tk;
+		}
+	}
+
+	public ITemporalKey invalidateNowRelative(long endValidTime, String username)
+	{
+		return invalidate(endValidTime, System.currentTimeMillis(), username);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int remove(ITemporalKey rkey)
+	{
+		if (rkey == null) {
+			return -1;
+		}
+		if (rkey.getStartValidTime() != -1 && rkey.getEndValidTime() != -1) {
+			return -1;
+		}
+		synchronized (this) {
+			if (removedKey != null) {
+				return -1;
+			}
+
+			// Add the removed key at the end of the temporal list.
+			// Once removed, the temporal list cannot be searched by valid-at
+			// and as-of. Note that lastKey is not updated. The "removed"
+			// marker cannot be the last key.
+			TemporalKeyColumns cols = this.columns;
+			cols = getWritableColumns(cols);
+			cols.add(rkey.getStartValidTime(), rkey.getEndValidTime(), rkey.getWrittenTime(),
+					TemporalUtil.MAX_TIME, rkey.getUsername());
+			this.removedKey = rkey;
+			this.columns = cols;
+			this.nowRelativeEntry = null;
+			return cols.size() - 1;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove(String username)
+	{
+		if (removedKey != null) {
+			return;
+		}
+		try {
+			ITemporalKey tkey = temporalListFactory.createTemporalKey(identityKey, -1, -1, System.currentTimeMillis(),
+					username);
+			region.put(tkey, TemporalClientFactory.getTemporalClientFactory().createTemporalData(tkey, null));
+		} catch (Exception ex) {
+			Logger.error(ex);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITemporalData removePermanently(ITemporalKey removeKey)
+	{
+		if (removeKey == null) {
+			return null;
+		}
+		ITemporalData td = region.remove(removeKey);
+
+		// Readers hold their own snapshots. Remove the row from a copy and
+		// publish it.
+		synchronized (this) {
+			TemporalKeyColumns cols = this.columns;
+			int index = indexOf(cols, removeKey);
+			if (index != NOT_FOUND) {
+				cols = cols.copy(cols.capacity());
+				cols.remove(index);
+				if (index > 0) {
+					long endWrittenTime = index < cols.size() ? cols.getWrittenTime(index)
+							: TemporalUtil.MAX_TIME;
+					cols.setEndWrittenTime(index - 1, endWrittenTime);
+				}
+				ITemporalKey key = lastKey;
+				if (key != null && key.getWrittenTime() == removeKey.getWrittenTime()
+						&& key.getStartValidTime() == removeKey.getStartValidTime()
+						&& key.getEndValidTime() == removeKey.getEndValidTime()) {
+					int lastIndex = cols.size() - 1;
+					if (removedKey != null) {
+						lastIndex--;
+					}
+					lastKey = lastIndex < 0 ? null : toTemporalKey(cols, lastIndex);
+				}
+				this.columns = cols;
+				if (checkpoints != null) {
+					checkpoints.clear();
+				}
+				updateNowRelativeEntry();
+			}
+			return td;
+		}
+	}
+
+	/**
+	 * Returns the estimated number of bytes occupied by the temporal key
+	 * columns of this temporal list.
+	 */
+	public long getMemorySize()
+	{
+		return columns.getMemorySize();
+	}
+
+	public void dump()
+	{
+		synchronized (this) {
+			System.out.println();
+			System.out.println("=====================================================");
+			System.out.println("   IdentityKey = " + identityKey);
+			System.out.println("   Last value = " + getLastEntry());
+
+			TemporalKeyColumns cols = this.columns;
+			int curSize = cols.size();
+			if (curSize == 0) {
+				System.out.println("   TemporalList empty");
+			} else {
+				String sv, ev;
+				System.out.println("   IdentityKey  StartValid  EndValidTime  WrittenTime  Value");
+				System.out.println("   -----------  ----------  ------------  -----------  -----");
+				for (int i = 0; i < curSize; i++) {
+					long startValidTime = cols.getStartValidTime(i);
+					long endValidTime = cols.getEndValidTime(i);
+					if (startValidTime >= TemporalUtil.MAX_TIME) {
+						sv = "&";
+					} else {
+						sv = startValidTime + "";
+					}
+					if (endValidTime >= TemporalUtil.MAX_TIME) {
+						ev = "&";
+					} else {
+						ev = endValidTime + "";
+					}
+					System.out.println("   " + identityKey + "  " + sv + "  " + ev + "  " + cols.getWrittenTime(i)
+							+ "  " + toTemporalKey(cols, i));
+				}
+			}
+			System.out.println("=====================================================");
+			System.out.println();
+		}
+	}
+
+	private static final SimpleDateFormat iso8601DateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+	static {
+		iso8601DateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+	}
+
+	public void dumpAll(FileWriter writer, char delimiter) throws IOException
+	{
+		synchronized (this) {
+			TemporalKeyColumns cols = this.columns;
+			int curSize = cols.size();
+			for (int i = 0; i < curSize; i++) {
+				writer.write(delimiter);
+				writer.write(iso8601DateFormat.format(new Date(cols.getStartValidTime(i))));
+				writer.write(delimiter);
+				writer.write(iso8601DateFormat.format(new Date(cols.getEndValidTime(i))));
+				writer.write(delimiter);
+				writer.write(iso8601DateFormat.format(new Date(cols.getWrittenTime(i))));
+				writer.write(delimiter);
+				writer.write(cols.getUsername(i));
+				writer.write(delimiter);
+			}
+		}
+	}
+
+	public TemporalDataList getTemporalDataList()
+	{
+		TemporalEntry lastDataEntry = getLastEntry();
+		TemporalKeyColumns cols = this.columns;
+		int curSize = cols.size();
+		ArrayList entryList = new ArrayList(curSize);
+		for (int i = 0; i < curSize; i++) {
+			ITemporalKey tk = toTemporalKey(cols, i);
+			if (tk != null) {
+				ITemporalData data = region.get(tk);
+				entryList.add(TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(tk, data));
+			}
+		}
+		PartitionedRegion pr = (PartitionedRegion) region;
+		int bucketId = -1;
+		if (lastDataEntry != null) {
+			BucketRegion br = pr.getBucketRegion(lastDataEntry.getTemporalKey());
+			bucketId = br.getId();
+		}
+		String memberId = pr.getCache().getDistributedSystem().getMemberId();
+		String memberName = pr.getCache().getName();
+		String host = pr.getCache().getDistributedSystem().getDistributedMember().getHost();
+		return TemporalInternalFactory.getTemporalInternalFactory().createTemporalDataList(identityKey, lastDataEntry,
+				entryList, bucketId, memberId, memberName, host, pr.getFullPath());
+	}
+
+	public Region getRegion()
+	{
+		return region;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRemoved(long asOfTime)
+	{
+		ITemporalKey key = removedKey;
+		if (key == null) {
+			return false;
+		}
+		return asOfTime > key.getWrittenTime();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRemoved()
+	{
+		return removedKey != null;
+	}
+}
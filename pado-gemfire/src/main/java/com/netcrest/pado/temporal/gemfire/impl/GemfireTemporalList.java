@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +33,8 @@ import com.gemstone.gemfire.cache.CacheFactory;
 import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.cache.BucketRegion;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.internal.util.PadoUtil;
 import com.netcrest.pado.log.Logger;
 import com.netcrest.pado.temporal.ITemporalData;
 import com.netcrest.pado.temporal.ITemporalKey;
@@ -45,11 +46,19 @@ import com.netcrest.pado.temporal.TemporalInternalFactory;
 import com.netcrest.pado.temporal.TemporalKey;
 import com.netcrest.pado.temporal.TemporalListFactory;
 import com.netcrest.pado.temporal.TemporalUtil;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalManager;
 
 /**
  * TemporalList contains a complete history of updates made via temporal
  * operations, namely, put, invalid, and remove. It is maintained by
  * TemporalCacheListener in real-time.
+ * <p>
+ * Reads are lock-free. The temporal keys are kept in an immutable
+ * {@link TemporalKeyList} snapshot that is published via a volatile field.
+ * Readers take the current snapshot once and search it without locking while
+ * writers, serialized per temporal list (i.e., per identity key), build and
+ * publish a new snapshot. Appends share the previous snapshot's array so that
+ * the common case of adding the latest version does not copy the list.
  * 
  * @author dpark
  * 
@@ -65,7 +74,7 @@ public class GemfireTemporalList implements ITemporalList
 	protected Region<ITemporalKey, ITemporalData> region;
 	protected Object identityKey;
 	private TemporalListFactory temporalListFactory;
-	private ITemporalKey removedKey;
+	private volatile ITemporalKey removedKey;
 
 	/**
 	 * lastKey is the last key in the temporal list. It is important to note
@@ -81,9 +90,28 @@ public class GemfireTemporalList implements ITemporalList
 	protected volatile ITemporalKey lastKey;
 
 	/**
-	 * List of temporal keys in the temporal list
+	 * Snapshot of temporal keys in the temporal list. Never modified in place.
+	 * Writers must publish a new snapshot while holding the list lock.
 	 */
-	protected volatile ArrayList<ITemporalKey> keyList;
+	protected volatile TemporalKeyList keyList = TemporalKeyList.EMPTY;
+
+	/**
+	 * Delta chain checkpoints. null if disabled.
+	 */
+	private final TemporalDeltaCheckpoints checkpoints;
+
+	/**
+	 * Materialized entry of the last key. It is current only if its temporal
+	 * key is lastKey. Rebuilt by writers once read, so that the now-relative
+	 * reads of frequently queried lists do not access the region.
+	 */
+	private volatile TemporalEntry nowRelativeEntry;
+
+	/**
+	 * Statistics of this list's path. Valid only if statsResolved is true.
+	 */
+	private TemporalStatistics stats;
+	private volatile boolean statsResolved;
 
 	public GemfireTemporalList(String temporalName, Object identityKey, String fullPath)
 	{
@@ -91,6 +119,7 @@ public class GemfireTemporalList implements ITemporalList
 		this.identityKey = identityKey;
 		this.region = CacheFactory.getAnyInstance().getRegion(fullPath);
 		temporalListFactory = TemporalListFactory.getTemporalListFactory(this);
+		checkpoints = TemporalDeltaCheckpoints.create(fullPath);
 	}
 
 	/**
@@ -119,30 +148,30 @@ public class GemfireTemporalList implements ITemporalList
 				}
 			}
 
-			ArrayList<ITemporalKey> currentList = this.keyList;
-			if (currentList == null) {
-				ArrayList<ITemporalKey> tmp = new ArrayList<ITemporalKey>(1);
-				tmp.add(tkey);
-				this.keyList = tmp;
+			TemporalKeyList currentList = this.keyList;
+			if (currentList.size() == 0) {
+				TemporalKeyList tmp = currentList.append(tkey);
 				this.lastKey = tkey;
+				this.keyList = tmp;
+				if (checkpoints != null) {
+					checkpoints.clear();
+				}
+				updateNowRelativeEntry();
 				return tmp.size() - 1;
 			}
 
-			// never modify in place - obsolete due to synchronization
-			// int curSize = currentList.size();
-			// ArrayList<ITemporalKey> tmp = new ArrayList<ITemporalKey>(curSize
-			// + 1);
-			// tmp.addAll(currentList);
-			ArrayList<ITemporalKey> tmp = keyList;
-			int index = binarySearch_addKey(tmp, tkey.getStartValidTime(), tkey.getWrittenTime());
+			// never modify in place - readers may be searching currentList.
+			// Appends share the array without copying.
+			TemporalKeyList tmp;
+			int index = binarySearch_addKey(currentList, tkey.getStartValidTime(), tkey.getWrittenTime());
 
 			if (index == NOT_FOUND) {
 
 				index = 0;
-				tmp.add(index, tkey);
+				tmp = currentList.insert(index, tkey);
 
 			} else {
-				ITemporalKey foundKey = tmp.get(index);
+				ITemporalKey foundKey = currentList.get(index);
 
 				// If the found key's written time is larger then the
 				// new key must be added above the found key.
@@ -152,7 +181,7 @@ public class GemfireTemporalList implements ITemporalList
 						if (index < 0) {
 							foundKey = null;
 						} else {
-							foundKey = tmp.get(index);
+							foundKey = currentList.get(index);
 						}
 					}
 				}
@@ -162,32 +191,72 @@ public class GemfireTemporalList implements ITemporalList
 				if (foundKey != null && foundKey.getStartValidTime() == tkey.getStartValidTime()
 						&& foundKey.getEndValidTime() == tkey.getEndValidTime()
 						&& foundKey.getWrittenTime() == tkey.getWrittenTime()) {
-					tmp.set(index, tkey);
+					tmp = currentList.replace(index, tkey);
 				} else {
 					index++;
-					tmp.add(index, tkey);
+					tmp = currentList.insert(index, tkey);
 				}
 
 			}
-			this.lastKey = tmp.get(tmp.size() - 1);
-			this.keyList = tmp;
 
-			// Update the previous and next end written times
-			ITemporalKey prevKey = getTemporalKey(index - 1);
-			if (prevKey != null) {
-				((TemporalKey) prevKey).setEndWrittenTime(tkey.getWrittenTime());
+			// Update the previous and next end written times before publishing
+			if (index > 0) {
+				((TemporalKey) tmp.get(index - 1)).setEndWrittenTime(tkey.getWrittenTime());
 			}
-			ITemporalKey nextKey = getTemporalKey(index + 1);
-			if (nextKey != null) {
-				((TemporalKey) tkey).setEndWrittenTime(nextKey.getWrittenTime());
+			if (index + 1 < tmp.size()) {
+				((TemporalKey) tkey).setEndWrittenTime(tmp.get(index + 1).getWrittenTime());
 			} else {
 				((TemporalKey) tkey).setEndWrittenTime(TemporalUtil.MAX_TIME);
 			}
 
+			this.lastKey = tmp.getLast();
+			this.keyList = tmp;
+
+			// Appends keep the existing delta chains intact
+			if (checkpoints != null) {
+				if (tmp.size() > currentList.size() && index == tmp.size() - 1) {
+					checkpoints.appended(region, temporalListFactory, tmp);
+				} else {
+					checkpoints.clear();
+				}
+			}
+			updateNowRelativeEntry();
+
 			return index;
 		}
 	}
 
+	/**
+	 * Rebuilds the now-relative entry if it has been read and the last key
+	 * has changed. Must be invoked by the writer while holding the list lock.
+	 */
+	private void updateNowRelativeEntry()
+	{
+		TemporalEntry entry = nowRelativeEntry;
+		if (entry == null || entry.getTemporalKey() == lastKey) {
+			return;
+		}
+		nowRelativeEntry = getLastEntry();
+		TemporalStatistics stats = getStatistics();
+		if (stats != null) {
+			stats.incNowRelativeCacheRebuildCount();
+		}
+	}
+
+	/**
+	 * Returns the statistics of this list's path or null if disabled. The
+	 * statistics are looked up until the temporal manager of the path has been
+	 * created.
+	 */
+	private TemporalStatistics getStatistics()
+	{
+		if (statsResolved == false) {
+			stats = GemfireTemporalManager.getTemporalStatistics(region.getFullPath());
+			statsResolved = stats != null || PadoUtil.isProperty(Constants.PROP_STATISTICS_ENABLED) == false;
+		}
+		return stats;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -212,7 +281,7 @@ public class GemfireTemporalList implements ITemporalList
 	@Override
 	public long getEndWrittenTime(ITemporalKey tkey)
 	{
-		ArrayList<ITemporalKey> currentList = keyList;
+		TemporalKeyList currentList = keyList;
 		int index = currentList.indexOf(tkey);
 		if (index == -1) {
 			return -1;
@@ -231,7 +300,7 @@ public class GemfireTemporalList implements ITemporalList
 	@Override
 	public ITemporalKey getTemporalKey(int index)
 	{
-		ArrayList<ITemporalKey> currentList = keyList;
+		TemporalKeyList currentList = keyList;
 		if (index < 0 || index >= currentList.size()) {
 			return null;
 		}
@@ -257,7 +326,7 @@ public class GemfireTemporalList implements ITemporalList
 	@Override
 	public TemporalEntry getTemporalEntry(int index)
 	{
-		ArrayList<ITemporalKey> kl = keyList;
+		TemporalKeyList kl = keyList;
 		if (index < 0 || index >= kl.size()) {
 			return null;
 		}
@@ -330,14 +399,33 @@ public class GemfireTemporalList implements ITemporalList
 		if (removedKey != null) {
 			return null;
 		}
-		if (lastKey == null) {
+		// Validate and build from the same snapshot. The last key may change
+		// at any time.
+		TemporalKeyList currentList = keyList;
+		ITemporalKey key = currentList.getLast();
+		if (key == null) {
 			return null;
 		}
-		TemporalEntry entry = null;
 		long currentTime = System.currentTimeMillis();
-		if (lastKey.getStartValidTime() <= currentTime && currentTime < lastKey.getEndValidTime()
-				&& currentTime > lastKey.getWrittenTime()) {
-			entry = getLastEntry();
+		if (key.getStartValidTime() > currentTime || currentTime >= key.getEndValidTime()
+				|| currentTime <= key.getWrittenTime()) {
+			return null;
+		}
+		TemporalEntry entry = nowRelativeEntry;
+		TemporalStatistics stats = getStatistics();
+		if (entry != null && entry.getTemporalKey() == key) {
+			if (stats != null) {
+				stats.incNowRelativeCacheHitCount();
+			}
+			return entry;
+		}
+
+		entry = createEntry(currentList, currentList.size() - 1);
+		if (entry != null) {
+			nowRelativeEntry = entry;
+		}
+		if (stats != null) {
+			stats.incNowRelativeCacheMissCount();
 		}
 		return entry;
 	}
@@ -352,7 +440,7 @@ public class GemfireTemporalList implements ITemporalList
 			return null;
 		}
 		TemporalEntry entry = null;
-		ArrayList<ITemporalKey> currentList = keyList;
+		TemporalKeyList currentList = keyList;
 		if (currentList.size() > 0) {
 			ITemporalKey firstKey = currentList.get(0);
 			ITemporalData data = region.get(firstKey);
@@ -367,24 +455,37 @@ public class GemfireTemporalList implements ITemporalList
 	@Override
 	public TemporalEntry getLastEntry()
 	{
-		if (lastKey == null) {
+		TemporalKeyList currentList = keyList;
+		if (currentList.size() == 0) {
 			return null;
 		}
+		return createEntry(currentList, currentList.size() - 1);
+	}
+
+	/**
+	 * Returns the entry of the key at the specified index of the specified
+	 * snapshot. Delta values are applied up to the key. Returns null if the
+	 * key has no data.
+	 * 
+	 * @param currentList
+	 *            Temporal key snapshot
+	 * @param index
+	 *            Index of the key in the snapshot
+	 */
+	private TemporalEntry createEntry(TemporalKeyList currentList, int index)
+	{
+		ITemporalKey key = currentList.get(index);
 		TemporalEntry entry = null;
-		ITemporalData data = region.get(lastKey);
+		ITemporalData data = region.get(key);
 		if (data != null) {
-			data.__getTemporalValue().setTemporalKey(lastKey);
-			ITemporalData base = null;
+			data.__getTemporalValue().setTemporalKey(key);
 			LinkedList<byte[]> deltaList = null;
-			if (data != null) {
-				if (data.__getTemporalValue().isDelta()) {
-					ArrayList<ITemporalKey> currentList = this.keyList;
-					deltaList = new LinkedList<byte[]>();
-					data = collectDeltas(currentList, currentList.size() - 1, deltaList);
-				}
+			if (data.__getTemporalValue().isDelta()) {
+				deltaList = new LinkedList<byte[]>();
+				data = collectDeltas(currentList, index, deltaList);
 			}
 			try {
-				entry = TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(lastKey,
+				entry = TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(key,
 						temporalListFactory.createTemporalData(data, deltaList));
 			} catch (Exception ex) {
 				Logger.error(ex);
@@ -426,7 +527,7 @@ public class GemfireTemporalList implements ITemporalList
 		// if (asOfTime == -1) {
 		// asOfTime = System.currentTimeMillis();
 		// }
-		ArrayList<ITemporalKey> currentList = this.keyList;
+		TemporalKeyList currentList = this.keyList;
 		if (currentList == null) {
 			return null;
 		}
@@ -529,7 +630,7 @@ public class GemfireTemporalList implements ITemporalList
 		if (toWrittenTime == -1) {
 			toWrittenTime = System.currentTimeMillis();
 		}
-		ArrayList<ITemporalKey> currentList = this.keyList;
+		TemporalKeyList currentList = this.keyList;
 		if (currentList == null) {
 			return null;
 		}
@@ -657,7 +758,7 @@ public class GemfireTemporalList implements ITemporalList
 		if (toWrittenTime == -1) {
 			toWrittenTime = System.currentTimeMillis();
 		}
-		ArrayList<ITemporalKey> currentList = this.keyList;
+		TemporalKeyList currentList = this.keyList;
 		if (currentList == null) {
 			return null;
 		}
@@ -735,7 +836,7 @@ public class GemfireTemporalList implements ITemporalList
 		if (validAtTime < 0) {
 			validAtTime = System.currentTimeMillis();
 		}
-		ArrayList<ITemporalKey> currentList = this.keyList;
+		TemporalKeyList currentList = this.keyList;
 		HashMap<ITemporalKey, ITemporalData> map = new HashMap<ITemporalKey, ITemporalData>(currentList.size());
 		for (ITemporalKey key : currentList) {
 			if (key.getStartValidTime() <= validAtTime && validAtTime < key.getEndValidTime()) {
@@ -761,7 +862,7 @@ public class GemfireTemporalList implements ITemporalList
 		if (asOfTime < 0) {
 			asOfTime = System.currentTimeMillis();
 		}
-		ArrayList<ITemporalKey> currentList = this.keyList;
+		TemporalKeyList currentList = this.keyList;
 		TreeSet<TemporalEntry<ITemporalKey, ITemporalData>> set = new TreeSet();
 		for (ITemporalKey key : currentList) {
 			if (key.getStartValidTime() <= validAtTime && validAtTime < key.getEndValidTime()) {
@@ -780,27 +881,18 @@ public class GemfireTemporalList implements ITemporalList
 	 * expected to apply the delta objects to the base object to obtain the
 	 * complete object. The returned base object is the actual reference to the
 	 * base object in the cache and therefore in-place modification must NOT be
-	 * performed. Always copy the base object if modification is desired.
+	 * performed. Always copy the base object if modification is desired. The
+	 * walk stops at the nearest delta checkpoint if enabled.
 	 * 
 	 * @param temporalKeyList
 	 * @param index
 	 * @param deltaList
+	 * @see TemporalDeltaCheckpoints
 	 */
-	private ITemporalData collectDeltas(ArrayList<ITemporalKey> temporalKeyList, int index,
+	private ITemporalData collectDeltas(List<ITemporalKey> temporalKeyList, int index,
 			LinkedList<byte[]> deltaList)
 	{
-		if (index < 0) {
-			return null;
-		}
-		ITemporalKey key = temporalKeyList.get(index);
-		ITemporalData data = region.get(key);
-		data.__getTemporalValue().setTemporalKey(key);
-		if (data != null && data.__getTemporalValue().isDelta()) {
-			deltaList.addFirst(data.__getTemporalValue().getSerializedData());
-			index--;
-			data = collectDeltas(temporalKeyList, index, deltaList);
-		}
-		return data;
+		return TemporalDeltaCheckpoints.collectDeltas(region, temporalKeyList, index, deltaList, checkpoints);
 	}
 
 	public void invalidate(ITemporalKey tkey)
@@ -817,7 +909,7 @@ public class GemfireTemporalList implements ITemporalList
 
 		// copy-on-write
 		synchronized (this) {
-			ArrayList<ITemporalKey> currentList = this.keyList;
+			TemporalKeyList currentList = this.keyList;
 			ITemporalKey key;
 			long startValidTime = 0;
 			int lastIndex = currentList.size() - 1;
@@ -825,11 +917,9 @@ public class GemfireTemporalList implements ITemporalList
 				return;
 			}
 
-			// copy-on-write
-			ArrayList<ITemporalKey> tmp = new ArrayList<ITemporalKey>(currentList);
 			int index;
 			for (index = lastIndex; index >= 0; index--) {
-				key = tmp.get(index);
+				key = currentList.get(index);
 				if (key.getStartValidTime() <= endValidTime && endValidTime < key.getEndValidTime()
 						&& key.getWrittenTime() <= writtenTime) {
 					startValidTime = key.getStartValidTime();
@@ -845,8 +935,8 @@ public class GemfireTemporalList implements ITemporalList
 				// Must insert after the found record. Increment the index for
 				// insertion
 				index++;
-				tmp.add(index, tkey);
-				lastKey = tmp.get(tmp.size() - 1);
+				TemporalKeyList tmp = currentList.insert(index, tkey);
+				lastKey = tmp.getLast();
 				this.keyList = tmp;
 			} catch (Exception ex) {
 				Logger.error(ex);
@@ -864,7 +954,7 @@ public class GemfireTemporalList implements ITemporalList
 
 			// If the temporal list is empty then nothing to invalidate. Return
 			// immediately.
-			ArrayList<ITemporalKey> currentList = this.keyList;
+			TemporalKeyList currentList = this.keyList;
 			long startValidTime = 0;
 			int lastIndex = currentList.size() - 1;
 			if (lastIndex == 1) {
@@ -916,19 +1006,16 @@ public class GemfireTemporalList implements ITemporalList
 				return -1;
 			}
 
-			// copy-on-write
-			ArrayList<ITemporalKey> currentList = this.keyList;
-			ArrayList<ITemporalKey> tmp = new ArrayList<ITemporalKey>(currentList);
-
 			// Add the removed key at the end of the temporal list.
 			// Once removed, the temporal list cannot be searched by valid-at
 			// and as-of.
-			tmp.add(rkey);
+			TemporalKeyList tmp = this.keyList.append(rkey);
 
 			// Note that lastKey is not updated. The "removed" marker
 			// cannot be the last key. The last key is always a valid entry.
 			this.removedKey = rkey;
 			this.keyList = tmp;
+			this.nowRelativeEntry = null;
 			return tmp.size() - 1;
 		}
 	}
@@ -963,29 +1050,24 @@ public class GemfireTemporalList implements ITemporalList
 			return null;
 		}
 
-		// TODO: The following logic is broken. A race condition
-		// will require keyList to be synchronized. This means
-		// keyList must be synchronized throughout this class causing
-		// performance degradation.
 		ITemporalData td = region.remove(removeKey);
 
+		// Readers hold their own snapshots. Publish a new snapshot without
+		// the removed key.
 		synchronized (this) {
-			ArrayList<ITemporalKey> currentList = this.keyList;
-			Iterator<ITemporalKey> iterator = currentList.iterator();
-			ITemporalKey tk = null;
-			while (iterator.hasNext()) {
-				tk = iterator.next();
-				if (tk.equals(removeKey)) {
-					iterator.remove();
-					break;
+			TemporalKeyList currentList = this.keyList;
+			int index = currentList.indexOf(removeKey);
+			if (index != -1) {
+				ITemporalKey tk = currentList.get(index);
+				TemporalKeyList tmp = currentList.delete(index);
+				if (lastKey == tk) {
+					lastKey = tmp.getLast();
 				}
-			}
-			if (lastKey == tk) {
-				if (currentList.size() == 0) {
-					lastKey = null;
-				} else {
-					lastKey = currentList.get(currentList.size() - 1);
+				this.keyList = tmp;
+				if (checkpoints != null) {
+					checkpoints.clear();
 				}
+				updateNowRelativeEntry();
 			}
 			return td;
 		}
@@ -999,7 +1081,7 @@ public class GemfireTemporalList implements ITemporalList
 	 * @param list
 	 * @param asOfTime
 	 */
-	private static int binarySearch(ArrayList<ITemporalKey> list, long asOfTime)
+	private static int binarySearch(List<ITemporalKey> list, long asOfTime)
 	{
 		int low = 0;
 		int high = list.size() - 1;
@@ -1022,7 +1104,7 @@ public class GemfireTemporalList implements ITemporalList
 		}
 	}
 
-	private static int binarySearch_addKey(ArrayList<ITemporalKey> list, long validAtTime, long writtenTime)
+	private static int binarySearch_addKey(List<ITemporalKey> list, long validAtTime, long writtenTime)
 	{
 		int low = 0;
 		int high = list.size() - 1;
@@ -1093,7 +1175,7 @@ public class GemfireTemporalList implements ITemporalList
 	 *         the search fails. In that case, the new key must be appended at
 	 *         the end of the temporal list.
 	 */
-	private static int binarySearch(ArrayList<ITemporalKey> list, long validAtTime, long asOfTime)
+	private static int binarySearch(List<ITemporalKey> list, long validAtTime, long asOfTime)
 	{
 		int low = 0;
 		int high = list.size() - 1;
@@ -1150,7 +1232,7 @@ public class GemfireTemporalList implements ITemporalList
 		}
 	}
 
-	private static int binarySearch_validAtKey(ArrayList<ITemporalKey> list, long validAtTime)
+	private static int binarySearch_validAtKey(List<ITemporalKey> list, long validAtTime)
 	{
 		int low = 0;
 		int high = list.size() - 1;
@@ -1205,7 +1287,7 @@ public class GemfireTemporalList implements ITemporalList
 		}
 	}
 
-	private static int binarySearch_validAt(ArrayList<ITemporalKey> list, long validAtTime)
+	private static int binarySearch_validAt(List<ITemporalKey> list, long validAtTime)
 	{
 		int low = 0;
 		int high = list.size() - 1;
@@ -1279,7 +1361,7 @@ public class GemfireTemporalList implements ITemporalList
 	 *         the search fails. In that case, the new key must be appended at
 	 *         the end of the temporal list.
 	 */
-	private static int binarySearchWrittenTimeRange(ArrayList<ITemporalKey> list, long validAtTime,
+	private static int binarySearchWrittenTimeRange(List<ITemporalKey> list, long validAtTime,
 			long fromWrittenTime, long toWrittenTime)
 	{
 		int low = 0;
@@ -1362,7 +1444,7 @@ public class GemfireTemporalList implements ITemporalList
 			System.out.println("   Last value = " + getLastEntry());
 
 			// now do temporal data
-			ArrayList<ITemporalKey> cur = this.keyList;
+			TemporalKeyList cur = this.keyList;
 			if (cur == null) {
 				System.out.println("   TemporalList empty");
 			} else {
@@ -1401,7 +1483,7 @@ public class GemfireTemporalList implements ITemporalList
 	public void dumpAll(FileWriter writer, char delimiter) throws IOException
 	{
 		synchronized (this) {
-			ArrayList<ITemporalKey> cur = this.keyList;
+			TemporalKeyList cur = this.keyList;
 			int curSize = cur.size();
 			String sv, ev, wt;
 			for (int i = 0; i < curSize; i++) {
@@ -1431,7 +1513,7 @@ public class GemfireTemporalList implements ITemporalList
 	{
 		TemporalEntry lastDataEntry = getLastEntry();
 		ArrayList entryList = new ArrayList();
-		ArrayList<ITemporalKey> cur = this.keyList;
+		TemporalKeyList cur = this.keyList;
 		for (ITemporalKey tk : cur) {
 			ITemporalData data = region.get(tk);
 			entryList.add(TemporalInternalFactory.getTemporalInternalFactory().createTemporalEntry(tk, data));
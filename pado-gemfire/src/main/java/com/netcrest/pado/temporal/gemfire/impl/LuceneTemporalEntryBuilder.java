@@ -272,7 +272,7 @@ public class LuceneTemporalEntryBuilder
 		doc.add(luceneField.createField("Username", tk.getUsername()));
 		try {
 			byte[] blob = BlobHelper.serializeToBlob(tk);
-			doc.add(luceneField.createField("TemporalKey", blob));
+			luceneField.addTemporalKey(doc, blob);
 		} catch (IOException e) {
 			Logger.warning(e);
 		}
@@ -18,15 +18,23 @@ package com.netcrest.pado.temporal.gemfire.impl;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.gemstone.gemfire.cache.CacheFactory;
 import com.gemstone.gemfire.cache.Declarable;
@@ -40,8 +48,10 @@ import com.gemstone.gemfire.internal.cache.LocalDataSet;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
 import com.netcrest.pado.index.gemfire.lucene.TemporalLuceneDynamicIndexing;
 import com.netcrest.pado.index.provider.lucene.LuceneBuilder;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.internal.util.PadoUtil;
+import com.netcrest.pado.internal.util.PartitionedQueueDispatcher;
 import com.netcrest.pado.internal.util.QueueDispatcherListener;
-import com.netcrest.pado.internal.util.QueueDispatcherMultiplexer;
 import com.netcrest.pado.internal.util.QueueDispatcherMultiplexerPool;
 import com.netcrest.pado.log.Logger;
 import com.netcrest.pado.temporal.ITemporalData;
@@ -70,13 +80,38 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	protected String temporalName;
 	private boolean cacheWriterEnabled;
 	// private QueueDispatcher dispatcher = new QueueDispatcher(500, 500);
-	private QueueDispatcherMultiplexer temporalThread;
+	private PartitionedQueueDispatcher temporalDispatcher;
+	private DispatcherWorker[] dispatcherWorkers;
 
 	private final boolean noObjectFormCached = Boolean.getBoolean("gemfire.PREFER_SERIALIZED")
 			&& !Boolean.getBoolean("gemfire.STORE_ALL_VALUE_FORMS");
 
-	private final ConcurrentHashMap<Object, ITemporalList> temporalListMap = new ConcurrentHashMap<Object, ITemporalList>(
-			100000);
+	private static final int INITIAL_TEMPORAL_LIST_MAP_CAPACITY = 100000;
+
+	/**
+	 * Temporal lists keyed by identity key. Replaced with a pre-sized map
+	 * during initialization.
+	 */
+	private volatile ConcurrentHashMap<Object, ITemporalList> temporalListMap = new ConcurrentHashMap<Object, ITemporalList>(
+			INITIAL_TEMPORAL_LIST_MAP_CAPACITY);
+
+	/**
+	 * Orders temporal keys in the temporal list order, i.e., by start valid
+	 * time and then by written time.
+	 */
+	private static final Comparator<ITemporalKey> TEMPORAL_LIST_ORDER = new Comparator<ITemporalKey>() {
+		@Override
+		public int compare(ITemporalKey tk1, ITemporalKey tk2)
+		{
+			if (tk1.getStartValidTime() != tk2.getStartValidTime()) {
+				return tk1.getStartValidTime() < tk2.getStartValidTime() ? -1 : 1;
+			}
+			if (tk1.getWrittenTime() != tk2.getWrittenTime()) {
+				return tk1.getWrittenTime() < tk2.getWrittenTime() ? -1 : 1;
+			}
+			return 0;
+		}
+	};
 
 	protected TemporalListFactory temporalListFactory;
 
@@ -89,6 +124,11 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	private boolean isLuceneEnabled = false;
 	private TemporalLuceneDynamicIndexing luceneDynamicIndexing;
 
+	/**
+	 * Written time secondary index. null if disabled.
+	 */
+	private TemporalWrittenTimeIndex writtenTimeIndex;
+
 	/**
 	 * If true, temporal list uses Collections.synchronizedList for faster
 	 * write, slower read if false (default), it uses CopyOnWriteArrayList for
@@ -115,11 +155,18 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		String temporalListClassName = p.getProperty("temporalList.class",
 				"com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalList");
 		cacheWriterEnabled = p.getProperty("cacheWriterEnabled", "false").equals("true");
+		this.fullPath = p.getProperty("fullPath");
 
 		try {
 			temporalListFactory = TemporalListFactory.getTemporalListFactory(temporalName, temporalKeyClassName,
 					temporalValueClassName, temporalDataClassName, temporalListClassName);
 
+			// The factory is shared by all paths with the same temporal name.
+			// Register this path's temporal list class and properties so that
+			// each path can have its own temporal list implementation.
+			temporalListFactory.setTemporalListClass(fullPath, temporalListClassName);
+			temporalListFactory.setTemporalListProperties(fullPath, p);
+
 			// create the client factory in case the server needs to use the
 			// client API.
 			TemporalClientFactory temporalClientFactory = TemporalClientFactory.getTemporalClientFactory(temporalName,
@@ -129,22 +176,136 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		}
 
 		// Initialize Lucene dynamic indexing
-		this.fullPath = p.getProperty("fullPath");
 		String pvalue = p.getProperty("luceneEnabled");
 		isLuceneEnabled = pvalue != null && pvalue.equalsIgnoreCase("true");
 		if (isLuceneEnabled) {
 			luceneDynamicIndexing = new TemporalLuceneDynamicIndexing(fullPath);
 		}
 
+		// Initialize the written time index
+		long bucketSize = 0;
+		try {
+			bucketSize = Long.parseLong(p.getProperty("writtenTimeIndexBucketSize", PadoUtil.getPathProperty(
+					Constants.PROP_TEMPORAL_WRITTEN_TIME_INDEX_BUCKET_SIZE, fullPath, "0")));
+		} catch (NumberFormatException ex) {
+			Logger.warning(fullPath + " - Invalid writtenTimeIndexBucketSize. Written time index disabled.", ex);
+		}
+		if (bucketSize > 0) {
+			writtenTimeIndex = new TemporalWrittenTimeIndex(bucketSize);
+		}
+
 		// Start the dispatcher
 		// dispatcher.setName("TemporalDispatcher: " + fullPath);
 		// dispatcher.setQueueDispatcherListener(this);
 		// dispatcher.start();
 
-		QueueDispatcherMultiplexerPool.getQueueDispatcherMultiplexerPool().addQueueDispatcherListener(fullPath, this);
-		temporalThread = QueueDispatcherMultiplexerPool.getQueueDispatcherMultiplexerPool().getMultiplexer(fullPath);
-		temporalThread.setBatchSize(500);
-		temporalThread.setTimeInterval(500);
+		// Events are partitioned by identity key so that each identity key
+		// is processed in order by a single worker.
+		int workerCount = 1;
+		try {
+			workerCount = Integer.parseInt(p.getProperty("dispatcherWorkerCount",
+					PadoUtil.getPathProperty(Constants.PROP_TEMPORAL_DISPATCHER_WORKER_COUNT, fullPath, "1")));
+		} catch (NumberFormatException ex) {
+			Logger.warning(fullPath + " - Invalid dispatcherWorkerCount. Using 1.", ex);
+		}
+		if (workerCount < 1) {
+			workerCount = 1;
+		}
+		dispatcherWorkers = new TemporalCacheListener.DispatcherWorker[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			dispatcherWorkers[i] = new DispatcherWorker(i);
+		}
+		temporalDispatcher = QueueDispatcherMultiplexerPool.getQueueDispatcherMultiplexerPool()
+				.addPartitionedQueueDispatcherListener(fullPath, dispatcherWorkers);
+		temporalDispatcher.setBatchSize(500);
+		temporalDispatcher.setTimeInterval(500);
+	}
+
+	/**
+	 * DispatcherWorker receives the temporal events of a single dispatcher
+	 * partition and records the worker's statistics if enabled.
+	 */
+	class DispatcherWorker implements QueueDispatcherListener
+	{
+		private final int worker;
+		private boolean statsInitialized;
+		private TemporalDispatcherStatistics stats;
+
+		DispatcherWorker(int worker)
+		{
+			this.worker = worker;
+		}
+
+		private TemporalDispatcherStatistics getStatistics()
+		{
+			// Invoked by the dispatcher while holding the partition lock
+			if (statsInitialized == false) {
+				statsInitialized = true;
+				if (PadoUtil.isProperty(Constants.PROP_STATISTICS_ENABLED)) {
+					stats = new TemporalDispatcherStatistics(CacheFactory.getAnyInstance().getDistributedSystem(),
+							fullPath, worker);
+				}
+			}
+			return stats;
+		}
+
+		@Override
+		public void objectDispatched(Object obj)
+		{
+			TemporalDispatcherStatistics stats = getStatistics();
+			if (stats == null) {
+				TemporalCacheListener.this.objectDispatched(obj);
+				return;
+			}
+			stats.setQueueDepth(temporalDispatcher.getBacklog(worker), temporalDispatcher.getLastDispatchLag(worker));
+			long startTime = stats.startDispatch();
+			try {
+				TemporalCacheListener.this.objectDispatched(obj);
+			} finally {
+				stats.endDispatch(startTime, ((List) obj).size());
+				stats.setQueueDepth(temporalDispatcher.getBacklog(worker),
+						temporalDispatcher.getLastDispatchLag(worker));
+			}
+		}
+
+		void close()
+		{
+			if (stats != null) {
+				stats.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of temporal event dispatcher workers.
+	 */
+	public int getDispatcherWorkerCount()
+	{
+		return temporalDispatcher.getPartitionCount();
+	}
+
+	/**
+	 * Returns the number of temporal events waiting to be dispatched by the
+	 * specified worker.
+	 * 
+	 * @param worker
+	 *            Worker index
+	 */
+	public int getDispatcherQueueDepth(int worker)
+	{
+		return temporalDispatcher.getBacklog(worker);
+	}
+
+	/**
+	 * Returns the approximate time in msec that the oldest pending temporal
+	 * event of the specified worker has been waiting.
+	 * 
+	 * @param worker
+	 *            Worker index
+	 */
+	public long getDispatcherLag(int worker)
+	{
+		return temporalDispatcher.getLag(worker);
 	}
 
 	@Override
@@ -152,10 +313,15 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	{
 		// this.temporalListMap.clear();
 		// this.dispatcher.clear();
-		// this.temporalThread.clear(fullPath);
+		// this.temporalDispatcher.clear();
 
 		if (luceneDynamicIndexing != null) {
-			luceneDynamicIndexing.close();
+			luceneDynamicIndexing.shutdown();
+		}
+		if (dispatcherWorkers != null) {
+			for (DispatcherWorker dispatcherWorker : dispatcherWorkers) {
+				dispatcherWorker.close();
+			}
 		}
 	}
 
@@ -209,7 +375,10 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	}
 
 	/**
-	 * Initializes all of temporal lists under the specified region.
+	 * Initializes all of temporal lists under the specified region. The local
+	 * primary buckets are processed in parallel on a fork-join pool bounded by
+	 * the property {@link Constants#PROP_TEMPORAL_INIT_PARALLELISM}. Temporal
+	 * keys never span buckets as they are routed by identity key.
 	 * 
 	 * @param region
 	 *            Region
@@ -226,59 +395,220 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		// been processed during the build. Those entries must be
 		// handled appropriately by the temporal list.
 		// dispatcher.pause();
-		temporalThread.pause(fullPath);
+		temporalDispatcher.pause();
 		try {
 			long startTime = System.currentTimeMillis();
 			Logger.info(region.getFullPath() + " - Temporal lists initialization started");
-			temporalListMap.clear();
 			PartitionedRegion pr = (PartitionedRegion) region;
+			if (writtenTimeIndex != null) {
+				writtenTimeIndex.clear();
+			}
 			if (pr.getDataStore() == null) {
+				temporalListMap.clear();
 				long elapsedTime = System.currentTimeMillis() - startTime;
 				Logger.info(region.getFullPath()
 						+ " - Temporal lists not created due to no local data storage defined for this region"
 						+ ", time took (msec): " + elapsedTime);
 			} else {
 				Set<BucketRegion> set = pr.getDataStore().getAllLocalPrimaryBucketRegions();
+				int parallelism = PadoUtil.getInteger(Constants.PROP_TEMPORAL_INIT_PARALLELISM,
+						Runtime.getRuntime().availableProcessors());
+				if (parallelism < 1) {
+					parallelism = 1;
+				}
+
+				// Pre-size the map to avoid rehashing. The number of keys is
+				// the upper bound of the number of temporal lists.
+				int keyCount = 0;
 				for (BucketRegion bucketRegion : set) {
-					Set<Region.Entry<ITemporalKey, ITemporalData>> set2 = bucketRegion.entrySet();
-					for (Region.Entry<ITemporalKey, ITemporalData> entry : set2) {
-						ITemporalKey tk = entry.getKey();
-						update(tk, region);
-					}
+					keyCount += bucketRegion.size();
 				}
+				temporalListMap = new ConcurrentHashMap<Object, ITemporalList>(
+						Math.max(INITIAL_TEMPORAL_LIST_MAP_CAPACITY, keyCount), 0.75f, parallelism);
+
+				initBuckets(region, set, parallelism);
 
 				long elapsedTime = System.currentTimeMillis() - startTime;
 				Logger.info(region.getFullPath() + " - Temporal lists initialized. Number of lists: "
-						+ temporalListMap.size() + ", time took (msec): " + elapsedTime);
+						+ temporalListMap.size() + ", buckets: " + set.size() + ", threads: " + parallelism
+						+ ", time took (msec): " + elapsedTime);
 
 				if (buildLucene) {
 					if (luceneDynamicIndexing != null) {
 						startTime = System.currentTimeMillis();
-						luceneDynamicIndexing.close();
-						LuceneBuilder.getLuceneBuilder().buildIndexes(GridUtil.getChildPath(fullPath));
-						luceneDynamicIndexing.open();
-						elapsedTime = System.currentTimeMillis() - startTime;
-						Logger.info(
-								region.getFullPath() + " - Lucene indexes rebuilt. Time took (msec): " + elapsedTime);
+						if (LuceneBuilder.isRamDirectory()) {
+							// RAM directories are swapped by the builder
+							luceneDynamicIndexing.close();
+							LuceneBuilder.getLuceneBuilder().buildIndexes(GridUtil.getChildPath(fullPath));
+							luceneDynamicIndexing.open();
+							elapsedTime = System.currentTimeMillis() - startTime;
+							Logger.info(region.getFullPath() + " - Lucene indexes rebuilt. Time took (msec): "
+									+ elapsedTime);
+						} else {
+							// Rebuild in place. Searches continue on the
+							// previous index till the rebuild commits.
+							int docCount = luceneDynamicIndexing.rebuild(temporalListMap.values());
+							elapsedTime = System.currentTimeMillis() - startTime;
+							if (docCount >= 0) {
+								long docsPerSec = elapsedTime == 0 ? docCount : docCount * 1000L / elapsedTime;
+								Logger.info(region.getFullPath() + " - Lucene indexes rebuilt. Documents: " + docCount
+										+ ", docs/sec: " + docsPerSec + ", time took (msec): " + elapsedTime);
+							}
+						}
 					}
 				}
 			}
 		} finally {
 			// dispatcher.resume();
-			temporalThread.resume(fullPath);
+			temporalDispatcher.resume();
+		}
+	}
+
+	/**
+	 * Builds the temporal lists of the specified buckets in parallel. Blocks
+	 * till all buckets are done.
+	 * 
+	 * @param region
+	 *            Region
+	 * @param bucketSet
+	 *            Local primary buckets
+	 * @param parallelism
+	 *            Max number of threads
+	 */
+	private void initBuckets(final Region region, Set<BucketRegion> bucketSet, int parallelism)
+	{
+		GemfireTemporalManager tm = (GemfireTemporalManager) TemporalManager.getTemporalManager(region.getFullPath());
+		final TemporalStatistics stats = tm != null && tm.isStatisticsEnabled() ? tm.getStatistics() : null;
+		final int bucketTotal = bucketSet.size();
+		final AtomicInteger bucketCount = new AtomicInteger();
+		if (stats != null) {
+			stats.startInit(bucketTotal);
+		}
+		long startTime = System.nanoTime();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+			{
+				ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				t.setName("Pado-TemporalCacheListener-" + t.getPoolIndex());
+				t.setDaemon(true);
+				return t;
+			}
+		}, null, false);
+		try {
+			List<Callable<Integer>> taskList = new ArrayList<Callable<Integer>>(bucketTotal);
+			for (final BucketRegion bucketRegion : bucketSet) {
+				taskList.add(new Callable<Integer>() {
+					public Integer call() throws Exception
+					{
+						return initBucket(region, bucketRegion, stats, bucketCount, bucketTotal);
+					}
+				});
+			}
+			List<Future<Integer>> futureList = pool.invokeAll(taskList);
+			for (Future<Integer> future : futureList) {
+				try {
+					future.get();
+				} catch (ExecutionException ex) {
+					Logger.error(region.getFullPath() + " - Temporal list bucket initialization failed", ex.getCause());
+				}
+			}
+		} catch (InterruptedException ex) {
+			Logger.warning(region.getFullPath() + " - Temporal lists initialization interrupted", ex);
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdown();
+			if (stats != null) {
+				stats.endInit(System.nanoTime() - startTime);
+			}
 		}
 	}
 
+	/**
+	 * Builds the temporal lists of the specified bucket. The keys are grouped
+	 * by identity key and each group is sorted once in the temporal list order
+	 * so that every key is appended at the end of its temporal list. Removal
+	 * markers are applied last as the temporal list rejects updates once
+	 * removed.
+	 * 
+	 * @return The number of keys in the bucket
+	 */
+	private int initBucket(Region region, BucketRegion bucketRegion, TemporalStatistics stats,
+			AtomicInteger bucketCount, int bucketTotal) throws Exception
+	{
+		long bucketStartTime = stats == null ? 0 : stats.startInitBucket();
+		long startTime = System.currentTimeMillis();
+		int keyCount = 0;
+		try {
+			Set<ITemporalKey> keySet = bucketRegion.keySet();
+			HashMap<Object, ArrayList<ITemporalKey>> keyListMap = new HashMap<Object, ArrayList<ITemporalKey>>(
+					keySet.size());
+			for (ITemporalKey tk : keySet) {
+				ArrayList<ITemporalKey> keyList = keyListMap.get(tk.getIdentityKey());
+				if (keyList == null) {
+					keyList = new ArrayList<ITemporalKey>(2);
+					keyListMap.put(tk.getIdentityKey(), keyList);
+				}
+				keyList.add(tk);
+				keyCount++;
+			}
+
+			String regionPath = region.getFullPath();
+			for (Map.Entry<Object, ArrayList<ITemporalKey>> entry : keyListMap.entrySet()) {
+				Object identityKey = entry.getKey();
+				ArrayList<ITemporalKey> keyList = entry.getValue();
+				if (keyList.size() > 1) {
+					Collections.sort(keyList, TEMPORAL_LIST_ORDER);
+				}
+				ITemporalList temporalList = temporalListFactory.createTemporalList(temporalName, identityKey,
+						regionPath);
+				ITemporalList existingList = temporalListMap.putIfAbsent(identityKey, temporalList);
+				if (existingList != null) {
+					temporalList = existingList;
+				}
+				ITemporalKey removedKey = null;
+				for (ITemporalKey tk : keyList) {
+					if (tk.getStartValidTime() == -1) {
+						// Invalidation is not supported. See update().
+						if (tk.getEndValidTime() == -1 && removedKey == null) {
+							removedKey = tk;
+						}
+					} else if (temporalList.add(tk) >= 0 && writtenTimeIndex != null) {
+						writtenTimeIndex.add(tk);
+					}
+				}
+				if (removedKey != null) {
+					temporalList.remove(removedKey);
+				}
+			}
+		} finally {
+			if (stats != null) {
+				stats.endInitBucket(bucketStartTime, keyCount);
+			}
+			int count = bucketCount.incrementAndGet();
+			if (Logger.isFineEnabled()) {
+				Logger.fine(region.getFullPath() + " - Temporal lists initialized for bucket " + bucketRegion.getId()
+						+ ", keys: " + keyCount + ", time took (msec): " + (System.currentTimeMillis() - startTime));
+			}
+			int progressInterval = Math.max(1, bucketTotal / 10);
+			if (count % progressInterval == 0 || count == bucketTotal) {
+				Logger.info(region.getFullPath() + " - Temporal lists initialization progress: " + count + "/"
+						+ bucketTotal + " buckets");
+			}
+		}
+		return keyCount;
+	}
+
 	public void afterCreate(EntryEvent event)
 	{
 		// dispatcher.enqueue(event);
-		temporalThread.enqueue(fullPath, event);
+		temporalDispatcher.enqueue(((ITemporalKey) event.getKey()).getIdentityKey(), event);
 	}
 
 	public void afterUpdate(EntryEvent event)
 	{
 		// dispatcher.enqueue(event);
-		temporalThread.enqueue(fullPath, event);
+		temporalDispatcher.enqueue(((ITemporalKey) event.getKey()).getIdentityKey(), event);
 	}
 
 	@Override
@@ -287,6 +617,11 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 
 	}
 
+	/**
+	 * Applies the specified list of entry events to the temporal lists. This
+	 * method may be invoked concurrently by multiple dispatcher workers, each
+	 * with a disjoint set of identity keys.
+	 */
 	public void objectDispatched(Object obj)
 	{
 		List<EntryEvent<ITemporalKey, ITemporalData>> list = (List<EntryEvent<ITemporalKey, ITemporalData>>) obj;
@@ -373,6 +708,9 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 						index = newTdl.add(tk);
 					}
 				}
+				if (index >= 0 && writtenTimeIndex != null) {
+					writtenTimeIndex.add(tk);
+				}
 			}
 		} catch (Exception ex) {
 			CacheFactory.getAnyInstance().getLogger().error("Unable to create TemporalList", ex);
@@ -389,7 +727,7 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	public void pause()
 	{
 		// dispatcher.pause();
-		temporalThread.pause(fullPath);
+		temporalDispatcher.pause();
 		if (luceneDynamicIndexing != null) {
 			luceneDynamicIndexing.close();
 		}
@@ -397,12 +735,17 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 
 	/**
 	 * Flushes the temporal event dispatcher queue by dispatching all of the
-	 * temporal events in the queue.
+	 * temporal events in the queue. The dispatched events queued for Lucene
+	 * indexing are also indexed and committed unless Lucene indexing is
+	 * closed.
 	 */
 	public void flush()
 	{
 		// dispatcher.flush();
-		temporalThread.flush(fullPath);
+		temporalDispatcher.flush();
+		if (luceneDynamicIndexing != null) {
+			luceneDynamicIndexing.flush();
+		}
 	}
 
 	/**
@@ -415,7 +758,7 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 			luceneDynamicIndexing.open();
 		}
 		// dispatcher.resume();
-		temporalThread.resume(fullPath);
+		temporalDispatcher.resume();
 	}
 
 	public Set getIdentityKeySet()
@@ -557,7 +900,57 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		if (existingTdl == null) {
 			return null;
 		}
-		return existingTdl.removePermanently(tk);
+		ITemporalData data = existingTdl.removePermanently(tk);
+		if (writtenTimeIndex != null) {
+			writtenTimeIndex.remove(tk);
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the written time index. null if disabled.
+	 */
+	public TemporalWrittenTimeIndex getWrittenTimeIndex()
+	{
+		return writtenTimeIndex;
+	}
+
+	/**
+	 * Returns the temporal lists to be searched for the specified written time
+	 * range. If the written time index is enabled, then only the temporal
+	 * lists with keys written in the range are returned. Otherwise, all
+	 * temporal lists are returned. All temporal lists are also returned if
+	 * both times are -1 as the temporal lists then return the now-relative
+	 * entries.
+	 * 
+	 * @param fromWrittenTime
+	 *            Start of the written time range, inclusive. -1 for the
+	 *            current time.
+	 * @param toWrittenTime
+	 *            End of the written time range, exclusive. -1 for the current
+	 *            time.
+	 */
+	private Collection<ITemporalList> getWrittenTimeRangeTemporalLists(long fromWrittenTime, long toWrittenTime)
+	{
+		if (writtenTimeIndex == null || fromWrittenTime == -1 && toWrittenTime == -1) {
+			return temporalListMap.values();
+		}
+		// Same defaults as the temporal list
+		if (fromWrittenTime == -1) {
+			fromWrittenTime = System.currentTimeMillis();
+		}
+		if (toWrittenTime == -1) {
+			toWrittenTime = System.currentTimeMillis();
+		}
+		Set<Object> identityKeySet = writtenTimeIndex.getIdentityKeySet(fromWrittenTime, toWrittenTime);
+		ArrayList<ITemporalList> list = new ArrayList<ITemporalList>(identityKeySet.size());
+		for (Object identityKey : identityKeySet) {
+			ITemporalList tdl = temporalListMap.get(identityKey);
+			if (tdl != null) {
+				list.add(tdl);
+			}
+		}
+		return list;
 	}
 
 	public TemporalEntry getNowRelativeEntry(Object idKey)
@@ -578,16 +971,7 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	 */
 	public Map<ITemporalKey<K>, ITemporalData<K>> getNowRelativeMap()
 	{
-		Set<Map.Entry<Object, ITemporalList>> set = temporalListMap.entrySet();
-		HashMap<ITemporalKey<K>, ITemporalData<K>> map = new HashMap<ITemporalKey<K>, ITemporalData<K>>(set.size() / 2);
-		for (Map.Entry<Object, ITemporalList> entry : set) {
-			ITemporalList tdl = entry.getValue();
-			TemporalEntry entry2 = tdl.getNowRelativeEntry();
-			if (entry2 != null) {
-				map.put(entry2.getTemporalKey(), entry2.getTemporalData());
-			}
-		}
-		return map;
+		return (Map) TemporalListScanner.nowRelative(fullPath).getMap(temporalListMap.values());
 	}
 
 	/**
@@ -611,18 +995,14 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		return map;
 	}
 
+	/**
+	 * Returns all now-relative temporal entries. The temporal lists are
+	 * scanned in parallel if their number is at or above
+	 * {@link Constants#PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD}.
+	 */
 	public List<TemporalEntry> getNowRelativeList()
 	{
-		Set<Map.Entry<Object, ITemporalList>> set = temporalListMap.entrySet();
-		List<TemporalEntry> list = new ArrayList<TemporalEntry>(set.size() / 2);
-		for (Map.Entry<Object, ITemporalList> entry : set) {
-			ITemporalList tdl = entry.getValue();
-			TemporalEntry entry2 = tdl.getNowRelativeEntry();
-			if (entry2 != null) {
-				list.add(new GemfireTemporalEntry(entry2.getTemporalKey(), entry2.getTemporalData()));
-			}
-		}
-		return list;
+		return TemporalListScanner.nowRelative(fullPath).getList(temporalListMap.values());
 	}
 
 	public List<TemporalEntry> getNowRelativeList(Collection<K> identityKeyCollection)
@@ -679,16 +1059,7 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		if (validAtTime == -1 && asOfTime == -1) {
 			return getNowRelativeMap();
 		}
-		Set<Map.Entry<Object, ITemporalList>> set = temporalListMap.entrySet();
-		HashMap<ITemporalKey<K>, ITemporalData<K>> map = new HashMap<ITemporalKey<K>, ITemporalData<K>>(set.size() / 2);
-		for (Map.Entry<Object, ITemporalList> entry : set) {
-			ITemporalList tdl = entry.getValue();
-			TemporalEntry entry2 = tdl.getAsOf(validAtTime, asOfTime);
-			if (entry2 != null) {
-				map.put(entry2.getTemporalKey(), entry2.getTemporalData());
-			}
-		}
-		return map;
+		return (Map) TemporalListScanner.asOf(fullPath, validAtTime, asOfTime).getMap(temporalListMap.values());
 	}
 
 	/**
@@ -718,21 +1089,47 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		return map;
 	}
 
+	/**
+	 * Returns all temporal entries that satisfy the specified valid-at and
+	 * as-of times. The temporal lists are scanned in parallel if their number
+	 * is at or above {@link Constants#PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD}.
+	 * 
+	 * @param validAtTime
+	 * @param asOfTime
+	 */
 	public List<TemporalEntry> getAsOfTemporalEntryList(long validAtTime, long asOfTime)
 	{
 		if (validAtTime == -1 && asOfTime == -1) {
 			return getNowRelativeList();
 		}
-		Set<Map.Entry<Object, ITemporalList>> set = temporalListMap.entrySet();
-		List<TemporalEntry> list = new ArrayList<TemporalEntry>(set.size() / 2);
-		for (Map.Entry<Object, ITemporalList> entry : set) {
-			ITemporalList tdl = entry.getValue();
-			TemporalEntry entry2 = tdl.getAsOf(validAtTime, asOfTime);
-			if (entry2 != null) {
-				list.add(new GemfireTemporalEntry(entry2.getTemporalKey(), entry2.getTemporalData()));
+		return TemporalListScanner.asOf(fullPath, validAtTime, asOfTime).getList(temporalListMap.values());
+	}
+
+	/**
+	 * Returns a map of the specified identity keys and their temporal entries
+	 * that satisfy the specified valid-at and as-of times. The temporal lists
+	 * are looked up directly by identity key. Identity keys without temporal
+	 * lists or entries are not included in the returned map.
+	 * 
+	 * @param identityKeyCollection
+	 *            Identity keys
+	 * @param validAtTime
+	 * @param asOfTime
+	 */
+	public Map<K, TemporalEntry> getAsOfTemporalEntryMap(Collection<K> identityKeyCollection, long validAtTime,
+			long asOfTime)
+	{
+		HashMap<K, TemporalEntry> map = new HashMap<K, TemporalEntry>(identityKeyCollection.size() * 4 / 3 + 1);
+		for (K identityKey : identityKeyCollection) {
+			ITemporalList tdl = getTemporalList(identityKey);
+			if (tdl != null) {
+				TemporalEntry entry2 = tdl.getAsOf(validAtTime, asOfTime);
+				if (entry2 != null) {
+					map.put(identityKey, new GemfireTemporalEntry(entry2.getTemporalKey(), entry2.getTemporalData()));
+				}
 			}
 		}
-		return list;
+		return map;
 	}
 
 	public List<TemporalEntry> getAsOfTemporalEntryList(Set identityKeySet, long validAtTime, long asOfTime)
@@ -760,16 +1157,8 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		if (validAtTime == -1 && fromWrittenTime == -1 && toWrittenTime == -1) {
 			return getNowRelativeList();
 		}
-		Set<Map.Entry<Object, ITemporalList>> set = temporalListMap.entrySet();
-		List<TemporalEntry> list = new ArrayList<TemporalEntry>(set.size() / 2);
-		for (Map.Entry<Object, ITemporalList> entry : set) {
-			ITemporalList tdl = entry.getValue();
-			TemporalEntry entry2 = tdl.getWrttenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
-			if (entry2 != null) {
-				list.add(new GemfireTemporalEntry(entry2.getTemporalKey(), entry2.getTemporalData()));
-			}
-		}
-		return list;
+		return TemporalListScanner.writtenTimeRange(fullPath, validAtTime, fromWrittenTime, toWrittenTime)
+				.getList(getWrittenTimeRangeTemporalLists(fromWrittenTime, toWrittenTime));
 	}
 
 	public List<TemporalEntry> getWrittenTimeRangeTemporalEntryList(Set identityKeySet, long validAtTime,
@@ -811,10 +1200,10 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 		if (validAtTime == -1 && fromWrittenTime == -1 && toWrittenTime == -1) {
 			return getNowRelativeList();
 		}
-		Set<Map.Entry<Object, ITemporalList>> set = temporalListMap.entrySet();
-		List<TemporalEntry> list = new ArrayList<TemporalEntry>(set.size() / 2);
-		for (Map.Entry<Object, ITemporalList> entry : set) {
-			ITemporalList tdl = entry.getValue();
+		Collection<ITemporalList> temporalListCollection = getWrittenTimeRangeTemporalLists(fromWrittenTime,
+				toWrittenTime);
+		List<TemporalEntry> list = new ArrayList<TemporalEntry>(temporalListCollection.size() / 2);
+		for (ITemporalList tdl : temporalListCollection) {
 			List<TemporalEntry> list2 = tdl.getHistoryWrttenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
 			if (list2 != null) {
 				list.addAll(list2);
@@ -1031,7 +1420,8 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	private Collection<V> getWrittenTimeRangeCollection(long validAtTime, long fromWrittenTime, long toWrittenTime,
 			Collection<V> col)
 	{
-		Collection<ITemporalList> temporalListCollection = temporalListMap.values();
+		Collection<ITemporalList> temporalListCollection = getWrittenTimeRangeTemporalLists(fromWrittenTime,
+				toWrittenTime);
 		for (ITemporalList tdl : temporalListCollection) {
 			TemporalEntry entry2 = tdl.getWrttenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
 			if (entry2 != null) {
@@ -1050,7 +1440,8 @@ public class TemporalCacheListener<K, V> extends CacheListenerAdapter implements
 	private Collection<V> getHistoryWrittenTimeRangeCollection(long validAtTime, long fromWrittenTime,
 			long toWrittenTime, Collection<V> col)
 	{
-		Collection<ITemporalList> temporalListCollection = temporalListMap.values();
+		Collection<ITemporalList> temporalListCollection = getWrittenTimeRangeTemporalLists(fromWrittenTime,
+				toWrittenTime);
 		for (ITemporalList tdl : temporalListCollection) {
 			List<TemporalEntry> list2 = tdl.getHistoryWrttenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
 			if (list2 != null) {
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.gemstone.gemfire.cache.Region;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.internal.util.PadoUtil;
+import com.netcrest.pado.log.Logger;
+import com.netcrest.pado.temporal.ITemporalData;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalValue;
+import com.netcrest.pado.temporal.TemporalClientFactory;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalManager;
+
+/**
+ * TemporalDeltaCheckpoints keeps the delta chain checkpoints of a single
+ * temporal list. Without checkpoints, resolving a delta entry walks the
+ * temporal list back to the last whole (non-delta) object, fetching every
+ * delta from the region, and the receiver replays every delta on top of that
+ * object. A checkpoint holds the materialized value of a temporal key, i.e.,
+ * the whole object with all of the deltas up to and including the key's delta
+ * applied, so that the walk stops at the nearest checkpoint at or below the
+ * requested key and only the deltas above the checkpoint are replayed.
+ * <p>
+ * Checkpoints are created by the temporal list writer every
+ * {@link Constants#PROP_TEMPORAL_DELTA_CHECKPOINT_SPACING} appended keys, on
+ * the dispatcher thread that applies the temporal events. Each checkpoint is
+ * materialized from the previous checkpoint, or the base object if none, and
+ * the deltas in between. The memory overhead is one whole object per
+ * checkpoint. Checkpoints are discarded whenever a key is inserted, replaced
+ * or removed anywhere other than the end of the list, as such updates change
+ * the chains of the subsequent keys.
+ * <p>
+ * Materializing requires the data class to apply the deltas in the server. If
+ * the deltas cannot be applied then checkpoints are disabled for the path and
+ * the chains are resolved from the base objects as before.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public final class TemporalDeltaCheckpoints
+{
+	/**
+	 * &lt;fullPath, spacing&gt; map. Temporal lists are created frequently.
+	 * Avoid looking up the property every time.
+	 */
+	private static final ConcurrentHashMap<String, Integer> spacingMap = new ConcurrentHashMap<String, Integer>();
+
+	private final int spacing;
+
+	/**
+	 * Materialized values by temporal key. Written by the list writer only.
+	 */
+	private final ConcurrentHashMap<ITemporalKey, ITemporalData> checkpointMap = new ConcurrentHashMap<ITemporalKey, ITemporalData>(
+			4, 0.75f, 1);
+
+	/**
+	 * Number of keys appended since the last checkpoint attempt. Guarded by the
+	 * list lock.
+	 */
+	private int appendCount;
+
+	/**
+	 * true if the deltas could not be materialized. Guarded by the list lock.
+	 */
+	private boolean isDisabled;
+
+	private TemporalDeltaCheckpoints(int spacing)
+	{
+		this.spacing = spacing;
+	}
+
+	/**
+	 * Returns a new TemporalDeltaCheckpoints object for the specified path if
+	 * checkpoints are enabled, i.e., the checkpoint spacing is greater than 0.
+	 * Returns null otherwise.
+	 *
+	 * @param fullPath
+	 *            Temporal path
+	 */
+	public static TemporalDeltaCheckpoints create(String fullPath)
+	{
+		Integer spacing = spacingMap.get(fullPath);
+		if (spacing == null) {
+			spacing = 0;
+			try {
+				spacing = Integer.parseInt(PadoUtil.getPathProperty(Constants.PROP_TEMPORAL_DELTA_CHECKPOINT_SPACING,
+						fullPath, "0"));
+			} catch (NumberFormatException ex) {
+				Logger.warning(fullPath + " - Invalid " + Constants.PROP_TEMPORAL_DELTA_CHECKPOINT_SPACING
+						+ ". Delta checkpoints disabled.", ex);
+			}
+			spacingMap.put(fullPath, spacing);
+		}
+		return spacing > 0 ? new TemporalDeltaCheckpoints(spacing) : null;
+	}
+
+	/**
+	 * Returns the checkpoint spacing, i.e., the number of appended keys
+	 * between checkpoints.
+	 */
+	public int getSpacing()
+	{
+		return spacing;
+	}
+
+	/**
+	 * Returns the number of checkpoints.
+	 */
+	public int size()
+	{
+		return checkpointMap.size();
+	}
+
+	/**
+	 * Discards all checkpoints. Must be invoked by the list writer whenever
+	 * the list is updated other than by appending.
+	 */
+	public void clear()
+	{
+		checkpointMap.clear();
+		appendCount = 0;
+	}
+
+	/**
+	 * Invoked by the list writer after appending the last key of the
+	 * specified key list. Every spacing number of appends, it creates a
+	 * checkpoint for the last key if its delta chain is at least spacing
+	 * long.
+	 *
+	 * @param region
+	 *            Temporal region
+	 * @param factory
+	 *            Factory that creates the materialized temporal data
+	 * @param keyList
+	 *            Temporal key list snapshot just published
+	 */
+	public void appended(Region<ITemporalKey, ITemporalData> region, TemporalClientFactory factory,
+			List<ITemporalKey> keyList)
+	{
+		if (isDisabled || ++appendCount < spacing) {
+			return;
+		}
+		appendCount = 0;
+
+		int index = keyList.size() - 1;
+		LinkedList<byte[]> deltaList = new LinkedList<byte[]>();
+		ITemporalData previous = null;
+		ITemporalData base = null;
+		for (int i = index; i >= 0; i--) {
+			ITemporalKey key = keyList.get(i);
+			if (i < index) {
+				previous = checkpointMap.get(key);
+				if (previous != null) {
+					base = previous;
+					break;
+				}
+			}
+			ITemporalData data = region.get(key);
+			if (data == null) {
+				return;
+			}
+			if (data.__getTemporalValue().isDelta() == false) {
+				data.__getTemporalValue().setTemporalKey(key);
+				base = data;
+				break;
+			}
+			deltaList.addFirst(data.__getTemporalValue().getSerializedData());
+		}
+		if (base == null || deltaList.size() == 0 || previous == null && deltaList.size() < spacing) {
+			// Whole object or a short chain. Checkpoint not needed.
+			return;
+		}
+		ITemporalKey key = keyList.get(index);
+		ITemporalData value;
+		try {
+			value = materialize(factory, key, base, deltaList);
+		} catch (Exception ex) {
+			// The data class cannot apply the deltas in this server. Disable
+			// checkpoints for the path.
+			isDisabled = true;
+			checkpointMap.clear();
+			Integer pathSpacing = spacingMap.put(region.getFullPath(), 0);
+			if (pathSpacing != null && pathSpacing > 0) {
+				Logger.warning(region.getFullPath() + " - Unable to apply deltas to " + key
+						+ ". Delta checkpoints disabled.", ex);
+			}
+			return;
+		}
+		checkpointMap.put(key, value);
+		TemporalStatistics stats = GemfireTemporalManager.getTemporalStatistics(region.getFullPath());
+		if (stats != null) {
+			stats.incDeltaCheckpointCount();
+		}
+	}
+
+	/**
+	 * Returns a whole object with the specified deltas applied to the
+	 * specified base object. The returned object is kept serialized like the
+	 * region values.
+	 *
+	 * @param factory
+	 *            Factory that creates the temporal data
+	 * @param key
+	 *            Temporal key of the last delta
+	 * @param base
+	 *            Whole object. Not modified.
+	 * @param deltaList
+	 *            Deltas to apply in the chain order
+	 * @throws Exception
+	 *             Thrown if the deltas cannot be applied
+	 */
+	private static ITemporalData materialize(TemporalClientFactory factory, ITemporalKey key, ITemporalData base,
+			LinkedList<byte[]> deltaList) throws Exception
+	{
+		ITemporalData data = factory.createTemporalData(base, deltaList);
+		ITemporalValue value = data.__getTemporalValue();
+		value.deserializeAll();
+
+		// The deltas are cleared once applied. Errors are logged by the
+		// temporal value and leave them in place.
+		if (value.getDeltaList() != null || value.isDelta()) {
+			throw new IllegalStateException("Deltas not applied by " + data.getClass().getName());
+		}
+		value.setTemporalKey(key);
+
+		// Serialize before publishing. Readers only copy the serialized data.
+		value.getSerializedData();
+		value.getSerializedAttributes();
+		value.getSerializedAttachments();
+		return data;
+	}
+
+	/**
+	 * Returns the base object and prepends to the specified delta list the
+	 * deltas found above the base object starting from the specified index.
+	 * The walk stops at the first whole object or at the nearest checkpoint at
+	 * or below the specified index, in which case the checkpoint's
+	 * materialized value is the base object. The returned base object is the
+	 * actual reference to the base object in the cache or checkpoint and
+	 * therefore in-place modification must NOT be performed. Returns null if
+	 * the base object is not found.
+	 *
+	 * @param region
+	 *            Temporal region
+	 * @param keyList
+	 *            Temporal key list snapshot
+	 * @param index
+	 *            Index of the first key to search for the base object
+	 * @param deltaList
+	 *            Delta list to which the deltas are prepended
+	 * @param checkpoints
+	 *            Checkpoints of the temporal list. null if disabled.
+	 */
+	public static ITemporalData collectDeltas(Region<ITemporalKey, ITemporalData> region,
+			List<ITemporalKey> keyList, int index, LinkedList<byte[]> deltaList, TemporalDeltaCheckpoints checkpoints)
+	{
+		ITemporalData base = null;
+		boolean checkpointHit = false;
+		int fetchCount = 0;
+		for (; index >= 0; index--) {
+			ITemporalKey key = keyList.get(index);
+			if (key == null) {
+				break;
+			}
+			if (checkpoints != null) {
+				ITemporalData checkpoint = checkpoints.checkpointMap.get(key);
+				if (checkpoint != null) {
+					base = checkpoint;
+					checkpointHit = true;
+					break;
+				}
+			}
+			ITemporalData data = region.get(key);
+			fetchCount++;
+			if (data == null) {
+				break;
+			}
+			data.__getTemporalValue().setTemporalKey(key);
+			if (data.__getTemporalValue().isDelta() == false) {
+				base = data;
+				break;
+			}
+			deltaList.addFirst(data.__getTemporalValue().getSerializedData());
+		}
+		TemporalStatistics stats = GemfireTemporalManager.getTemporalStatistics(region.getFullPath());
+		if (stats != null) {
+			stats.endDeltaChain(checkpointHit, fetchCount);
+		}
+		return base;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import com.gemstone.gemfire.StatisticDescriptor;
+import com.gemstone.gemfire.Statistics;
+import com.gemstone.gemfire.StatisticsFactory;
+import com.gemstone.gemfire.StatisticsType;
+import com.gemstone.gemfire.StatisticsTypeFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionStats;
+import com.gemstone.gemfire.internal.StatisticsTypeFactoryImpl;
+
+/**
+ * TemporalDispatcherStatistics tracks a single temporal event dispatcher
+ * worker of a temporal path. There is one instance per worker.
+ *
+ * @author dpark
+ *
+ */
+public class TemporalDispatcherStatistics
+{
+	public static final String typeName = "TemporalDispatcherStatistics";
+
+	private static final StatisticsType type;
+
+	private static final String QUEUE_DEPTH = "queueDepth";
+	private static final String LAG = "lag";
+	private static final String DISPATCH_IN_PROGRESS_COUNT = "dispatchInProgressCount";
+	private static final String BATCH_COUNT = "batchCount";
+	private static final String EVENT_COUNT = "eventCount";
+	private static final String DISPATCH_TIME = "dispatchTime";
+
+	private static final int queueDepthId;
+	private static final int lagId;
+	private static final int dispatchInProgressCountId;
+	private static final int batchCountId;
+	private static final int eventCountId;
+	private static final int dispatchTimeId;
+
+	static {
+		// Initialize type
+		StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+		type = f.createType(
+				typeName,
+				typeName,
+				new StatisticDescriptor[] {
+						f.createIntGauge(QUEUE_DEPTH, "The number of temporal events waiting to be dispatched by this worker",
+								"events"),
+						f.createLongGauge(LAG, "Time the oldest event of the last dispatched batch waited in the queue",
+								"milliseconds"),
+						f.createIntGauge(DISPATCH_IN_PROGRESS_COUNT, "The number of batches currently being dispatched",
+								"operations"),
+						f.createIntCounter(BATCH_COUNT, "The number of batches dispatched since system start",
+								"operations"),
+						f.createLongCounter(EVENT_COUNT, "The number of temporal events dispatched since system start",
+								"events"),
+						f.createLongCounter(DISPATCH_TIME, "Total time spent applying dispatched temporal events",
+								"nanoseconds"),
+				});
+
+		// Initialize id fields
+		queueDepthId = type.nameToId(QUEUE_DEPTH);
+		lagId = type.nameToId(LAG);
+		dispatchInProgressCountId = type.nameToId(DISPATCH_IN_PROGRESS_COUNT);
+		batchCountId = type.nameToId(BATCH_COUNT);
+		eventCountId = type.nameToId(EVENT_COUNT);
+		dispatchTimeId = type.nameToId(DISPATCH_TIME);
+	}
+
+	private final Statistics stats;
+
+	/**
+	 * Creates statistics for the specified dispatcher worker.
+	 *
+	 * @param f
+	 *            Statistics factory
+	 * @param temporalId
+	 *            Temporal path
+	 * @param worker
+	 *            Worker index
+	 */
+	public TemporalDispatcherStatistics(StatisticsFactory f, String temporalId, int worker)
+	{
+		this.stats = f.createAtomicStatistics(type, "temporalDispatcherStatistics-" + temporalId + "-" + worker);
+	}
+
+	public void close()
+	{
+		this.stats.close();
+	}
+
+	public int getQueueDepth()
+	{
+		return this.stats.getInt(queueDepthId);
+	}
+
+	public long getLag()
+	{
+		return this.stats.getLong(lagId);
+	}
+
+	public int getBatchCount()
+	{
+		return this.stats.getInt(batchCountId);
+	}
+
+	public long getEventCount()
+	{
+		return this.stats.getLong(eventCountId);
+	}
+
+	public long getDispatchTime()
+	{
+		return this.stats.getLong(dispatchTimeId);
+	}
+
+	/**
+	 * Sets the current queue depth and lag.
+	 *
+	 * @param queueDepth
+	 *            Number of events waiting to be dispatched
+	 * @param lag
+	 *            Lag in msec
+	 */
+	public void setQueueDepth(int queueDepth, long lag)
+	{
+		this.stats.setInt(queueDepthId, queueDepth);
+		this.stats.setLong(lagId, lag);
+	}
+
+	public long startDispatch()
+	{
+		stats.incInt(dispatchInProgressCountId, 1);
+		return getTime();
+	}
+
+	public void endDispatch(long start, int eventCount)
+	{
+		long end = getTime();
+
+		// Increment number of batches and events dispatched
+		this.stats.incInt(batchCountId, 1);
+		this.stats.incLong(eventCountId, eventCount);
+
+		// Increment dispatch time
+		this.stats.incLong(dispatchTimeId, end - start);
+
+		// Decrement the number of dispatch calls in progress
+		this.stats.incInt(dispatchInProgressCountId, -1);
+	}
+
+	protected long getTime()
+	{
+		return DistributionStats.getStatTime();
+	}
+}
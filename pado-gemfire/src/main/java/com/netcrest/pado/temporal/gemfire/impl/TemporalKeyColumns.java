@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import java.util.Arrays;
+
+/**
+ * TemporalKeyColumns stores the times of temporal keys that belong to a single
+ * identity key in parallel primitive columns, i.e., start valid time, end valid
+ * time, written time, and end written time. Unlike a list of ITemporalKey
+ * objects, binary searches read the times directly from the columns without
+ * dereferencing key objects. The columns are kept in the temporal list order,
+ * i.e., sorted by start valid time and then by written time.
+ * <p>
+ * TemporalKeyColumns is not thread-safe. The caller must synchronize updates.
+ * Readers that access the columns concurrently with updates may observe a
+ * partially updated row, a changed size or a changed end written time of the
+ * last row. Callers that require consistent snapshots, e.g.,
+ * GemfireColumnarTemporalList, never update a published object and instead
+ * apply all updates, including appends, to a {@link #copy(int)}.
+ *
+ * @author dpark
+ *
+ */
+public class TemporalKeyColumns
+{
+	/**
+	 * Returned by the search methods if the search fails
+	 */
+	public static final int NOT_FOUND = -1;
+
+	private static final int DEFAULT_CAPACITY = 2;
+
+	private long[] startValidTimes;
+	private long[] endValidTimes;
+	private long[] writtenTimes;
+	private long[] endWrittenTimes;
+	private String[] usernames;
+	private volatile int size;
+
+	/**
+	 * Constructs an empty TemporalKeyColumns object with the default capacity.
+	 */
+	public TemporalKeyColumns()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty TemporalKeyColumns object.
+	 *
+	 * @param initialCapacity
+	 *            Initial number of rows
+	 */
+	public TemporalKeyColumns(int initialCapacity)
+	{
+		if (initialCapacity < 1) {
+			initialCapacity = DEFAULT_CAPACITY;
+		}
+		this.startValidTimes = new long[initialCapacity];
+		this.endValidTimes = new long[initialCapacity];
+		this.writtenTimes = new long[initialCapacity];
+		this.endWrittenTimes = new long[initialCapacity];
+		this.usernames = new String[initialCapacity];
+	}
+
+	/**
+	 * Returns the number of rows.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the current row capacity.
+	 */
+	public int capacity()
+	{
+		return usernames.length;
+	}
+
+	public long getStartValidTime(int index)
+	{
+		return startValidTimes[index];
+	}
+
+	public long getEndValidTime(int index)
+	{
+		return endValidTimes[index];
+	}
+
+	public long getWrittenTime(int index)
+	{
+		return writtenTimes[index];
+	}
+
+	public long getEndWrittenTime(int index)
+	{
+		return endWrittenTimes[index];
+	}
+
+	public String getUsername(int index)
+	{
+		return usernames[index];
+	}
+
+	public void setEndWrittenTime(int index, long endWrittenTime)
+	{
+		endWrittenTimes[index] = endWrittenTime;
+	}
+
+	/**
+	 * Inserts a new row at the specified index. The rows at and after the
+	 * index are shifted down by one.
+	 *
+	 * @param index
+	 *            Row index, 0 &lt;= index &lt;= size()
+	 * @param startValidTime
+	 *            Start valid time
+	 * @param endValidTime
+	 *            End valid time
+	 * @param writtenTime
+	 *            Written time
+	 * @param endWrittenTime
+	 *            End written time
+	 * @param username
+	 *            User name
+	 */
+	public void insert(int index, long startValidTime, long endValidTime, long writtenTime, long endWrittenTime,
+			String username)
+	{
+		int curSize = size;
+		if (index < 0 || index > curSize) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + curSize);
+		}
+		ensureCapacity(curSize + 1);
+		int moveCount = curSize - index;
+		if (moveCount > 0) {
+			System.arraycopy(startValidTimes, index, startValidTimes, index + 1, moveCount);
+			System.arraycopy(endValidTimes, index, endValidTimes, index + 1, moveCount);
+			System.arraycopy(writtenTimes, index, writtenTimes, index + 1, moveCount);
+			System.arraycopy(endWrittenTimes, index, endWrittenTimes, index + 1, moveCount);
+			System.arraycopy(usernames, index, usernames, index + 1, moveCount);
+		}
+		startValidTimes[index] = startValidTime;
+		endValidTimes[index] = endValidTime;
+		writtenTimes[index] = writtenTime;
+		endWrittenTimes[index] = endWrittenTime;
+		usernames[index] = username;
+		size = curSize + 1;
+	}
+
+	/**
+	 * Appends a new row.
+	 *
+	 * @see #insert(int, long, long, long, long, String)
+	 */
+	public void add(long startValidTime, long endValidTime, long writtenTime, long endWrittenTime, String username)
+	{
+		insert(size, startValidTime, endValidTime, writtenTime, endWrittenTime, username);
+	}
+
+	/**
+	 * Replaces the row at the specified index.
+	 */
+	public void set(int index, long startValidTime, long endValidTime, long writtenTime, long endWrittenTime,
+			String username)
+	{
+		checkIndex(index);
+		startValidTimes[index] = startValidTime;
+		endValidTimes[index] = endValidTime;
+		writtenTimes[index] = writtenTime;
+		endWrittenTimes[index] = endWrittenTime;
+		usernames[index] = username;
+	}
+
+	/**
+	 * Removes the row at the specified index. The rows after the index are
+	 * shifted up by one.
+	 */
+	public void remove(int index)
+	{
+		checkIndex(index);
+		int curSize = size;
+		int moveCount = curSize - index - 1;
+		// Decrement the size first so that readers do not see the last row
+		// twice while the rows are being shifted.
+		size = curSize - 1;
+		if (moveCount > 0) {
+			System.arraycopy(startValidTimes, index + 1, startValidTimes, index, moveCount);
+			System.arraycopy(endValidTimes, index + 1, endValidTimes, index, moveCount);
+			System.arraycopy(writtenTimes, index + 1, writtenTimes, index, moveCount);
+			System.arraycopy(endWrittenTimes, index + 1, endWrittenTimes, index, moveCount);
+			System.arraycopy(usernames, index + 1, usernames, index, moveCount);
+		}
+		usernames[curSize - 1] = null;
+	}
+
+	/**
+	 * Returns the index of the row that has the specified times. The search
+	 * starts from the last row as the recent rows are more likely to be
+	 * searched. Returns {@link #NOT_FOUND} if not found.
+	 */
+	public int indexOf(long startValidTime, long endValidTime, long writtenTime)
+	{
+		for (int i = size - 1; i >= 0; i--) {
+			if (writtenTimes[i] == writtenTime && startValidTimes[i] == startValidTime
+					&& endValidTimes[i] == endValidTime) {
+				return i;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Returns a copy of this object with the specified minimum capacity.
+	 *
+	 * @param minCapacity
+	 *            Minimum capacity of the copy
+	 */
+	public TemporalKeyColumns copy(int minCapacity)
+	{
+		int curSize = size;
+		TemporalKeyColumns copy = new TemporalKeyColumns(Math.max(curSize, minCapacity));
+		System.arraycopy(startValidTimes, 0, copy.startValidTimes, 0, curSize);
+		System.arraycopy(endValidTimes, 0, copy.endValidTimes, 0, curSize);
+		System.arraycopy(writtenTimes, 0, copy.writtenTimes, 0, curSize);
+		System.arraycopy(endWrittenTimes, 0, copy.endWrittenTimes, 0, curSize);
+		System.arraycopy(usernames, 0, copy.usernames, 0, curSize);
+		copy.size = curSize;
+		return copy;
+	}
+
+	/**
+	 * Returns the estimated number of bytes occupied by this object including
+	 * the column storage but excluding the user name strings which are
+	 * typically shared.
+	 */
+	public long getMemorySize()
+	{
+		int capacity = capacity();
+		// object header + fields + 4 column array headers + username array
+		long bytes = 16 + 32 + 4 * 16 + 16 + 8L * capacity;
+		bytes += 4 * 8L * capacity;
+		return bytes;
+	}
+
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+		}
+	}
+
+	private void ensureCapacity(int minCapacity)
+	{
+		int capacity = capacity();
+		if (minCapacity <= capacity) {
+			return;
+		}
+		// Grow by 50% similar to ArrayList. Temporal lists are mostly small so
+		// keep the growth modest.
+		int newCapacity = capacity + (capacity >> 1) + 1;
+		if (newCapacity < minCapacity) {
+			newCapacity = minCapacity;
+		}
+		int curSize = size;
+		startValidTimes = Arrays.copyOf(startValidTimes, newCapacity);
+		endValidTimes = Arrays.copyOf(endValidTimes, newCapacity);
+		writtenTimes = Arrays.copyOf(writtenTimes, newCapacity);
+		endWrittenTimes = Arrays.copyOf(endWrittenTimes, newCapacity);
+		String[] tmp = new String[newCapacity];
+		System.arraycopy(usernames, 0, tmp, 0, curSize);
+		usernames = tmp;
+	}
+
+	/**
+	 * Returns the index at which a key with the specified start valid time and
+	 * written time should be placed. Returns {@link #NOT_FOUND} if the key
+	 * must be inserted at the top of the columns. This method mirrors the
+	 * search done by {@link GemfireTemporalList} on its key list.
+	 *
+	 * @param validAtTime
+	 *            Start valid time of the key
+	 * @param writtenTime
+	 *            Written time of the key
+	 */
+	public int binarySearchAddKey(long validAtTime, long writtenTime)
+	{
+		int low = 0;
+		int high = size - 1;
+		int mid = 0;
+		boolean visited = false;
+
+		while (low <= high) {
+			mid = (low + high) >>> 1;
+			visited = true;
+			long startValidTime = startValidTimes[mid];
+			if (startValidTime < validAtTime)
+				low = mid + 1;
+			else if (startValidTime > validAtTime)
+				high = mid - 1;
+			else {
+				// startValidTime is same.
+				// find the last index with the same startValidTime.
+				int index = lastIndexOfStartValidTime(mid, validAtTime);
+
+				// traverse up until the first index that does not match
+				// startValidTime and writtenTime.
+				for (int i = index; i >= 0; i--) {
+					if (startValidTimes[i] == validAtTime && writtenTimes[i] > writtenTime) {
+						index = i;
+					} else {
+						break;
+					}
+				}
+				return index;
+			}
+		}
+		if (high < 0) {
+			return NOT_FOUND;
+		} else {
+			if (visited && startValidTimes[mid] > validAtTime) {
+				mid--;
+			}
+			return mid;
+		}
+	}
+
+	/**
+	 * Returns the index of the last row that has the start valid time less
+	 * than or equal to the specified valid-at time and the written time less
+	 * than or equal to the specified as-of time. Returns {@link #NOT_FOUND} if
+	 * not found.
+	 *
+	 * @param validAtTime
+	 *            Valid-at time
+	 * @param asOfTime
+	 *            As-of time
+	 */
+	public int binarySearchAsOf(long validAtTime, long asOfTime)
+	{
+		int low = 0;
+		int high = size - 1;
+		int mid = 0;
+		boolean visited = false;
+
+		while (low <= high) {
+			mid = (low + high) >>> 1;
+			visited = true;
+			long startValidTime = startValidTimes[mid];
+			if (startValidTime < validAtTime)
+				low = mid + 1;
+			else if (startValidTime > validAtTime)
+				high = mid - 1;
+			else {
+				int index = lastIndexOfStartValidTime(mid, validAtTime);
+
+				// traverse up until the first index that does not match
+				// validAtTime and asOfTime.
+				for (int i = index; i >= 0; i--) {
+					if (startValidTimes[i] == validAtTime && writtenTimes[i] > asOfTime) {
+						index = i;
+					} else {
+						break;
+					}
+				}
+				return index;
+			}
+		}
+		if (high < 0) {
+			return NOT_FOUND;
+		} else {
+			if (visited && startValidTimes[mid] > validAtTime) {
+				mid--;
+			}
+			return mid;
+		}
+	}
+
+	/**
+	 * Returns the index of the last row that is valid at the specified time.
+	 * Returns {@link #NOT_FOUND} if not found.
+	 *
+	 * @param validAtTime
+	 *            Valid-at time
+	 */
+	public int binarySearchValidAt(long validAtTime)
+	{
+		int low = 0;
+		int high = size - 1;
+		int mid = 0;
+		int lastMid = -1;
+
+		while (low <= high) {
+			mid = (low + high) >>> 1;
+			lastMid = mid;
+			long startValidTime = startValidTimes[mid];
+			if (startValidTime < validAtTime)
+				low = mid + 1;
+			else if (startValidTime > validAtTime)
+				high = mid - 1;
+			else {
+				if (validAtTime >= endValidTimes[mid]) {
+					return NOT_FOUND;
+				}
+
+				// find the last index with the same startValidTime.
+				int curSize = size;
+				int index = mid;
+				for (int i = mid; i < curSize; i++) {
+					if (startValidTimes[i] == validAtTime && validAtTime < endValidTimes[i]) {
+						index = i;
+					} else {
+						break;
+					}
+				}
+				return index;
+			}
+		}
+		if (high < 0) {
+			return NOT_FOUND;
+		} else {
+			if (lastMid >= 0 && startValidTimes[lastMid] > validAtTime) {
+				mid--;
+			}
+			if (lastMid >= 0 && validAtTime >= endValidTimes[lastMid]) {
+				return NOT_FOUND;
+			}
+			return mid;
+		}
+	}
+
+	/**
+	 * Returns the index of the last row that has the start valid time less
+	 * than or equal to the specified valid-at time. The caller is expected to
+	 * traverse up from the returned index to find the rows that fall in the
+	 * written time range. Returns {@link #NOT_FOUND} if not found.
+	 *
+	 * @param validAtTime
+	 *            Valid-at time.
+	 * @param fromWrittenTime
+	 *            Start of the written time range, inclusive.
+	 * @param toWrittenTime
+	 *            End of the written time range, exclusive.
+	 */
+	public int binarySearchWrittenTimeRange(long validAtTime, long fromWrittenTime, long toWrittenTime)
+	{
+		int low = 0;
+		int high = size - 1;
+		int mid = 0;
+
+		while (low <= high) {
+			mid = (low + high) >>> 1;
+			long startValidTime = startValidTimes[mid];
+			if (startValidTime < validAtTime)
+				low = mid + 1;
+			else if (startValidTime > validAtTime)
+				high = mid - 1;
+			else {
+				mid = lastIndexOfStartValidTime(mid, validAtTime);
+				break;
+			}
+		}
+		if (high < 0) {
+			return NOT_FOUND;
+		} else {
+			return mid;
+		}
+	}
+
+	private int lastIndexOfStartValidTime(int fromIndex, long startValidTime)
+	{
+		int curSize = size;
+		int index = fromIndex;
+		for (int i = fromIndex; i < curSize; i++) {
+			if (startValidTimes[i] == startValidTime) {
+				index = i;
+			} else {
+				break;
+			}
+		}
+		return index;
+	}
+}
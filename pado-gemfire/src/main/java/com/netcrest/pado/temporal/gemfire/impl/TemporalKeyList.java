@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import com.netcrest.pado.temporal.ITemporalKey;
+
+/**
+ * TemporalKeyList is an immutable snapshot of the temporal keys of a temporal
+ * list. Readers obtain a consistent view without locking by reading the
+ * latest snapshot from a volatile field. Writers never modify a published
+ * snapshot. Instead, each update returns a new snapshot that the writer
+ * publishes.
+ * <p>
+ * Updates are append-optimized. Temporal keys are mostly appended at the end
+ * of a temporal list, so {@link #append(ITemporalKey)} shares the backing
+ * array with the previous snapshot and writes the new key beyond the
+ * previous snapshot's size, which is invisible to the readers of the previous
+ * snapshot. All other updates copy the backing array.
+ * <p>
+ * <b>Important:</b> The update methods must be invoked only on the latest
+ * snapshot and by one writer at a time, i.e., while holding the temporal list
+ * lock. Appending to an older snapshot would overwrite keys of a newer
+ * snapshot sharing the same array.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings("rawtypes")
+public final class TemporalKeyList extends AbstractList<ITemporalKey> implements RandomAccess
+{
+	/**
+	 * Empty temporal key list
+	 */
+	public static final TemporalKeyList EMPTY = new TemporalKeyList(new ITemporalKey[0], 0);
+
+	private final ITemporalKey[] keys;
+	private final int size;
+
+	private TemporalKeyList(ITemporalKey[] keys, int size)
+	{
+		this.keys = keys;
+		this.size = size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITemporalKey get(int index)
+	{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+		}
+		return keys[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the last key or null if the list is empty.
+	 */
+	public ITemporalKey getLast()
+	{
+		return size == 0 ? null : keys[size - 1];
+	}
+
+	private static int newCapacity(int minCapacity)
+	{
+		// Grow by 50% similar to ArrayList
+		return minCapacity + (minCapacity >> 1) + 1;
+	}
+
+	/**
+	 * Returns a new snapshot with the specified key appended at the end.
+	 *
+	 * @param tkey
+	 *            Temporal key
+	 */
+	public TemporalKeyList append(ITemporalKey tkey)
+	{
+		if (size < keys.length) {
+			// Slots beyond size are never visible to the readers of this
+			// snapshot. Share the array.
+			keys[size] = tkey;
+			return new TemporalKeyList(keys, size + 1);
+		}
+		ITemporalKey[] tmp = new ITemporalKey[newCapacity(size + 1)];
+		System.arraycopy(keys, 0, tmp, 0, size);
+		tmp[size] = tkey;
+		return new TemporalKeyList(tmp, size + 1);
+	}
+
+	/**
+	 * Returns a new snapshot with the specified key inserted at the specified
+	 * index.
+	 *
+	 * @param index
+	 *            Index, 0 &lt;= index &lt;= size()
+	 * @param tkey
+	 *            Temporal key
+	 */
+	public TemporalKeyList insert(int index, ITemporalKey tkey)
+	{
+		if (index == size) {
+			return append(tkey);
+		}
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+		}
+		ITemporalKey[] tmp = new ITemporalKey[newCapacity(size + 1)];
+		System.arraycopy(keys, 0, tmp, 0, index);
+		tmp[index] = tkey;
+		System.arraycopy(keys, index, tmp, index + 1, size - index);
+		return new TemporalKeyList(tmp, size + 1);
+	}
+
+	/**
+	 * Returns a new snapshot with the key at the specified index replaced.
+	 *
+	 * @param index
+	 *            Index, 0 &lt;= index &lt; size()
+	 * @param tkey
+	 *            Temporal key
+	 */
+	public TemporalKeyList replace(int index, ITemporalKey tkey)
+	{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+		}
+		ITemporalKey[] tmp = new ITemporalKey[keys.length];
+		System.arraycopy(keys, 0, tmp, 0, size);
+		tmp[index] = tkey;
+		return new TemporalKeyList(tmp, size);
+	}
+
+	/**
+	 * Returns a new snapshot with the key at the specified index removed.
+	 *
+	 * @param index
+	 *            Index, 0 &lt;= index &lt; size()
+	 */
+	public TemporalKeyList delete(int index)
+	{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+		}
+		if (size == 1) {
+			return EMPTY;
+		}
+		ITemporalKey[] tmp = new ITemporalKey[size - 1];
+		System.arraycopy(keys, 0, tmp, 0, index);
+		System.arraycopy(keys, index + 1, tmp, index, size - index - 1);
+		return new TemporalKeyList(tmp, size - 1);
+	}
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.internal.util.PadoUtil;
+import com.netcrest.pado.log.Logger;
+import com.netcrest.pado.temporal.ITemporalData;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalEntry;
+
+/**
+ * TemporalListScanner scans temporal lists for bulk queries such as as-of and
+ * written time range queries. If the number of temporal lists is greater than
+ * or equal to {@link Constants#PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD} then the
+ * temporal lists are split into ranges that are scanned in parallel on a
+ * fork-join pool shared by all paths. Otherwise, they are scanned on the
+ * calling thread.
+ * <p>
+ * The results are collected into a list or a map in the iteration order of
+ * the scanned collection.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public abstract class TemporalListScanner
+{
+	private static final int DEFAULT_PARALLEL_THRESHOLD = 50000;
+
+	/**
+	 * Minimum number of temporal lists per range. Smaller ranges cost more to
+	 * fork than to scan.
+	 */
+	private static final int MIN_RANGE_SIZE = 1000;
+
+	private static ForkJoinPool pool;
+
+	protected final String fullPath;
+
+	protected TemporalListScanner(String fullPath)
+	{
+		this.fullPath = fullPath;
+	}
+
+	/**
+	 * Returns the entry that satisfies this scanner's criteria in the
+	 * specified temporal list. Returns null if not found. Invoked concurrently
+	 * by the scanning threads.
+	 *
+	 * @param temporalList
+	 *            Temporal list
+	 */
+	protected abstract TemporalEntry scan(ITemporalList temporalList);
+
+	/**
+	 * Returns a scanner that finds now-relative entries.
+	 *
+	 * @param fullPath
+	 *            Temporal path
+	 */
+	public static TemporalListScanner nowRelative(String fullPath)
+	{
+		return new TemporalListScanner(fullPath) {
+			@Override
+			protected TemporalEntry scan(ITemporalList temporalList)
+			{
+				return temporalList.getNowRelativeEntry();
+			}
+		};
+	}
+
+	/**
+	 * Returns a scanner that finds entries that satisfy the specified valid-at
+	 * and as-of times.
+	 *
+	 * @param fullPath
+	 *            Temporal path
+	 * @param validAtTime
+	 *            Valid-at time in msec
+	 * @param asOfTime
+	 *            As-of time in msec
+	 */
+	public static TemporalListScanner asOf(String fullPath, final long validAtTime, final long asOfTime)
+	{
+		return new TemporalListScanner(fullPath) {
+			@Override
+			protected TemporalEntry scan(ITemporalList temporalList)
+			{
+				return temporalList.getAsOf(validAtTime, asOfTime);
+			}
+		};
+	}
+
+	/**
+	 * Returns a scanner that finds entries that satisfy the specified valid-at
+	 * time and written time range.
+	 *
+	 * @param fullPath
+	 *            Temporal path
+	 * @param validAtTime
+	 *            Valid-at time in msec
+	 * @param fromWrittenTime
+	 *            Start of the written time range, inclusive.
+	 * @param toWrittenTime
+	 *            End of the written time range, exclusive.
+	 */
+	public static TemporalListScanner writtenTimeRange(String fullPath, final long validAtTime,
+			final long fromWrittenTime, final long toWrittenTime)
+	{
+		return new TemporalListScanner(fullPath) {
+			@Override
+			protected TemporalEntry scan(ITemporalList temporalList)
+			{
+				return temporalList.getWrttenTimeRange(validAtTime, fromWrittenTime, toWrittenTime);
+			}
+		};
+	}
+
+	/**
+	 * Returns the shared fork-join pool. Created on first use.
+	 */
+	private static synchronized ForkJoinPool getPool()
+	{
+		if (pool == null) {
+			int parallelism = PadoUtil.getInteger(Constants.PROP_TEMPORAL_SCAN_PARALLELISM,
+					Runtime.getRuntime().availableProcessors());
+			if (parallelism < 1) {
+				parallelism = 1;
+			}
+			pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+				public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+				{
+					ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+					t.setName("Pado-TemporalListScanner-" + t.getPoolIndex());
+					t.setDaemon(true);
+					return t;
+				}
+			}, null, false);
+		}
+		return pool;
+	}
+
+	private int getPathInteger(String prop, int defaultValue)
+	{
+		try {
+			return Integer.parseInt(PadoUtil.getPathProperty(prop, fullPath, Integer.toString(defaultValue)));
+		} catch (NumberFormatException ex) {
+			Logger.warning(fullPath + " - Invalid " + prop + ". Using the default value " + defaultValue + ".", ex);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns the specified entry as a GemfireTemporalEntry. Temporal lists
+	 * already return GemfireTemporalEntry objects which are returned as is.
+	 */
+	private static TemporalEntry toGemfireTemporalEntry(TemporalEntry entry)
+	{
+		if (entry instanceof GemfireTemporalEntry) {
+			return entry;
+		}
+		return new GemfireTemporalEntry(entry.getTemporalKey(), entry.getTemporalData());
+	}
+
+	/**
+	 * Returns the number of ranges for scanning the specified number of
+	 * temporal lists. Returns 1 if they should be scanned on the calling
+	 * thread.
+	 */
+	private int getRangeCount(int size)
+	{
+		int threshold = getPathInteger(Constants.PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD);
+		if (size < threshold || size < MIN_RANGE_SIZE * 2) {
+			return 1;
+		}
+		ForkJoinPool pool = getPool();
+		if (pool.getParallelism() < 2) {
+			return 1;
+		}
+		// A few ranges per thread to even out the ranges that take longer.
+		return Math.min(pool.getParallelism() * 4, size / MIN_RANGE_SIZE);
+	}
+
+	/**
+	 * Scans the specified temporal lists and returns the entries found in the
+	 * iteration order of the collection.
+	 *
+	 * @param temporalLists
+	 *            Temporal lists to scan
+	 */
+	public List<TemporalEntry> getList(Collection<ITemporalList> temporalLists)
+	{
+		int size = temporalLists.size();
+		int rangeCount = getRangeCount(size);
+		if (rangeCount == 1) {
+			ArrayList<TemporalEntry> list = new ArrayList<TemporalEntry>(size);
+			for (ITemporalList temporalList : temporalLists) {
+				TemporalEntry entry = scan(temporalList);
+				if (entry != null) {
+					list.add(toGemfireTemporalEntry(entry));
+				}
+			}
+			return list;
+		}
+
+		ITemporalList[] lists = temporalLists.toArray(new ITemporalList[size]);
+		Range[] ranges = new Range[rangeCount];
+		for (int i = 0; i < rangeCount; i++) {
+			ranges[i] = new Range(lists, (int) ((long) lists.length * i / rangeCount),
+					(int) ((long) lists.length * (i + 1) / rangeCount));
+		}
+		getPool().invoke(new RangeTask(ranges, 0, rangeCount));
+		int count = 0;
+		for (Range range : ranges) {
+			count += range.list.size();
+		}
+		ArrayList<TemporalEntry> list = new ArrayList<TemporalEntry>(count);
+		for (Range range : ranges) {
+			list.addAll(range.list);
+		}
+		return list;
+	}
+
+	/**
+	 * Scans the specified temporal lists and returns a map of the entries
+	 * found.
+	 *
+	 * @param temporalLists
+	 *            Temporal lists to scan
+	 */
+	public Map<ITemporalKey, ITemporalData> getMap(Collection<ITemporalList> temporalLists)
+	{
+		List<TemporalEntry> list = getList(temporalLists);
+		HashMap<ITemporalKey, ITemporalData> map = new HashMap<ITemporalKey, ITemporalData>(
+				(int) (list.size() / 0.75f) + 1);
+		for (TemporalEntry entry : list) {
+			map.put(entry.getTemporalKey(), entry.getTemporalData());
+		}
+		return map;
+	}
+
+	/**
+	 * A range of temporal lists scanned by a single thread. The entries found
+	 * are collected into a list.
+	 */
+	final class Range
+	{
+		final ITemporalList[] lists;
+		final int from;
+		final int to;
+		ArrayList<TemporalEntry> list;
+
+		Range(ITemporalList[] lists, int from, int to)
+		{
+			this.lists = lists;
+			this.from = from;
+			this.to = to;
+		}
+
+		void scanRange()
+		{
+			list = new ArrayList<TemporalEntry>(to - from);
+			for (int i = from; i < to; i++) {
+				TemporalEntry entry = scan(lists[i]);
+				if (entry != null) {
+					list.add(toGemfireTemporalEntry(entry));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits ranges in halves till a single range is left, which is then
+	 * scanned by the current thread.
+	 */
+	final static class RangeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Range[] ranges;
+		private final int from;
+		private final int to;
+
+		RangeTask(Range[] ranges, int from, int to)
+		{
+			this.ranges = ranges;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from == 1) {
+				ranges[from].scanRange();
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new RangeTask(ranges, from, mid), new RangeTask(ranges, mid, to));
+			}
+		}
+	}
+}
@@ -46,6 +46,32 @@ public class TemporalStatistics
 	private static final String AS_OF_ENTITY_ATTACHMENTS_SEARCH_COUNT = "asOfEntityAttachmentsSearchCount";
 	private static final String AS_OF_ENTITY_ATTACHMENTS_SEARCH_TIME = "asOfEntityAttachmentsSearchTime";
 	
+	private static final String INIT_BUCKET_TOTAL = "initBucketTotal";
+	private static final String INIT_BUCKET_IN_PROGRESS_COUNT = "initBucketInProgressCount";
+	private static final String INIT_BUCKET_COUNT = "initBucketCount";
+	private static final String INIT_BUCKET_TIME = "initBucketTime";
+	private static final String INIT_BUCKET_MAX_TIME = "initBucketMaxTime";
+	private static final String INIT_KEY_COUNT = "initKeyCount";
+	private static final String INIT_TIME = "initTime";
+
+	private static final String DELTA_CHAIN_COUNT = "deltaChainCount";
+	private static final String DELTA_CHECKPOINT_HIT_COUNT = "deltaCheckpointHitCount";
+	private static final String DELTA_FETCH_COUNT = "deltaFetchCount";
+	private static final String DELTA_CHECKPOINT_COUNT = "deltaCheckpointCount";
+	private static final String NOW_RELATIVE_CACHE_HIT_COUNT = "nowRelativeCacheHitCount";
+	private static final String NOW_RELATIVE_CACHE_MISS_COUNT = "nowRelativeCacheMissCount";
+	private static final String NOW_RELATIVE_CACHE_REBUILD_COUNT = "nowRelativeCacheRebuildCount";
+	private static final String LUCENE_REBUILD_COUNT = "luceneRebuildCount";
+	private static final String LUCENE_REBUILD_DOC_COUNT = "luceneRebuildDocCount";
+	private static final String LUCENE_REBUILD_TIME = "luceneRebuildTime";
+	private static final String LUCENE_REBUILD_DOCS_PER_SEC = "luceneRebuildDocsPerSec";
+	private static final String LUCENE_INDEX_QUEUE_SIZE = "luceneIndexQueueSize";
+	private static final String LUCENE_INDEX_BATCH_COUNT = "luceneIndexBatchCount";
+	private static final String LUCENE_INDEX_LAG_TIME = "luceneIndexLagTime";
+	private static final String LUCENE_INDEX_MAX_LAG = "luceneIndexMaxLag";
+	private static final String LUCENE_INDEX_REFRESH_COUNT = "luceneIndexRefreshCount";
+	private static final String LUCENE_INDEX_COMMIT_COUNT = "luceneIndexCommitCount";
+	
 
 	private static final int putInProgressCountId;
 	private static final int putCountId;
@@ -59,6 +85,30 @@ public class TemporalStatistics
 	private static final int asOfEntityAttachmentsSearchInProgressCountId;
 	private static final int asOfEntityAttachmentsSearchCountId;
 	private static final int asOfEntityAttachmentsSearchTimeId;
+	private static final int initBucketTotalId;
+	private static final int initBucketInProgressCountId;
+	private static final int initBucketCountId;
+	private static final int initBucketTimeId;
+	private static final int initBucketMaxTimeId;
+	private static final int initKeyCountId;
+	private static final int initTimeId;
+	private static final int deltaChainCountId;
+	private static final int deltaCheckpointHitCountId;
+	private static final int deltaFetchCountId;
+	private static final int deltaCheckpointCountId;
+	private static final int nowRelativeCacheHitCountId;
+	private static final int nowRelativeCacheMissCountId;
+	private static final int nowRelativeCacheRebuildCountId;
+	private static final int luceneRebuildCountId;
+	private static final int luceneRebuildDocCountId;
+	private static final int luceneRebuildTimeId;
+	private static final int luceneRebuildDocsPerSecId;
+	private static final int luceneIndexQueueSizeId;
+	private static final int luceneIndexBatchCountId;
+	private static final int luceneIndexLagTimeId;
+	private static final int luceneIndexMaxLagId;
+	private static final int luceneIndexRefreshCountId;
+	private static final int luceneIndexCommitCountId;
 
 	static {
 		// Initialize type
@@ -92,6 +142,62 @@ public class TemporalStatistics
 								"operations"),
 						f.createLongCounter(AS_OF_ENTITY_ATTACHMENTS_SEARCH_TIME,
 								"Total time spent searching temporal entities with attachments", "nanoseconds"),
+								
+						f.createIntGauge(INIT_BUCKET_TOTAL, "The number of buckets to be processed by the current temporal list initialization",
+								"buckets"),
+						f.createIntGauge(INIT_BUCKET_IN_PROGRESS_COUNT, "The number of buckets currently being processed by temporal list initialization",
+								"buckets"),
+						f.createIntGauge(INIT_BUCKET_COUNT, "The number of buckets processed by the current temporal list initialization",
+								"buckets"),
+						f.createLongCounter(INIT_BUCKET_TIME,
+								"Total time spent building temporal lists per bucket", "nanoseconds"),
+						f.createLongGauge(INIT_BUCKET_MAX_TIME,
+								"Max time spent building the temporal lists of a single bucket", "nanoseconds"),
+						f.createLongCounter(INIT_KEY_COUNT, "The number of temporal keys loaded into temporal lists during initialization",
+								"keys"),
+						f.createLongGauge(INIT_TIME,
+								"Elapsed time of the last temporal list initialization", "nanoseconds"),
+								
+						f.createLongCounter(DELTA_CHAIN_COUNT, "The number of delta chains resolved",
+								"operations"),
+						f.createLongCounter(DELTA_CHECKPOINT_HIT_COUNT, "The number of delta chains resolved from a checkpoint",
+								"operations"),
+						f.createLongCounter(DELTA_FETCH_COUNT, "The number of region gets made while resolving delta chains",
+								"operations"),
+						f.createLongCounter(DELTA_CHECKPOINT_COUNT, "The number of delta chain checkpoints created",
+								"checkpoints"),
+
+						f.createLongCounter(NOW_RELATIVE_CACHE_HIT_COUNT,
+								"The number of now-relative entries returned from the temporal list cache", "operations"),
+						f.createLongCounter(NOW_RELATIVE_CACHE_MISS_COUNT,
+								"The number of now-relative entries built by readers due to an empty or stale cache",
+								"operations"),
+						f.createLongCounter(NOW_RELATIVE_CACHE_REBUILD_COUNT,
+								"The number of now-relative entries rebuilt by temporal list updates", "operations"),
+
+						f.createIntCounter(LUCENE_REBUILD_COUNT, "The number of Lucene index rebuilds",
+								"operations"),
+						f.createLongCounter(LUCENE_REBUILD_DOC_COUNT, "The number of documents indexed by Lucene index rebuilds",
+								"documents"),
+						f.createLongCounter(LUCENE_REBUILD_TIME, "Total time spent rebuilding Lucene indexes",
+								"nanoseconds"),
+						f.createLongGauge(LUCENE_REBUILD_DOCS_PER_SEC,
+								"Throughput of the last Lucene index rebuild", "documents/second"),
+
+						f.createIntGauge(LUCENE_INDEX_QUEUE_SIZE,
+								"The number of event batches waiting to be indexed by Lucene dynamic indexing",
+								"batches"),
+						f.createLongCounter(LUCENE_INDEX_BATCH_COUNT,
+								"The number of event batches made searchable by Lucene dynamic indexing", "batches"),
+						f.createLongCounter(LUCENE_INDEX_LAG_TIME,
+								"Total time from dispatching event batches to making them searchable", "nanoseconds"),
+						f.createLongGauge(LUCENE_INDEX_MAX_LAG,
+								"Max time from dispatching an event batch to making it searchable in the last refresh",
+								"nanoseconds"),
+						f.createLongCounter(LUCENE_INDEX_REFRESH_COUNT,
+								"The number of Lucene dynamic indexing searcher refreshes", "operations"),
+						f.createLongCounter(LUCENE_INDEX_COMMIT_COUNT, "The number of Lucene dynamic indexing commits",
+								"operations"),
 				});
 
 		// Initialize id fields
@@ -107,6 +213,30 @@ public class TemporalStatistics
 		asOfEntityAttachmentsSearchInProgressCountId = type.nameToId(AS_OF_ENTITY_ATTACHMENTS_SEARCH_IN_PROGRESS_COUNT);
 		asOfEntityAttachmentsSearchCountId = type.nameToId(AS_OF_ENTITY_ATTACHMENTS_SEARCH_COUNT);
 		asOfEntityAttachmentsSearchTimeId = type.nameToId(AS_OF_ENTITY_ATTACHMENTS_SEARCH_TIME);
+		initBucketTotalId = type.nameToId(INIT_BUCKET_TOTAL);
+		initBucketInProgressCountId = type.nameToId(INIT_BUCKET_IN_PROGRESS_COUNT);
+		initBucketCountId = type.nameToId(INIT_BUCKET_COUNT);
+		initBucketTimeId = type.nameToId(INIT_BUCKET_TIME);
+		initBucketMaxTimeId = type.nameToId(INIT_BUCKET_MAX_TIME);
+		initKeyCountId = type.nameToId(INIT_KEY_COUNT);
+		initTimeId = type.nameToId(INIT_TIME);
+		deltaChainCountId = type.nameToId(DELTA_CHAIN_COUNT);
+		deltaCheckpointHitCountId = type.nameToId(DELTA_CHECKPOINT_HIT_COUNT);
+		deltaFetchCountId = type.nameToId(DELTA_FETCH_COUNT);
+		deltaCheckpointCountId = type.nameToId(DELTA_CHECKPOINT_COUNT);
+		nowRelativeCacheHitCountId = type.nameToId(NOW_RELATIVE_CACHE_HIT_COUNT);
+		nowRelativeCacheMissCountId = type.nameToId(NOW_RELATIVE_CACHE_MISS_COUNT);
+		nowRelativeCacheRebuildCountId = type.nameToId(NOW_RELATIVE_CACHE_REBUILD_COUNT);
+		luceneRebuildCountId = type.nameToId(LUCENE_REBUILD_COUNT);
+		luceneRebuildDocCountId = type.nameToId(LUCENE_REBUILD_DOC_COUNT);
+		luceneRebuildTimeId = type.nameToId(LUCENE_REBUILD_TIME);
+		luceneRebuildDocsPerSecId = type.nameToId(LUCENE_REBUILD_DOCS_PER_SEC);
+		luceneIndexQueueSizeId = type.nameToId(LUCENE_INDEX_QUEUE_SIZE);
+		luceneIndexBatchCountId = type.nameToId(LUCENE_INDEX_BATCH_COUNT);
+		luceneIndexLagTimeId = type.nameToId(LUCENE_INDEX_LAG_TIME);
+		luceneIndexMaxLagId = type.nameToId(LUCENE_INDEX_MAX_LAG);
+		luceneIndexRefreshCountId = type.nameToId(LUCENE_INDEX_REFRESH_COUNT);
+		luceneIndexCommitCountId = type.nameToId(LUCENE_INDEX_COMMIT_COUNT);
 	}
 
 	private final Statistics stats;
@@ -231,6 +361,277 @@ public class TemporalStatistics
 	    this.stats.incInt(asOfEntityAttachmentsSearchInProgressCountId, -1);
 	}
 
+	/**
+	 * Resets the initialization progress statistics. Invoked at the start of
+	 * temporal list initialization.
+	 * 
+	 * @param bucketTotal
+	 *            Number of buckets to be processed
+	 */
+	public void startInit(int bucketTotal)
+	{
+		this.stats.setInt(initBucketTotalId, bucketTotal);
+		this.stats.setInt(initBucketCountId, 0);
+		this.stats.setInt(initBucketInProgressCountId, 0);
+		this.stats.setLong(initBucketMaxTimeId, 0);
+		this.stats.setLong(initTimeId, 0);
+	}
+
+	public void endInit(long elapsedTimeInNano)
+	{
+		this.stats.setLong(initTimeId, elapsedTimeInNano);
+	}
+
+	public long startInitBucket()
+	{
+		stats.incInt(initBucketInProgressCountId, 1);
+		return getTime();
+	}
+
+	public void endInitBucket(long start, int keyCount)
+	{
+		long elapsed = getTime() - start;
+
+		// Increment the number of buckets processed
+		this.stats.incInt(initBucketCountId, 1);
+
+		// Increment bucket time and keys loaded
+		this.stats.incLong(initBucketTimeId, elapsed);
+		this.stats.incLong(initKeyCountId, keyCount);
+		synchronized (this) {
+			if (elapsed > this.stats.getLong(initBucketMaxTimeId)) {
+				this.stats.setLong(initBucketMaxTimeId, elapsed);
+			}
+		}
+
+		// Decrement the number of buckets in progress
+	    this.stats.incInt(initBucketInProgressCountId, -1);
+	}
+
+	public int getInitBucketTotal()
+	{
+		return this.stats.getInt(initBucketTotalId);
+	}
+
+	public int getInitBucketCount()
+	{
+		return this.stats.getInt(initBucketCountId);
+	}
+
+	public long getInitBucketTime()
+	{
+		return this.stats.getLong(initBucketTimeId);
+	}
+
+	public long getInitKeyCount()
+	{
+		return this.stats.getLong(initKeyCountId);
+	}
+
+	/**
+	 * Records a resolved delta chain.
+	 * 
+	 * @param checkpointHit
+	 *            true if the chain was resolved from a checkpoint
+	 * @param fetchCount
+	 *            Number of region gets made
+	 */
+	public void endDeltaChain(boolean checkpointHit, int fetchCount)
+	{
+		this.stats.incLong(deltaChainCountId, 1);
+		if (checkpointHit) {
+			this.stats.incLong(deltaCheckpointHitCountId, 1);
+		}
+		this.stats.incLong(deltaFetchCountId, fetchCount);
+	}
+
+	public void incDeltaCheckpointCount()
+	{
+		this.stats.incLong(deltaCheckpointCountId, 1);
+	}
+
+	public long getDeltaChainCount()
+	{
+		return this.stats.getLong(deltaChainCountId);
+	}
+
+	public long getDeltaCheckpointHitCount()
+	{
+		return this.stats.getLong(deltaCheckpointHitCountId);
+	}
+
+	/**
+	 * Returns the ratio of the delta chains resolved from a checkpoint.
+	 */
+	public double getDeltaCheckpointHitRate()
+	{
+		long chainCount = getDeltaChainCount();
+		return chainCount == 0 ? 0 : (double) getDeltaCheckpointHitCount() / chainCount;
+	}
+
+	public long getDeltaFetchCount()
+	{
+		return this.stats.getLong(deltaFetchCountId);
+	}
+
+	public long getDeltaCheckpointCount()
+	{
+		return this.stats.getLong(deltaCheckpointCountId);
+	}
+
+	public void incNowRelativeCacheHitCount()
+	{
+		this.stats.incLong(nowRelativeCacheHitCountId, 1);
+	}
+
+	public void incNowRelativeCacheMissCount()
+	{
+		this.stats.incLong(nowRelativeCacheMissCountId, 1);
+	}
+
+	public void incNowRelativeCacheRebuildCount()
+	{
+		this.stats.incLong(nowRelativeCacheRebuildCountId, 1);
+	}
+
+	public long getNowRelativeCacheHitCount()
+	{
+		return this.stats.getLong(nowRelativeCacheHitCountId);
+	}
+
+	public long getNowRelativeCacheMissCount()
+	{
+		return this.stats.getLong(nowRelativeCacheMissCountId);
+	}
+
+	public long getNowRelativeCacheRebuildCount()
+	{
+		return this.stats.getLong(nowRelativeCacheRebuildCountId);
+	}
+
+	/**
+	 * Returns the ratio of the now-relative entries returned from the
+	 * temporal list cache.
+	 */
+	public double getNowRelativeCacheHitRate()
+	{
+		long hitCount = getNowRelativeCacheHitCount();
+		long total = hitCount + getNowRelativeCacheMissCount();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	/**
+	 * Records a completed Lucene index rebuild.
+	 * 
+	 * @param docCount
+	 *            Number of documents indexed
+	 * @param elapsedTimeInNano
+	 *            Elapsed time of the rebuild
+	 */
+	public void endLuceneRebuild(int docCount, long elapsedTimeInNano)
+	{
+		this.stats.incInt(luceneRebuildCountId, 1);
+		this.stats.incLong(luceneRebuildDocCountId, docCount);
+		this.stats.incLong(luceneRebuildTimeId, elapsedTimeInNano);
+		long docsPerSec = elapsedTimeInNano <= 0 ? 0 : docCount * 1000000000L / elapsedTimeInNano;
+		this.stats.setLong(luceneRebuildDocsPerSecId, docsPerSec);
+	}
+
+	public int getLuceneRebuildCount()
+	{
+		return this.stats.getInt(luceneRebuildCountId);
+	}
+
+	public long getLuceneRebuildDocCount()
+	{
+		return this.stats.getLong(luceneRebuildDocCountId);
+	}
+
+	public long getLuceneRebuildTime()
+	{
+		return this.stats.getLong(luceneRebuildTimeId);
+	}
+
+	/**
+	 * Returns the number of documents indexed per second by the last Lucene
+	 * index rebuild.
+	 */
+	public long getLuceneRebuildDocsPerSec()
+	{
+		return this.stats.getLong(luceneRebuildDocsPerSecId);
+	}
+
+	public void setLuceneIndexQueueSize(int queueSize)
+	{
+		this.stats.setInt(luceneIndexQueueSizeId, queueSize);
+	}
+
+	/**
+	 * Records a Lucene dynamic indexing refresh that made the specified event
+	 * batches searchable.
+	 * 
+	 * @param batchCount
+	 *            Number of event batches made searchable
+	 * @param lagTime
+	 *            Sum of the times in nanoseconds from dispatching each batch
+	 *            to the refresh
+	 * @param maxLag
+	 *            Time in nanoseconds from dispatching the oldest batch to the
+	 *            refresh
+	 * @param committed
+	 *            true if the batches were committed
+	 */
+	public void endLuceneIndexRefresh(int batchCount, long lagTime, long maxLag, boolean committed)
+	{
+		this.stats.incLong(luceneIndexRefreshCountId, 1);
+		if (committed) {
+			this.stats.incLong(luceneIndexCommitCountId, 1);
+		}
+		this.stats.incLong(luceneIndexBatchCountId, batchCount);
+		this.stats.incLong(luceneIndexLagTimeId, lagTime);
+		this.stats.setLong(luceneIndexMaxLagId, maxLag);
+	}
+
+	public int getLuceneIndexQueueSize()
+	{
+		return this.stats.getInt(luceneIndexQueueSizeId);
+	}
+
+	public long getLuceneIndexBatchCount()
+	{
+		return this.stats.getLong(luceneIndexBatchCountId);
+	}
+
+	public long getLuceneIndexLagTime()
+	{
+		return this.stats.getLong(luceneIndexLagTimeId);
+	}
+
+	/**
+	 * Returns the average time in nanoseconds from dispatching an event batch
+	 * to making it searchable.
+	 */
+	public long getLuceneIndexAverageLag()
+	{
+		long batchCount = getLuceneIndexBatchCount();
+		return batchCount == 0 ? 0 : getLuceneIndexLagTime() / batchCount;
+	}
+
+	public long getLuceneIndexMaxLag()
+	{
+		return this.stats.getLong(luceneIndexMaxLagId);
+	}
+
+	public long getLuceneIndexRefreshCount()
+	{
+		return this.stats.getLong(luceneIndexRefreshCountId);
+	}
+
+	public long getLuceneIndexCommitCount()
+	{
+		return this.stats.getLong(luceneIndexCommitCountId);
+	}
+
 	protected long getTime()
 	{
 		return DistributionStats.getStatTime();
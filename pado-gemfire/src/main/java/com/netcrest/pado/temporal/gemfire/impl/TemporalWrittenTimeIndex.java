@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.gemfire.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.netcrest.pado.temporal.ITemporalKey;
+
+/**
+ * TemporalWrittenTimeIndex is a secondary index of the temporal keys of a
+ * single temporal path by written time. The temporal keys are grouped into
+ * buckets of a fixed written time interval so that written time range queries
+ * visit only the temporal lists that have at least one key written in the
+ * range instead of all temporal lists.
+ * <p>
+ * The index is maintained by {@link TemporalCacheListener} and is safe for
+ * concurrent updates and reads. It is enabled by setting
+ * {@link com.netcrest.pado.internal.Constants#PROP_TEMPORAL_WRITTEN_TIME_INDEX_BUCKET_SIZE}.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings("rawtypes")
+public class TemporalWrittenTimeIndex
+{
+	private final long bucketSize;
+
+	/**
+	 * &lt;bucket, temporal keys&gt; map. The bucket is written time divided by
+	 * the bucket size.
+	 */
+	private final ConcurrentSkipListMap<Long, Set<ITemporalKey>> bucketMap = new ConcurrentSkipListMap<Long, Set<ITemporalKey>>();
+
+	/**
+	 * Creates a written time index with the specified bucket size.
+	 *
+	 * @param bucketSize
+	 *            Written time interval of each bucket in msec. Must be greater
+	 *            than 0.
+	 */
+	public TemporalWrittenTimeIndex(long bucketSize)
+	{
+		if (bucketSize <= 0) {
+			throw new IllegalArgumentException("Bucket size must be greater than 0: " + bucketSize);
+		}
+		this.bucketSize = bucketSize;
+	}
+
+	/**
+	 * Returns the written time interval of each bucket in msec.
+	 */
+	public long getBucketSize()
+	{
+		return bucketSize;
+	}
+
+	/**
+	 * Returns the number of non-empty buckets.
+	 */
+	public int getBucketCount()
+	{
+		return bucketMap.size();
+	}
+
+	private long getBucket(long writtenTime)
+	{
+		// Floor division. Written times are normally positive.
+		long bucket = writtenTime / bucketSize;
+		if (writtenTime < 0 && writtenTime % bucketSize != 0) {
+			bucket--;
+		}
+		return bucket;
+	}
+
+	/**
+	 * Adds the specified temporal key to the index. Adding the same key more
+	 * than once has no effect.
+	 *
+	 * @param tk
+	 *            Temporal key
+	 */
+	public void add(ITemporalKey tk)
+	{
+		Long bucket = getBucket(tk.getWrittenTime());
+		for (;;) {
+			Set<ITemporalKey> keySet = bucketMap.get(bucket);
+			if (keySet == null) {
+				keySet = Collections.newSetFromMap(new ConcurrentHashMap<ITemporalKey, Boolean>(4, 0.75f, 1));
+				Set<ITemporalKey> existingSet = bucketMap.putIfAbsent(bucket, keySet);
+				if (existingSet != null) {
+					keySet = existingSet;
+				}
+			}
+			keySet.add(tk);
+
+			// An emptied bucket may have been removed concurrently. Retry
+			// if the key was added to a bucket that is no longer indexed.
+			if (bucketMap.get(bucket) == keySet) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes the specified temporal key from the index.
+	 *
+	 * @param tk
+	 *            Temporal key
+	 */
+	public void remove(ITemporalKey tk)
+	{
+		Long bucket = getBucket(tk.getWrittenTime());
+		Set<ITemporalKey> keySet = bucketMap.get(bucket);
+		if (keySet != null && keySet.remove(tk) && keySet.isEmpty()) {
+			bucketMap.remove(bucket, keySet);
+		}
+	}
+
+	/**
+	 * Removes all temporal keys from the index.
+	 */
+	public void clear()
+	{
+		bucketMap.clear();
+	}
+
+	/**
+	 * Returns the identity keys of the temporal keys that have written times
+	 * in the specified range. Only the buckets that overlap the range are
+	 * visited.
+	 *
+	 * @param fromWrittenTime
+	 *            Start of the written time range, inclusive.
+	 * @param toWrittenTime
+	 *            End of the written time range, exclusive.
+	 */
+	public Set<Object> getIdentityKeySet(long fromWrittenTime, long toWrittenTime)
+	{
+		Set<Object> identityKeySet = new HashSet<Object>();
+		if (fromWrittenTime >= toWrittenTime) {
+			return identityKeySet;
+		}
+		ConcurrentNavigableMap<Long, Set<ITemporalKey>> subMap = bucketMap.subMap(getBucket(fromWrittenTime), true,
+				getBucket(toWrittenTime - 1), true);
+		for (Map.Entry<Long, Set<ITemporalKey>> entry : subMap.entrySet()) {
+			for (ITemporalKey tk : entry.getValue()) {
+				long writtenTime = tk.getWrittenTime();
+				if (fromWrittenTime <= writtenTime && writtenTime < toWrittenTime) {
+					identityKeySet.add(tk.getIdentityKey());
+				}
+			}
+		}
+		return identityKeySet;
+	}
+}
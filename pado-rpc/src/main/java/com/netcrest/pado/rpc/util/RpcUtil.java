@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -38,6 +39,20 @@ public class RpcUtil
 	public final static String PROP_RPC_PROPERTIES_FILE = "rpcPropertyFile";
 	public final static String DEFAULT_RPC_PROPERTIES_FILE_PATH = "etc/rpc.properties";
 
+	/**
+	 * &lt;method name, Method&gt; maps of the methods invoked by
+	 * {@link #invoke(Object, JsonLite)}. The maps are kept with their classes
+	 * so that the classes and their class loaders, e.g., redeployed biz
+	 * classes, can be unloaded.
+	 */
+	private final static ClassValue<ConcurrentHashMap<String, Method>> invokeMethodMap = new ClassValue<ConcurrentHashMap<String, Method>>() {
+		@Override
+		protected ConcurrentHashMap<String, Method> computeValue(Class<?> type)
+		{
+			return new ConcurrentHashMap<String, Method>(4, 0.75f, 1);
+		}
+	};
+
 	/**
 	 * Returns the agent request request topic.
 	 * 
@@ -352,7 +367,7 @@ public class RpcUtil
 			return null;
 		}
 		String methodName = request.getString(RequestKey.method.name(), null);
-		Method method = obj.getClass().getMethod(methodName, JsonLite.class);
+		Method method = getInvokeMethod(obj.getClass(), methodName);
 		if (method == null) {
 			return null;
 		}
@@ -360,6 +375,27 @@ public class RpcUtil
 		return retObj;
 	}
 
+	/**
+	 * Returns the public method of the specified class that has the specified
+	 * name and the JsonLite parameter. The method is looked up once per class
+	 * and cached.
+	 * 
+	 * @throws NoSuchMethodException
+	 *             Thrown if the method is not defined in the class
+	 */
+	private static Method getInvokeMethod(Class clazz, String methodName) throws NoSuchMethodException
+	{
+		ConcurrentHashMap<String, Method> methodMap = invokeMethodMap.get(clazz);
+		Method method = methodMap.get(methodName);
+		if (method == null) {
+			method = clazz.getMethod(methodName, JsonLite.class);
+			// Skip the access check per invocation
+			method.setAccessible(true);
+			methodMap.put(methodName, method);
+		}
+		return method;
+	}
+
 	/**
 	 * Returns the RPC business object implementation class name for the
 	 * specified client object class name.
@@ -1,35 +1,68 @@
-package com.netcrest.pado.rpc.test;
-
-import org.junit.Assert;
-import org.junit.Test;
-
-import com.netcrest.pado.rpc.util.RpcUtil;
-
-
-public class RpcUtilTest
-{
-	@Test
-	public void testGetBizClassName()
-	{
-		String bizImplClassName = "com.netcrest.pado.rpc.client.biz.impl.gemfire.PathRpcBizImpl";
-		String actual = RpcUtil.getBizClassName(bizImplClassName);
-		Assert.assertEquals("com.netcrest.pado.rpc.client.biz.PathRpcBiz", actual);
-		
-		bizImplClassName = "impl.gemfire.PathRpcBizImpl";
-		actual = RpcUtil.getBizClassName(bizImplClassName);
-		Assert.assertEquals("PathRpcBiz", actual);
-	}
-
-	
-	@Test
-	public void testGetBizImplClassName()
-	{
-		String bizClassName = "com.netcrest.pado.rpc.client.biz.PathRpcBiz";
-		String actual = RpcUtil.getBizImplClassName(bizClassName);
-		Assert.assertEquals("com.netcrest.pado.rpc.client.biz.impl.gemfire.PathRpcBizImpl", actual);
-		
-		bizClassName = "PathRpcBiz";
-		actual = RpcUtil.getBizImplClassName(bizClassName);
-		Assert.assertEquals("impl.gemfire.PathRpcBizImpl", actual);
-	}
-}
+package com.netcrest.pado.rpc.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.data.jsonlite.JsonLite;
+import com.netcrest.pado.rpc.mqtt.RequestKey;
+import com.netcrest.pado.rpc.util.RpcUtil;
+
+
+public class RpcUtilTest
+{
+	@Test
+	public void testGetBizClassName()
+	{
+		String bizImplClassName = "com.netcrest.pado.rpc.client.biz.impl.gemfire.PathRpcBizImpl";
+		String actual = RpcUtil.getBizClassName(bizImplClassName);
+		Assert.assertEquals("com.netcrest.pado.rpc.client.biz.PathRpcBiz", actual);
+		
+		bizImplClassName = "impl.gemfire.PathRpcBizImpl";
+		actual = RpcUtil.getBizClassName(bizImplClassName);
+		Assert.assertEquals("PathRpcBiz", actual);
+	}
+
+	
+	@Test
+	public void testGetBizImplClassName()
+	{
+		String bizClassName = "com.netcrest.pado.rpc.client.biz.PathRpcBiz";
+		String actual = RpcUtil.getBizImplClassName(bizClassName);
+		Assert.assertEquals("com.netcrest.pado.rpc.client.biz.impl.gemfire.PathRpcBizImpl", actual);
+		
+		bizClassName = "PathRpcBiz";
+		actual = RpcUtil.getBizImplClassName(bizClassName);
+		Assert.assertEquals("impl.gemfire.PathRpcBizImpl", actual);
+	}
+
+	public static class Echo
+	{
+		public Object echo(JsonLite params)
+		{
+			return params.get("value");
+		}
+	}
+
+	@Test
+	public void testInvoke() throws Exception
+	{
+		JsonLite params = new JsonLite();
+		params.put("value", "hello");
+		JsonLite request = new JsonLite();
+		request.put(RequestKey.method.name(), "echo");
+		request.put(RequestKey.params.name(), params);
+
+		// The second call uses the cached method
+		Assert.assertEquals("hello", RpcUtil.invoke(new Echo(), request));
+		Assert.assertEquals("hello", RpcUtil.invoke(new Echo(), request));
+		Assert.assertNull(RpcUtil.invoke(null, request));
+
+		request.put(RequestKey.method.name(), "undefined");
+		try {
+			RpcUtil.invoke(new Echo(), request);
+			Assert.fail("NoSuchMethodException expected");
+		} catch (NoSuchMethodException ex) {
+			// expected
+		}
+	}
+}
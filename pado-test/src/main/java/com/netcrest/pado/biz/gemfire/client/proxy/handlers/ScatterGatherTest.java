@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.biz.gemfire.client.proxy.handlers;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.execute.Execution;
+import com.gemstone.gemfire.cache.execute.FunctionException;
+import com.gemstone.gemfire.cache.execute.ResultCollector;
+import com.netcrest.pado.IGridCollector;
+import com.netcrest.pado.IGridContextClient;
+import com.netcrest.pado.annotation.BizClass;
+import com.netcrest.pado.annotation.BizMethod;
+import com.netcrest.pado.annotation.OnServer;
+import com.netcrest.pado.annotation.WithGridCollector;
+import com.netcrest.pado.exception.BizException;
+
+/**
+ * ScatterGatherTest verifies that multi-grid IBiz calls execute the grids
+ * concurrently and gather the results in the order the grids complete, and
+ * that the timeout, required grid count and partial results settings of
+ * {@link IGridContextClient} are honored. The grid executions are simulated
+ * with a delay per grid. It runs in a loner cache and does not require a
+ * grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class ScatterGatherTest
+{
+	private static final String TEST_GRID_COLLECTOR_CLASS = "com.netcrest.pado.biz.gemfire.client.proxy.handlers."
+			+ "ScatterGatherTest$TestGridCollector";
+
+	private static Cache cache;
+
+	private GemfireClientBizInvocationHandler<ITestBiz> handler;
+	private IGridContextClient gridContextClient;
+
+	@BizClass(name = "ScatterGatherTest_ITestBiz")
+	public interface ITestBiz
+	{
+		@BizMethod
+		@OnServer(broadcastGrids = true)
+		@WithGridCollector(gridCollectorClass = TEST_GRID_COLLECTOR_CLASS)
+		List<String> getGridIds();
+
+		@BizMethod
+		@OnServer(broadcastGrids = true)
+		@WithGridCollector(gridCollectorClass = TEST_GRID_COLLECTOR_CLASS)
+		Future<List<String>> getGridIdsFuture();
+
+		@BizMethod
+		@OnServer(broadcastGrids = true)
+		List<String> getFirstGridIds();
+	}
+
+	/**
+	 * Collects the grid IDs in the order they are received.
+	 */
+	public static class TestGridCollector implements IGridCollector<List<String>, List<String>>
+	{
+		private List<String> gridIdList = new ArrayList<String>();
+
+		public void addResult(String gridId, List<String> result)
+		{
+			gridIdList.addAll(result);
+		}
+
+		public List<String> getResult()
+		{
+			return gridIdList;
+		}
+
+		public void endResults()
+		{
+		}
+
+		public void clearResults()
+		{
+			gridIdList.clear();
+		}
+	}
+
+	@BeforeClass
+	public static void setUpClass()
+	{
+		cache = new CacheFactory().set("mcast-port", "0").set("locators", "").set("log-level", "warning")
+				.create();
+	}
+
+	@AfterClass
+	public static void tearDownClass()
+	{
+		if (cache != null) {
+			cache.close();
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		handler = new GemfireClientBizInvocationHandler<ITestBiz>(ITestBiz.class, null) {
+		};
+		gridContextClient = handler.bizContext.getGridContextClient();
+		gridContextClient.reset();
+	}
+
+	/**
+	 * Returns an execution that returns a list containing the grid ID after
+	 * the specified delay. If isFail is true, then it throws
+	 * FunctionException after the delay instead.
+	 */
+	private static Execution createExecution(final String gridId, final long delay, final boolean isFail)
+	{
+		final ResultCollector rc = (ResultCollector) Proxy.newProxyInstance(ResultCollector.class.getClassLoader(),
+				new Class[] { ResultCollector.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						if (method.getName().equals("getResult")) {
+							Thread.sleep(delay);
+							if (isFail) {
+								throw new FunctionException(gridId + " failed");
+							}
+							return new ArrayList<String>(Arrays.asList(gridId));
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		return (Execution) Proxy.newProxyInstance(Execution.class.getClassLoader(), new Class[] { Execution.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						String name = method.getName();
+						if (name.equals("withArgs") || name.equals("withCollector")) {
+							return proxy;
+						} else if (name.equals("execute")) {
+							return rc;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	/**
+	 * Returns the execution pairs of the grids "grid0", "grid1", ... with the
+	 * specified delays. The grid with the index failedIndex fails.
+	 */
+	private GemfireClientBizInvocationHandler.ExecutionPair[] createExecutionPairs(int failedIndex, long... delays)
+	{
+		GemfireClientBizInvocationHandler.ExecutionPair[] execPairs =
+				new GemfireClientBizInvocationHandler.ExecutionPair[delays.length];
+		for (int i = 0; i < delays.length; i++) {
+			String gridId = "grid" + i;
+			execPairs[i] = handler.new ExecutionPair<Object>(gridId, createExecution(gridId, delays[i],
+					i == failedIndex));
+		}
+		return execPairs;
+	}
+
+	private Object invoke(String methodName, long... delays) throws Exception
+	{
+		return handler.doInvocationMany(createExecutionPairs(-1, delays), ITestBiz.class.getMethod(methodName),
+				null);
+	}
+
+	@Test
+	public void testGatherInCompletionOrder() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testGatherInCompletionOrder()");
+		long startTime = System.currentTimeMillis();
+		Object result = invoke("getGridIds", 600, 200, 400);
+		long elapsedTime = System.currentTimeMillis() - startTime;
+		Assert.assertEquals(Arrays.asList("grid1", "grid2", "grid0"), result);
+		Assert.assertEquals(Arrays.asList("grid1", "grid2", "grid0"),
+				new ArrayList<String>(gridContextClient.getGridLatencies().keySet()));
+
+		// Concurrent, i.e., less than the sum of the delays
+		Assert.assertTrue("elapsedTime=" + elapsedTime, elapsedTime < 1200);
+	}
+
+	@Test
+	public void testFirstGridResultWithoutCollector() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testFirstGridResultWithoutCollector()");
+		// The lowest-indexed grid's result is returned regardless of the
+		// completion order
+		Object result = invoke("getFirstGridIds", 300, 50);
+		Assert.assertEquals(Arrays.asList("grid0"), result);
+		Assert.assertEquals(2, gridContextClient.getGridLatencies().size());
+	}
+
+	@Test
+	public void testRequiredGridCount() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testRequiredGridCount()");
+		gridContextClient.setRequiredGridCount(1);
+		long startTime = System.currentTimeMillis();
+		Object result = invoke("getGridIds", 3000, 100, 3000);
+		long elapsedTime = System.currentTimeMillis() - startTime;
+		Assert.assertEquals(Arrays.asList("grid1"), result);
+		Assert.assertEquals(Arrays.asList("grid1"),
+				new ArrayList<String>(gridContextClient.getGridLatencies().keySet()));
+		Assert.assertTrue("elapsedTime=" + elapsedTime, elapsedTime < 2000);
+	}
+
+	@Test
+	public void testTimeout() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testTimeout()");
+		gridContextClient.setTimeout(300);
+		long startTime = System.currentTimeMillis();
+		try {
+			invoke("getGridIds", 50, 3000);
+			Assert.fail("BizException expected");
+		} catch (BizException ex) {
+			Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+		}
+		long elapsedTime = System.currentTimeMillis() - startTime;
+		Assert.assertTrue("elapsedTime=" + elapsedTime, elapsedTime < 2000);
+	}
+
+	@Test
+	public void testPartialResults() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testPartialResults()");
+		gridContextClient.setTimeout(300);
+		gridContextClient.setPartialResultsEnabled(true);
+		Object result = invoke("getGridIds", 50, 3000, 100);
+		Assert.assertEquals(Arrays.asList("grid0", "grid2"), result);
+
+		// The grid that did not complete is missing from the latencies
+		Assert.assertEquals(Arrays.asList("grid0", "grid2"),
+				new ArrayList<String>(gridContextClient.getGridLatencies().keySet()));
+	}
+
+	@Test
+	public void testGridFailure() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testGridFailure()");
+		try {
+			handler.doInvocationMany(createExecutionPairs(1, 200, 50, 200), ITestBiz.class.getMethod("getGridIds"),
+					null);
+			Assert.fail("FunctionException expected");
+		} catch (FunctionException ex) {
+			Assert.assertEquals("grid1 failed", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testFuture() throws Exception
+	{
+		System.out.println("ScatterGatherTest.testFuture()");
+		Future future = (Future) invoke("getGridIdsFuture", 1000, 100);
+		try {
+			future.get(10, TimeUnit.MILLISECONDS);
+			Assert.fail("TimeoutException expected");
+		} catch (TimeoutException ex) {
+			// expected
+		}
+		Assert.assertFalse(future.isDone());
+
+		// Gathering resumes after the timeout
+		Object result = future.get();
+		Assert.assertTrue(future.isDone());
+		Assert.assertEquals(Arrays.asList("grid1", "grid0"), result);
+		Assert.assertSame(result, future.get());
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.temporal.ITemporalData;
+import com.netcrest.pado.temporal.ITemporalDataSerializable;
+import com.netcrest.pado.temporal.ITemporalDelta;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.ITemporalValue;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.TemporalListFactory;
+import com.netcrest.pado.temporal.TemporalUtil;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireColumnarTemporalList;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalList;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalValue;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalDeltaCheckpoints;
+
+/**
+ * TemporalDeltaCheckpointsTest verifies that delta chains resolved through
+ * checkpoints are the same as the chains replayed from the base objects, that
+ * the temporal lists discard checkpoints when keys are inserted, replaced or
+ * removed, and that checkpoints are disabled for a path whose data class
+ * cannot apply deltas. It runs in a loner cache with local regions and does
+ * not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TemporalDeltaCheckpointsTest
+{
+	private static final String TEMPORAL_NAME = "temporal";
+	private static final String CHAIN_PATH = "/checkpoints_chain";
+	private static final String NO_DELTA_PATH = "/checkpoints_nodelta";
+	private static final String LIST_PATH = "/checkpoints_list";
+	private static final int SPACING = 4;
+
+	private static Cache cache;
+	private static TemporalListFactory factory;
+
+	/**
+	 * Temporal data whose value is text. Its delta is a suffix appended to the
+	 * text.
+	 */
+	public static class TextData implements ITemporalDataSerializable<String>, ITemporalDelta
+	{
+		private ITemporalValue<String> temporalValue;
+		private String text = "";
+		private String suffix;
+
+		public TextData()
+		{
+		}
+
+		public ITemporalValue<String> __getTemporalValue()
+		{
+			return temporalValue;
+		}
+
+		public void __setTemporalValue(ITemporalValue<String> temporalValue)
+		{
+			this.temporalValue = temporalValue;
+		}
+
+		public Object getValue()
+		{
+			if (temporalValue != null) {
+				temporalValue.deserializeAll();
+			}
+			return text;
+		}
+
+		public void readTemporal(DataInput input) throws IOException, ClassNotFoundException
+		{
+			text = input.readUTF();
+		}
+
+		public void writeTemporal(DataOutput output) throws IOException
+		{
+			output.writeUTF(text);
+		}
+
+		public void readTemporalAttributes(DataInput input) throws IOException, ClassNotFoundException
+		{
+		}
+
+		public void writeTemporalAttributes(DataOutput output) throws IOException
+		{
+		}
+
+		public boolean hasDelta()
+		{
+			return suffix != null;
+		}
+
+		public void readDelta(DataInput in) throws IOException, ClassNotFoundException
+		{
+			text = text + in.readUTF();
+		}
+
+		public void writeDelta(DataOutput out) throws IOException
+		{
+			out.writeUTF(suffix);
+		}
+	}
+
+	/**
+	 * Temporal data that cannot apply deltas.
+	 */
+	public static class NoDeltaData extends TextData
+	{
+		public NoDeltaData()
+		{
+		}
+
+		@Override
+		public void readDelta(DataInput in) throws IOException, ClassNotFoundException
+		{
+			throw new IOException("Deltas not supported");
+		}
+	}
+
+	@BeforeClass
+	public static void setUp() throws Exception
+	{
+		for (String fullPath : new String[] { CHAIN_PATH, NO_DELTA_PATH, LIST_PATH }) {
+			System.setProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_TEMPORAL_DELTA_CHECKPOINT_SPACING + "."
+					+ fullPath, Integer.toString(SPACING));
+		}
+		cache = new CacheFactory().set("mcast-port", "0").set("locators", "").set("log-level", "warning")
+				.create();
+		for (String fullPath : new String[] { CHAIN_PATH, NO_DELTA_PATH, LIST_PATH }) {
+			cache.createRegionFactory(RegionShortcut.LOCAL).create(fullPath.substring(1));
+		}
+		factory = TemporalListFactory.getTemporalListFactory();
+	}
+
+	@AfterClass
+	public static void tearDown()
+	{
+		if (cache != null) {
+			cache.close();
+		}
+	}
+
+	private static ITemporalKey createKey(String identityKey, long time) throws Exception
+	{
+		return factory.createTemporalKey(identityKey, time, TemporalUtil.MAX_TIME, time, "test");
+	}
+
+	/**
+	 * Puts a whole object with the specified text.
+	 */
+	private static void putWhole(Region region, ITemporalKey tkey, TextData data, String text)
+	{
+		data.text = text;
+		data.__setTemporalValue(new GemfireTemporalValue(tkey, data));
+		region.put(tkey, data);
+	}
+
+	/**
+	 * Puts a delta object that appends the specified suffix. The delta is
+	 * kept serialized as it is in the server.
+	 */
+	private static void putDelta(Region region, ITemporalKey tkey, TextData data, String suffix) throws IOException
+	{
+		data.suffix = suffix;
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		data.writeDelta(dos);
+		dos.close();
+		GemfireTemporalValue value = new GemfireTemporalValue(tkey, data);
+		value.setDelta(true);
+		value.setSerializedData(baos.toByteArray());
+		data.__setTemporalValue(value);
+		region.put(tkey, data);
+	}
+
+	/**
+	 * Returns the value of the key at the specified index resolved from the
+	 * base object found by collectDeltas().
+	 */
+	private static Object resolve(Region region, List<ITemporalKey> keyList, int index,
+			TemporalDeltaCheckpoints checkpoints) throws Exception
+	{
+		LinkedList<byte[]> deltaList = new LinkedList<byte[]>();
+		ITemporalData base = TemporalDeltaCheckpoints.collectDeltas(region, keyList, index, deltaList, checkpoints);
+		Assert.assertNotNull(base);
+		return factory.createTemporalData(base, deltaList).getValue();
+	}
+
+	@Test
+	public void testCheckpointSameAsReplay() throws Exception
+	{
+		System.out.println("TemporalDeltaCheckpointsTest.testCheckpointSameAsReplay()");
+		Region region = cache.getRegion(CHAIN_PATH);
+		TemporalDeltaCheckpoints checkpoints = TemporalDeltaCheckpoints.create(CHAIN_PATH);
+		Assert.assertNotNull(checkpoints);
+		Assert.assertEquals(SPACING, checkpoints.getSpacing());
+
+		List<ITemporalKey> keyList = new ArrayList<ITemporalKey>();
+		List<String> expectedList = new ArrayList<String>();
+		String expected = "v0";
+		ITemporalKey tkey = createKey("chain", 1);
+		putWhole(region, tkey, new TextData(), expected);
+		keyList.add(tkey);
+		expectedList.add(expected);
+		checkpoints.appended(region, factory, keyList);
+		for (int i = 1; i <= 20; i++) {
+			tkey = createKey("chain", i + 1);
+			putDelta(region, tkey, new TextData(), "|" + i);
+			keyList.add(tkey);
+			expected = expected + "|" + i;
+			expectedList.add(expected);
+			checkpoints.appended(region, factory, keyList);
+		}
+
+		// The first chain of 7 deltas is checkpointed at the 8th append. The
+		// following checkpoints are every 4 appends.
+		Assert.assertEquals(4, checkpoints.size());
+		for (int i = 0; i < keyList.size(); i++) {
+			Assert.assertEquals(expectedList.get(i), resolve(region, keyList, i, null));
+			Assert.assertEquals(expectedList.get(i), resolve(region, keyList, i, checkpoints));
+		}
+
+		// Checkpoints stop the walk. The chains above the first checkpoint
+		// no longer need the base object.
+		region.remove(keyList.get(0));
+		Assert.assertNull(TemporalDeltaCheckpoints.collectDeltas(region, keyList, keyList.size() - 1,
+				new LinkedList<byte[]>(), null));
+		Assert.assertEquals(expectedList.get(keyList.size() - 1),
+				resolve(region, keyList, keyList.size() - 1, checkpoints));
+
+		checkpoints.clear();
+		Assert.assertEquals(0, checkpoints.size());
+	}
+
+	@Test
+	public void testDisabledIfDeltasNotApplied() throws Exception
+	{
+		System.out.println("TemporalDeltaCheckpointsTest.testDisabledIfDeltasNotApplied()");
+		Region region = cache.getRegion(NO_DELTA_PATH);
+		TemporalDeltaCheckpoints checkpoints = TemporalDeltaCheckpoints.create(NO_DELTA_PATH);
+		Assert.assertNotNull(checkpoints);
+
+		List<ITemporalKey> keyList = new ArrayList<ITemporalKey>();
+		ITemporalKey tkey = createKey("nodelta", 1);
+		TextData base = new NoDeltaData();
+		putWhole(region, tkey, base, "v0");
+		keyList.add(tkey);
+		checkpoints.appended(region, factory, keyList);
+		for (int i = 1; i <= 20; i++) {
+			tkey = createKey("nodelta", i + 1);
+			putDelta(region, tkey, new NoDeltaData(), "|" + i);
+			keyList.add(tkey);
+			checkpoints.appended(region, factory, keyList);
+		}
+		Assert.assertEquals(0, checkpoints.size());
+
+		// Disabled for the path. New temporal lists do not create checkpoints.
+		Assert.assertNull(TemporalDeltaCheckpoints.create(NO_DELTA_PATH));
+
+		// Chains are resolved from the base object with all of the deltas
+		for (int i = 0; i < keyList.size(); i++) {
+			LinkedList<byte[]> deltaList = new LinkedList<byte[]>();
+			Assert.assertSame(base,
+					TemporalDeltaCheckpoints.collectDeltas(region, keyList, i, deltaList, checkpoints));
+			Assert.assertEquals(i, deltaList.size());
+		}
+	}
+
+	/**
+	 * Builds a chain of a whole object followed by 8 deltas such that the 8th
+	 * key is checkpointed, and then removes the whole object from the region.
+	 * The last key can only be resolved through the checkpoint afterwards.
+	 * Returns the keys in the list order.
+	 */
+	private static List<ITemporalKey> createCheckpointedChain(Region region, ITemporalList list, String identityKey)
+			throws Exception
+	{
+		List<ITemporalKey> keyList = new ArrayList<ITemporalKey>();
+		String expected = "v0";
+		for (int i = 0; i <= 8; i++) {
+			ITemporalKey tkey = createKey(identityKey, 1000 + i * 10);
+			if (i == 0) {
+				putWhole(region, tkey, new TextData(), expected);
+			} else {
+				putDelta(region, tkey, new TextData(), "|" + i);
+				expected = expected + "|" + i;
+			}
+			list.add(tkey);
+			keyList.add(tkey);
+		}
+		region.remove(keyList.get(0));
+		TemporalEntry entry = list.getTemporalEntry(list.size() - 1);
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(expected, entry.getTemporalData().getValue());
+		return keyList;
+	}
+
+	/**
+	 * Verifies that the specified temporal lists discard their checkpoints
+	 * when a key is inserted, replaced or removed. Each list is checkpointed
+	 * and then updated once.
+	 *
+	 * @param region
+	 *            Region of the temporal lists
+	 * @param lists
+	 *            Empty temporal lists of the identity keys prefix + index
+	 * @param prefix
+	 *            Identity key prefix
+	 */
+	private static void assertClearedOnUpdate(Region region, ITemporalList[] lists, String prefix) throws Exception
+	{
+		// Insert before the first key
+		ITemporalList list = lists[0];
+		createCheckpointedChain(region, list, prefix + 0);
+		ITemporalKey tkey = createKey(prefix + 0, 500);
+		putWhole(region, tkey, new TextData(), "v");
+		Assert.assertEquals(0, list.add(tkey));
+		Assert.assertNull(list.getTemporalEntry(list.size() - 1));
+
+		// Replace a key with the same times
+		list = lists[1];
+		List<ITemporalKey> keyList = createCheckpointedChain(region, list, prefix + 1);
+		tkey = createKey(prefix + 1, keyList.get(3).getWrittenTime());
+		putDelta(region, tkey, new TextData(), "|3");
+		Assert.assertEquals(3, list.add(tkey));
+		Assert.assertEquals(keyList.size(), list.size());
+		Assert.assertNull(list.getTemporalEntry(list.size() - 1));
+
+		// Remove a key
+		list = lists[2];
+		keyList = createCheckpointedChain(region, list, prefix + 2);
+		list.removePermanently(keyList.get(4));
+		Assert.assertEquals(keyList.size() - 1, list.size());
+		Assert.assertNull(list.getTemporalEntry(list.size() - 1));
+	}
+
+	@Test
+	public void testTemporalListClear() throws Exception
+	{
+		System.out.println("TemporalDeltaCheckpointsTest.testTemporalListClear()");
+		Region region = cache.getRegion(LIST_PATH);
+		ITemporalList[] lists = new ITemporalList[3];
+		for (int i = 0; i < lists.length; i++) {
+			lists[i] = new GemfireTemporalList(TEMPORAL_NAME, "list" + i, LIST_PATH);
+		}
+		assertClearedOnUpdate(region, lists, "list");
+	}
+
+	@Test
+	public void testColumnarTemporalListClear() throws Exception
+	{
+		System.out.println("TemporalDeltaCheckpointsTest.testColumnarTemporalListClear()");
+		Region region = cache.getRegion(LIST_PATH);
+		ITemporalList[] lists = new ITemporalList[3];
+		for (int i = 0; i < lists.length; i++) {
+			lists[i] = new GemfireColumnarTemporalList(TEMPORAL_NAME, "columnar" + i, LIST_PATH);
+		}
+		assertClearedOnUpdate(region, lists, "columnar");
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.netcrest.pado.ICatalog;
+import com.netcrest.pado.IPado;
+import com.netcrest.pado.Pado;
+import com.netcrest.pado.biz.ITemporalBiz;
+import com.netcrest.pado.data.KeyMap;
+import com.netcrest.pado.exception.PadoLoginException;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.test.TemporalLoader;
+
+/**
+ * TemporalGetAllTest requires "mygrid". It puts accounts to the account path
+ * and verifies that looking them up in a single
+ * {@link ITemporalBiz#getAll(java.util.Collection)} call returns the same
+ * values as {@link ITemporalBiz#get(Object)}. The number of identity keys is
+ * set by the system property "test.temporal.keyCount" (default 10000).
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class TemporalGetAllTest
+{
+	private static IPado pado;
+	private static ITemporalBiz<String, KeyMap> temporalBiz;
+	private static List<String> identityKeyList;
+
+	@BeforeClass
+	public static void loginPado() throws PadoLoginException
+	{
+		System.setProperty("gemfirePropertyFile", "etc/client/client.properties");
+		Pado.connect("localhost:20000", true);
+		pado = Pado.login("sys", "netcrest", "test1", "test123".toCharArray());
+		ICatalog catalog = pado.getCatalog();
+		temporalBiz = catalog.newInstance(ITemporalBiz.class, "account");
+
+		System.setProperty("keyMapType", "jsonlite");
+		TemporalLoader loader = new TemporalLoader();
+		loader.addBankId("bank");
+		int count = Integer.getInteger("test.temporal.keyCount", 10000);
+		identityKeyList = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			String identityKey = "acct_getall_" + i;
+			temporalBiz.put(identityKey, loader.createAccount(identityKey, false));
+			identityKeyList.add(identityKey);
+		}
+	}
+
+	@AfterClass
+	public static void closePado()
+	{
+		Pado.close();
+	}
+
+	@Test
+	public void testGetAll()
+	{
+		System.out.println("TemporalGetAllTest.testGetAll()");
+		List<String> keyList = new ArrayList<String>(identityKeyList.subList(0, Math.min(100, identityKeyList.size())));
+		keyList.add("acct_getall_undefined");
+
+		Map<String, KeyMap> valueMap = temporalBiz.getAll(keyList);
+		Map<String, TemporalEntry<String, KeyMap>> entryMap = temporalBiz.getAllEntries(keyList, -1, -1);
+		Map<String, ITemporalKey<String>> keyMap = temporalBiz.getAllKeys(keyList);
+		Assert.assertEquals(keyList.size() - 1, valueMap.size());
+		Assert.assertEquals(keyList.size() - 1, entryMap.size());
+		Assert.assertEquals(keyList.size() - 1, keyMap.size());
+		Assert.assertFalse(valueMap.containsKey("acct_getall_undefined"));
+		for (String identityKey : keyList.subList(0, keyList.size() - 1)) {
+			Assert.assertEquals(temporalBiz.get(identityKey), valueMap.get(identityKey));
+			Assert.assertEquals(identityKey, entryMap.get(identityKey).getTemporalKey().getIdentityKey());
+			Assert.assertEquals(entryMap.get(identityKey).getTemporalKey(), keyMap.get(identityKey));
+		}
+		Assert.assertTrue(temporalBiz.getAll(new ArrayList<String>()).isEmpty());
+	}
+
+	@Test
+	public void testGetAllKeys()
+	{
+		System.out.println("TemporalGetAllTest.testGetAllKeys()");
+		// All identity keys, i.e., spanning all of the buckets
+		Map<String, KeyMap> map = temporalBiz.getAll(identityKeyList);
+		Assert.assertEquals(identityKeyList.size(), map.size());
+		Assert.assertTrue(map.keySet().containsAll(identityKeyList));
+
+		// Duplicate identity keys
+		String identityKey = identityKeyList.get(0);
+		List<String> keyList = new ArrayList<String>();
+		keyList.add(identityKey);
+		keyList.add(identityKey);
+		map = temporalBiz.getAll(keyList);
+		Assert.assertEquals(1, map.size());
+		Assert.assertEquals(temporalBiz.get(identityKey), map.get(identityKey));
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalKeyColumns;
+
+/**
+ * TemporalKeyColumnsTest verifies the columnar temporal key storage used by
+ * GemfireColumnarTemporalList against the ArrayList&lt;ITemporalKey&gt;
+ * storage used by GemfireTemporalList. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class TemporalKeyColumnsTest
+{
+	@SuppressWarnings("serial")
+	static class TestTemporalKey extends TemporalKey<String>
+	{
+		TestTemporalKey(String identityKey, long startValidTime, long endValidTime, long writtenTime,
+				String username)
+		{
+			super(identityKey, startValidTime, endValidTime, writtenTime, username);
+		}
+	}
+
+	/**
+	 * Returns the index of the last key with startValidTime &lt;= validAtTime
+	 * and writtenTime &lt;= asOfTime by scanning the entire list.
+	 */
+	private static int linearSearchAsOf(ArrayList<ITemporalKey<String>> list, long validAtTime, long asOfTime)
+	{
+		int found = TemporalKeyColumns.NOT_FOUND;
+		for (int i = 0; i < list.size(); i++) {
+			ITemporalKey<String> tk = list.get(i);
+			if (tk.getStartValidTime() > validAtTime) {
+				break;
+			}
+			if (tk.getStartValidTime() < validAtTime || tk.getWrittenTime() <= asOfTime) {
+				found = i;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the index of the last key valid at the specified time by
+	 * scanning the entire list.
+	 */
+	private static int linearSearchValidAt(ArrayList<ITemporalKey<String>> list, long validAtTime)
+	{
+		int found = TemporalKeyColumns.NOT_FOUND;
+		for (int i = 0; i < list.size(); i++) {
+			ITemporalKey<String> tk = list.get(i);
+			if (tk.getStartValidTime() > validAtTime) {
+				break;
+			}
+			found = i;
+		}
+		if (found != TemporalKeyColumns.NOT_FOUND && validAtTime >= list.get(found).getEndValidTime()) {
+			return TemporalKeyColumns.NOT_FOUND;
+		}
+		return found;
+	}
+
+	@Test
+	public void testInsertAndSearch()
+	{
+		Random random = new Random(1);
+		TemporalKeyColumns columns = new TemporalKeyColumns(1);
+		ArrayList<ITemporalKey<String>> list = new ArrayList<ITemporalKey<String>>();
+
+		// Insert keys in random order. Each start valid time has a few
+		// written times.
+		for (int i = 0; i < 500; i++) {
+			long startValidTime = random.nextInt(100) * 10;
+			long writtenTime = random.nextInt(100000);
+			int index = columns.binarySearchAddKey(startValidTime, writtenTime);
+			if (index == TemporalKeyColumns.NOT_FOUND) {
+				index = 0;
+			} else {
+				if (columns.getStartValidTime(index) == startValidTime && columns.getWrittenTime(index) > writtenTime) {
+					index--;
+				}
+				index++;
+			}
+			columns.insert(index, startValidTime, Long.MAX_VALUE, writtenTime, Long.MAX_VALUE, "test");
+			list.add(index, new TestTemporalKey("key", startValidTime, Long.MAX_VALUE, writtenTime, "test"));
+		}
+
+		// The columns must be sorted by start valid time and then written time
+		Assert.assertEquals(list.size(), columns.size());
+		for (int i = 1; i < columns.size(); i++) {
+			long prevStart = columns.getStartValidTime(i - 1);
+			long start = columns.getStartValidTime(i);
+			Assert.assertTrue(prevStart <= start);
+			if (prevStart == start) {
+				Assert.assertTrue(columns.getWrittenTime(i - 1) <= columns.getWrittenTime(i));
+			}
+			Assert.assertEquals(list.get(i).getWrittenTime(), columns.getWrittenTime(i));
+		}
+
+		// As-of search must land on the same row as a linear scan
+		for (int i = 0; i < 1000; i++) {
+			long validAtTime = random.nextInt(1000);
+			long asOfTime = random.nextInt(100000);
+			int expected = linearSearchAsOf(list, validAtTime, asOfTime);
+			int index = columns.binarySearchAsOf(validAtTime, asOfTime);
+			if (expected == TemporalKeyColumns.NOT_FOUND) {
+				Assert.assertTrue(index == TemporalKeyColumns.NOT_FOUND
+						|| columns.getStartValidTime(index) > validAtTime || columns.getWrittenTime(index) > asOfTime);
+			} else {
+				// binary search may land below the expected row if the rows
+				// below have larger written times. Walk up as the temporal
+				// list does.
+				while (index > expected && columns.getStartValidTime(index) == validAtTime
+						&& columns.getWrittenTime(index) > asOfTime) {
+					index--;
+				}
+				Assert.assertEquals(expected, index);
+			}
+		}
+
+		// Remove every other row
+		for (int i = columns.size() - 1; i >= 0; i -= 2) {
+			columns.remove(i);
+			list.remove(i);
+		}
+		Assert.assertEquals(list.size(), columns.size());
+		for (int i = 0; i < columns.size(); i++) {
+			ITemporalKey<String> tk = list.get(i);
+			Assert.assertEquals(i, columns.indexOf(tk.getStartValidTime(), tk.getEndValidTime(), tk.getWrittenTime()));
+		}
+	}
+
+	@Test
+	public void testValidAtSearch()
+	{
+		// Consecutive versions. The last version ends before the next start.
+		TemporalKeyColumns columns = new TemporalKeyColumns();
+		ArrayList<ITemporalKey<String>> list = new ArrayList<ITemporalKey<String>>();
+		for (int i = 0; i < 100; i++) {
+			long startValidTime = i * 100L;
+			long endValidTime = i == 99 ? startValidTime + 50 : startValidTime + 100;
+			columns.add(startValidTime, endValidTime, i, Long.MAX_VALUE, "test");
+			list.add(new TestTemporalKey("key", startValidTime, endValidTime, i, "test"));
+		}
+		for (long validAtTime = -1; validAtTime <= 10100; validAtTime += 7) {
+			Assert.assertEquals("validAtTime=" + validAtTime, linearSearchValidAt(list, validAtTime),
+					columns.binarySearchValidAt(validAtTime));
+		}
+	}
+
+	@Test
+	public void testEmptyAndBounds()
+	{
+		TemporalKeyColumns columns = new TemporalKeyColumns(0);
+		Assert.assertEquals(0, columns.size());
+		Assert.assertTrue(columns.capacity() > 0);
+		Assert.assertEquals(TemporalKeyColumns.NOT_FOUND, columns.binarySearchAsOf(100, 100));
+		Assert.assertEquals(TemporalKeyColumns.NOT_FOUND, columns.binarySearchValidAt(100));
+		Assert.assertEquals(TemporalKeyColumns.NOT_FOUND, columns.binarySearchAddKey(100, 100));
+		Assert.assertEquals(TemporalKeyColumns.NOT_FOUND, columns.indexOf(100, 200, 100));
+		try {
+			columns.insert(1, 0, 0, 0, 0, "test");
+			Assert.fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException ex) {
+			// expected
+		}
+		try {
+			columns.remove(0);
+			Assert.fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCopy()
+	{
+		TemporalKeyColumns columns = new TemporalKeyColumns(2);
+		for (int i = 0; i < 10; i++) {
+			columns.add(i * 10L, Long.MAX_VALUE, i, Long.MAX_VALUE, "user" + i);
+		}
+		TemporalKeyColumns copy = columns.copy(20);
+		Assert.assertEquals(columns.size(), copy.size());
+		Assert.assertTrue(copy.capacity() >= 20);
+		for (int i = 0; i < columns.size(); i++) {
+			Assert.assertEquals(columns.getStartValidTime(i), copy.getStartValidTime(i));
+			Assert.assertEquals(columns.getEndValidTime(i), copy.getEndValidTime(i));
+			Assert.assertEquals(columns.getWrittenTime(i), copy.getWrittenTime(i));
+			Assert.assertEquals(columns.getEndWrittenTime(i), copy.getEndWrittenTime(i));
+			Assert.assertEquals(columns.getUsername(i), copy.getUsername(i));
+		}
+
+		// Updates to the copy must not affect the original
+		copy.setEndWrittenTime(9, 100);
+		copy.remove(0);
+		copy.add(1000, Long.MAX_VALUE, 1000, Long.MAX_VALUE, "new");
+		Assert.assertEquals(10, columns.size());
+		Assert.assertEquals(Long.MAX_VALUE, columns.getEndWrittenTime(9));
+		Assert.assertEquals(0, columns.getStartValidTime(0));
+		Assert.assertEquals(100, copy.getEndWrittenTime(8));
+		Assert.assertEquals(1000, copy.getStartValidTime(9));
+	}
+}
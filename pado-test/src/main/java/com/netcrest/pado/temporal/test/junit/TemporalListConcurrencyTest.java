@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalKeyColumns;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalKeyList;
+
+/**
+ * TemporalListConcurrencyTest stresses the lock-free snapshots used by
+ * GemfireTemporalList ({@link TemporalKeyList}) and
+ * GemfireColumnarTemporalList ({@link TemporalKeyColumns}). Writer threads add
+ * keys to a set of temporal lists, each serialized by its own list lock, while
+ * reader threads run as-of searches on the snapshots without locking. Readers
+ * verify that every snapshot they see is sorted, never shrinks, never changes
+ * once published and that the as-of search agrees with a linear scan of the
+ * same snapshot. This test does
+ * not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TemporalListConcurrencyTest
+{
+	private static final int LIST_COUNT = 64;
+	private static final int WRITER_COUNT = 4;
+	private static final int READER_COUNT = 4;
+	private static final int ADD_COUNT_PER_WRITER = 50000;
+
+	@SuppressWarnings("serial")
+	static class TestTemporalKey extends TemporalKey<String>
+	{
+		TestTemporalKey(String identityKey, long startValidTime, long endValidTime, long writtenTime,
+				String username)
+		{
+			super(identityKey, startValidTime, endValidTime, writtenTime, username);
+		}
+	}
+
+	/**
+	 * Temporal list that publishes TemporalKeyList snapshots in the same way
+	 * as GemfireTemporalList.
+	 */
+	static class KeyListHolder
+	{
+		volatile TemporalKeyList keyList = TemporalKeyList.EMPTY;
+
+		void add(ITemporalKey tkey)
+		{
+			synchronized (this) {
+				TemporalKeyList currentList = keyList;
+				int index = 0;
+				for (int i = currentList.size() - 1; i >= 0; i--) {
+					ITemporalKey tk = currentList.get(i);
+					if (compare(tk.getStartValidTime(), tk.getWrittenTime(), tkey.getStartValidTime(),
+							tkey.getWrittenTime()) <= 0) {
+						index = i + 1;
+						break;
+					}
+				}
+				keyList = currentList.insert(index, tkey);
+			}
+		}
+	}
+
+	/**
+	 * Temporal list that publishes TemporalKeyColumns snapshots in the same
+	 * way as GemfireColumnarTemporalList.
+	 */
+	static class ColumnsHolder
+	{
+		volatile TemporalKeyColumns columns = new TemporalKeyColumns(1);
+
+		void add(long startValidTime, long writtenTime)
+		{
+			synchronized (this) {
+				TemporalKeyColumns cols = columns;
+				int index = 0;
+				for (int i = cols.size() - 1; i >= 0; i--) {
+					if (compare(cols.getStartValidTime(i), cols.getWrittenTime(i), startValidTime, writtenTime) <= 0) {
+						index = i + 1;
+						break;
+					}
+				}
+				cols = cols.copy(cols.size() + 1);
+				cols.insert(index, startValidTime, Long.MAX_VALUE, writtenTime, Long.MAX_VALUE, "test");
+				if (index > 0) {
+					cols.setEndWrittenTime(index - 1, writtenTime);
+				}
+				columns = cols;
+			}
+		}
+	}
+
+	private static int compare(long startValidTime1, long writtenTime1, long startValidTime2, long writtenTime2)
+	{
+		if (startValidTime1 != startValidTime2) {
+			return startValidTime1 < startValidTime2 ? -1 : 1;
+		}
+		return writtenTime1 < writtenTime2 ? -1 : (writtenTime1 == writtenTime2 ? 0 : 1);
+	}
+
+	/**
+	 * Returns the index of the last key with startValidTime &lt;= validAtTime
+	 * and writtenTime &lt;= asOfTime in the specified snapshot using binary
+	 * search on start valid time followed by a scan up.
+	 */
+	private static int searchAsOf(TemporalKeyList list, long validAtTime, long asOfTime)
+	{
+		int low = 0;
+		int high = list.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (list.get(mid).getStartValidTime() <= validAtTime) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		for (int i = high; i >= 0; i--) {
+			ITemporalKey tk = list.get(i);
+			if (tk.getStartValidTime() < validAtTime || tk.getWrittenTime() <= asOfTime) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int linearSearchAsOf(TemporalKeyList list, long validAtTime, long asOfTime)
+	{
+		int found = -1;
+		for (int i = 0; i < list.size(); i++) {
+			ITemporalKey tk = list.get(i);
+			if (tk.getStartValidTime() > validAtTime) {
+				break;
+			}
+			if (tk.getStartValidTime() < validAtTime || tk.getWrittenTime() <= asOfTime) {
+				found = i;
+			}
+		}
+		return found;
+	}
+
+	private static int linearSearchAsOf(TemporalKeyColumns cols, int size, long validAtTime, long asOfTime)
+	{
+		int found = TemporalKeyColumns.NOT_FOUND;
+		for (int i = 0; i < size; i++) {
+			if (cols.getStartValidTime(i) > validAtTime) {
+				break;
+			}
+			if (cols.getStartValidTime(i) < validAtTime || cols.getWrittenTime(i) <= asOfTime) {
+				found = i;
+			}
+		}
+		return found;
+	}
+
+	private static void verifySorted(TemporalKeyList list)
+	{
+		for (int i = 1; i < list.size(); i++) {
+			ITemporalKey prev = list.get(i - 1);
+			ITemporalKey tk = list.get(i);
+			Assert.assertTrue(compare(prev.getStartValidTime(), prev.getWrittenTime(), tk.getStartValidTime(),
+					tk.getWrittenTime()) <= 0);
+		}
+	}
+
+	private static void verifySorted(TemporalKeyColumns cols)
+	{
+		int size = cols.size();
+		for (int i = 1; i < size; i++) {
+			Assert.assertTrue(compare(cols.getStartValidTime(i - 1), cols.getWrittenTime(i - 1),
+					cols.getStartValidTime(i), cols.getWrittenTime(i)) <= 0);
+		}
+	}
+
+	/**
+	 * Runs the specified writer and reader tasks concurrently and rethrows the
+	 * first failure.
+	 */
+	private void run(final WriterTask writerTask, final ReaderTask readerTask) throws Exception
+	{
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch writerLatch = new CountDownLatch(WRITER_COUNT);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[WRITER_COUNT + READER_COUNT];
+		for (int i = 0; i < WRITER_COUNT; i++) {
+			final int writerId = i;
+			threads[i] = new Thread(new Runnable() {
+				public void run()
+				{
+					try {
+						startLatch.await();
+						Random random = new Random(writerId);
+						for (int j = 0; j < ADD_COUNT_PER_WRITER; j++) {
+							writerTask.add(random);
+						}
+					} catch (Throwable th) {
+						failure.compareAndSet(null, th);
+					} finally {
+						writerLatch.countDown();
+					}
+				}
+			});
+		}
+		for (int i = 0; i < READER_COUNT; i++) {
+			final int readerId = i;
+			threads[WRITER_COUNT + i] = new Thread(new Runnable() {
+				public void run()
+				{
+					try {
+						startLatch.await();
+						Random random = new Random(100 + readerId);
+						int[] lastSizes = new int[LIST_COUNT];
+						while (writerLatch.getCount() > 0 && failure.get() == null) {
+							readerTask.read(random, lastSizes);
+						}
+					} catch (Throwable th) {
+						failure.compareAndSet(null, th);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		startLatch.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+	}
+
+	interface WriterTask
+	{
+		void add(Random random);
+	}
+
+	interface ReaderTask
+	{
+		void read(Random random, int[] lastSizes);
+	}
+
+	@Test
+	public void testKeyListAddAndGetAsOf() throws Exception
+	{
+		System.out.println("TemporalListConcurrencyTest.testKeyListAddAndGetAsOf()");
+		final KeyListHolder[] lists = new KeyListHolder[LIST_COUNT];
+		for (int i = 0; i < LIST_COUNT; i++) {
+			lists[i] = new KeyListHolder();
+		}
+		final AtomicLong clock = new AtomicLong();
+		run(new WriterTask() {
+			public void add(Random random)
+			{
+				int listIndex = random.nextInt(LIST_COUNT);
+				// Mostly appends with occasional out-of-order valid times
+				long writtenTime = clock.incrementAndGet();
+				long startValidTime = random.nextInt(10) == 0 ? random.nextInt((int) writtenTime) : writtenTime;
+				lists[listIndex].add(new TestTemporalKey("key" + listIndex, startValidTime, Long.MAX_VALUE,
+						writtenTime, "test"));
+			}
+		}, new ReaderTask() {
+			public void read(Random random, int[] lastSizes)
+			{
+				int listIndex = random.nextInt(LIST_COUNT);
+				TemporalKeyList snapshot = lists[listIndex].keyList;
+				int size = snapshot.size();
+				Assert.assertTrue(size >= lastSizes[listIndex]);
+				lastSizes[listIndex] = size;
+				if (size == 0) {
+					return;
+				}
+				long time = clock.get();
+				long validAtTime = random.nextInt((int) time + 1);
+				long asOfTime = random.nextInt((int) time + 1);
+				Assert.assertEquals(linearSearchAsOf(snapshot, validAtTime, asOfTime),
+						searchAsOf(snapshot, validAtTime, asOfTime));
+				if (random.nextInt(100) == 0) {
+					verifySorted(snapshot);
+				}
+			}
+		});
+		int total = 0;
+		for (KeyListHolder list : lists) {
+			verifySorted(list.keyList);
+			total += list.keyList.size();
+		}
+		Assert.assertEquals(WRITER_COUNT * ADD_COUNT_PER_WRITER, total);
+	}
+
+	@Test
+	public void testColumnsAddAndGetAsOf() throws Exception
+	{
+		System.out.println("TemporalListConcurrencyTest.testColumnsAddAndGetAsOf()");
+		final ColumnsHolder[] lists = new ColumnsHolder[LIST_COUNT];
+		for (int i = 0; i < LIST_COUNT; i++) {
+			lists[i] = new ColumnsHolder();
+		}
+		final AtomicLong clock = new AtomicLong();
+		run(new WriterTask() {
+			public void add(Random random)
+			{
+				int listIndex = random.nextInt(LIST_COUNT);
+				long writtenTime = clock.incrementAndGet();
+				long startValidTime = random.nextInt(10) == 0 ? random.nextInt((int) writtenTime) : writtenTime;
+				lists[listIndex].add(startValidTime, writtenTime);
+			}
+		}, new ReaderTask() {
+			public void read(Random random, int[] lastSizes)
+			{
+				int listIndex = random.nextInt(LIST_COUNT);
+				TemporalKeyColumns snapshot = lists[listIndex].columns;
+				int size = snapshot.size();
+				Assert.assertTrue(size >= lastSizes[listIndex]);
+				lastSizes[listIndex] = size;
+				if (size == 0) {
+					return;
+				}
+				long time = clock.get();
+				long validAtTime = random.nextInt((int) time + 1);
+				long asOfTime = random.nextInt((int) time + 1);
+				long lastEndWrittenTime = snapshot.getEndWrittenTime(size - 1);
+				int index = snapshot.binarySearchAsOf(validAtTime, asOfTime);
+				Assert.assertTrue(index < size);
+				int expected = linearSearchAsOf(snapshot, size, validAtTime, asOfTime);
+				if (expected == TemporalKeyColumns.NOT_FOUND) {
+					Assert.assertTrue(index == TemporalKeyColumns.NOT_FOUND
+							|| snapshot.getStartValidTime(index) > validAtTime
+							|| snapshot.getWrittenTime(index) > asOfTime);
+				} else {
+					// Walk up as the temporal list does
+					while (index > expected && snapshot.getStartValidTime(index) == validAtTime
+							&& snapshot.getWrittenTime(index) > asOfTime) {
+						index--;
+					}
+					Assert.assertEquals(expected, index);
+				}
+
+				// Published snapshots are never modified by the writers
+				Assert.assertEquals(size, snapshot.size());
+				Assert.assertEquals(lastEndWrittenTime, snapshot.getEndWrittenTime(size - 1));
+				if (random.nextInt(100) == 0) {
+					verifySorted(snapshot);
+				}
+			}
+		});
+		int total = 0;
+		for (ColumnsHolder list : lists) {
+			verifySorted(list.columns);
+			total += list.columns.size();
+		}
+		Assert.assertEquals(WRITER_COUNT * ADD_COUNT_PER_WRITER, total);
+	}
+
+	@Test
+	public void testKeyListSnapshots()
+	{
+		System.out.println("TemporalListConcurrencyTest.testKeyListSnapshots()");
+		Assert.assertEquals(0, TemporalKeyList.EMPTY.size());
+		Assert.assertNull(TemporalKeyList.EMPTY.getLast());
+		Assert.assertEquals(-1, searchAsOf(TemporalKeyList.EMPTY, 10, 10));
+
+		TemporalKeyList list = TemporalKeyList.EMPTY;
+		for (int i = 0; i < 5; i++) {
+			list = list.append(new TestTemporalKey("key", i * 10, Long.MAX_VALUE, i * 10, "test"));
+		}
+		TemporalKeyList snapshot = list;
+
+		// Snapshots are never modified by the writes that follow
+		TemporalKeyList inserted = snapshot.insert(0, new TestTemporalKey("key", 0, Long.MAX_VALUE, 1, "test"));
+		TemporalKeyList replaced = snapshot.replace(4, new TestTemporalKey("key", 40, Long.MAX_VALUE, 41, "test"));
+		TemporalKeyList deleted = snapshot.delete(2);
+		Assert.assertEquals(5, snapshot.size());
+		for (int i = 0; i < snapshot.size(); i++) {
+			Assert.assertEquals(i * 10, snapshot.get(i).getWrittenTime());
+		}
+		Assert.assertEquals(6, inserted.size());
+		Assert.assertEquals(1, inserted.get(0).getWrittenTime());
+		Assert.assertEquals(41, replaced.getLast().getWrittenTime());
+		Assert.assertEquals(4, deleted.size());
+		Assert.assertEquals(30, deleted.get(2).getWrittenTime());
+		Assert.assertSame(TemporalKeyList.EMPTY, TemporalKeyList.EMPTY.append(snapshot.get(0)).delete(0));
+
+		try {
+			snapshot.get(5);
+			Assert.fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException ex) {
+			// expected
+		}
+	}
+}
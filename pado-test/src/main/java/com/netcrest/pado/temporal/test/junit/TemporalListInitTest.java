@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.TemporalListFactory;
+import com.netcrest.pado.temporal.TemporalUtil;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalData;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalCacheListener;
+
+/**
+ * TemporalListInitTest verifies that building the temporal lists of all
+ * local buckets in parallel produces the same temporal lists as building them
+ * on a single thread, and that every list has its keys in the temporal list
+ * order with the removed lists marked removed. The keys are put in random
+ * order. It runs in a loner cache with partitioned regions whose buckets are
+ * all local primaries and does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TemporalListInitTest
+{
+	private static final String LIST_PATH = "/init_list";
+	private static final String COLUMNAR_PATH = "/init_columnar";
+	private static final int IDENTITY_KEY_COUNT = 2000;
+	private static final int VERSION_COUNT = 5;
+
+	private static Cache cache;
+	private static TemporalListFactory factory;
+
+	@BeforeClass
+	public static void setUp() throws Exception
+	{
+		cache = new CacheFactory().set("mcast-port", "0").set("locators", "").set("log-level", "warning")
+				.create();
+		cache.createRegionFactory(RegionShortcut.PARTITION).create(LIST_PATH.substring(1));
+		cache.createRegionFactory(RegionShortcut.PARTITION).create(COLUMNAR_PATH.substring(1));
+		factory = TemporalListFactory.getTemporalListFactory();
+	}
+
+	@AfterClass
+	public static void tearDown()
+	{
+		System.clearProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_TEMPORAL_INIT_PARALLELISM);
+		if (cache != null) {
+			cache.close();
+		}
+	}
+
+	/**
+	 * Puts the versions of all identity keys in random order and returns the
+	 * expected keys of each temporal list in the temporal list order. Every
+	 * 10th identity key is removed, i.e., its list ends with the removal
+	 * marker.
+	 */
+	private static Map<Object, List<ITemporalKey>> putKeys(Region region) throws Exception
+	{
+		Random random = new Random(1);
+		Map<Object, List<ITemporalKey>> expectedMap = new HashMap<Object, List<ITemporalKey>>(IDENTITY_KEY_COUNT);
+		List<ITemporalKey> allKeys = new ArrayList<ITemporalKey>(IDENTITY_KEY_COUNT * (VERSION_COUNT + 1));
+		for (int i = 0; i < IDENTITY_KEY_COUNT; i++) {
+			String identityKey = "k" + i;
+			List<ITemporalKey> keyList = new ArrayList<ITemporalKey>(VERSION_COUNT + 1);
+			for (int j = 0; j < VERSION_COUNT; j++) {
+				// Versions with the same start valid time are ordered by
+				// written time
+				long startValidTime = 1000 + random.nextInt(3) * 100;
+				long writtenTime = 2000 + j * 10;
+				keyList.add(factory.createTemporalKey(identityKey, startValidTime, TemporalUtil.MAX_TIME,
+						writtenTime, "test"));
+			}
+			allKeys.addAll(keyList);
+			List<ITemporalKey> sortedList = new ArrayList<ITemporalKey>(keyList);
+			Collections.sort(sortedList, new Comparator<ITemporalKey>() {
+				public int compare(ITemporalKey tk1, ITemporalKey tk2)
+				{
+					if (tk1.getStartValidTime() != tk2.getStartValidTime()) {
+						return tk1.getStartValidTime() < tk2.getStartValidTime() ? -1 : 1;
+					}
+					return tk1.getWrittenTime() < tk2.getWrittenTime() ? -1
+							: (tk1.getWrittenTime() == tk2.getWrittenTime() ? 0 : 1);
+				}
+			});
+			if (i % 10 == 0) {
+				ITemporalKey removedKey = factory.createTemporalKey(identityKey, -1, -1, 3000, "test");
+				allKeys.add(removedKey);
+				sortedList.add(removedKey);
+			}
+			expectedMap.put(identityKey, sortedList);
+		}
+		Collections.shuffle(allKeys, random);
+		for (ITemporalKey tkey : allKeys) {
+			region.put(tkey, new GemfireTemporalData(tkey, "value"));
+		}
+		return expectedMap;
+	}
+
+	/**
+	 * Returns a new cache listener of the specified path that is not attached
+	 * to the region.
+	 */
+	private static TemporalCacheListener createListener(String fullPath, String temporalListClassName)
+	{
+		Properties p = new Properties();
+		p.setProperty("fullPath", fullPath);
+		p.setProperty("temporalList.class", temporalListClassName);
+		TemporalCacheListener listener = new TemporalCacheListener();
+		listener.init(p);
+		return listener;
+	}
+
+	/**
+	 * Builds the temporal lists of the specified region with the specified
+	 * parallelism and returns the keys of each temporal list.
+	 */
+	private static Map<Object, List<ITemporalKey>> init(Region region, String temporalListClassName,
+			int parallelism)
+	{
+		System.setProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_TEMPORAL_INIT_PARALLELISM,
+				Integer.toString(parallelism));
+		TemporalCacheListener listener = createListener(region.getFullPath(), temporalListClassName);
+		try {
+			listener.initTemporalLists(region, false, false);
+			Map<Object, ITemporalList> temporalListMap = listener.getTemporalListMap();
+			Map<Object, List<ITemporalKey>> keyListMap = new HashMap<Object, List<ITemporalKey>>(
+					temporalListMap.size());
+			for (Map.Entry<Object, ITemporalList> entry : temporalListMap.entrySet()) {
+				ITemporalList temporalList = entry.getValue();
+				Assert.assertEquals(temporalListClassName, temporalList.getClass().getName());
+				List<ITemporalKey> keyList = new ArrayList<ITemporalKey>(temporalList.size());
+				for (int i = 0; i < temporalList.size(); i++) {
+					keyList.add(temporalList.getTemporalKey(i));
+				}
+				keyListMap.put(entry.getKey(), keyList);
+
+				// Removed lists have no now-relative entry
+				TemporalEntry nowRelativeEntry = temporalList.getNowRelativeEntry();
+				ITemporalKey lastKey = keyList.get(keyList.size() - 1);
+				if (lastKey.getStartValidTime() == -1) {
+					Assert.assertNull(nowRelativeEntry);
+				} else {
+					Assert.assertNotNull(nowRelativeEntry);
+					Assert.assertEquals(lastKey, nowRelativeEntry.getTemporalKey());
+				}
+			}
+			return keyListMap;
+		} finally {
+			listener.close();
+		}
+	}
+
+	private void testInit(String fullPath, String temporalListClassName) throws Exception
+	{
+		Region region = cache.getRegion(fullPath);
+		Map<Object, List<ITemporalKey>> expectedMap = putKeys(region);
+		Map<Object, List<ITemporalKey>> sequentialMap = init(region, temporalListClassName, 1);
+		Map<Object, List<ITemporalKey>> parallelMap = init(region, temporalListClassName, 4);
+		Assert.assertEquals(expectedMap, sequentialMap);
+		Assert.assertEquals(expectedMap, parallelMap);
+	}
+
+	@Test
+	public void testTemporalListInit() throws Exception
+	{
+		System.out.println("TemporalListInitTest.testTemporalListInit()");
+		testInit(LIST_PATH, "com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalList");
+	}
+
+	@Test
+	public void testColumnarTemporalListInit() throws Exception
+	{
+		System.out.println("TemporalListInitTest.testColumnarTemporalListInit()");
+		testInit(COLUMNAR_PATH, "com.netcrest.pado.temporal.gemfire.impl.GemfireColumnarTemporalList");
+	}
+}
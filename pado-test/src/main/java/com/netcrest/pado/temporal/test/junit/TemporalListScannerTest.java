@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalEntry;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalListScanner;
+
+/**
+ * TemporalListScannerTest verifies that scanning temporal lists in parallel
+ * returns the same entries in the same order as scanning them sequentially on
+ * the calling thread. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TemporalListScannerTest
+{
+	private static final String SEQUENTIAL_PATH = "/test/scanner/sequential";
+	private static final String PARALLEL_PATH = "/test/scanner/parallel";
+	private static final int LIST_COUNT = 20000;
+
+	@SuppressWarnings("serial")
+	static class TestTemporalKey extends TemporalKey<String>
+	{
+		TestTemporalKey(String identityKey, long writtenTime)
+		{
+			super(identityKey, 0, Long.MAX_VALUE, writtenTime, "test");
+		}
+	}
+
+	@BeforeClass
+	public static void setUp()
+	{
+		System.setProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_TEMPORAL_SCAN_PARALLELISM, "4");
+		System.setProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD + "."
+				+ SEQUENTIAL_PATH, Integer.toString(Integer.MAX_VALUE));
+		System.setProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_TEMPORAL_SCAN_PARALLEL_THRESHOLD + "."
+				+ PARALLEL_PATH, "0");
+	}
+
+	/**
+	 * Returns a temporal list whose now-relative entry is written at the
+	 * specified time. It has no entry if the written time is negative.
+	 */
+	private static ITemporalList createTemporalList(final String identityKey, final long writtenTime)
+	{
+		final TemporalEntry entry = writtenTime < 0 ? null : new GemfireTemporalEntry(new TestTemporalKey(
+				identityKey, writtenTime), null);
+		return (ITemporalList) Proxy.newProxyInstance(ITemporalList.class.getClassLoader(),
+				new Class[] { ITemporalList.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						String name = method.getName();
+						if (name.equals("getNowRelativeEntry")) {
+							return entry;
+						} else if (name.equals("getAsOf")) {
+							long asOfTime = (Long) args[1];
+							return entry != null && entry.getTemporalKey().getWrittenTime() <= asOfTime ? entry
+									: null;
+						} else if (name.equals("getWrttenTimeRange")) {
+							long fromWrittenTime = (Long) args[1];
+							long toWrittenTime = (Long) args[2];
+							return entry != null && fromWrittenTime <= entry.getTemporalKey().getWrittenTime()
+									&& entry.getTemporalKey().getWrittenTime() < toWrittenTime ? entry : null;
+						} else if (name.equals("toString")) {
+							return identityKey;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	private static List<ITemporalList> createTemporalLists(int count)
+	{
+		List<ITemporalList> list = new ArrayList<ITemporalList>(count);
+		for (int i = 0; i < count; i++) {
+			// Every 7th list has no entry
+			list.add(createTemporalList("k" + i, i % 7 == 0 ? -1 : i % 1000));
+		}
+		return list;
+	}
+
+	private static void assertSameList(List<TemporalEntry> expected, List<TemporalEntry> actual)
+	{
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertSame(expected.get(i), actual.get(i));
+		}
+	}
+
+	@Test
+	public void testParallelSameAsSequential()
+	{
+		System.out.println("TemporalListScannerTest.testParallelSameAsSequential()");
+		List<ITemporalList> temporalLists = createTemporalLists(LIST_COUNT);
+
+		List<TemporalEntry> expected = TemporalListScanner.nowRelative(SEQUENTIAL_PATH).getList(temporalLists);
+		Assert.assertEquals(LIST_COUNT - (LIST_COUNT + 6) / 7, expected.size());
+		assertSameList(expected, TemporalListScanner.nowRelative(PARALLEL_PATH).getList(temporalLists));
+
+		expected = TemporalListScanner.asOf(SEQUENTIAL_PATH, -1, 500).getList(temporalLists);
+		assertSameList(expected, TemporalListScanner.asOf(PARALLEL_PATH, -1, 500).getList(temporalLists));
+
+		expected = TemporalListScanner.writtenTimeRange(SEQUENTIAL_PATH, -1, 100, 200).getList(temporalLists);
+		assertSameList(expected,
+				TemporalListScanner.writtenTimeRange(PARALLEL_PATH, -1, 100, 200).getList(temporalLists));
+
+		Assert.assertEquals(TemporalListScanner.nowRelative(SEQUENTIAL_PATH).getMap(temporalLists),
+				TemporalListScanner.nowRelative(PARALLEL_PATH).getMap(temporalLists));
+	}
+
+	@Test
+	public void testEdgeCases()
+	{
+		System.out.println("TemporalListScannerTest.testEdgeCases()");
+		// Empty and below the minimum range size
+		List<ITemporalList> temporalLists = new ArrayList<ITemporalList>();
+		Assert.assertTrue(TemporalListScanner.nowRelative(PARALLEL_PATH).getList(temporalLists).isEmpty());
+		temporalLists = createTemporalLists(10);
+		assertSameList(TemporalListScanner.nowRelative(SEQUENTIAL_PATH).getList(temporalLists),
+				TemporalListScanner.nowRelative(PARALLEL_PATH).getList(temporalLists));
+
+		// No matches
+		temporalLists = createTemporalLists(LIST_COUNT);
+		Assert.assertTrue(TemporalListScanner.writtenTimeRange(PARALLEL_PATH, -1, 5000, 6000)
+				.getList(temporalLists).isEmpty());
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.temporal.test.junit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.gemfire.impl.TemporalWrittenTimeIndex;
+
+/**
+ * TemporalWrittenTimeIndexTest verifies the written time secondary index
+ * against a full scan of all temporal keys. This test does not require a
+ * grid.
+ *
+ * @author dpark
+ *
+ */
+public class TemporalWrittenTimeIndexTest
+{
+	private static final long MINUTE = 60000;
+	private static final long DAY = 24 * 60 * MINUTE;
+	private static final int IDENTITY_KEY_COUNT = 10000;
+	private static final int VERSION_COUNT = 5;
+
+	@SuppressWarnings("serial")
+	static class TestTemporalKey extends TemporalKey<String>
+	{
+		TestTemporalKey(String identityKey, long writtenTime)
+		{
+			super(identityKey, 0, Long.MAX_VALUE, writtenTime, "test");
+		}
+	}
+
+	private static Set<Object> scan(List<ITemporalKey> keyList, long fromWrittenTime, long toWrittenTime)
+	{
+		Set<Object> identityKeySet = new HashSet<Object>();
+		for (ITemporalKey tk : keyList) {
+			if (fromWrittenTime <= tk.getWrittenTime() && tk.getWrittenTime() < toWrittenTime) {
+				identityKeySet.add(tk.getIdentityKey());
+			}
+		}
+		return identityKeySet;
+	}
+
+	private static List<ITemporalKey> createKeys(long startTime)
+	{
+		Random random = new Random(1);
+		List<ITemporalKey> keyList = new ArrayList<ITemporalKey>(IDENTITY_KEY_COUNT * VERSION_COUNT);
+		for (int i = 0; i < IDENTITY_KEY_COUNT; i++) {
+			String identityKey = "k" + i;
+			for (int j = 0; j < VERSION_COUNT; j++) {
+				keyList.add(new TestTemporalKey(identityKey, startTime + (long) (random.nextDouble() * DAY)));
+			}
+		}
+		return keyList;
+	}
+
+	@Test
+	public void testRange()
+	{
+		System.out.println("TemporalWrittenTimeIndexTest.testRange()");
+		long startTime = 1400000000000L;
+		List<ITemporalKey> keyList = createKeys(startTime);
+		TemporalWrittenTimeIndex index = new TemporalWrittenTimeIndex(MINUTE);
+		for (ITemporalKey tk : keyList) {
+			index.add(tk);
+		}
+		Random random = new Random(2);
+		for (int i = 0; i < 20; i++) {
+			long from = startTime + (long) (random.nextDouble() * DAY);
+			long to = from + (long) (random.nextDouble() * 30 * MINUTE);
+			Assert.assertEquals(scan(keyList, from, to), index.getIdentityKeySet(from, to));
+		}
+
+		// Bucket boundaries, empty and inverted ranges
+		long from = startTime + 7 * MINUTE;
+		Assert.assertEquals(scan(keyList, from, from + MINUTE), index.getIdentityKeySet(from, from + MINUTE));
+		Assert.assertEquals(scan(keyList, from - 1, from + 1), index.getIdentityKeySet(from - 1, from + 1));
+		Assert.assertTrue(index.getIdentityKeySet(from, from).isEmpty());
+		Assert.assertTrue(index.getIdentityKeySet(from + 1, from).isEmpty());
+	}
+
+	@Test
+	public void testRemove()
+	{
+		System.out.println("TemporalWrittenTimeIndexTest.testRemove()");
+		TemporalWrittenTimeIndex index = new TemporalWrittenTimeIndex(MINUTE);
+		ITemporalKey tk1 = new TestTemporalKey("a", 10 * MINUTE);
+		ITemporalKey tk2 = new TestTemporalKey("b", 10 * MINUTE + 1);
+		ITemporalKey tk3 = new TestTemporalKey("a", 12 * MINUTE);
+		index.add(tk1);
+		index.add(tk1);
+		index.add(tk2);
+		index.add(tk3);
+		Assert.assertEquals(2, index.getBucketCount());
+		Assert.assertEquals(2, index.getIdentityKeySet(0, 20 * MINUTE).size());
+
+		index.remove(tk1);
+		Set<Object> identityKeySet = index.getIdentityKeySet(10 * MINUTE, 11 * MINUTE);
+		Assert.assertEquals(1, identityKeySet.size());
+		Assert.assertTrue(identityKeySet.contains("b"));
+
+		// Emptied buckets are removed
+		index.remove(tk2);
+		Assert.assertEquals(1, index.getBucketCount());
+		Assert.assertTrue(index.getIdentityKeySet(10 * MINUTE, 11 * MINUTE).isEmpty());
+		Assert.assertTrue(index.getIdentityKeySet(0, 20 * MINUTE).contains("a"));
+
+		index.clear();
+		Assert.assertEquals(0, index.getBucketCount());
+	}
+
+	@Test
+	public void testLastFiveMinutes()
+	{
+		System.out.println("TemporalWrittenTimeIndexTest.testLastFiveMinutes()");
+		long startTime = 1400000000000L;
+		List<ITemporalKey> keyList = createKeys(startTime);
+		TemporalWrittenTimeIndex index = new TemporalWrittenTimeIndex(MINUTE);
+		for (ITemporalKey tk : keyList) {
+			index.add(tk);
+		}
+		long to = startTime + DAY;
+		long from = to - 5 * MINUTE;
+
+		Set<Object> indexSet = index.getIdentityKeySet(from, to);
+		Assert.assertFalse(indexSet.isEmpty());
+		Assert.assertEquals(scan(keyList, from, to), indexSet);
+
+		// Ranges extending beyond the first and last written times
+		Assert.assertEquals(scan(keyList, from, Long.MAX_VALUE), index.getIdentityKeySet(from, Long.MAX_VALUE));
+		Assert.assertEquals(IDENTITY_KEY_COUNT, index.getIdentityKeySet(0, Long.MAX_VALUE).size());
+		Assert.assertTrue(index.getIdentityKeySet(0, startTime).isEmpty());
+		Assert.assertTrue(index.getIdentityKeySet(to + MINUTE, to + 2 * MINUTE).isEmpty());
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.internal.util.InstanceFactory;
+
+/**
+ * InstanceFactoryTest verifies that InstanceFactory creates new instances
+ * with the cached constructor, reports constructor errors, and reloads the
+ * class for each context class loader including concurrent calls made with
+ * different class loaders. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class InstanceFactoryTest
+{
+	public static class NoDefaultConstructor
+	{
+		public NoDefaultConstructor(int value)
+		{
+		}
+	}
+
+	public static class FailingConstructor
+	{
+		public FailingConstructor()
+		{
+			throw new IllegalStateException("failed");
+		}
+	}
+
+	@Test
+	public void testNewInstance() throws Exception
+	{
+		System.out.println("InstanceFactoryTest.testNewInstance()");
+		InstanceFactory<List<?>> factory = new InstanceFactory<List<?>>(ArrayList.class.getName());
+		List<?> list1 = factory.newInstance();
+		List<?> list2 = factory.newInstance();
+		Assert.assertEquals(ArrayList.class, list1.getClass());
+		Assert.assertNotSame(list1, list2);
+
+		// A different context class loader reloads the class
+		Thread thread = Thread.currentThread();
+		ClassLoader classLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(new URLClassLoader(new URL[0], classLoader));
+		try {
+			Assert.assertEquals(ArrayList.class, factory.newInstance().getClass());
+		} finally {
+			thread.setContextClassLoader(classLoader);
+		}
+
+		try {
+			new InstanceFactory<Object>("com.netcrest.pado.Undefined").newInstance();
+			Assert.fail("ClassNotFoundException expected");
+		} catch (ClassNotFoundException ex) {
+			// expected
+		}
+		try {
+			new InstanceFactory<Object>(Integer.class.getName()).newInstance();
+			Assert.fail("InstantiationException expected");
+		} catch (InstantiationException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConstructorErrors() throws Exception
+	{
+		System.out.println("InstanceFactoryTest.testConstructorErrors()");
+		try {
+			new InstanceFactory<Object>(NoDefaultConstructor.class.getName()).newInstance();
+			Assert.fail("InstantiationException expected");
+		} catch (InstantiationException ex) {
+			// expected
+		}
+		try {
+			new InstanceFactory<Object>(FailingConstructor.class.getName()).newInstance();
+			Assert.fail("InstantiationException expected");
+		} catch (InstantiationException ex) {
+			Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testConcurrentClassLoaders() throws Exception
+	{
+		System.out.println("InstanceFactoryTest.testConcurrentClassLoaders()");
+		final InstanceFactory<List<?>> factory = new InstanceFactory<List<?>>(ArrayList.class.getName());
+		final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		int threadCount = 8;
+		ExecutorService es = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				futures.add(es.submit(new Callable<Object>() {
+					public Object call() throws Exception
+					{
+						// Each thread has its own context class loader such
+						// that the cached entry is replaced concurrently.
+						Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], classLoader));
+						for (int i = 0; i < 10000; i++) {
+							Assert.assertEquals(ArrayList.class, factory.newInstance().getClass());
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} finally {
+			es.shutdown();
+		}
+	}
+}
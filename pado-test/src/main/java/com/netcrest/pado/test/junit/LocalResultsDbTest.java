@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.netcrest.pado.index.internal.db.LocalResultsDb;
+import com.netcrest.pado.index.internal.db.RecordFile;
+import com.netcrest.pado.index.internal.db.RecordHeader;
+import com.netcrest.pado.index.service.GridQuery;
+
+/**
+ * LocalResultsDbTest verifies that pages of spilled results read by
+ * LocalResultsDb are identical to the records read by seeking each record,
+ * that pages are read concurrently, and that removed and expired result files
+ * are deleted. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class LocalResultsDbTest
+{
+	private static final int PAGE_SIZE = 100;
+	private static final int THREAD_COUNT = 8;
+
+	private static List<String> createResults(int count)
+	{
+		List<String> results = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			results.add("record-" + i + "-abcdefghijklmnopqrstuvwxyz");
+		}
+		return results;
+	}
+
+	private static GridQuery createQuery(String id)
+	{
+		GridQuery query = new GridQuery();
+		query.setId(id);
+		return query;
+	}
+
+	/**
+	 * Reads the specified page by opening the file and seeking each record.
+	 */
+	private static List<byte[]> readPageBySeek(File file, List<RecordHeader> recordHeaderList, int startIndex,
+			int endIndex) throws Exception
+	{
+		List<byte[]> list = new ArrayList<byte[]>(endIndex - startIndex + 1);
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			for (int i = startIndex; i <= endIndex; i++) {
+				RecordHeader recordHeader = recordHeaderList.get(i);
+				raf.seek(recordHeader.getFilePosition());
+				byte[] serializedRecord = new byte[recordHeader.getNumBytes()];
+				raf.readFully(serializedRecord);
+				list.add(serializedRecord);
+			}
+		} finally {
+			raf.close();
+		}
+		return list;
+	}
+
+	/**
+	 * Exposes the sweep with the specified times.
+	 */
+	private static class ExpiringLocalResultsDb extends LocalResultsDb
+	{
+		@Override
+		protected void sweep(long now, long idleTimeInMsec, long expirationInMsec)
+		{
+			super.sweep(now, idleTimeInMsec, expirationInMsec);
+		}
+	}
+
+	private static void assertDeleted(LocalResultsDb db, List<RecordHeader> recordHeaderList, String id)
+			throws Exception
+	{
+		boolean isDeleted = false;
+		for (int i = 0; i < 50 && isDeleted == false; i++) {
+			try {
+				db.getSerializedResults(recordHeaderList, id, 0, 0);
+				Thread.sleep(100);
+			} catch (FileNotFoundException ex) {
+				isDeleted = true;
+			}
+		}
+		Assert.assertTrue("Result file not deleted", isDeleted);
+	}
+
+	@Test
+	public void testReadWrite() throws Exception
+	{
+		System.out.println("LocalResultsDbTest.testReadWrite()");
+		LocalResultsDb db = LocalResultsDb.getLocalResultsDb();
+		String id = "test/readWrite/" + System.nanoTime();
+		List<String> results = createResults(1000);
+		List<RecordHeader> recordHeaderList = db.writeResults(createQuery(id), results);
+		Assert.assertEquals(results.size(), recordHeaderList.size());
+
+		List<byte[]> page = db.getSerializedResults(recordHeaderList, id, 990, 1010);
+		Assert.assertEquals(10, page.size());
+		for (int i = 0; i < page.size(); i++) {
+			Assert.assertEquals(results.get(990 + i), BlobHelper.deserializeBlob(page.get(i)));
+		}
+
+		// Rewrite with different results
+		results = createResults(10);
+		recordHeaderList = db.writeResults(createQuery(id), results);
+		page = db.getSerializedResults(recordHeaderList, id, 0, 9);
+		Assert.assertEquals(results.get(9), BlobHelper.deserializeBlob(page.get(9)));
+
+		db.removeFile(id);
+		assertDeleted(db, recordHeaderList, id);
+	}
+
+	@Test
+	public void testEdgeCases() throws Exception
+	{
+		System.out.println("LocalResultsDbTest.testEdgeCases()");
+		LocalResultsDb db = LocalResultsDb.getLocalResultsDb();
+		String id = "test/edgeCases/" + System.nanoTime();
+
+		// Empty results
+		List<RecordHeader> recordHeaderList = db.writeResults(createQuery(id), new ArrayList<String>());
+		Assert.assertEquals(0, recordHeaderList.size());
+		Assert.assertEquals(0, db.getSerializedResults(recordHeaderList, id, 0, PAGE_SIZE - 1).size());
+
+		// Index range clipped to the result set
+		List<String> results = createResults(5);
+		recordHeaderList = db.writeResults(createQuery(id), results);
+		List<byte[]> page = db.getSerializedResults(recordHeaderList, id, -1, PAGE_SIZE);
+		Assert.assertEquals(results.size(), page.size());
+		Assert.assertEquals(results.get(0), BlobHelper.deserializeBlob(page.get(0)));
+		Assert.assertEquals(0, db.getSerializedResults(recordHeaderList, id, 5, 9).size());
+		Assert.assertNull(db.getSerializedResults(null, id, 0, 9));
+
+		// Unknown result set
+		try {
+			db.getSerializedResults(recordHeaderList, id + "/undefined", 0, 9);
+			Assert.fail("FileNotFoundException expected");
+		} catch (FileNotFoundException ex) {
+			// expected
+		}
+		db.removeFile(id);
+	}
+
+	@Test
+	public void testHeader() throws Exception
+	{
+		System.out.println("LocalResultsDbTest.testHeader()");
+		File file = File.createTempFile("LocalResultsDbTest", ".db");
+		try {
+			List<String> results = createResults(3);
+			List<RecordHeader> recordHeaderList = new RecordFile().writeRecords(file, results);
+			DataInputStream input = new DataInputStream(new FileInputStream(file));
+			try {
+				Assert.assertEquals(results.size(), input.readInt());
+				Assert.assertEquals(RecordFile.HEADER_SIZE, input.readLong());
+			} finally {
+				input.close();
+			}
+			Assert.assertEquals(RecordFile.HEADER_SIZE, recordHeaderList.get(0).getFilePosition());
+			RecordHeader last = recordHeaderList.get(results.size() - 1);
+			Assert.assertEquals(file.length(), last.getFilePosition() + last.getNumBytes());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception
+	{
+		System.out.println("LocalResultsDbTest.testConcurrentReads()");
+		final LocalResultsDb db = LocalResultsDb.getLocalResultsDb();
+		final String id = "test/concurrentReads/" + System.nanoTime();
+		final List<RecordHeader> recordHeaderList = db.writeResults(createQuery(id), createResults(10000));
+		final File file = new File(System.getProperty("pado.index.local.results.dir", "db/index"), id.replaceAll(
+				"\\/", "_"));
+
+		ExecutorService es = Executors.newFixedThreadPool(THREAD_COUNT);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			futures.add(es.submit(new Callable<Integer>() {
+				public Integer call() throws Exception
+				{
+					int count = 0;
+					for (int i = 0; i < recordHeaderList.size(); i += PAGE_SIZE) {
+						int endIndex = Math.min(i + PAGE_SIZE, recordHeaderList.size()) - 1;
+						List<byte[]> page = db.getSerializedResults(recordHeaderList, id, i, endIndex);
+						List<byte[]> expected = readPageBySeek(file, recordHeaderList, i, endIndex);
+						Assert.assertEquals(expected.size(), page.size());
+						for (int j = 0; j < page.size(); j++) {
+							Assert.assertArrayEquals(expected.get(j), page.get(j));
+						}
+						count += page.size();
+					}
+					return count;
+				}
+			}));
+		}
+		try {
+			for (Future<Integer> future : futures) {
+				Assert.assertEquals(recordHeaderList.size(), future.get().intValue());
+			}
+		} finally {
+			es.shutdown();
+			db.removeFile(id);
+		}
+	}
+
+	@Test
+	public void testExpiration() throws Exception
+	{
+		System.out.println("LocalResultsDbTest.testExpiration()");
+		ExpiringLocalResultsDb db = new ExpiringLocalResultsDb();
+		String id = "test/expiration/" + System.nanoTime();
+		List<RecordHeader> recordHeaderList = db.writeResults(createQuery(id), createResults(10));
+		Assert.assertEquals(10, db.getSerializedResults(recordHeaderList, id, 0, 9).size());
+
+		// Idle but not expired. Only the file channel is closed.
+		long now = System.currentTimeMillis() + 1000;
+		db.sweep(now, 0, TimeUnit.HOURS.toMillis(1));
+		Assert.assertEquals(10, db.getSerializedResults(recordHeaderList, id, 0, 9).size());
+
+		// Expired without being removed
+		db.sweep(now + 1000, 0, 0);
+		assertDeleted(db, recordHeaderList, id);
+	}
+}
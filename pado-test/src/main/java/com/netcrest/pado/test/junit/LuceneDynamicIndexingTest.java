@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gemstone.gemfire.cache.EntryEvent;
+import com.netcrest.pado.index.gemfire.lucene.TemporalLuceneDynamicIndexing;
+import com.netcrest.pado.index.provider.lucene.LuceneSearcherManager;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.temporal.ITemporalData;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalData;
+
+/**
+ * LuceneDynamicIndexingTest verifies that the asynchronous Lucene indexer
+ * indexes and commits all of the queued event batches when flushed or
+ * closed, and that the indexed events become searchable by the refresh
+ * interval without being committed. The commit interval and size are set
+ * large so that nothing is committed by the indexer thread itself. The
+ * indexes are written to the local file system. This test does not require a
+ * grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class LuceneDynamicIndexingTest
+{
+	private static final String FLUSH_PATH = "/test/lucene/dynamic/flush";
+	private static final String CLOSE_PATH = "/test/lucene/dynamic/close";
+	private static final String REFRESH_PATH = "/test/lucene/dynamic/refresh";
+	private static final int BATCH_COUNT = 20;
+	private static final int BATCH_SIZE = 100;
+
+	private TemporalLuceneDynamicIndexing indexing;
+	private String fullPath;
+
+	@SuppressWarnings("serial")
+	static class TestTemporalKey extends TemporalKey<String>
+	{
+		TestTemporalKey(String identityKey, long writtenTime)
+		{
+			super(identityKey, 0, Long.MAX_VALUE, writtenTime, "test");
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (indexing != null) {
+			indexing.shutdown();
+		}
+		clearProperty(Constants.PROP_LUCENE_DYNAMIC_COMMIT_INTERVAL);
+		clearProperty(Constants.PROP_LUCENE_DYNAMIC_COMMIT_SIZE);
+		clearProperty(Constants.PROP_LUCENE_DYNAMIC_REFRESH_INTERVAL);
+		deleteDir(new File("lucene" + fullPath));
+	}
+
+	private void setProperty(String prop, String value)
+	{
+		System.setProperty(Constants.PROP_SYSTEM_PADO + prop + "." + fullPath, value);
+	}
+
+	private void clearProperty(String prop)
+	{
+		System.clearProperty(Constants.PROP_SYSTEM_PADO + prop + "." + fullPath);
+	}
+
+	private static void deleteDir(File dir)
+	{
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				deleteDir(file);
+			}
+		}
+		dir.delete();
+	}
+
+	/**
+	 * Creates the asynchronous indexer of the specified path that refreshes
+	 * every refreshInterval msec and never commits on its own.
+	 */
+	private void createIndexing(String fullPath, int refreshInterval)
+	{
+		this.fullPath = fullPath;
+		deleteDir(new File("lucene" + fullPath));
+		setProperty(Constants.PROP_LUCENE_DYNAMIC_COMMIT_INTERVAL, Integer.toString(Integer.MAX_VALUE));
+		setProperty(Constants.PROP_LUCENE_DYNAMIC_COMMIT_SIZE, Integer.toString(Integer.MAX_VALUE));
+		setProperty(Constants.PROP_LUCENE_DYNAMIC_REFRESH_INTERVAL, Integer.toString(refreshInterval));
+		indexing = new TemporalLuceneDynamicIndexing(fullPath);
+	}
+
+	private static EntryEvent<ITemporalKey, ITemporalData> createEvent(String identityKey)
+	{
+		final ITemporalKey tk = new TestTemporalKey(identityKey, 1000);
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("Name", "name_" + identityKey);
+		final ITemporalData data = new GemfireTemporalData(tk, map);
+		return (EntryEvent<ITemporalKey, ITemporalData>) Proxy.newProxyInstance(EntryEvent.class.getClassLoader(),
+				new Class[] { EntryEvent.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						String name = method.getName();
+						if (name.equals("getKey")) {
+							return tk;
+						} else if (name.equals("getNewValue")) {
+							return data;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	/**
+	 * Dispatches BATCH_COUNT batches of BATCH_SIZE events and returns the
+	 * total number of events.
+	 */
+	private int processEvents(String prefix)
+	{
+		for (int i = 0; i < BATCH_COUNT; i++) {
+			List<EntryEvent<ITemporalKey, ITemporalData>> events = new ArrayList<EntryEvent<ITemporalKey, ITemporalData>>(
+					BATCH_SIZE);
+			for (int j = 0; j < BATCH_SIZE; j++) {
+				events.add(createEvent(prefix + i + "_" + j));
+			}
+			indexing.processEvents(events);
+		}
+		return BATCH_COUNT * BATCH_SIZE;
+	}
+
+	/**
+	 * Returns the number of documents searchable via the near-real-time
+	 * searcher.
+	 */
+	private int getSearchableDocCount() throws IOException
+	{
+		LuceneSearcherManager manager = LuceneSearcherManager.getExistingSearcherManager(fullPath);
+		Assert.assertNotNull(manager);
+		IndexSearcher searcher = manager.acquire();
+		Assert.assertNotNull(searcher);
+		try {
+			return searcher.getIndexReader().numDocs();
+		} finally {
+			manager.release(searcher);
+		}
+	}
+
+	/**
+	 * Returns the number of documents in the last commit.
+	 */
+	private int getCommittedDocCount() throws IOException
+	{
+		Directory directory = FSDirectory.open(new File("lucene" + fullPath));
+		try {
+			if (DirectoryReader.indexExists(directory) == false) {
+				return 0;
+			}
+			DirectoryReader reader = DirectoryReader.open(directory);
+			try {
+				return reader.numDocs();
+			} finally {
+				reader.close();
+			}
+		} finally {
+			directory.close();
+		}
+	}
+
+	@Test
+	public void testFlushDrainsQueue() throws IOException
+	{
+		System.out.println("LuceneDynamicIndexingTest.testFlushDrainsQueue()");
+		createIndexing(FLUSH_PATH, Integer.MAX_VALUE);
+		int count = processEvents("k");
+		indexing.flush();
+		Assert.assertEquals(count, getSearchableDocCount());
+		Assert.assertEquals(count, getCommittedDocCount());
+
+		count += processEvents("j");
+		indexing.flush();
+		Assert.assertEquals(count, getSearchableDocCount());
+		Assert.assertEquals(count, getCommittedDocCount());
+	}
+
+	@Test
+	public void testCloseDrainsQueue() throws IOException
+	{
+		System.out.println("LuceneDynamicIndexingTest.testCloseDrainsQueue()");
+		createIndexing(CLOSE_PATH, Integer.MAX_VALUE);
+		int count = processEvents("k");
+		indexing.close();
+		Assert.assertTrue(indexing.isClosed());
+		Assert.assertNull(LuceneSearcherManager.getExistingSearcherManager(fullPath));
+		Assert.assertEquals(count, getCommittedDocCount());
+
+		// Reopened with the previous commit
+		indexing.open();
+		Assert.assertEquals(count, getSearchableDocCount());
+		count += processEvents("j");
+		indexing.shutdown();
+		indexing = null;
+		Assert.assertEquals(count, getCommittedDocCount());
+	}
+
+	@Test
+	public void testRefreshWithoutCommit() throws Exception
+	{
+		System.out.println("LuceneDynamicIndexingTest.testRefreshWithoutCommit()");
+		createIndexing(REFRESH_PATH, 10);
+		int count = processEvents("k");
+		long deadline = System.currentTimeMillis() + 30000;
+		while (getSearchableDocCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, getSearchableDocCount());
+		Assert.assertEquals(0, getCommittedDocCount());
+	}
+}
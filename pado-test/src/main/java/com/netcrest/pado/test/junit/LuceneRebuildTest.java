@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gemstone.gemfire.cache.EntryEvent;
+import com.netcrest.pado.index.gemfire.lucene.TemporalLuceneDynamicIndexing;
+import com.netcrest.pado.index.provider.lucene.LuceneSearcherManager;
+import com.netcrest.pado.internal.Constants;
+import com.netcrest.pado.temporal.ITemporalData;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.ITemporalList;
+import com.netcrest.pado.temporal.TemporalEntry;
+import com.netcrest.pado.temporal.TemporalKey;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalDataList;
+import com.netcrest.pado.temporal.gemfire.GemfireTemporalEntry;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalData;
+
+/**
+ * LuceneRebuildTest verifies that rebuilding the Lucene indexes of a path
+ * keeps serving the previous commit to the searches made during the rebuild,
+ * that the rebuilt index becomes visible once it is committed, and that a
+ * failed rebuild retains the previous index. The indexes are written to the
+ * local file system. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class LuceneRebuildTest
+{
+	private static final String PATH = "/test/lucene/rebuild";
+	private static final int OLD_DOC_COUNT = 10;
+	private static final int NEW_DOC_COUNT = 25;
+
+	private TemporalLuceneDynamicIndexing indexing;
+
+	@SuppressWarnings("serial")
+	static class TestTemporalKey extends TemporalKey<String>
+	{
+		TestTemporalKey(String identityKey, long writtenTime)
+		{
+			super(identityKey, 0, Long.MAX_VALUE, writtenTime, "test");
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		deleteDir(new File("lucene" + PATH));
+		System.setProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_LUCENE_DYNAMIC_ASYNC + "." + PATH, "false");
+		indexing = new TemporalLuceneDynamicIndexing(PATH);
+		indexing.processEvents(createEvents(OLD_DOC_COUNT));
+	}
+
+	@After
+	public void tearDown()
+	{
+		indexing.shutdown();
+		System.clearProperty(Constants.PROP_SYSTEM_PADO + Constants.PROP_LUCENE_DYNAMIC_ASYNC + "." + PATH);
+		deleteDir(new File("lucene" + PATH));
+	}
+
+	private static void deleteDir(File dir)
+	{
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				deleteDir(file);
+			}
+		}
+		dir.delete();
+	}
+
+	private static GemfireTemporalEntry createEntry(String identityKey)
+	{
+		ITemporalKey tk = new TestTemporalKey(identityKey, 1000);
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("Name", "name_" + identityKey);
+		return new GemfireTemporalEntry(tk, new GemfireTemporalData(tk, map));
+	}
+
+	private static EntryEvent<ITemporalKey, ITemporalData> createEvent(final TemporalEntry entry)
+	{
+		return (EntryEvent<ITemporalKey, ITemporalData>) Proxy.newProxyInstance(EntryEvent.class.getClassLoader(),
+				new Class[] { EntryEvent.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						String name = method.getName();
+						if (name.equals("getKey")) {
+							return entry.getTemporalKey();
+						} else if (name.equals("getNewValue")) {
+							return entry.getTemporalData();
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	private static List<EntryEvent<ITemporalKey, ITemporalData>> createEvents(int count)
+	{
+		List<EntryEvent<ITemporalKey, ITemporalData>> events = new ArrayList<EntryEvent<ITemporalKey, ITemporalData>>(
+				count);
+		for (int i = 0; i < count; i++) {
+			events.add(createEvent(createEntry("old" + i)));
+		}
+		return events;
+	}
+
+	/**
+	 * Returns a temporal list with a single entry. If readLatch is not null,
+	 * then reading its temporal data list counts down readLatch and blocks
+	 * until releaseLatch is released. If isFail is true, then reading it
+	 * throws an exception.
+	 */
+	private static ITemporalList createTemporalList(String identityKey, final CountDownLatch readLatch,
+			final CountDownLatch releaseLatch, final boolean isFail)
+	{
+		final GemfireTemporalEntry entry = createEntry(identityKey);
+		return (ITemporalList) Proxy.newProxyInstance(ITemporalList.class.getClassLoader(),
+				new Class[] { ITemporalList.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						String name = method.getName();
+						if (name.equals("getLastEntry")) {
+							return entry;
+						} else if (name.equals("getTemporalDataList")) {
+							if (readLatch != null) {
+								readLatch.countDown();
+								releaseLatch.await();
+							}
+							if (isFail) {
+								throw new IllegalStateException("Test failure");
+							}
+							ArrayList<TemporalEntry> list = new ArrayList<TemporalEntry>(1);
+							list.add(entry);
+							return new GemfireTemporalDataList(entry.getTemporalKey().getIdentityKey(), entry, list,
+									0, null, null, null, PATH);
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	private static int getDocCount() throws Exception
+	{
+		LuceneSearcherManager manager = LuceneSearcherManager.getExistingSearcherManager(PATH);
+		Assert.assertNotNull(manager);
+		IndexSearcher searcher = manager.acquire();
+		Assert.assertNotNull(searcher);
+		try {
+			return searcher.getIndexReader().numDocs();
+		} finally {
+			manager.release(searcher);
+		}
+	}
+
+	@Test
+	public void testRebuildServesPreviousCommit() throws Exception
+	{
+		System.out.println("LuceneRebuildTest.testRebuildServesPreviousCommit()");
+		Assert.assertEquals(OLD_DOC_COUNT, getDocCount());
+
+		final CountDownLatch readLatch = new CountDownLatch(1);
+		final CountDownLatch releaseLatch = new CountDownLatch(1);
+		final List<ITemporalList> temporalLists = new ArrayList<ITemporalList>(NEW_DOC_COUNT);
+		for (int i = 0; i < NEW_DOC_COUNT - 1; i++) {
+			temporalLists.add(createTemporalList("new" + i, null, null, false));
+		}
+		// The last list blocks the rebuild after the previous documents have
+		// been deleted
+		temporalLists.add(createTemporalList("new" + (NEW_DOC_COUNT - 1), readLatch, releaseLatch, false));
+
+		final int[] result = new int[1];
+		Thread thread = new Thread(new Runnable() {
+			public void run()
+			{
+				result[0] = indexing.rebuild(temporalLists);
+			}
+		});
+		thread.start();
+		try {
+			Assert.assertTrue(readLatch.await(30, TimeUnit.SECONDS));
+			Assert.assertEquals(OLD_DOC_COUNT, getDocCount());
+		} finally {
+			releaseLatch.countDown();
+			thread.join();
+		}
+		Assert.assertEquals(NEW_DOC_COUNT, result[0]);
+		Assert.assertEquals(NEW_DOC_COUNT, getDocCount());
+	}
+
+	@Test
+	public void testFailedRebuildRetainsPreviousIndex() throws Exception
+	{
+		System.out.println("LuceneRebuildTest.testFailedRebuildRetainsPreviousIndex()");
+		List<ITemporalList> temporalLists = new ArrayList<ITemporalList>(NEW_DOC_COUNT);
+		for (int i = 0; i < NEW_DOC_COUNT; i++) {
+			temporalLists.add(createTemporalList("new" + i, null, null, i == NEW_DOC_COUNT / 2));
+		}
+		Assert.assertEquals(-1, indexing.rebuild(temporalLists));
+
+		// The writer is reopened with the previous commit
+		Assert.assertFalse(indexing.isClosed());
+		Assert.assertEquals(OLD_DOC_COUNT, getDocCount());
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netcrest.pado.index.provider.lucene.LuceneSearch;
+import com.netcrest.pado.index.provider.lucene.LuceneSearcherManager;
+
+/**
+ * LuceneSearcherManagerTest verifies that the near-real-time searcher
+ * manager makes the documents added by the index writer visible only after it
+ * is refreshed, regardless of whether they have been committed, that the
+ * searchers acquired before a refresh or close remain usable, and that
+ * directory managers see new commits on acquire. The indexes are kept in RAM
+ * directories. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class LuceneSearcherManagerTest
+{
+	private static final String NRT_PATH = "/test/lucene/nrt";
+	private static final String DIRECTORY_PATH = "/test/lucene/directory";
+
+	private RAMDirectory directory;
+	private IndexWriter writer;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		directory = new RAMDirectory();
+		IndexWriterConfig iwc = new IndexWriterConfig(LuceneSearch.LUCENE_VERSION, new StandardAnalyzer(
+				LuceneSearch.LUCENE_VERSION));
+		writer = new IndexWriter(directory, iwc);
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		LuceneSearcherManager.unregister(NRT_PATH, writer);
+		LuceneSearcherManager manager = LuceneSearcherManager.getExistingSearcherManager(DIRECTORY_PATH);
+		if (manager != null) {
+			manager.close();
+		}
+		writer.close();
+		directory.close();
+	}
+
+	private void addDocument(String id) throws IOException
+	{
+		Document doc = new Document();
+		doc.add(new StringField("IdentityKey", id, Field.Store.YES));
+		writer.addDocument(doc);
+	}
+
+	private static int getDocCount(IndexSearcher searcher)
+	{
+		return searcher.getIndexReader().numDocs();
+	}
+
+	private static int getDocCount(LuceneSearcherManager manager) throws IOException
+	{
+		IndexSearcher searcher = manager.acquire();
+		Assert.assertNotNull(searcher);
+		try {
+			return getDocCount(searcher);
+		} finally {
+			manager.release(searcher);
+		}
+	}
+
+	@Test
+	public void testNearRealTimeRefresh() throws IOException
+	{
+		System.out.println("LuceneSearcherManagerTest.testNearRealTimeRefresh()");
+		LuceneSearcherManager manager = LuceneSearcherManager.register(NRT_PATH, writer);
+		Assert.assertTrue(manager.isNearRealTime());
+		Assert.assertSame(manager, LuceneSearcherManager.getExistingSearcherManager(NRT_PATH));
+		Assert.assertSame(manager, LuceneSearcherManager.getSearcherManager(NRT_PATH, null));
+		Assert.assertEquals(0, getDocCount(manager));
+		long openCount = manager.getOpenCount();
+
+		// Not visible until refreshed
+		addDocument("k1");
+		addDocument("k2");
+		Assert.assertEquals(0, getDocCount(manager));
+
+		// Visible without commit once refreshed
+		manager.refresh();
+		Assert.assertEquals(2, getDocCount(manager));
+		Assert.assertEquals(openCount + 1, manager.getOpenCount());
+
+		// No changes, no new reader
+		manager.refresh();
+		Assert.assertEquals(openCount + 1, manager.getOpenCount());
+
+		// Searchers acquired before a refresh keep their point-in-time view
+		IndexSearcher searcher = manager.acquire();
+		try {
+			addDocument("k3");
+			writer.commit();
+			manager.refresh();
+			Assert.assertEquals(2, getDocCount(searcher));
+			Assert.assertEquals(3, getDocCount(manager));
+		} finally {
+			manager.release(searcher);
+		}
+		Assert.assertEquals(openCount + 2, manager.getOpenCount());
+	}
+
+	@Test
+	public void testUnregister() throws IOException
+	{
+		System.out.println("LuceneSearcherManagerTest.testUnregister()");
+		LuceneSearcherManager manager = LuceneSearcherManager.register(NRT_PATH, writer);
+		addDocument("k1");
+		manager.refresh();
+
+		// Another writer's unregister has no effect
+		RAMDirectory otherDirectory = new RAMDirectory();
+		IndexWriter otherWriter = new IndexWriter(otherDirectory, new IndexWriterConfig(LuceneSearch.LUCENE_VERSION,
+				new StandardAnalyzer(LuceneSearch.LUCENE_VERSION)));
+		try {
+			LuceneSearcherManager.unregister(NRT_PATH, otherWriter);
+			Assert.assertSame(manager, LuceneSearcherManager.getExistingSearcherManager(NRT_PATH));
+		} finally {
+			otherWriter.close();
+			otherDirectory.close();
+		}
+
+		// Acquired searchers remain usable after the manager is closed
+		IndexSearcher searcher = manager.acquire();
+		try {
+			LuceneSearcherManager.unregister(NRT_PATH, writer);
+			Assert.assertNull(LuceneSearcherManager.getExistingSearcherManager(NRT_PATH));
+			Assert.assertNull(manager.acquire());
+			Assert.assertEquals(1, getDocCount(searcher));
+		} finally {
+			manager.release(searcher);
+		}
+	}
+
+	@Test
+	public void testDirectoryRefreshOnAcquire() throws IOException
+	{
+		System.out.println("LuceneSearcherManagerTest.testDirectoryRefreshOnAcquire()");
+		addDocument("k1");
+		writer.commit();
+		LuceneSearcherManager manager = LuceneSearcherManager.getSearcherManager(DIRECTORY_PATH, directory);
+		Assert.assertFalse(manager.isNearRealTime());
+		Assert.assertSame(manager, LuceneSearcherManager.getSearcherManager(DIRECTORY_PATH, directory));
+		Assert.assertEquals(1, getDocCount(manager));
+
+		// Uncommitted documents are not visible
+		addDocument("k2");
+		Assert.assertEquals(1, getDocCount(manager));
+
+		writer.commit();
+		Assert.assertEquals(2, getDocCount(manager));
+	}
+}
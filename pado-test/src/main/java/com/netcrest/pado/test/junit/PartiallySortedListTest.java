@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.index.internal.PartiallySortedList;
+
+/**
+ * PartiallySortedListTest verifies that PartiallySortedList returns the same
+ * order as sorting the entire list, sorts one chunk at a time without modifying
+ * the source list, and returns the same order when accessed concurrently. This
+ * test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class PartiallySortedListTest
+{
+	private static List<Integer> createList(int size, int bound, long seed)
+	{
+		Random random = new Random(seed);
+		List<Integer> list = new ArrayList<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(random.nextInt(bound));
+		}
+		return list;
+	}
+
+	@Test
+	public void testOrder()
+	{
+		System.out.println("PartiallySortedListTest.testOrder()");
+		for (int size : new int[] { 0, 1, 15, 100, 10000 }) {
+			// Many duplicates and mostly unique values
+			for (int bound : new int[] { 3, Integer.MAX_VALUE }) {
+				List<Integer> list = createList(size, bound, size);
+				List<Integer> expected = new ArrayList<Integer>(list);
+				Collections.sort(expected, Collections.reverseOrder());
+				PartiallySortedList psl = new PartiallySortedList(list, Collections.reverseOrder(), 7);
+				Assert.assertEquals(size, psl.size());
+
+				// First page, then the last element, then all
+				for (int i = 0; i < Math.min(size, 10); i++) {
+					Assert.assertEquals(expected.get(i), psl.get(i));
+				}
+				if (size > 0) {
+					Assert.assertEquals(expected.get(size - 1), psl.get(size - 1));
+				}
+				Assert.assertEquals(expected, new ArrayList<Object>(psl));
+			}
+		}
+	}
+
+	@Test
+	public void testLimits() throws Exception
+	{
+		System.out.println("PartiallySortedListTest.testLimits()");
+		List<Integer> list = createList(1000, Integer.MAX_VALUE, 1);
+		List<Integer> copy = new ArrayList<Integer>(list);
+		List<Integer> expected = new ArrayList<Integer>(list);
+		Collections.sort(expected);
+		PartiallySortedList psl = new PartiallySortedList(list, null, 100);
+		Assert.assertEquals(0, psl.getSortedCount());
+
+		// Sorted one chunk at a time
+		Assert.assertEquals(expected.get(0), psl.get(0));
+		Assert.assertEquals(100, psl.getSortedCount());
+		Assert.assertEquals(expected.get(99), psl.get(99));
+		Assert.assertEquals(100, psl.getSortedCount());
+		Assert.assertEquals(expected.get(250), psl.get(250));
+		Assert.assertEquals(251, psl.getSortedCount());
+		Assert.assertEquals(copy, list);
+
+		for (int index : new int[] { -1, list.size() }) {
+			try {
+				psl.get(index);
+				Assert.fail("IndexOutOfBoundsException expected");
+			} catch (IndexOutOfBoundsException ex) {
+				// expected
+			}
+		}
+
+		// Chunk size below 1
+		psl = new PartiallySortedList(list, null, 0);
+		Assert.assertEquals(expected.get(500), psl.get(500));
+		Assert.assertEquals(501, psl.getSortedCount());
+	}
+
+	@Test
+	public void testConcurrentGet() throws Exception
+	{
+		System.out.println("PartiallySortedListTest.testConcurrentGet()");
+		final List<Integer> expected = createList(100000, Integer.MAX_VALUE, 2);
+		final PartiallySortedList psl = new PartiallySortedList(expected, null, 100);
+		Collections.sort(expected);
+		int threadCount = 8;
+		ExecutorService es = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				final int step = 37 + t * 101;
+				futures.add(es.submit(new Callable<Object>() {
+					public Object call() throws Exception
+					{
+						for (int i = 0; i < expected.size(); i += step) {
+							Assert.assertEquals(expected.get(i), psl.get(i));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} finally {
+			es.shutdown();
+		}
+		Assert.assertEquals(expected, new ArrayList<Object>(psl));
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.index.internal.StartIndexMatrix;
+
+/**
+ * StartIndexMatrixTest verifies the start indexes encoded by StartIndexMatrix
+ * and that the encoded form is smaller than the int array list previously
+ * kept by IndexMatrix. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class StartIndexMatrixTest
+{
+	private static final int BUCKET_COUNT = 113;
+	private static final int PAGE_SIZE = 1000;
+
+	/**
+	 * Creates start indexes of the specified number of results randomly
+	 * distributed across buckets as IndexMatrix does for each page of the
+	 * aggregated results.
+	 */
+	private static List<int[]> createStartIndexList(int recordCount, int bucketCount, int pageSize)
+	{
+		Random random = new Random(recordCount);
+		int[] resultIndexes = new int[bucketCount];
+		List<int[]> list = new ArrayList<int[]>(recordCount / pageSize + 1);
+		for (int i = 0; i < recordCount; i += pageSize) {
+			int[] startIndexes = new int[bucketCount];
+			Arrays.fill(startIndexes, -1);
+			for (int j = 0; j < pageSize && i + j < recordCount; j++) {
+				int bucket = random.nextInt(bucketCount);
+				if (startIndexes[bucket] == -1) {
+					startIndexes[bucket] = resultIndexes[bucket];
+				}
+				resultIndexes[bucket]++;
+			}
+			list.add(startIndexes);
+		}
+		return list;
+	}
+
+	private static byte[] writeData(StartIndexMatrix matrix) throws IOException
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		matrix.writeData(dos);
+		dos.close();
+		return baos.toByteArray();
+	}
+
+	private static StartIndexMatrix readData(byte[] bytes) throws IOException
+	{
+		return StartIndexMatrix.readData(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	/**
+	 * Writes the start index list in the same layout as the int array list,
+	 * i.e., length followed by 4-byte ints per page.
+	 */
+	private static byte[] writeList(List<int[]> list) throws IOException
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeInt(list.size());
+		for (int[] startIndexes : list) {
+			dos.writeInt(startIndexes.length);
+			for (int startIndex : startIndexes) {
+				dos.writeInt(startIndex);
+			}
+		}
+		dos.close();
+		return baos.toByteArray();
+	}
+
+	private static void assertMatrix(List<int[]> expected, StartIndexMatrix matrix)
+	{
+		Assert.assertEquals(expected.size(), matrix.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertArrayEquals(expected.get(i), matrix.get(i));
+		}
+		Assert.assertNull(matrix.get(-1));
+		Assert.assertNull(matrix.get(expected.size()));
+	}
+
+	@Test
+	public void testReadWrite() throws IOException
+	{
+		System.out.println("StartIndexMatrixTest.testReadWrite()");
+		// Pages with sparse and empty buckets, and large gaps
+		List<int[]> list = createStartIndexList(100000, BUCKET_COUNT, 100);
+		list.add(new int[BUCKET_COUNT]);
+		int[] startIndexes = new int[BUCKET_COUNT];
+		Arrays.fill(startIndexes, Integer.MAX_VALUE - 1);
+		startIndexes[0] = -1;
+		list.add(startIndexes);
+
+		StartIndexMatrix matrix = new StartIndexMatrix(BUCKET_COUNT);
+		for (int[] si : list) {
+			matrix.add(si);
+		}
+		assertMatrix(list, matrix);
+		assertMatrix(list, readData(writeData(matrix)));
+
+		// Deltas starting at and in between block boundaries
+		for (int fromIndex : new int[] { 0, 1, StartIndexMatrix.BLOCK_SIZE, StartIndexMatrix.BLOCK_SIZE + 3,
+				list.size() - 1, list.size() }) {
+			StartIndexMatrix receiver = new StartIndexMatrix(BUCKET_COUNT);
+			for (int i = 0; i < fromIndex; i++) {
+				receiver.add(list.get(i));
+			}
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			DataOutputStream dos = new DataOutputStream(baos);
+			matrix.writeRows(dos, fromIndex);
+			dos.close();
+			receiver.readRows(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+			assertMatrix(list, receiver);
+			Assert.assertEquals(matrix.getEncodedSize(), receiver.getEncodedSize());
+		}
+	}
+
+	@Test
+	public void testEdgeCases() throws IOException
+	{
+		System.out.println("StartIndexMatrixTest.testEdgeCases()");
+		// Empty matrix
+		StartIndexMatrix matrix = new StartIndexMatrix(BUCKET_COUNT);
+		List<int[]> list = new ArrayList<int[]>();
+		assertMatrix(list, matrix);
+		assertMatrix(list, readData(writeData(matrix)));
+
+		// Single bucket
+		list = createStartIndexList(10000, 1, PAGE_SIZE);
+		matrix = new StartIndexMatrix(1);
+		for (int[] startIndexes : list) {
+			matrix.add(startIndexes);
+		}
+		assertMatrix(list, readData(writeData(matrix)));
+
+		try {
+			matrix.add(new int[2]);
+			Assert.fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+		Assert.assertEquals(list.size(), matrix.size());
+	}
+
+	@Test
+	public void testEncodedSize() throws IOException
+	{
+		System.out.println("StartIndexMatrixTest.testEncodedSize()");
+		List<int[]> list = createStartIndexList(1000000, BUCKET_COUNT, PAGE_SIZE);
+		StartIndexMatrix matrix = new StartIndexMatrix(BUCKET_COUNT);
+		for (int[] startIndexes : list) {
+			matrix.add(startIndexes);
+		}
+		// The delta encoded form must be smaller than the int array list
+		Assert.assertTrue(writeData(matrix).length < writeList(list).length / 2);
+		assertMatrix(list, readData(writeData(matrix)));
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.netcrest.pado.index.provider.lucene.LuceneField;
+import com.netcrest.pado.index.provider.lucene.LuceneSearch;
+import com.netcrest.pado.index.provider.lucene.TemporalKeyCollector;
+import com.netcrest.pado.temporal.ITemporalKey;
+import com.netcrest.pado.temporal.gemfire.impl.GemfireTemporalKey;
+
+/**
+ * TemporalKeyCollectorTest verifies that TemporalKeyCollector returns the same
+ * keys as loading the stored documents with and without doc values and
+ * with and without limits. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TemporalKeyCollectorTest
+{
+	private static final String[] WORDS = { "alpha", "bravo", "charlie", "delta" };
+
+	private static RAMDirectory createIndex(int docCount, boolean isDocValues) throws IOException
+	{
+		RAMDirectory directory = new RAMDirectory();
+		IndexWriterConfig iwc = new IndexWriterConfig(LuceneSearch.LUCENE_VERSION, new StandardAnalyzer(
+				LuceneSearch.LUCENE_VERSION));
+		IndexWriter writer = new IndexWriter(directory, iwc);
+		LuceneField luceneField = new LuceneField();
+		List<Document> docList = new ArrayList<Document>(10000);
+		for (int i = 0; i < docCount; i++) {
+			// 3 versions per identity key
+			GemfireTemporalKey tk = new GemfireTemporalKey("k" + i / 3, 0, Long.MAX_VALUE, i, "test");
+			byte[] blob = BlobHelper.serializeToBlob(tk);
+			Document doc = luceneField.createDocument();
+			doc.add(luceneField.createField("__doc", WORDS[i % WORDS.length]));
+			if (isDocValues) {
+				luceneField.addTemporalKey(doc, blob);
+			} else {
+				doc.add(luceneField.createField(LuceneField.TEMPORAL_KEY_FIELD, blob));
+			}
+			docList.add(doc);
+			if (docList.size() == 10000) {
+				writer.addDocuments(docList);
+				docList.clear();
+			}
+		}
+		writer.addDocuments(docList);
+		writer.close();
+		return directory;
+	}
+
+	private static Query parse(String queryString) throws Exception
+	{
+		return new StandardQueryParser(new StandardAnalyzer(LuceneSearch.LUCENE_VERSION)).parse(queryString, "__doc");
+	}
+
+	/**
+	 * Returns the temporal keys by loading stored documents. This is the
+	 * retrieval path used prior to TemporalKeyCollector.
+	 */
+	private static Set<ITemporalKey> getStoredTemporalKeySet(IndexSearcher searcher, Query query, int limit)
+			throws IOException
+	{
+		Set<ITemporalKey> set = new HashSet<ITemporalKey>();
+		TopDocs results = searcher.search(query, null, limit < 0 ? Integer.MAX_VALUE : limit);
+		LuceneField luceneField = new LuceneField();
+		for (ScoreDoc hit : results.scoreDocs) {
+			ITemporalKey tk = luceneField.getTemporalKey(searcher.doc(hit.doc));
+			if (tk != null) {
+				set.add(tk);
+			}
+		}
+		return set;
+	}
+
+	@Test
+	public void testSameKeys() throws Exception
+	{
+		System.out.println("TemporalKeyCollectorTest.testSameKeys()");
+		for (boolean isDocValues : new boolean[] { true, false }) {
+			RAMDirectory directory = createIndex(20000, isDocValues);
+			DirectoryReader reader = DirectoryReader.open(directory);
+			IndexSearcher searcher = new IndexSearcher(reader);
+			Query query = parse("alpha OR charlie");
+
+			Set<ITemporalKey> expected = getStoredTemporalKeySet(searcher, query, -1);
+			Assert.assertEquals(10000, expected.size());
+			TemporalKeyCollector collector = new TemporalKeyCollector(new HashSet(), -1, false);
+			Set<ITemporalKey> actual = (Set<ITemporalKey>) collector.search(searcher, query);
+			Assert.assertEquals(expected, actual);
+			Assert.assertEquals(isDocValues ? 0 : expected.size(), collector.getStoredFieldCount());
+
+			Set<Object> identityKeySet = (Set<Object>) new TemporalKeyCollector(new HashSet(), -1, true).search(
+					searcher, query);
+			Set<Object> expectedIdentityKeySet = new HashSet<Object>();
+			for (ITemporalKey tk : expected) {
+				expectedIdentityKeySet.add(tk.getIdentityKey());
+			}
+			Assert.assertEquals(expectedIdentityKeySet, identityKeySet);
+
+			// Early termination
+			collector = new TemporalKeyCollector(new ArrayList(), 100, false);
+			List<ITemporalKey> list = (List<ITemporalKey>) collector.search(searcher, query);
+			Assert.assertEquals(100, list.size());
+			Assert.assertTrue(expected.containsAll(list));
+			Assert.assertEquals(isDocValues ? 0 : 100, collector.getStoredFieldCount());
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testLimits() throws Exception
+	{
+		System.out.println("TemporalKeyCollectorTest.testLimits()");
+		RAMDirectory directory = createIndex(400, true);
+		DirectoryReader reader = DirectoryReader.open(directory);
+		IndexSearcher searcher = new IndexSearcher(reader);
+		Query query = parse("bravo");
+
+		// Limit above the number of matches returns all
+		Set<ITemporalKey> expected = getStoredTemporalKeySet(searcher, query, -1);
+		Assert.assertEquals(100, expected.size());
+		Assert.assertEquals(expected, new TemporalKeyCollector(new HashSet(), 1000, false).search(searcher, query));
+		Assert.assertEquals(expected, new TemporalKeyCollector(new HashSet(), 100, false).search(searcher, query));
+
+		// Zero limit and a full collection collect nothing
+		Assert.assertTrue(new TemporalKeyCollector(new HashSet(), 0, false).search(searcher, query).isEmpty());
+		List list = new ArrayList();
+		list.add("existing");
+		Assert.assertEquals(1, new TemporalKeyCollector(list, 1, false).search(searcher, query).size());
+
+		// No matches
+		Assert.assertTrue(new TemporalKeyCollector(new HashSet(), -1, false).search(searcher, parse("echo"))
+				.isEmpty());
+		reader.close();
+
+		// Empty index
+		reader = DirectoryReader.open(createIndex(0, true));
+		searcher = new IndexSearcher(reader);
+		Assert.assertTrue(new TemporalKeyCollector(new HashSet(), -1, false).search(searcher, query).isEmpty());
+		reader.close();
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.jsonlite;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.data.KeyType;
+import com.netcrest.pado.data.KeyTypeManager;
+import com.netcrest.pado.data.jsonlite.JsonLite;
+
+/**
+ * JsonLiteLazyDeserializationTest verifies that keep-serialized values are
+ * inflated individually using the offset table and that the serialized form of
+ * prior versions, i.e., without the offset table, is still readable. It also
+ * verifies that concurrent readers inflating different values of the same
+ * object see the same values. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class JsonLiteLazyDeserializationTest
+{
+	/**
+	 * WideKeyType is a generated KeyType with the specified number of String
+	 * fields. All fields but the first are keep-serialized.
+	 */
+	static class WideKeyType implements KeyType
+	{
+		private final UUID id;
+		private final int index;
+		private final String name;
+		private final KeyType[] values;
+		private final Map<String, KeyType> keyNameMap;
+
+		private WideKeyType(UUID id, int index, KeyType[] values, Map<String, KeyType> keyNameMap)
+		{
+			this.id = id;
+			this.index = index;
+			this.name = "Field" + index;
+			this.values = values;
+			this.keyNameMap = keyNameMap;
+		}
+
+		static WideKeyType[] create(int fieldCount)
+		{
+			UUID id = UUID.randomUUID();
+			WideKeyType[] values = new WideKeyType[fieldCount];
+			Map<String, KeyType> keyNameMap = new HashMap<String, KeyType>(fieldCount * 2);
+			for (int i = 0; i < fieldCount; i++) {
+				values[i] = new WideKeyType(id, i, values, keyNameMap);
+				keyNameMap.put(values[i].getName(), values[i]);
+			}
+			KeyTypeManager.registerSingleKeyType(values[0]);
+			return values;
+		}
+
+		public Object getId()
+		{
+			return id;
+		}
+
+		public int getMergePoint()
+		{
+			return -1;
+		}
+
+		public int getVersion()
+		{
+			return 1;
+		}
+
+		public int getKeyCount()
+		{
+			return values.length;
+		}
+
+		public int getIndex()
+		{
+			return index;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public Class getType()
+		{
+			return String.class;
+		}
+
+		public KeyType[] getValues()
+		{
+			return values;
+		}
+
+		public KeyType[] getValues(int version)
+		{
+			return KeyTypeManager.getValues(this, version);
+		}
+
+		public KeyType getKeyType(String name)
+		{
+			return keyNameMap.get(name);
+		}
+
+		public boolean isDeltaEnabled()
+		{
+			return false;
+		}
+
+		public boolean isDeprecated()
+		{
+			return false;
+		}
+
+		public int[] getDeprecatedIndexes()
+		{
+			return new int[0];
+		}
+
+		public boolean isKeyKeepSerialized()
+		{
+			return index != 0;
+		}
+
+		public boolean isCompressionEnabled()
+		{
+			return false;
+		}
+
+		public boolean isPayloadKeepSerialized()
+		{
+			return true;
+		}
+
+		public Set<String> getNameSet()
+		{
+			return Collections.unmodifiableSet(keyNameMap.keySet());
+		}
+
+		public boolean containsKey(String name)
+		{
+			return keyNameMap.containsKey(name);
+		}
+
+		public Class<?> getDomainClass()
+		{
+			return null;
+		}
+
+		public KeyType[] getReferences()
+		{
+			return null;
+		}
+
+		public void setReferences(KeyType[] references)
+		{
+		}
+
+		public boolean isReference()
+		{
+			return false;
+		}
+
+		public String getQuery()
+		{
+			return null;
+		}
+
+		public void setQuery(String query)
+		{
+		}
+
+		public int getDepth()
+		{
+			return 0;
+		}
+
+		public void setDepth(int depth)
+		{
+		}
+	}
+
+	private static JsonLite createJsonLite(WideKeyType[] keyTypes)
+	{
+		JsonLite jl = new JsonLite(keyTypes[0]);
+		for (int i = 0; i < keyTypes.length; i++) {
+			jl.put(keyTypes[i], "value-" + i + "-abcdefghijklmnopqrstuvwxyz");
+		}
+		return jl;
+	}
+
+	private static byte[] toBytes(JsonLite jl) throws Exception
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		jl.toData(dos);
+		dos.close();
+		return baos.toByteArray();
+	}
+
+	private static JsonLite fromBytes(byte[] bytes) throws Exception
+	{
+		JsonLite jl = new JsonLite();
+		jl.fromData(new DataInputStream(new ByteArrayInputStream(bytes)));
+		return jl;
+	}
+
+	/**
+	 * Returns a copy of the specified bytes with the offset table flag cleared
+	 * in the leading internal flag byte. The trailing offset table is ignored
+	 * as done by prior versions.
+	 */
+	private static byte[] toPriorFormat(byte[] bytes)
+	{
+		byte[] priorBytes = bytes.clone();
+		priorBytes[0] &= ~(1 << 1);
+		return priorBytes;
+	}
+
+	private static void assertValues(JsonLite expected, JsonLite actual, WideKeyType[] keyTypes)
+	{
+		for (int i = keyTypes.length - 1; i >= 0; i--) {
+			Assert.assertEquals(expected.get(keyTypes[i]), actual.get(keyTypes[i]));
+		}
+	}
+
+	@Test
+	public void testSingleField() throws Exception
+	{
+		System.out.println("JsonLiteLazyDeserializationTest.testSingleField()");
+		WideKeyType[] keyTypes = WideKeyType.create(200);
+		JsonLite expected = createJsonLite(keyTypes);
+		byte[] bytes = toBytes(expected);
+
+		JsonLite jl = fromBytes(bytes);
+		Assert.assertEquals(expected.get(keyTypes[150]), jl.get(keyTypes[150]));
+		Assert.assertEquals(expected.get(keyTypes[1]), jl.get(keyTypes[1]));
+		Assert.assertEquals(expected.get(keyTypes[199]), jl.get(keyTypes[199]));
+		assertValues(expected, jl, keyTypes);
+
+		// Partially inflated object re-serialized
+		jl = fromBytes(bytes);
+		jl.get(keyTypes[10]);
+		assertValues(expected, fromBytes(toBytes(jl)), keyTypes);
+
+		// Untouched object forwarded as is
+		jl = fromBytes(bytes);
+		Assert.assertArrayEquals(bytes, toBytes(jl));
+
+		// Update after partial inflation
+		jl = fromBytes(bytes);
+		jl.get(keyTypes[20]);
+		jl.put(keyTypes[30], "updated");
+		expected.put(keyTypes[30], "updated");
+		assertValues(expected, fromBytes(toBytes(jl)), keyTypes);
+	}
+
+	@Test
+	public void testPriorFormat() throws Exception
+	{
+		System.out.println("JsonLiteLazyDeserializationTest.testPriorFormat()");
+		WideKeyType[] keyTypes = WideKeyType.create(50);
+		JsonLite expected = createJsonLite(keyTypes);
+		JsonLite jl = fromBytes(toPriorFormat(toBytes(expected)));
+		Assert.assertEquals(expected.get(keyTypes[25]), jl.get(keyTypes[25]));
+		assertValues(expected, jl, keyTypes);
+	}
+
+	@Test
+	public void testClone() throws Exception
+	{
+		System.out.println("JsonLiteLazyDeserializationTest.testClone()");
+		WideKeyType[] keyTypes = WideKeyType.create(50);
+		JsonLite expected = createJsonLite(keyTypes);
+		JsonLite jl = fromBytes(toBytes(expected));
+		jl.get(keyTypes[5]);
+		JsonLite clone = (JsonLite) jl.clone();
+		assertValues(expected, clone, keyTypes);
+		assertValues(expected, jl, keyTypes);
+	}
+
+	@Test
+	public void testConcurrentGet() throws Exception
+	{
+		System.out.println("JsonLiteLazyDeserializationTest.testConcurrentGet()");
+		final WideKeyType[] keyTypes = WideKeyType.create(200);
+		final JsonLite expected = createJsonLite(keyTypes);
+		byte[] bytes = toBytes(expected);
+		int threadCount = 8;
+		ExecutorService es = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (int n = 0; n < 200; n++) {
+				final JsonLite jl = fromBytes(bytes);
+				final CountDownLatch latch = new CountDownLatch(1);
+				List<Future<Object>> futures = new ArrayList<Future<Object>>(threadCount);
+				for (int t = 0; t < threadCount; t++) {
+					final int offset = t;
+					futures.add(es.submit(new Callable<Object>() {
+						public Object call() throws Exception
+						{
+							latch.await();
+							// Each thread inflates the fields in a different order
+							for (int i = 0; i < keyTypes.length; i++) {
+								KeyType keyType = keyTypes[(i * (offset + 1) + offset) % keyTypes.length];
+								Assert.assertEquals(expected.get(keyType), jl.get(keyType));
+							}
+							return null;
+						}
+					}));
+				}
+				latch.countDown();
+				for (Future<Object> future : futures) {
+					future.get();
+				}
+				assertValues(expected, fromBytes(toBytes(jl)), keyTypes);
+			}
+		} finally {
+			es.shutdown();
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.jsonlite;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.data.jsonlite.JsonLite;
+import com.netcrest.pado.data.jsonlite.JsonLiteException;
+import com.netcrest.pado.data.jsonlite.JsonLiteParser;
+import com.netcrest.pado.data.jsonlite.JsonLiteParser.Event;
+import com.netcrest.pado.test.junit.jsonlite.JsonLiteLazyDeserializationTest.WideKeyType;
+
+/**
+ * JsonLiteParserTest verifies JsonLiteParser against JsonLiteTokenizer, i.e.,
+ * {@link JsonLite#JsonLite(String)}, including empty and truncated input and
+ * characters spanning the stream buffer boundaries. This test does not require
+ * a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings("rawtypes")
+public class JsonLiteParserTest
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String JSON = "{\"Name\":\"J\\u00f6rg \u00e9\u4e2d\ud83d\ude00\", \"Count\":12, \"Big\":12345678901,"
+			+ "\"Price\":12.5, \"Exp\":-1.5e3, \"Flag\":true, \"Off\":false, \"None\":null,"
+			+ "\"List\":[1, \"two\", 3.0], \"Child\":{\"Id\":\"c1\", \"Tags\":[]}, \"Zero\":-0}";
+
+	private static String createRecord(int i)
+	{
+		return "{\"Id\":\"id" + i + "\",\"Name\":\"name " + i + "\",\"Qty\":" + i + ",\"Price\":" + (i + 0.25)
+				+ ",\"Active\":" + (i % 2 == 0) + ",\"Note\":\"line\\n" + i + "\"}";
+	}
+
+	@Test
+	public void testEvents()
+	{
+		System.out.println("JsonLiteParserTest.testEvents()");
+		JsonLiteParser parser = new JsonLiteParser("{\"a\":[1,\"x\",null],\"b\":{}} [true]".getBytes(UTF8));
+		Event[] expected = { Event.START_OBJECT, Event.FIELD_NAME, Event.START_ARRAY, Event.VALUE_NUMBER,
+				Event.VALUE_STRING, Event.VALUE_NULL, Event.END_ARRAY, Event.FIELD_NAME, Event.START_OBJECT,
+				Event.END_OBJECT, Event.END_OBJECT, Event.START_ARRAY, Event.VALUE_TRUE, Event.END_ARRAY };
+		for (Event event : expected) {
+			Assert.assertEquals(event, parser.next());
+			if (event == Event.FIELD_NAME) {
+				Assert.assertTrue(parser.isString("a") || parser.isString("b"));
+			}
+		}
+		Assert.assertNull(parser.next());
+
+		try {
+			new JsonLiteParser("{\"a\" 1}".getBytes(UTF8)).readJsonLite(null);
+			Assert.fail("Syntax error expected");
+		} catch (JsonLiteException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSameAsTokenizer()
+	{
+		System.out.println("JsonLiteParserTest.testSameAsTokenizer()");
+		JsonLite expected = new JsonLite(JSON);
+		JsonLite actual = new JsonLiteParser(JSON.getBytes(UTF8)).readJsonLite(null);
+		for (Object key : expected.keySet()) {
+			Object expectedValue = expected.get(key);
+			Object actualValue = actual.get(key);
+			if (expectedValue instanceof Object[]) {
+				Assert.assertArrayEquals((Object[]) expectedValue, (Object[]) actualValue);
+			} else if (expectedValue instanceof JsonLite) {
+				Assert.assertEquals(((JsonLite) expectedValue).get("Id"), ((JsonLite) actualValue).get("Id"));
+			} else {
+				Assert.assertEquals(key.toString(), expectedValue, actualValue);
+			}
+		}
+		Assert.assertEquals(expected.size(), actual.size());
+
+		// Direct buffer
+		ByteBuffer byteBuffer = ByteBuffer.allocateDirect(JSON.length() * 4);
+		byteBuffer.put(JSON.getBytes(UTF8));
+		byteBuffer.flip();
+		Assert.assertEquals(expected.get("Name"), new JsonLiteParser(byteBuffer).readJsonLite(null).get("Name"));
+	}
+
+	@Test
+	public void testKeyType()
+	{
+		System.out.println("JsonLiteParserTest.testKeyType()");
+		WideKeyType[] keyTypes = WideKeyType.create(50);
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = keyTypes.length - 1; i >= 0; i--) {
+			sb.append("\"").append(keyTypes[i].getName()).append("\":\"v").append(i).append("\"");
+			if (i > 0) {
+				sb.append(",");
+			}
+		}
+		sb.append("}");
+		JsonLite jl = new JsonLiteParser(sb.toString().getBytes(UTF8)).readJsonLite(keyTypes[0]);
+		Assert.assertEquals(keyTypes[0], jl.getKeyType());
+		for (int i = 0; i < keyTypes.length; i++) {
+			Assert.assertEquals("v" + i, jl.get(keyTypes[i]));
+		}
+
+		try {
+			new JsonLiteParser("{\"Undefined\":1}".getBytes(UTF8)).readJsonLite(keyTypes[0]);
+			Assert.fail("Invalid key expected");
+		} catch (JsonLiteException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testJsonLines() throws Exception
+	{
+		System.out.println("JsonLiteParserTest.testJsonLines()");
+		StringBuilder sb = new StringBuilder();
+		int count = 2000;
+		for (int i = 0; i < count; i++) {
+			sb.append(createRecord(i)).append("\n");
+		}
+		JsonLiteParser parser = new JsonLiteParser(new ByteArrayInputStream(sb.toString().getBytes(UTF8)));
+		List<JsonLite> list = parser.readAll(null);
+		parser.close();
+		Assert.assertEquals(count, list.size());
+		for (int i = 0; i < count; i++) {
+			JsonLite expected = new JsonLite(createRecord(i));
+			JsonLite actual = list.get(i);
+			for (Object key : expected.keySet()) {
+				Assert.assertEquals(expected.get(key), actual.get(key));
+			}
+		}
+	}
+
+	@Test
+	public void testEdgeCases() throws Exception
+	{
+		System.out.println("JsonLiteParserTest.testEdgeCases()");
+		// Empty input
+		Assert.assertNull(new JsonLiteParser(new byte[0]).readJsonLite(null));
+		Assert.assertTrue(new JsonLiteParser(" \r\n\n ".getBytes(UTF8)).readAll(null).isEmpty());
+		Assert.assertEquals(0, new JsonLiteParser("{}".getBytes(UTF8)).readJsonLite(null).size());
+
+		// Truncated input
+		try {
+			new JsonLiteParser("{\"a\":1".getBytes(UTF8)).readJsonLite(null);
+			Assert.fail("Unexpected end of input expected");
+		} catch (JsonLiteException ex) {
+			// expected
+		}
+
+		// CRLF and blank lines
+		String lines = createRecord(1) + "\r\n\r\n" + createRecord(2) + "\r\n";
+		List<JsonLite> list = new JsonLiteParser(new ByteArrayInputStream(lines.getBytes(UTF8))).readAll(null);
+		Assert.assertEquals(2, list.size());
+		Assert.assertEquals("id2", list.get(1).get("Id"));
+
+		// Multi-byte characters spanning the stream buffer boundaries
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			sb.append(i % 3 == 0 ? "\u00e9" : i % 3 == 1 ? "\u4e2d" : "\ud83d\ude00");
+		}
+		String json = "{\"Text\":\"" + sb + "\"}";
+		JsonLiteParser parser = new JsonLiteParser(new ByteArrayInputStream(json.getBytes(UTF8)));
+		Assert.assertEquals(new JsonLite(json).get("Text"), parser.readJsonLite(null).get("Text"));
+		Assert.assertNull(parser.readJsonLite(null));
+		parser.close();
+	}
+}
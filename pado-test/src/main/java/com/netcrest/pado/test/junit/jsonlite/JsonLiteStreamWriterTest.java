@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.jsonlite;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.data.jsonlite.JsonLite;
+import com.netcrest.pado.data.jsonlite.JsonLiteStreamWriter;
+import com.netcrest.pado.test.junit.jsonlite.JsonLiteLazyDeserializationTest.WideKeyType;
+
+/**
+ * JsonLiteStreamWriterTest verifies that JsonLiteStreamWriter produces the same
+ * JSON text as {@link JsonLite#toJsonString(boolean, boolean)}, including
+ * JSON lines written to an output stream. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class JsonLiteStreamWriterTest
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static JsonLite createJsonLite(int i)
+	{
+		JsonLite jl = new JsonLite();
+		jl.put("Id", "id" + i);
+		jl.put("Name", "J\u00f6rg \"" + i + "\" </tag>\t\u4e2d\ud83d\ude00\u2028");
+		jl.put("Qty", i);
+		jl.put("Big", -12345678901L * i);
+		jl.put("Price", i + 0.25);
+		jl.put("Active", i % 2 == 0);
+		jl.put("None", null);
+		jl.put("Date", new Date(1400000000000L + i));
+		jl.put("Array", new Object[] { 1, "two", 3.5 });
+		jl.put("Ints", new int[] { i, -i });
+		List list = new ArrayList();
+		list.add("a" + i);
+		list.add("b" + i);
+		jl.put("List", list);
+		Map map = new HashMap();
+		map.put("k" + i, i);
+		jl.put("Map", map);
+		JsonLite child = new JsonLite();
+		child.put("ChildId", "c" + i);
+		child.put("Tags", new String[0]);
+		jl.put("Child", child);
+		return jl;
+	}
+
+	private static String toString(JsonLite jl, boolean isReference, boolean isHeader) throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		new JsonLiteStreamWriter(sb).write(jl, isReference, isHeader).flush();
+		return sb.toString();
+	}
+
+	private static byte[] toBytes(JsonLite jl, boolean isReference, boolean isHeader) throws Exception
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		JsonLiteStreamWriter writer = new JsonLiteStreamWriter(baos);
+		writer.write(jl, isReference, isHeader).close();
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void testSameAsToString() throws Exception
+	{
+		System.out.println("JsonLiteStreamWriterTest.testSameAsToString()");
+		for (int i = 0; i < 10; i++) {
+			JsonLite jl = createJsonLite(i);
+			String expected = jl.toJsonString();
+			Assert.assertEquals(expected, toString(jl, false, false));
+			Assert.assertArrayEquals(expected.getBytes(UTF8), toBytes(jl, false, false));
+		}
+		Assert.assertEquals(new JsonLite().toJsonString(), toString(new JsonLite(), false, false));
+	}
+
+	@Test
+	public void testKeyType() throws Exception
+	{
+		System.out.println("JsonLiteStreamWriterTest.testKeyType()");
+		WideKeyType[] keyTypes = WideKeyType.create(50);
+		JsonLite jl = new JsonLite(keyTypes[0]);
+		for (int i = 0; i < keyTypes.length; i++) {
+			jl.put(keyTypes[i], "value \"" + i + "\"\n");
+		}
+		for (boolean isHeader : new boolean[] { false, true }) {
+			String expected = jl.toJsonString(false, isHeader);
+			Assert.assertEquals(expected, toString(jl, false, isHeader));
+			Assert.assertArrayEquals(expected.getBytes(UTF8), toBytes(jl, false, isHeader));
+			// Cached field names
+			Assert.assertEquals(expected, toString(jl, false, isHeader));
+		}
+	}
+
+	@Test
+	public void testLargeValue() throws Exception
+	{
+		System.out.println("JsonLiteStreamWriterTest.testLargeValue()");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.append("\ud83d\ude00\u00e9/\\x");
+		}
+		JsonLite jl = new JsonLite();
+		jl.put("Large", sb.toString());
+		String expected = jl.toJsonString();
+		Assert.assertEquals(expected, toString(jl, false, false));
+		Assert.assertArrayEquals(expected.getBytes(UTF8), toBytes(jl, false, false));
+	}
+
+	@Test
+	public void testJsonLines() throws Exception
+	{
+		System.out.println("JsonLiteStreamWriterTest.testJsonLines()");
+		StringBuilder expected = new StringBuilder();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		JsonLiteStreamWriter writer = new JsonLiteStreamWriter(baos);
+		for (int i = 0; i < 1000; i++) {
+			JsonLite jl = createJsonLite(i);
+			expected.append(jl.toJsonString()).append('\n');
+			writer.write(jl).newLine();
+		}
+		writer.flush();
+		Assert.assertArrayEquals(expected.toString().getBytes(UTF8), baos.toByteArray());
+
+		// Nothing written
+		baos.reset();
+		new JsonLiteStreamWriter(baos).close();
+		Assert.assertEquals(0, baos.size());
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.jsonlite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.netcrest.pado.data.jsonlite.JsonLite;
+import com.netcrest.pado.gemfire.util.DataSerializerEx;
+import com.netcrest.pado.test.junit.jsonlite.JsonLiteLazyDeserializationTest.WideKeyType;
+
+/**
+ * JsonLiteWriteDataTest verifies that the payload written with the pooled
+ * buffers has the expected layout, including values that outgrow the pooled
+ * buffers and concurrent writes. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class JsonLiteWriteDataTest
+{
+	private static JsonLite createJsonLite(WideKeyType[] keyTypes)
+	{
+		JsonLite jl = new JsonLite(keyTypes[0]);
+		for (int i = 0; i < keyTypes.length; i++) {
+			jl.put(keyTypes[i], "value-" + i);
+		}
+		return jl;
+	}
+
+	/**
+	 * Returns the expected serialized form built independently with
+	 * DataSerializer. All fields but the first are keep-serialized.
+	 */
+	private static byte[] getExpectedBytes(JsonLite jl, WideKeyType[] keyTypes) throws Exception
+	{
+		ByteArrayOutputStream keepBaos = new ByteArrayOutputStream();
+		DataOutputStream keepDos = new DataOutputStream(keepBaos);
+		ByteArrayOutputStream baos2 = new ByteArrayOutputStream();
+		DataOutputStream dos2 = new DataOutputStream(baos2);
+		int[] offsets = new int[keyTypes.length];
+		int offsetCount = 0;
+		for (int i = 0; i < keyTypes.length; i++) {
+			if (keyTypes[i].isKeyKeepSerialized()) {
+				offsets[offsetCount++] = keepDos.size();
+				DataSerializerEx.write(String.class, jl.get(keyTypes[i]), keepDos);
+			} else {
+				DataSerializerEx.write(String.class, jl.get(keyTypes[i]), dos2);
+			}
+		}
+		int tableOffset = keepDos.size();
+		for (int i = 0; i < offsetCount; i++) {
+			keepDos.writeInt(offsets[i]);
+		}
+		keepDos.writeInt(tableOffset);
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeByte(0x3); // key type and offset table flags
+		UUID id = (UUID) keyTypes[0].getId();
+		dos.writeLong(id.getMostSignificantBits());
+		dos.writeLong(id.getLeastSignificantBits());
+		DataSerializer.writeUnsignedShort(keyTypes[0].getVersion(), dos);
+		DataSerializer.writeHashMap(null, dos);
+		DataSerializer.writeByteArray(keepBaos.toByteArray(), dos);
+		DataSerializer.writeByteArray(baos2.toByteArray(), dos);
+		dos.close();
+		return baos.toByteArray();
+	}
+
+	private static byte[] toBytes(JsonLite jl) throws Exception
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		jl.toData(dos);
+		dos.close();
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void testSameBytes() throws Exception
+	{
+		System.out.println("JsonLiteWriteDataTest.testSameBytes()");
+		for (int fieldCount : new int[] { 1, 50, 500 }) {
+			WideKeyType[] keyTypes = WideKeyType.create(fieldCount);
+			JsonLite jl = createJsonLite(keyTypes);
+			byte[] expected = getExpectedBytes(jl, keyTypes);
+			Assert.assertArrayEquals(expected, toBytes(jl));
+			// Reused buffers
+			Assert.assertArrayEquals(expected, toBytes(jl));
+		}
+	}
+
+	@Test
+	public void testLargeValue() throws Exception
+	{
+		System.out.println("JsonLiteWriteDataTest.testLargeValue()");
+		WideKeyType[] keyTypes = WideKeyType.create(10);
+		JsonLite jl = createJsonLite(keyTypes);
+		char[] chars = new char[2 * 1024 * 1024];
+		Arrays.fill(chars, 'x');
+		jl.put(keyTypes[5], new String(chars));
+		Assert.assertArrayEquals(getExpectedBytes(jl, keyTypes), toBytes(jl));
+
+		// Buffers grown past the limit are not reused
+		jl = createJsonLite(keyTypes);
+		Assert.assertArrayEquals(getExpectedBytes(jl, keyTypes), toBytes(jl));
+	}
+
+	@Test
+	public void testConcurrentWrites() throws Exception
+	{
+		System.out.println("JsonLiteWriteDataTest.testConcurrentWrites()");
+		int threadCount = 8;
+		ExecutorService es = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				final int fieldCount = 10 + t * 20;
+				futures.add(es.submit(new Callable<Object>() {
+					public Object call() throws Exception
+					{
+						WideKeyType[] keyTypes = WideKeyType.create(fieldCount);
+						JsonLite jl = createJsonLite(keyTypes);
+						byte[] expected = getExpectedBytes(jl, keyTypes);
+						for (int i = 0; i < 1000; i++) {
+							Assert.assertArrayEquals(expected, toBytes(jl));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} finally {
+			es.shutdown();
+		}
+	}
+}
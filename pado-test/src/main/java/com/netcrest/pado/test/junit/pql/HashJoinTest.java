@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.pql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.data.KeyMap;
+import com.netcrest.pado.data.jsonlite.JsonLite;
+import com.netcrest.pado.pql.HashJoin;
+
+/**
+ * HashJoinTest verifies HashJoin against a nested loop join with the hash
+ * table built on either side, including records with missing keys, duplicate
+ * records and multiple join keys. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class HashJoinTest
+{
+	private static final String[] ORDER_KEYS = new String[] { "CustomerID" };
+	private static final String[] CUSTOMER_KEYS = new String[] { "CustomerID" };
+
+	/**
+	 * Collects joined records as "source index:joining indexes".
+	 */
+	private static class CollectingHandler implements HashJoin.JoinHandler
+	{
+		final List<KeyMap> sourceList;
+		final List<KeyMap> joiningList;
+		final List<String> joinedList = new ArrayList<String>();
+
+		CollectingHandler(List<KeyMap> sourceList, List<KeyMap> joiningList)
+		{
+			this.sourceList = sourceList;
+			this.joiningList = joiningList;
+		}
+
+		@Override
+		public void joined(KeyMap sourceKeyMap, List<KeyMap> list)
+		{
+			StringBuilder buffer = new StringBuilder();
+			buffer.append(indexOf(sourceList, sourceKeyMap)).append(":");
+			for (KeyMap keyMap : list) {
+				buffer.append(indexOf(joiningList, keyMap)).append(" ");
+			}
+			joinedList.add(buffer.toString());
+		}
+
+		private static int indexOf(List<KeyMap> list, KeyMap keyMap)
+		{
+			for (int i = 0; i < list.size(); i++) {
+				if (list.get(i) == keyMap) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private static List<KeyMap> createOrders(int count, int customerCount, Random random)
+	{
+		List<KeyMap> list = new ArrayList<KeyMap>(count);
+		for (int i = 0; i < count; i++) {
+			JsonLite jl = new JsonLite();
+			jl.put("OrderID", i);
+			// Some orders have no customer
+			if (i % 17 != 0) {
+				jl.put("CustomerID", "c" + random.nextInt(customerCount));
+			}
+			list.add(jl);
+		}
+		return list;
+	}
+
+	private static List<KeyMap> createCustomers(int count)
+	{
+		List<KeyMap> list = new ArrayList<KeyMap>(count);
+		for (int i = 0; i < count; i++) {
+			JsonLite jl = new JsonLite();
+			// Every 10th customer is not referenced and every 7th customer
+			// is duplicated.
+			jl.put("CustomerID", "c" + (i % 10 == 9 ? count + i : i));
+			jl.put("Name", "Customer " + i);
+			list.add(jl);
+			if (i % 7 == 0) {
+				list.add(jl);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns true if the specified record has none of the specified keys.
+	 */
+	private static boolean isAllNull(KeyMap keyMap, String[] keys)
+	{
+		for (String key : keys) {
+			if (keyMap.get(key) != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the values of the source keys are equal to the values
+	 * of the joining keys position by position.
+	 */
+	private static boolean matches(KeyMap sourceKeyMap, String[] sourceKeys, KeyMap joiningKeyMap,
+			String[] joiningKeys)
+	{
+		for (int i = 0; i < sourceKeys.length; i++) {
+			Object sourceValue = sourceKeyMap.get(sourceKeys[i]);
+			Object joiningValue = joiningKeyMap.get(joiningKeys[i]);
+			if (sourceValue == null ? joiningValue != null : sourceValue.equals(joiningValue) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Joins by scanning the joining list for each source record.
+	 */
+	private static void nestedLoopJoin(List<KeyMap> sourceList, String[] sourceKeys, List<KeyMap> joiningList,
+			String[] joiningKeys, HashJoin.JoinHandler handler)
+	{
+		for (KeyMap sourceKeyMap : sourceList) {
+			if (isAllNull(sourceKeyMap, sourceKeys)) {
+				continue;
+			}
+			List<KeyMap> list = null;
+			for (KeyMap joiningKeyMap : joiningList) {
+				if (matches(sourceKeyMap, sourceKeys, joiningKeyMap, joiningKeys)) {
+					if (list == null) {
+						list = new ArrayList<KeyMap>();
+					}
+					list.add(joiningKeyMap);
+				}
+			}
+			if (list != null) {
+				handler.joined(sourceKeyMap, list);
+			}
+		}
+	}
+
+	private static void assertJoin(List<KeyMap> sourceList, String[] sourceKeys, List<KeyMap> joiningList,
+			String[] joiningKeys)
+	{
+		CollectingHandler expected = new CollectingHandler(sourceList, joiningList);
+		nestedLoopJoin(sourceList, sourceKeys, joiningList, joiningKeys, expected);
+		CollectingHandler actual = new CollectingHandler(sourceList, joiningList);
+		int count = HashJoin.join(sourceList, sourceKeys, joiningList, joiningKeys, actual);
+		Assert.assertEquals(expected.joinedList.size(), count);
+		Assert.assertEquals(expected.joinedList, actual.joinedList);
+	}
+
+	@Test
+	public void testJoin()
+	{
+		System.out.println("HashJoinTest.testJoin()");
+		Random random = new Random(1);
+		List<KeyMap> customerList = createCustomers(100);
+
+		// Hash table on the joining list
+		assertJoin(createOrders(1000, 120, random), ORDER_KEYS, customerList, CUSTOMER_KEYS);
+
+		// Hash table on the source list
+		assertJoin(createOrders(20, 120, random), ORDER_KEYS, customerList, CUSTOMER_KEYS);
+		assertJoin(customerList, CUSTOMER_KEYS, createOrders(1000, 120, random), ORDER_KEYS);
+
+		// Empty lists
+		assertJoin(new ArrayList<KeyMap>(), ORDER_KEYS, customerList, CUSTOMER_KEYS);
+		assertJoin(customerList, CUSTOMER_KEYS, new ArrayList<KeyMap>(), ORDER_KEYS);
+		Assert.assertEquals(0, HashJoin.join(null, ORDER_KEYS, customerList, CUSTOMER_KEYS,
+				new CollectingHandler(null, customerList)));
+	}
+
+	@Test
+	public void testDistinctValues()
+	{
+		System.out.println("HashJoinTest.testDistinctValues()");
+		List list = new ArrayList();
+		String[] values = new String[] { "b", " a ", "b", "", null, "c" };
+		for (String value : values) {
+			JsonLite jl = new JsonLite();
+			jl.put("Value", value);
+			list.add(jl);
+		}
+		JsonLite jl = new JsonLite();
+		jl.put("Value", Arrays.asList("d", "a", " ", null));
+		list.add(jl);
+		list.add("not a key map");
+
+		Set<String> set = HashJoin.getDistinctValues(list, "Value");
+		Assert.assertEquals(Arrays.asList("b", "a", "c", "d"), new ArrayList<String>(set));
+		Assert.assertTrue(HashJoin.getDistinctValues(list, "Undefined").isEmpty());
+	}
+
+	@Test
+	public void testMultipleKeys()
+	{
+		System.out.println("HashJoinTest.testMultipleKeys()");
+		List<KeyMap> sourceList = new ArrayList<KeyMap>();
+		List<KeyMap> joiningList = new ArrayList<KeyMap>();
+		for (int i = 0; i < 50; i++) {
+			JsonLite jl = new JsonLite();
+			jl.put("CustomerID", "c" + i % 5);
+			// Some records have only one of the keys
+			if (i % 11 != 0) {
+				jl.put("ShipVia", i % 3);
+			}
+			sourceList.add(jl);
+			jl = new JsonLite();
+			jl.put("CustID", "c" + i % 7);
+			jl.put("ShipperID", i % 4);
+			joiningList.add(jl);
+		}
+		String[] sourceKeys = new String[] { "CustomerID", "ShipVia" };
+		String[] joiningKeys = new String[] { "CustID", "ShipperID" };
+		assertJoin(sourceList, sourceKeys, joiningList, joiningKeys);
+		assertJoin(sourceList.subList(0, 5), sourceKeys, joiningList, joiningKeys);
+	}
+
+	@Test
+	public void testMissingKeyValues()
+	{
+		System.out.println("HashJoinTest.testMissingKeyValues()");
+		String[] sourceKeys = new String[] { "CustomerID", "ShipVia" };
+		String[] joiningKeys = new String[] { "CustID", "ShipperID" };
+		List<KeyMap> sourceList = new ArrayList<KeyMap>();
+		JsonLite jl = new JsonLite();
+		jl.put("CustomerID", "c1");
+		sourceList.add(jl);
+		jl = new JsonLite();
+		jl.put("ShipVia", "c1");
+		sourceList.add(jl);
+		sourceList.add(new JsonLite());
+
+		List<KeyMap> joiningList = new ArrayList<KeyMap>();
+		jl = new JsonLite();
+		jl.put("ShipperID", "c1");
+		joiningList.add(jl);
+		jl = new JsonLite();
+		jl.put("CustID", "c1");
+		joiningList.add(jl);
+		joiningList.add(new JsonLite());
+
+		// Missing values are kept in their positions
+		Assert.assertEquals(Arrays.asList((Object) "c1", null), HashJoin.createKeyList(sourceList.get(0), sourceKeys));
+		Assert.assertEquals(Arrays.asList(null, (Object) "c1"), HashJoin.createKeyList(sourceList.get(1), sourceKeys));
+		Assert.assertTrue(HashJoin.createKeyList(sourceList.get(2), sourceKeys).isEmpty());
+
+		// The same value of different keys does not match and records with
+		// none of the keys are not joined.
+		CollectingHandler handler = new CollectingHandler(sourceList, joiningList);
+		Assert.assertEquals(2, HashJoin.join(sourceList, sourceKeys, joiningList, joiningKeys, handler));
+		Assert.assertEquals(Arrays.asList("0:1 ", "1:0 "), handler.joinedList);
+		assertJoin(sourceList, sourceKeys, joiningList, joiningKeys);
+		assertJoin(sourceList.subList(0, 1), sourceKeys, joiningList, joiningKeys);
+	}
+}
@@ -18,8 +18,13 @@ package com.netcrest.pado.test.junit.pql;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -27,6 +32,7 @@ import com.netcrest.pado.IPado;
 import com.netcrest.pado.Pado;
 import com.netcrest.pado.biz.ITemporalBiz;
 import com.netcrest.pado.biz.impl.gemfire.VirtualPathEntityFinder;
+import com.netcrest.pado.data.KeyMap;
 import com.netcrest.pado.data.jsonlite.JsonLite;
 import com.netcrest.pado.exception.PadoLoginException;
 import com.netcrest.pado.server.VirtualPathEngine;
@@ -75,4 +81,49 @@ public class VirtualPathEntityFinderTest
 		JsonLite result = (JsonLite)finder.getReferences(pado.getCatalog(), "nw/vp_order", order, 1, -1, -1, null);
 		System.out.println(result.toString(4, false, false));
 	}
+
+	/**
+	 * Resolves the references of the same orders one order at a time and
+	 * set-at-a-time. The results must be the same.
+	 */
+	@Test
+	public void testKeyMapCollectionReferences() throws FileNotFoundException, IOException
+	{
+		System.out.println("VirtualPathEntityFinderTest.testKeyMapCollectionReferences()");
+		System.out.println("---------------------------------------------------------------");
+		File file = new File("db/vp/nw.vp_order.json");
+		JsonLite vpd = new JsonLite(file);
+		VirtualPathEngine.getVirtualPathEngine().addVirtualPathDefinition(pado.getCatalog(), vpd);
+
+		// Northwind order IDs range from 10248 to 11077
+		ITemporalBiz temporalBiz = pado.getCatalog().newInstance(ITemporalBiz.class, "nw/orders");
+		List<String> orderIdList = new ArrayList<String>();
+		for (int i = 10248; i <= 11077; i++) {
+			orderIdList.add(Integer.toString(i));
+		}
+		Map<String, JsonLite> orderMap = temporalBiz.getAll(orderIdList);
+		Assert.assertFalse(orderMap.isEmpty());
+
+		// References are resolved in place. Resolve copies of the same orders.
+		List<JsonLite> singleList = new ArrayList<JsonLite>(orderMap.size());
+		List<JsonLite> collectionList = new ArrayList<JsonLite>(orderMap.size());
+		for (JsonLite order : orderMap.values()) {
+			singleList.add((JsonLite) order.clone());
+			collectionList.add((JsonLite) order.clone());
+		}
+
+		VirtualPathEntityFinder finder = new VirtualPathEntityFinder();
+		List<String> expectedList = new ArrayList<String>(singleList.size());
+		for (JsonLite order : singleList) {
+			KeyMap result = finder.getReferences(pado.getCatalog(), "nw/vp_order", order, 1, -1, -1, null);
+			expectedList.add(result.toString());
+		}
+		Collection<KeyMap> results = finder.getKeyMapCollectionReferences(pado.getCatalog(), "nw/vp_order",
+				(List) collectionList, 1, -1, -1, null);
+		Assert.assertEquals(expectedList.size(), results.size());
+		int i = 0;
+		for (KeyMap result : results) {
+			Assert.assertEquals(expectedList.get(i++), result.toString());
+		}
+	}
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.internal.util.PartitionedQueueDispatcher;
+import com.netcrest.pado.internal.util.QueueDispatcherListener;
+import com.netcrest.pado.internal.util.QueueDispatcherMultiplexerPool;
+
+/**
+ * PartitionedQueueDispatcherTest verifies that the events of each partition
+ * key are dispatched in order by a single partition for one partition, a few
+ * partitions and more partitions than dispatcher threads. This test does not
+ * require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class PartitionedQueueDispatcherTest
+{
+	private static final int KEY_COUNT = 1000;
+	private static final int EVENTS_PER_KEY = 200;
+
+	static class Event
+	{
+		final Integer key;
+		final int seq;
+
+		Event(Integer key, int seq)
+		{
+			this.key = key;
+			this.seq = seq;
+		}
+	}
+
+	static class PartitionListener implements QueueDispatcherListener
+	{
+		final int partition;
+		final Map<Integer, Integer> lastSeqMap = new HashMap<Integer, Integer>();
+		final Map<Integer, Integer> ownerMap;
+		final AtomicInteger dispatchedCount;
+		volatile boolean outOfOrder;
+		volatile boolean wrongPartition;
+
+		PartitionListener(int partition, Map<Integer, Integer> ownerMap, AtomicInteger dispatchedCount)
+		{
+			this.partition = partition;
+			this.ownerMap = ownerMap;
+			this.dispatchedCount = dispatchedCount;
+		}
+
+		@Override
+		public void objectDispatched(Object obj)
+		{
+			List<?> list = (List<?>) obj;
+			for (Object o : list) {
+				Event event = (Event) o;
+				Integer owner = ownerMap.putIfAbsent(event.key, partition);
+				if (owner != null && owner != partition) {
+					wrongPartition = true;
+				}
+				Integer lastSeq = lastSeqMap.put(event.key, event.seq);
+				if (lastSeq != null && lastSeq + 1 != event.seq) {
+					outOfOrder = true;
+				}
+			}
+			dispatchedCount.addAndGet(list.size());
+		}
+	}
+
+	private void run(String tag, int partitionCount) throws InterruptedException
+	{
+		Map<Integer, Integer> ownerMap = new ConcurrentHashMap<Integer, Integer>();
+		AtomicInteger dispatchedCount = new AtomicInteger();
+		PartitionListener[] listeners = new PartitionListener[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			listeners[i] = new PartitionListener(i, ownerMap, dispatchedCount);
+		}
+		PartitionedQueueDispatcher dispatcher = QueueDispatcherMultiplexerPool.getQueueDispatcherMultiplexerPool()
+				.addPartitionedQueueDispatcherListener(tag, listeners);
+		dispatcher.setTimeInterval(10);
+		Assert.assertEquals(partitionCount, dispatcher.getPartitionCount());
+
+		Set<Object> multiplexerSet = new HashSet<Object>();
+		for (int i = 0; i < partitionCount; i++) {
+			multiplexerSet.add(dispatcher.getMultiplexer(i));
+		}
+		int threadCount = Runtime.getRuntime().availableProcessors() * 2;
+		Assert.assertEquals(Math.min(partitionCount, threadCount), multiplexerSet.size());
+
+		int total = KEY_COUNT * EVENTS_PER_KEY;
+		for (int seq = 0; seq < EVENTS_PER_KEY; seq++) {
+			for (int key = 0; key < KEY_COUNT; key++) {
+				dispatcher.enqueue(key, new Event(key, seq));
+			}
+		}
+		long timeout = System.currentTimeMillis() + 60000;
+		while (dispatchedCount.get() < total && System.currentTimeMillis() < timeout) {
+			Thread.sleep(1);
+		}
+		QueueDispatcherMultiplexerPool.getQueueDispatcherMultiplexerPool().removeQueueDispatcherListener(tag);
+
+		Assert.assertEquals(total, dispatchedCount.get());
+		for (PartitionListener listener : listeners) {
+			Assert.assertFalse("Events dispatched out of order", listener.outOfOrder);
+			Assert.assertFalse("Key dispatched by more than one partition", listener.wrongPartition);
+		}
+		Assert.assertEquals(KEY_COUNT, ownerMap.size());
+	}
+
+	@Test
+	public void testPartitionOrder() throws InterruptedException
+	{
+		System.out.println("PartitionedQueueDispatcherTest.testPartitionOrder()");
+		run("/mygrid/partitionOrder", 4);
+	}
+
+	@Test
+	public void testSinglePartition() throws InterruptedException
+	{
+		System.out.println("PartitionedQueueDispatcherTest.testSinglePartition()");
+		run("/mygrid/singlePartition", 1);
+	}
+
+	@Test
+	public void testMorePartitionsThanThreads() throws InterruptedException
+	{
+		System.out.println("PartitionedQueueDispatcherTest.testMorePartitionsThanThreads()");
+		int threadCount = Runtime.getRuntime().availableProcessors() * 2;
+		run("/mygrid/partitionShared", threadCount + 3);
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2013-2015 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netcrest.pado.test.junit.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netcrest.pado.internal.util.QueueDispatcherListener;
+import com.netcrest.pado.internal.util.QueueDispatcherMultiplexer;
+import com.netcrest.pado.internal.util.QueueDispatcherMultiplexer.Backpressure;
+import com.netcrest.pado.internal.util.QueueDispatcherMultiplexer.DispatchMode;
+
+/**
+ * QueueDispatcherMultiplexerTest verifies the ring buffer dispatch mode
+ * against the queue mode, i.e., the events are dispatched once and in order
+ * with each backpressure policy, across ring wrap-arounds and with concurrent
+ * producers. This test does not require a grid.
+ *
+ * @author dpark
+ *
+ */
+public class QueueDispatcherMultiplexerTest
+{
+	private static final String TAG = "/mygrid/test";
+
+	static class CollectingListener implements QueueDispatcherListener
+	{
+		List<Object> events = new ArrayList<Object>();
+
+		@Override
+		public synchronized void objectDispatched(Object obj)
+		{
+			// The ring mode reuses the batch list. Copy it.
+			events.addAll((Collection<?>) obj);
+		}
+	}
+
+	private QueueDispatcherMultiplexer createMultiplexer()
+	{
+		QueueDispatcherMultiplexer multiplexer = new QueueDispatcherMultiplexer(null, "QueueDispatcherMultiplexerTest");
+		multiplexer.setTimeInterval(10);
+		return multiplexer;
+	}
+
+	private void assertInOrder(List<Object> events, int count)
+	{
+		Assert.assertEquals(count, events.size());
+		for (int i = 0; i < count; i++) {
+			Assert.assertEquals(i, events.get(i));
+		}
+	}
+
+	@Test
+	public void testRingSpill()
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testRingSpill()");
+		QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, DispatchMode.RING, 1000, Backpressure.SPILL);
+		multiplexer.pause(TAG);
+		int count = 5000;
+		for (int i = 0; i < count; i++) {
+			multiplexer.enqueue(TAG, i);
+		}
+		Assert.assertEquals(count, multiplexer.getBacklog(TAG));
+		Assert.assertEquals(count - 1024, multiplexer.getSpillCount(TAG));
+		multiplexer.flush(TAG);
+		Assert.assertEquals(0, multiplexer.getBacklog(TAG));
+		Assert.assertEquals(0, multiplexer.getSpillCount(TAG));
+		assertInOrder(listener.events, count);
+	}
+
+	@Test
+	public void testRingDrop()
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testRingDrop()");
+		QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, DispatchMode.RING, 1024, Backpressure.DROP);
+		multiplexer.pause(TAG);
+		for (int i = 0; i < 2000; i++) {
+			multiplexer.enqueue(TAG, i);
+		}
+		Assert.assertEquals(1024, multiplexer.getBacklog(TAG));
+		Assert.assertEquals(2000 - 1024, multiplexer.getDroppedCount(TAG));
+		multiplexer.flush(TAG);
+		assertInOrder(listener.events, 1024);
+	}
+
+	@Test
+	public void testRingBlock() throws InterruptedException
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testRingBlock()");
+		QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		final CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, DispatchMode.RING, 64, Backpressure.BLOCK);
+		multiplexer.start();
+		int count = 100000;
+		for (int i = 0; i < count; i++) {
+			multiplexer.enqueue(TAG, i);
+		}
+		Assert.assertEquals(0, multiplexer.getSpillCount(TAG));
+		long timeout = System.currentTimeMillis() + 10000;
+		while (multiplexer.getBacklog(TAG) > 0 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		multiplexer.flush(TAG);
+		synchronized (listener) {
+			assertInOrder(listener.events, count);
+		}
+	}
+
+	@Test
+	public void testQueueMode()
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testQueueMode()");
+		QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, DispatchMode.QUEUE, 0, null);
+		multiplexer.pause(TAG);
+		int count = 5000;
+		for (int i = 0; i < count; i++) {
+			multiplexer.enqueue(TAG, i);
+		}
+		Assert.assertEquals(count, multiplexer.getBacklog(TAG));
+		multiplexer.flush(TAG);
+		Assert.assertEquals(0, multiplexer.getBacklog(TAG));
+		assertInOrder(listener.events, count);
+	}
+
+	/**
+	 * Producer threads enqueue events while the multiplexer is running. Each
+	 * event is the producer index times count plus the sequence number.
+	 */
+	private void assertConcurrentProducers(DispatchMode mode, int ringCapacity) throws InterruptedException
+	{
+		final QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, mode, ringCapacity, Backpressure.SPILL);
+		multiplexer.start();
+		final int producerCount = 4;
+		final int count = 20000;
+		Thread[] threads = new Thread[producerCount];
+		for (int i = 0; i < producerCount; i++) {
+			final int producer = i;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < count; j++) {
+						multiplexer.enqueue(TAG, producer * count + j);
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long timeout = System.currentTimeMillis() + 10000;
+		while (multiplexer.getBacklog(TAG) > 0 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		multiplexer.flush(TAG);
+
+		// All events dispatched once and in order per producer
+		synchronized (listener) {
+			Assert.assertEquals(producerCount * count, listener.events.size());
+			int[] next = new int[producerCount];
+			for (Object event : listener.events) {
+				int value = (Integer) event;
+				int producer = value / count;
+				Assert.assertEquals(producer * count + next[producer], value);
+				next[producer]++;
+			}
+		}
+		Assert.assertEquals(0, multiplexer.getSpillCount(TAG));
+	}
+
+	@Test
+	public void testConcurrentProducers() throws InterruptedException
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testConcurrentProducers()");
+		assertConcurrentProducers(DispatchMode.QUEUE, 0);
+		assertConcurrentProducers(DispatchMode.RING, 1024);
+	}
+
+	@Test
+	public void testRingWrapAround()
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testRingWrapAround()");
+		QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, DispatchMode.RING, 64, Backpressure.DROP);
+		multiplexer.pause(TAG);
+		int count = 0;
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 50; j++) {
+				multiplexer.enqueue(TAG, count++);
+			}
+			multiplexer.flush(TAG);
+			Assert.assertEquals(0, multiplexer.getBacklog(TAG));
+		}
+		Assert.assertEquals(0, multiplexer.getDroppedCount(TAG));
+		assertInOrder(listener.events, count);
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		System.out.println("QueueDispatcherMultiplexerTest.testEmpty()");
+		QueueDispatcherMultiplexer multiplexer = createMultiplexer();
+		CollectingListener listener = new CollectingListener();
+		multiplexer.addQueueDispatcherListener(TAG, listener, DispatchMode.RING, 64, Backpressure.SPILL);
+		multiplexer.flush(TAG);
+		Assert.assertTrue(listener.events.isEmpty());
+		Assert.assertEquals(0, multiplexer.getBacklog(TAG));
+		Assert.assertEquals(0, multiplexer.getLag(TAG));
+
+		// Unknown tags are ignored
+		multiplexer.enqueue("/mygrid/undefined", 1);
+		Assert.assertEquals(0, multiplexer.getBacklog("/mygrid/undefined"));
+
+		// Cleared events are never dispatched
+		multiplexer.pause(TAG);
+		for (int i = 0; i < 100; i++) {
+			multiplexer.enqueue(TAG, i);
+		}
+		multiplexer.clear(TAG);
+		Assert.assertEquals(0, multiplexer.getBacklog(TAG));
+		multiplexer.flush(TAG);
+		Assert.assertTrue(listener.events.isEmpty());
+	}
+}